@@ -66,8 +66,12 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.io.InputStream;
 
 /**
@@ -153,6 +157,9 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
     private MessageService messageService;
     private TranslationManager translationManager;
     private TranslationCache translationCache;
+    private TranslationPrefetcher translationPrefetcher;
+    // Tap-to-translate requests in flight, cancelled when the activity is destroyed
+    private final Set<CompletableFuture<String>> pendingTranslations = ConcurrentHashMap.newKeySet();
     private UserPreferences userPreferences;
 
     // Gesture detection for pinch-to-zoom
@@ -171,6 +178,9 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
         translationManager = ((TranslatorApp) getApplication()).getTranslationManager();
         translationCache = ((TranslatorApp) getApplication()).getTranslationCache();
         userPreferences = new UserPreferences(this);
+        if (translationManager != null && translationCache != null) {
+            translationPrefetcher = new TranslationPrefetcher(translationManager, translationCache);
+        }
 
         // Get thread ID and address from intent
         threadId = getIntent().getStringExtra("thread_id");
@@ -238,6 +248,11 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
         currentlyActiveThreadId = null;
         Log.d(TAG, "Cleared active thread ID");
 
+        // Nobody will see prefetched translations until the thread is shown again
+        if (translationPrefetcher != null) {
+            translationPrefetcher.cancel();
+        }
+
         // Unregister message update receiver when activity is not visible
         if (messageUpdateReceiver != null) {
             try {
@@ -533,6 +548,9 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
 
                         // Check if we have more messages to load
                         hasMoreMessages = loadedMessages.size() >= PAGE_SIZE;
+
+                        // Translate this page and the next one before the user asks
+                        prefetchTranslations(loadedMessages, currentPage + 1);
                     } else {
                         Log.d(TAG, "No messages to add to UI list");
                         hasMoreMessages = false;
@@ -599,6 +617,39 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
         }
     }
 
+    /**
+     * Prefetches translations for the incoming messages of a loaded page and
+     * of the page the user would scroll to next. Only runs when auto-translate
+     * is enabled, since it sends messages for translation unasked.
+     *
+     * @param page The loaded page of messages
+     * @param nextPage The index of the next page, prefetched if there are more messages
+     */
+    private void prefetchTranslations(List<Message> page, int nextPage) {
+        if (translationPrefetcher == null || !userPreferences.isAutoTranslateEnabled()) {
+            return;
+        }
+
+        // Same language as tap-to-translate, so a tap finds the prefetched translation
+        String targetLanguage = userPreferences.getPreferredLanguage();
+        List<Message> pageSnapshot = new ArrayList<>(page);
+        boolean prefetchNextPage = hasMoreMessages;
+        try {
+            executorService.execute(() -> {
+                try {
+                    translationPrefetcher.prefetch(pageSnapshot, targetLanguage);
+                    if (prefetchNextPage) {
+                        translationPrefetcher.prefetch(loadMessagesPage(nextPage, PAGE_SIZE), targetLanguage);
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error prefetching translations", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.d(TAG, "Not prefetching translations, activity is finishing");
+        }
+    }
+
     /**
      * Sets up pagination for the RecyclerView
      */
@@ -649,6 +700,7 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
 
                         // Restore translation state for new messages
                         restoreTranslationStateForMessages(newMessages);
+                        prefetchTranslations(newMessages, currentPage + 1);
 
                         // Insert at the beginning (older messages)
                         messages.addAll(0, newMessages);
@@ -1908,50 +1960,68 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
         showLoadingIndicator();
 
         // Translate in background
+        AtomicBoolean showingPartial = new AtomicBoolean();
         executorService.execute(() -> {
-            translationManager.translateText(
+            CompletableFuture<String> translation = translationManager.translateTextAsync(
                     message.getBody(),
+                    null,
                     targetLanguage,
-                    new TranslationManager.EnhancedTranslationCallback() {
-                        @Override
-                        public android.app.Activity getActivity() {
-                            return ConversationActivity.this;
+                    true, // Force translation for messages
+                    TranslationScheduler.Priority.VISIBLE, // The user is looking at this message
+                    this,
+                    this,
+                    (translatedPrefix, translatedChunks, chunkCount) -> runOnUiThread(() -> {
+                        // Show a long message's translation as its leading chunks arrive
+                        if (translatedPrefix.isEmpty() || message.isTranslated() && !showingPartial.get()) {
+                            return;
                         }
+                        showingPartial.set(true);
+                        message.setTranslatedText(translatedPrefix);
+                        message.setShowTranslation(true);
+                        adapter.notifyItemChanged(position);
+                    }));
+            pendingTranslations.add(translation);
+            translation.whenComplete((translatedText, error) -> {
+                pendingTranslations.remove(translation);
+                if (translation.isCancelled()) {
+                    // The activity is gone, nobody is waiting for the result
+                    return;
+                }
+                runOnUiThread(() -> {
+                    hideLoadingIndicator();
 
-                        @Override
-                        public void onTranslationComplete(boolean success, String translatedText, String errorMessage) {
-                            runOnUiThread(() -> {
-                                hideLoadingIndicator();
-
-                                if (success && translatedText != null) {
-                                    // Update message with translated text
-                                    message.setTranslatedText(translatedText);
-                                    message.setTranslated(true);
-                                    message.setShowTranslation(true);
-
-                                    // Set translation language info if available
-                                    message.setTranslatedLanguage(targetLanguage);
-
-                                    // Save translation state to cache
-                                    if (translationCache != null) {
-                                        message.saveTranslationState(translationCache);
-                                    }
-
-                                    // Update UI
-                                    adapter.notifyItemChanged(position);
-                                } else {
-                                    Toast.makeText(
-                                            ConversationActivity.this,
-                                            getString(R.string.translation_error) + ": " +
-                                                    (errorMessage != null ? errorMessage : getString(R.string.unknown_error)),
-                                            Toast.LENGTH_LONG
-                                    ).show();
-                                }
-                            });
+                    if (error == null) {
+                        // Update message with translated text
+                        message.setTranslatedText(translatedText);
+                        message.setTranslated(true);
+                        message.setShowTranslation(true);
+
+                        // Set translation language info if available
+                        message.setTranslatedLanguage(targetLanguage);
+
+                        // Save translation state to cache
+                        if (translationCache != null) {
+                            message.saveTranslationState(translationCache);
                         }
-                    },
-                    true // Force translation for messages
-            );
+
+                        // Update UI
+                        adapter.notifyItemChanged(position);
+                    } else {
+                        if (showingPartial.get()) {
+                            // Drop the partial translation of a long message
+                            message.setTranslatedText(null);
+                            message.setShowTranslation(false);
+                            adapter.notifyItemChanged(position);
+                        }
+                        Toast.makeText(
+                                ConversationActivity.this,
+                                getString(R.string.translation_error) + ": " +
+                                        TranslationManager.getErrorMessage(error),
+                                Toast.LENGTH_LONG
+                        ).show();
+                    }
+                });
+            });
         });
     }
 
@@ -2422,6 +2492,12 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
         super.onDestroy();
 
         // Clean up resources
+        if (translationPrefetcher != null) {
+            translationPrefetcher.cancel();
+        }
+        for (CompletableFuture<String> translation : pendingTranslations) {
+            translation.cancel(false);
+        }
         if (executorService != null) {
             executorService.shutdownNow();
         }
@@ -2663,15 +2739,11 @@ public class ConversationActivity extends BaseActivity implements MessageRecycle
             return;
         }
 
-        for (Message message : messagesToRestore) {
-            try {
-                boolean restored = message.restoreTranslationState(translationCache);
-                if (restored) {
-                    Log.d(TAG, "Restored translation state for message " + message.getId());
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error restoring translation state for message " + message.getId(), e);
-            }
+        try {
+            int restored = Message.restoreTranslationStates(messagesToRestore, translationCache, null);
+            Log.d(TAG, "Restored translation state for " + restored + " of " + messagesToRestore.size() + " messages");
+        } catch (Exception e) {
+            Log.e(TAG, "Error restoring translation state for messages", e);
         }
     }
 
@@ -17,6 +17,7 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a message in a conversation.
@@ -398,9 +399,81 @@ public class Message {
      * @return true if translation state was restored, false otherwise
      */
     public boolean restoreTranslationState(TranslationCache cache) {
-        String cacheKey = generateCacheKey();
-        String savedData = cache.get(cacheKey);
+        return applySavedTranslationState(cache.get(generateCacheKey()));
+    }
+
+    /**
+     * Restores the translation state from the cache, with auto-translation support.
+     *
+     * @param cache The translation cache
+     * @param userPreferences User preferences to determine target language for auto-translation
+     * @return true if translation state was restored, false otherwise
+     */
+    public boolean restoreTranslationState(TranslationCache cache, UserPreferences userPreferences) {
+        // First try the standard message-specific cache
+        if (restoreTranslationState(cache)) {
+            return true;
+        }
+        
+        // If not found, check for auto-translation cache entries
+        String targetLanguage = getAutoTranslationTargetLanguage(userPreferences);
+        if (targetLanguage != null) {
+            return applyAutoTranslation(cache.get(getAutoTranslationCacheKey(targetLanguage)), targetLanguage);
+        }
+        
+        return false;
+    }
+
+    /**
+     * Restores the translation state of a whole page of messages with one bulk cache lookup,
+     * instead of one or two lookups per message.
+     *
+     * @param messages The messages to restore
+     * @param cache The translation cache
+     * @param userPreferences User preferences for the auto-translation fallback, or null to skip it
+     * @return The number of messages whose translation state was restored
+     */
+    public static int restoreTranslationStates(List<? extends Message> messages, TranslationCache cache,
+                                               UserPreferences userPreferences) {
+        if (messages == null || messages.isEmpty() || cache == null) {
+            return 0;
+        }
+
+        // Collect both the message-specific and the auto-translation key for every message
+        List<String> keys = new ArrayList<>(messages.size() * 2);
+        String[] targetLanguages = new String[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            keys.add(message.generateCacheKey());
+
+            targetLanguages[i] = message.getAutoTranslationTargetLanguage(userPreferences);
+            if (targetLanguages[i] != null) {
+                keys.add(message.getAutoTranslationCacheKey(targetLanguages[i]));
+            }
+        }
+
+        Map<String, String> cached = cache.getAll(keys);
+
+        int restored = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.applySavedTranslationState(cached.get(message.generateCacheKey()))) {
+                restored++;
+            } else if (targetLanguages[i] != null && message.applyAutoTranslation(
+                    cached.get(message.getAutoTranslationCacheKey(targetLanguages[i])), targetLanguages[i])) {
+                restored++;
+            }
+        }
+        return restored;
+    }
 
+    /**
+     * Applies translation state saved by {@link #saveTranslationState(TranslationCache)}.
+     *
+     * @param savedData The saved JSON, or null if nothing was cached
+     * @return true if translation state was restored, false otherwise
+     */
+    private boolean applySavedTranslationState(String savedData) {
         if (savedData != null) {
             try {
                 JSONObject data = new JSONObject(savedData);
@@ -433,48 +506,54 @@ public class Message {
     }
 
     /**
-     * Restores the translation state from the cache, with auto-translation support.
+     * Gets the target language auto-translation would have used for this message.
      *
-     * @param cache The translation cache
-     * @param userPreferences User preferences to determine target language for auto-translation
-     * @return true if translation state was restored, false otherwise
+     * @param userPreferences User preferences, may be null
+     * @return The target language, or null if auto-translation state can't apply
      */
-    public boolean restoreTranslationState(TranslationCache cache, UserPreferences userPreferences) {
-        // First try the standard message-specific cache
-        if (restoreTranslationState(cache)) {
-            return true;
+    private String getAutoTranslationTargetLanguage(UserPreferences userPreferences) {
+        if (body == null || body.trim().isEmpty() || userPreferences == null) {
+            return null;
         }
-        
-        // If not found, check for auto-translation cache entries
-        // Auto-translation uses format: "originalText_targetLanguage" -> translatedText
-        if (body != null && !body.trim().isEmpty() && userPreferences != null) {
-            // Get the target language that auto-translation would have used
-            String targetLanguage = isIncoming() ?
-                    userPreferences.getPreferredIncomingLanguage() :
-                    userPreferences.getPreferredOutgoingLanguage();
-
-            // If not set, fall back to general preferred language
-            if (targetLanguage == null || targetLanguage.isEmpty()) {
-                targetLanguage = userPreferences.getPreferredLanguage();
-            }
-            
-            if (targetLanguage != null && !targetLanguage.isEmpty()) {
-                String autoTransCacheKey = body + "_" + targetLanguage;
-                String autoTranslatedText = cache.get(autoTransCacheKey);
-                
-                if (autoTranslatedText != null && !autoTranslatedText.trim().isEmpty()) {
-                    // Found auto-translation result
-                    translatedText = autoTranslatedText;
-                    originalLanguage = ""; // Auto-translation doesn't always detect source language accurately
-                    translatedLanguage = targetLanguage;
-                    showTranslation = true; // Auto-translated messages should show translation by default
-                    Log.d(TAG, "Restored auto-translation state for message " + getId() + " (target: " + targetLanguage + ")");
-                    return true;
-                }
-            }
+
+        String targetLanguage = isIncoming() ?
+                userPreferences.getPreferredIncomingLanguage() :
+                userPreferences.getPreferredOutgoingLanguage();
+
+        // If not set, fall back to general preferred language
+        if (targetLanguage == null || targetLanguage.isEmpty()) {
+            targetLanguage = userPreferences.getPreferredLanguage();
         }
-        
-        return false;
+
+        return targetLanguage != null && !targetLanguage.isEmpty() ? targetLanguage : null;
+    }
+
+    /**
+     * Gets the cache key auto-translation uses for this message.
+     * Auto-translation uses format: "originalText_targetLanguage" -> translatedText
+     */
+    private String getAutoTranslationCacheKey(String targetLanguage) {
+        return body + "_" + targetLanguage;
+    }
+
+    /**
+     * Applies an auto-translation result found in the cache.
+     *
+     * @param autoTranslatedText The cached translation, or null if none
+     * @param targetLanguage The language it was translated into
+     * @return true if translation state was restored, false otherwise
+     */
+    private boolean applyAutoTranslation(String autoTranslatedText, String targetLanguage) {
+        if (autoTranslatedText == null || autoTranslatedText.trim().isEmpty()) {
+            return false;
+        }
+
+        translatedText = autoTranslatedText;
+        originalLanguage = ""; // Auto-translation doesn't always detect source language accurately
+        translatedLanguage = targetLanguage;
+        showTranslation = true; // Auto-translated messages should show translation by default
+        Log.d(TAG, "Restored auto-translation state for message " + getId() + " (target: " + targetLanguage + ")");
+        return true;
     }
 
     /**
@@ -215,7 +215,7 @@ public class MessageProcessingWorker extends Worker {
                                 lock.notify();
                             }
                         }
-                    });
+                    }, false, TranslationScheduler.Priority.INCOMING);
 
                 // Wait for translation to complete
                 synchronized (lock) {
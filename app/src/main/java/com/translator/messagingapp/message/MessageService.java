@@ -66,6 +66,7 @@ public class MessageService {
     private final TranslationCache translationCache;
     private final RcsService rcsService;
     private final UserPreferences userPreferences;
+    private final IncomingTranslationQueue incomingTranslationQueue;
 
     /**
      * Creates a new MessageService.
@@ -79,13 +80,15 @@ public class MessageService {
         this.translationCache = translationCache;
         this.rcsService = new RcsService(context);
         this.userPreferences = new UserPreferences(context);
+        this.incomingTranslationQueue = new IncomingTranslationQueue(translationManager, this::deliverIncomingBurst);
     }
 
     /**
      * Alternative constructor for backward compatibility
      */
     public MessageService(Context context, TranslationManager translationManager) {
-        this(context, translationManager, new TranslationCache(context));
+        this(context, translationManager, translationManager != null ?
+                translationManager.getTranslationCache() : new TranslationCache(context));
     }
 
     /**
@@ -836,6 +839,9 @@ public class MessageService {
             // Sort by date (oldest first for proper chronological order)
             Collections.sort(messages, (m1, m2) -> Long.compare(m1.getDate(), m2.getDate()));
 
+            // Restore cached translation state for the whole thread in one lookup
+            restoreTranslationStates(messages);
+
             Log.d(TAG, "Loaded " + messages.size() + " messages for thread " + threadId);
         } catch (Exception e) {
             Log.e(TAG, "Error loading messages for thread " + threadId, e);
@@ -879,6 +885,9 @@ public class MessageService {
                 messages = new ArrayList<>(messages.subList(0, limit));
             }
 
+            // Restore cached translation state for the page in one lookup
+            restoreTranslationStates(messages);
+
             Log.d(TAG, "Loaded " + messages.size() + " paginated messages for thread " + threadId +
                     " (offset: " + offset + ", limit: " + limit + ")");
         } catch (Exception e) {
@@ -888,6 +897,39 @@ public class MessageService {
         return messages;
     }
 
+    /**
+     * Restores cached translation state for loaded SMS and MMS messages with a single
+     * bulk cache lookup rather than one or two lookups per message.
+     *
+     * @param messages The loaded messages
+     */
+    private void restoreTranslationStates(List<Message> messages) {
+        if (translationCache == null || messages.isEmpty()) {
+            return;
+        }
+
+        List<Message> restorable = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (!message.isRcs()) {
+                restorable.add(message);
+            }
+        }
+
+        int restored = Message.restoreTranslationStates(restorable, translationCache, userPreferences);
+        if (restored == 0) {
+            return;
+        }
+
+        // For auto-translated incoming messages, ensure showTranslation is true
+        if (userPreferences != null && userPreferences.isAutoTranslateEnabled()) {
+            for (Message message : restorable) {
+                if (message.isTranslated() && message.isIncoming()) {
+                    message.setShowTranslation(true);
+                }
+            }
+        }
+    }
+
     /**
      * Loads SMS messages for a thread.
      *
@@ -923,16 +965,6 @@ public class MessageService {
                         message.setThreadId(Long.parseLong(threadId));
                         message.setMessageType(Message.MESSAGE_TYPE_SMS);
 
-                        // Restore translation state from cache if available
-                        if (translationCache != null) {
-                            boolean hasTranslation = message.restoreTranslationState(translationCache, userPreferences);
-
-                            // For auto-translated incoming messages, ensure showTranslation is true
-                            if (hasTranslation && message.isIncoming() && userPreferences != null && userPreferences.isAutoTranslateEnabled()) {
-                                message.setShowTranslation(true);
-                            }
-                        }
-
                         messages.add(message);
                     } catch (Exception e) {
                         Log.e(TAG, "Error processing SMS message in thread " + threadId, e);
@@ -987,16 +1019,6 @@ public class MessageService {
                         // Load attachments for this MMS message
                         loadMmsAttachments(contentResolver, id, message);
 
-                        // Restore translation state from cache if available
-                        if (translationCache != null) {
-                            boolean hasTranslation = message.restoreTranslationState(translationCache, userPreferences);
-
-                            // For auto-translated incoming messages, ensure showTranslation is true
-                            if (hasTranslation && message.isIncoming() && userPreferences != null && userPreferences.isAutoTranslateEnabled()) {
-                                message.setShowTranslation(true);
-                            }
-                        }
-
                         messages.add(message);
                     } catch (Exception e) {
                         Log.e(TAG, "Error processing MMS message in thread " + threadId, e);
@@ -1048,16 +1070,6 @@ public class MessageService {
                         message.setThreadId(Long.parseLong(threadId));
                         message.setMessageType(Message.MESSAGE_TYPE_SMS);
 
-                        // Restore translation state from cache if available
-                        if (translationCache != null) {
-                            boolean hasTranslation = message.restoreTranslationState(translationCache, userPreferences);
-
-                            // For auto-translated incoming messages, ensure showTranslation is true
-                            if (hasTranslation && message.isIncoming() && userPreferences != null && userPreferences.isAutoTranslateEnabled()) {
-                                message.setShowTranslation(true);
-                            }
-                        }
-
                         messages.add(message);
                     } catch (Exception e) {
                         Log.e(TAG, "Error processing SMS message in thread " + threadId, e);
@@ -1114,16 +1126,6 @@ public class MessageService {
                         // Load attachments for this MMS message
                         loadMmsAttachments(contentResolver, id, message);
 
-                        // Restore translation state from cache if available
-                        if (translationCache != null) {
-                            boolean hasTranslation = message.restoreTranslationState(translationCache, userPreferences);
-
-                            // For auto-translated incoming messages, ensure showTranslation is true
-                            if (hasTranslation && message.isIncoming() && userPreferences != null && userPreferences.isAutoTranslateEnabled()) {
-                                message.setShowTranslation(true);
-                            }
-                        }
-
                         messages.add(message);
                     } catch (Exception e) {
                         Log.e(TAG, "Error processing MMS message in thread " + threadId, e);
@@ -2309,14 +2311,17 @@ public class MessageService {
                         Log.d(TAG, "Message already exists in database, skipping storage to prevent duplicate");
                     }
 
-                    // Auto-translate the message if enabled (always attempt regardless of storage status)
-                    if (translationManager != null) {
-                        try {
-                            // Create SmsMessage object for translation
-                            com.translator.messagingapp.sms.SmsMessage smsMessage =
-                                    new com.translator.messagingapp.sms.SmsMessage(senderAddress, messageText, new java.util.Date(messageTimestamp));
-                            smsMessage.setIncoming(true);
+                    com.translator.messagingapp.sms.SmsMessage smsMessage =
+                            new com.translator.messagingapp.sms.SmsMessage(senderAddress, messageText, new java.util.Date(messageTimestamp));
+                    smsMessage.setIncoming(true);
 
+                    // Messages arriving in a burst are translated together; they are still
+                    // notified and broadcast here, while the receiver is guaranteed to run
+                    if (incomingTranslationQueue.offer(smsMessage)) {
+                        Log.d(TAG, "Message from " + senderAddress + " is part of a burst, translating it with the rest");
+                    } else if (translationManager != null) {
+                        // Auto-translate the message if enabled (always attempt regardless of storage status)
+                        try {
                             // Attempt auto-translation
                             Log.d(TAG, "Attempting auto-translation for incoming message from " + senderAddress);
                             String finalSenderAddress = senderAddress;
@@ -2327,25 +2332,10 @@ public class MessageService {
                                         Log.d(TAG, "Auto-translation completed for message from " + finalSenderAddress);
 
                                         // Store translation in the translation cache for UI access
-                                        if (translationCache != null && translatedMessage.getTranslatedText() != null) {
-                                            String cacheKey = translatedMessage.getOriginalText() + "_" + translatedMessage.getTranslatedLanguage();
-                                            translationCache.put(cacheKey, translatedMessage.getTranslatedText());
-                                            Log.d(TAG, "Cached auto-translation for future access");
-                                        }
+                                        cacheAutoTranslation(translatedMessage);
 
                                         // Broadcast a specific message for translation completion to notify UI
-                                        try {
-                                            Intent translationIntent = new Intent("com.translator.messagingapp.MESSAGE_TRANSLATED");
-                                            translationIntent.putExtra("address", finalSenderAddress);
-                                            translationIntent.putExtra("original_text", translatedMessage.getOriginalText());
-                                            translationIntent.putExtra("translated_text", translatedMessage.getTranslatedText());
-                                            translationIntent.putExtra("original_language", translatedMessage.getOriginalLanguage());
-                                            translationIntent.putExtra("translated_language", translatedMessage.getTranslatedLanguage());
-                                            LocalBroadcastManager.getInstance(context).sendBroadcast(translationIntent);
-                                            Log.d(TAG, "Broadcasted auto-translation completion event");
-                                        } catch (Exception e) {
-                                            Log.e(TAG, "Error broadcasting translation completion", e);
-                                        }
+                                        broadcastMessageTranslated(finalSenderAddress, translatedMessage);
                                     } else {
                                         Log.d(TAG, "Auto-translation not performed for message from " + finalSenderAddress);
                                     }
@@ -2367,6 +2357,59 @@ public class MessageService {
         }
     }
 
+    /**
+     * Delivers the translations of a burst of incoming messages in one pass:
+     * caches them and broadcasts one translation event per sender. The
+     * messages were stored, notified and broadcast as they arrived. Messages
+     * translated after the burst timed out come through here again one by one.
+     *
+     * @param messages The messages of the burst, in arrival order, or one late message
+     */
+    private void deliverIncomingBurst(List<com.translator.messagingapp.sms.SmsMessage> messages) {
+        Log.d(TAG, "Delivering translations of a burst of " + messages.size() + " incoming messages");
+
+        // Latest translated message per sender
+        java.util.Map<String, com.translator.messagingapp.sms.SmsMessage> translatedBySender = new java.util.LinkedHashMap<>();
+        for (com.translator.messagingapp.sms.SmsMessage message : messages) {
+            if (message.isTranslated()) {
+                cacheAutoTranslation(message);
+                translatedBySender.put(message.getAddress(), message);
+            }
+        }
+        for (com.translator.messagingapp.sms.SmsMessage message : translatedBySender.values()) {
+            broadcastMessageTranslated(message.getAddress(), message);
+        }
+    }
+
+    /**
+     * Stores an auto-translation in the translation cache for UI access.
+     */
+    private void cacheAutoTranslation(com.translator.messagingapp.sms.SmsMessage translatedMessage) {
+        if (translationCache != null && translatedMessage.getTranslatedText() != null) {
+            String cacheKey = translatedMessage.getOriginalText() + "_" + translatedMessage.getTranslatedLanguage();
+            translationCache.put(cacheKey, translatedMessage.getTranslatedText());
+            Log.d(TAG, "Cached auto-translation for future access");
+        }
+    }
+
+    /**
+     * Broadcasts that an incoming message was auto-translated, to notify the UI.
+     */
+    private void broadcastMessageTranslated(String address, com.translator.messagingapp.sms.SmsMessage translatedMessage) {
+        try {
+            Intent translationIntent = new Intent("com.translator.messagingapp.MESSAGE_TRANSLATED");
+            translationIntent.putExtra("address", address);
+            translationIntent.putExtra("original_text", translatedMessage.getOriginalText());
+            translationIntent.putExtra("translated_text", translatedMessage.getTranslatedText());
+            translationIntent.putExtra("original_language", translatedMessage.getOriginalLanguage());
+            translationIntent.putExtra("translated_language", translatedMessage.getTranslatedLanguage());
+            LocalBroadcastManager.getInstance(context).sendBroadcast(translationIntent);
+            Log.d(TAG, "Broadcasted auto-translation completion event");
+        } catch (Exception e) {
+            Log.e(TAG, "Error broadcasting translation completion", e);
+        }
+    }
+
     /**
      * Stores an incoming SMS message in the device's SMS database.
      *
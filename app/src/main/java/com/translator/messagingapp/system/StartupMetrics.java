@@ -0,0 +1,64 @@
+package com.translator.messagingapp.system;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timings of the app's startup, for debugging slow cold starts. Milestones
+ * are measured from the start of the process; durations, such as the model
+ * warm-up stages, are recorded as they are reported.
+ */
+public class StartupMetrics {
+    private static final String TAG = "StartupMetrics";
+
+    // Milliseconds by metric name, in the order recorded; guarded by this
+    private final Map<String, Long> metrics = new LinkedHashMap<>();
+
+    /**
+     * Records that a point of startup was reached, e.g. the first idle main thread.
+     *
+     * @param name The milestone name
+     * @return The time since the process started, in milliseconds
+     */
+    public long mark(String name) {
+        long sinceStartMs = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+        record(name, sinceStartMs);
+        return sinceStartMs;
+    }
+
+    /**
+     * Records how long a startup stage took.
+     *
+     * @param name The stage name
+     * @param durationMs The duration in milliseconds
+     */
+    public synchronized void record(String name, long durationMs) {
+        metrics.put(name, durationMs);
+        Log.d(TAG, name + ": " + durationMs + " ms");
+    }
+
+    /**
+     * Gets a recorded metric.
+     *
+     * @return The milliseconds, or -1 if it wasn't recorded
+     */
+    public synchronized long get(String name) {
+        Long value = metrics.get(name);
+        return value != null ? value : -1;
+    }
+
+    /**
+     * Gets all metrics for debugging.
+     */
+    public synchronized String getStatistics() {
+        StringBuilder builder = new StringBuilder("Startup:");
+        for (Map.Entry<String, Long> metric : metrics.entrySet()) {
+            builder.append(' ').append(metric.getKey()).append('=').append(metric.getValue()).append("ms");
+        }
+        return builder.toString();
+    }
+}
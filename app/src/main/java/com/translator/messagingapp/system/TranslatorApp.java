@@ -9,10 +9,14 @@ import com.translator.messagingapp.contact.*;
 import com.translator.messagingapp.translation.*;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.os.Looper;
 
 import androidx.work.Constraints;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
 import androidx.work.Worker;
@@ -24,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 
 public class TranslatorApp extends Application {
     private static final String TAG = "TranslatorApp";
+    private static final long STARTUP_MAINTENANCE_DELAY_SECONDS = 30;
 
     private TranslationCache translationCache;
     private TranslationManager translationManager;
@@ -33,6 +38,8 @@ public class TranslatorApp extends Application {
     private UserPreferences userPreferences;
     private MessageWorkManager messageWorkManager;
     private MessageContentObserver messageContentObserver;
+    private final StartupMetrics startupMetrics = new StartupMetrics();
+    private volatile ModelWarmUp modelWarmUp;
 
     @Override
     public void onCreate() {
@@ -68,7 +75,8 @@ public class TranslatorApp extends Application {
             translationManager = new TranslationManager(
                     getApplicationContext(),
                     translationService,
-                    userPreferences);
+                    userPreferences,
+                    getTranslationCache());
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error initializing translation manager", e);
             // translationManager will remain null, other components should handle this
@@ -76,7 +84,7 @@ public class TranslatorApp extends Application {
 
         try {
             // Initialize message service
-            messageService = new MessageService(this, translationManager);
+            messageService = new MessageService(this, translationManager, getTranslationCache());
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error initializing message service", e);
             // messageService will remain null, activities should handle this
@@ -116,6 +124,55 @@ public class TranslatorApp extends Application {
             android.util.Log.e(TAG, "Error initializing MessageContentObserver", e);
         }
 
+        startupMetrics.mark("app_created");
+
+        try {
+            // Load the translation models once the main thread first goes idle, after the first frame
+            Looper.myQueue().addIdleHandler(() -> {
+                startupMetrics.mark("first_idle");
+                startModelWarmUp();
+                return false;
+            });
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error scheduling model warm-up", e);
+        }
+    }
+
+    /**
+     * Warms up the language identifier and the translators for the user's
+     * languages in the background, recording how long each took.
+     */
+    private void startModelWarmUp() {
+        if (translationManager == null || userPreferences == null) {
+            return;
+        }
+        try {
+            modelWarmUp = new ModelWarmUp(translationManager, userPreferences);
+            modelWarmUp.start((stage, elapsedMs, success) -> {
+                if (success) {
+                    startupMetrics.record("warmup_" + stage, elapsedMs);
+                }
+            });
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error starting model warm-up", e);
+        }
+    }
+
+    /**
+     * Cancels the model warm-up if it hasn't finished.
+     */
+    public void cancelModelWarmUp() {
+        ModelWarmUp warmUp = modelWarmUp;
+        if (warmUp != null) {
+            warmUp.cancel();
+        }
+    }
+
+    /**
+     * Gets the startup timings, including the model warm-up.
+     */
+    public StartupMetrics getStartupMetrics() {
+        return startupMetrics;
     }
 
     public TranslationCache getTranslationCache() {
@@ -137,7 +194,8 @@ public class TranslatorApp extends Application {
                     translationManager = new TranslationManager(
                             getApplicationContext(),
                             translationService,
-                            userPreferences);
+                            userPreferences,
+                            getTranslationCache());
                 }
             } catch (Exception e) {
                 android.util.Log.e(TAG, "Error creating fallback TranslationManager", e);
@@ -150,7 +208,7 @@ public class TranslatorApp extends Application {
         if (messageService == null) {
             try {
                 // Try to create a minimal message service if possible
-                messageService = new MessageService(this, getTranslationManager());
+                messageService = new MessageService(this, getTranslationManager(), getTranslationCache());
             } catch (Exception e) {
                 android.util.Log.e(TAG, "Error creating fallback MessageService", e);
             }
@@ -243,12 +301,35 @@ public class TranslatorApp extends Application {
                 "translation_cache_maintenance",
                 ExistingPeriodicWorkPolicy.REPLACE,
                 maintenanceWork);
+
+        // Also trim once shortly after startup, off the launch path
+        OneTimeWorkRequest startupWork =
+                new OneTimeWorkRequest.Builder(CacheMaintenanceWorker.class)
+                        .setInitialDelay(STARTUP_MAINTENANCE_DELAY_SECONDS, TimeUnit.SECONDS)
+                        .build();
+        workManager.enqueueUniqueWork(
+                "translation_cache_maintenance_startup",
+                ExistingWorkPolicy.KEEP,
+                startupWork);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            // Warm models would only be released again
+            cancelModelWarmUp();
+        }
+        if (translationManager != null) {
+            translationManager.onTrimMemory(level);
+        }
     }
 
     @Override
     public void onTerminate() {
         // Clean up resources
         super.onTerminate();
+        cancelModelWarmUp();
         if (translationCache != null) {
             translationCache.close();
         }
@@ -276,7 +357,8 @@ public class TranslatorApp extends Application {
         @Override
         public Result doWork() {
             TranslationCache cache = ((TranslatorApp) getApplicationContext()).getTranslationCache();
-            cache.performMaintenance();
+            int removed = cache.performMaintenance();
+            android.util.Log.d(TAG, "Cache maintenance removed " + removed + " translations");
             return Result.success();
         }
     }
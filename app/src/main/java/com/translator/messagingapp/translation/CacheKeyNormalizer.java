@@ -0,0 +1,104 @@
+package com.translator.messagingapp.translation;
+
+import java.text.Normalizer;
+
+/**
+ * Canonicalizes source text for translation cache keys, so messages that differ
+ * only in spacing, Unicode composition, invisible zero-width characters (e.g.
+ * hidden secret messages) or emoji variation selectors share one entry. Case,
+ * punctuation and line breaks are kept: "You're coming?" and "You're coming." translate
+ * differently, and so can a name and the same word in lower case, and a line
+ * break ends a sentence where a space doesn't.
+ */
+public final class CacheKeyNormalizer {
+    private static final char ZERO_WIDTH_JOINER = '\u200D';
+
+    private CacheKeyNormalizer() {
+        // Utility class
+    }
+
+    /**
+     * Normalizes text for use in a cache key: NFC, invisible characters removed,
+     * whitespace trimmed and collapsed. A run of whitespace becomes one space, or
+     * its line breaks if it has any.
+     *
+     * @param text The source text
+     * @return The canonical form, never null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String composed = Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder result = new StringBuilder(composed.length());
+        int previous = -1;
+        boolean pendingSpace = false;
+        int pendingLineBreaks = 0;
+
+        for (int i = 0; i < composed.length(); ) {
+            int codePoint = composed.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isInvisible(codePoint)) {
+                continue;
+            }
+            // Keep joiners inside emoji sequences such as the family emoji; elsewhere they are invisible noise
+            if (codePoint == ZERO_WIDTH_JOINER
+                    && !(isEmojiLike(previous) && isEmojiLike(nextVisible(composed, i)))) {
+                continue;
+            }
+            if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+                pendingSpace = result.length() > 0;
+                if (pendingSpace && codePoint == '\n') {
+                    pendingLineBreaks++;
+                }
+                continue;
+            }
+
+            if (pendingLineBreaks > 0) {
+                for (int breaks = 0; breaks < pendingLineBreaks; breaks++) {
+                    result.append('\n');
+                }
+            } else if (pendingSpace) {
+                result.append(' ');
+            }
+            pendingSpace = false;
+            pendingLineBreaks = 0;
+            result.appendCodePoint(codePoint);
+            previous = codePoint;
+        }
+
+        return result.toString();
+    }
+
+    private static boolean isInvisible(int codePoint) {
+        return codePoint == '\u200B'                                  // zero width space
+                || codePoint == '\u200C'                              // zero width non-joiner
+                || codePoint == '\u200E' || codePoint == '\u200F'     // directional marks
+                || codePoint == '\u2060'                              // word joiner
+                || codePoint == '\uFEFF'                              // zero width no-break space
+                || codePoint == '\u180E'                              // Mongolian vowel separator
+                || (codePoint >= 0xFE00 && codePoint <= 0xFE0F)       // variation selectors
+                || (codePoint >= 0xE0100 && codePoint <= 0xE01EF);    // variation selectors supplement
+    }
+
+    private static boolean isEmojiLike(int codePoint) {
+        if (codePoint < 0) {
+            return false;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.OTHER_SYMBOL || type == Character.MODIFIER_SYMBOL;
+    }
+
+    private static int nextVisible(String text, int index) {
+        while (index < text.length()) {
+            int codePoint = text.codePointAt(index);
+            if (!isInvisible(codePoint)) {
+                return codePoint;
+            }
+            index += Character.charCount(codePoint);
+        }
+        return -1;
+    }
+}
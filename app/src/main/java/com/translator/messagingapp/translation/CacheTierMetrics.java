@@ -0,0 +1,61 @@
+package com.translator.messagingapp.translation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and latency counters for one tier of the translation cache.
+ * Uses striped counters so the many translation threads updating them don't contend.
+ */
+class CacheTierMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordHits(long count) {
+        hits.add(count);
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    void recordLatency(long elapsedNanos) {
+        latency.record(elapsedNanos);
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    void reset() {
+        hits.reset();
+        misses.reset();
+        latency.reset();
+    }
+
+    /**
+     * Takes a point-in-time copy of the counters.
+     */
+    TranslationCacheStats.TierStats snapshot() {
+        return new TranslationCacheStats.TierStats(
+                hits.sum(),
+                misses.sum(),
+                latency.getCount(),
+                latency.getMeanMicros(),
+                latency.getPercentileMicros(50),
+                latency.getPercentileMicros(95),
+                latency.getPercentileMicros(99));
+    }
+}
@@ -0,0 +1,285 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for the translation cache database.
+ * Inserts, deletes and LRU timestamp touches are coalesced per key and written
+ * by a single background thread in one transaction per batch, instead of one
+ * thread and one implicit transaction per operation.
+ */
+class CacheWriteBehindQueue {
+    private static final String TAG = "CacheWriteBehindQueue";
+
+    /**
+     * Receives coalesced batches on the writer thread.
+     */
+    interface BatchWriter {
+        /**
+         * Writes one batch. Each key appears in at most one of the collections.
+         *
+         * @param puts Keys to insert or replace, with their value and timestamp
+         * @param deletes Keys to delete
+         * @param touches Keys whose timestamp should be refreshed
+         */
+        void writeBatch(Map<String, PendingPut> puts, Set<String> deletes, Map<String, Long> touches);
+    }
+
+    /**
+     * A translation waiting to be persisted.
+     */
+    static final class PendingPut {
+        final String value;
+        long timestamp;
+
+        PendingPut(String value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final BatchWriter writer;
+    private final ScheduledExecutorService executor;
+    private final long flushIntervalMs;
+    private final int maxBatchSize;
+
+    // Guarded by "this"
+    private LinkedHashMap<String, PendingPut> pendingPuts = new LinkedHashMap<>();
+    private LinkedHashSet<String> pendingDeletes = new LinkedHashSet<>();
+    private LinkedHashMap<String, Long> pendingTouches = new LinkedHashMap<>();
+    // Batch currently being written, still visible to readers until the write completes
+    private Map<String, PendingPut> inFlightPuts = Collections.emptyMap();
+    private Set<String> inFlightDeletes = Collections.emptySet();
+    private boolean flushScheduled;
+    private boolean immediateFlushQueued;
+    private boolean closed;
+
+    /**
+     * Creates a new write-behind queue.
+     *
+     * @param writer The batch writer, invoked on the queue's own thread
+     * @param flushIntervalMs Maximum time a write may wait before being flushed
+     * @param maxBatchSize Number of pending operations that triggers an immediate flush
+     */
+    CacheWriteBehindQueue(BatchWriter writer, long flushIntervalMs, int maxBatchSize) {
+        this.writer = writer;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBatchSize = maxBatchSize;
+
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "TranslationCacheWriter");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = scheduler;
+    }
+
+    /**
+     * Queues an insert or replace.
+     */
+    synchronized void enqueuePut(String key, String value) {
+        if (closed) {
+            return;
+        }
+        pendingDeletes.remove(key);
+        pendingTouches.remove(key);
+        pendingPuts.put(key, new PendingPut(value, System.currentTimeMillis()));
+        scheduleFlush();
+    }
+
+    /**
+     * Queues a delete. Cancels any pending insert or touch for the same key.
+     */
+    synchronized void enqueueDelete(String key) {
+        if (closed) {
+            return;
+        }
+        pendingPuts.remove(key);
+        pendingTouches.remove(key);
+        pendingDeletes.add(key);
+        scheduleFlush();
+    }
+
+    /**
+     * Queues a timestamp refresh marking the key as recently used.
+     */
+    synchronized void enqueueTouch(String key) {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        PendingPut pending = pendingPuts.get(key);
+        if (pending != null) {
+            // Still waiting to be inserted; just carry the newer timestamp
+            pending.timestamp = now;
+            return;
+        }
+        if (pendingDeletes.contains(key)) {
+            return;
+        }
+        pendingTouches.put(key, now);
+        scheduleFlush();
+    }
+
+    /**
+     * Gets a value that has been queued for insertion but not yet written.
+     *
+     * @return The pending value, or null if there is none
+     */
+    synchronized String getPending(String key) {
+        PendingPut pending = pendingPuts.get(key);
+        if (pending == null && !pendingDeletes.contains(key)) {
+            pending = inFlightPuts.get(key);
+        }
+        return pending != null ? pending.value : null;
+    }
+
+    /**
+     * Checks whether a delete is queued for the key, so readers don't resurrect it from disk.
+     */
+    synchronized boolean isPendingDelete(String key) {
+        return pendingDeletes.contains(key)
+                || (inFlightDeletes.contains(key) && !pendingPuts.containsKey(key));
+    }
+
+    /**
+     * Drops every queued operation without writing it.
+     */
+    synchronized void discardPending() {
+        pendingPuts.clear();
+        pendingDeletes.clear();
+        pendingTouches.clear();
+    }
+
+    /**
+     * Gets the number of operations waiting to be written.
+     */
+    synchronized int getPendingCount() {
+        return pendingPuts.size() + pendingDeletes.size() + pendingTouches.size();
+    }
+
+    /**
+     * Runs a task on the writer thread after everything queued so far.
+     * Use this for other database writes that must not interleave with a batch.
+     *
+     * @return A future for the task, or null if the queue has been closed
+     */
+    Future<?> submit(Runnable task) {
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+        }
+        return executor.submit(task);
+    }
+
+    /**
+     * Writes all pending operations and waits for the write to complete.
+     */
+    void flushNow() {
+        await(submit(this::flush));
+    }
+
+    /**
+     * Flushes pending operations and stops the writer thread.
+     * Operations queued after this call are ignored.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        await(executor.submit(this::flush));
+        shutdown(executor);
+    }
+
+    private static void await(Future<?> future) {
+        if (future == null) {
+            return;
+        }
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(TAG, "Error waiting for cache flush", e);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (getPendingCountLocked() >= maxBatchSize) {
+            if (!immediateFlushQueued) {
+                immediateFlushQueued = true;
+                executor.execute(this::flush);
+            }
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private int getPendingCountLocked() {
+        return pendingPuts.size() + pendingDeletes.size() + pendingTouches.size();
+    }
+
+    private void flush() {
+        Map<String, PendingPut> puts;
+        Set<String> deletes;
+        Map<String, Long> touches;
+
+        synchronized (this) {
+            flushScheduled = false;
+            immediateFlushQueued = false;
+            if (getPendingCountLocked() == 0) {
+                return;
+            }
+            puts = pendingPuts;
+            deletes = pendingDeletes;
+            touches = pendingTouches;
+            pendingPuts = new LinkedHashMap<>();
+            pendingDeletes = new LinkedHashSet<>();
+            pendingTouches = new LinkedHashMap<>();
+            inFlightPuts = puts;
+            inFlightDeletes = deletes;
+        }
+
+        try {
+            writer.writeBatch(Collections.unmodifiableMap(puts), Collections.unmodifiableSet(deletes),
+                    Collections.unmodifiableMap(touches));
+        } catch (Exception e) {
+            Log.e(TAG, "Error writing cache batch of " + (puts.size() + deletes.size() + touches.size()) + " operations", e);
+        } finally {
+            synchronized (this) {
+                inFlightPuts = Collections.emptyMap();
+                inFlightDeletes = Collections.emptySet();
+            }
+        }
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
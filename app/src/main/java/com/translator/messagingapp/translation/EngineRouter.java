@@ -0,0 +1,335 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Picks the online or offline engine for a translation in auto mode from how
+ * each engine has actually performed on this device and network.
+ *
+ * <p>For every engine and language pair the router keeps a rolling mean and
+ * deviation of latency, like TCP's round trip estimate, and a rolling error
+ * rate. It routes to the engine with the lower expected time to a successful
+ * translation. Offline stays preferred unless online is clearly faster, since
+ * it costs no quota and keeps the text on the device. Measurements go stale
+ * after a while, so the router keeps re-checking the engine it isn't using,
+ * and it sends an occasional translation to an engine it has no measurements
+ * for yet.
+ *
+ * <p>Each decision also carries a timeout after which the caller should fall
+ * back to the other engine and, for online requests, a hedge delay after
+ * which the caller may start the offline engine in parallel and take
+ * whichever answers first.
+ */
+public class EngineRouter {
+    private static final String TAG = "EngineRouter";
+
+    /**
+     * The translation engines.
+     */
+    public enum Engine {
+        ONLINE,
+        OFFLINE
+    }
+
+    // Weights of the newest sample in the rolling means, as in TCP's estimator
+    private static final double LATENCY_ALPHA = 0.125;
+    private static final double DEVIATION_BETA = 0.25;
+    private static final double ERROR_ALPHA = 0.2;
+
+    // Measurements needed before an engine's numbers are trusted, and how long they stay fresh
+    private static final int MIN_SAMPLES = 5;
+    private static final long STALE_AFTER_MS = 10 * 60 * 1000;
+
+    // Online must be this much faster before it replaces offline
+    private static final double ONLINE_ADVANTAGE = 1.3;
+    // Offline is abandoned once it fails this often
+    private static final double MAX_OFFLINE_ERROR_RATE = 0.5;
+    // Every this many decisions for a pair, one goes to an engine without measurements
+    private static final int EXPLORE_INTERVAL = 20;
+
+    private static final long DEFAULT_TIMEOUT_MS = 10000;
+    private static final long MIN_TIMEOUT_MS = 2000;
+    private static final long MAX_TIMEOUT_MS = 15000;
+    private static final long DEFAULT_HEDGE_DELAY_MS = 1500;
+    private static final long MIN_HEDGE_DELAY_MS = 250;
+    private static final long MAX_HEDGE_DELAY_MS = 3000;
+
+    private static final int MAX_RECENT_DECISIONS = 50;
+    // Key of the statistics over all language pairs of an engine
+    private static final String ALL_PAIRS = "*";
+
+    /**
+     * Where to send one translation.
+     */
+    public static final class Decision {
+        private final Engine engine;
+        private final String reason;
+        private final long timeoutMs;
+        private final long hedgeDelayMs;
+
+        Decision(Engine engine, String reason, long timeoutMs, long hedgeDelayMs) {
+            this.engine = engine;
+            this.reason = reason;
+            this.timeoutMs = timeoutMs;
+            this.hedgeDelayMs = hedgeDelayMs;
+        }
+
+        public Engine getEngine() {
+            return engine;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Gets how long to wait for the engine before falling back to the other one.
+         */
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        /**
+         * Gets how long to wait for an online request before also starting the
+         * offline engine, or -1 if the request shouldn't be hedged.
+         */
+        public long getHedgeDelayMs() {
+            return hedgeDelayMs;
+        }
+
+        public boolean isHedged() {
+            return hedgeDelayMs >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return engine + " (" + reason + "), timeout " + timeoutMs + "ms"
+                    + (isHedged() ? ", hedge after " + hedgeDelayMs + "ms" : "");
+        }
+    }
+
+    /**
+     * Rolling latency and error rate of one engine, for one pair or all pairs.
+     */
+    private static final class EngineStats {
+        // Guarded by this
+        private double meanLatencyMs;
+        private double latencyDeviationMs;
+        private double errorRate;
+        private int sampleCount;
+        private long lastSampleMs;
+
+        synchronized void record(double latencyMs, boolean success, long nowMs) {
+            if (sampleCount == 0) {
+                meanLatencyMs = latencyMs;
+                latencyDeviationMs = latencyMs / 2;
+                errorRate = success ? 0 : 1;
+            } else {
+                latencyDeviationMs += DEVIATION_BETA * (Math.abs(latencyMs - meanLatencyMs) - latencyDeviationMs);
+                meanLatencyMs += LATENCY_ALPHA * (latencyMs - meanLatencyMs);
+                errorRate += ERROR_ALPHA * ((success ? 0 : 1) - errorRate);
+            }
+            sampleCount++;
+            lastSampleMs = nowMs;
+        }
+
+        synchronized boolean isFresh(long nowMs) {
+            return sampleCount >= MIN_SAMPLES && nowMs - lastSampleMs < STALE_AFTER_MS;
+        }
+
+        /**
+         * Gets the expected time to a successful translation, counting retries after errors.
+         */
+        synchronized double getExpectedMs() {
+            return meanLatencyMs / Math.max(0.05, 1 - errorRate);
+        }
+
+        synchronized double getErrorRate() {
+            return errorRate;
+        }
+
+        /**
+         * Gets a latency that is rarely exceeded: the mean plus a multiple of the deviation.
+         */
+        synchronized long getLatencyBoundMs(int deviations) {
+            return Math.round(meanLatencyMs + deviations * latencyDeviationMs);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.US, "%.0fms ±%.0fms, %.0f%% errors, %d samples",
+                    meanLatencyMs, latencyDeviationMs, errorRate * 100, sampleCount);
+        }
+    }
+
+    private final Map<String, EngineStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, Integer> decisionCounts = new ConcurrentHashMap<>();
+    private final LongSupplier clockMs;
+    private volatile boolean hedgingEnabled = true;
+
+    // Guarded by itself
+    private final Deque<String> recentDecisions = new ArrayDeque<>();
+
+    public EngineRouter() {
+        this(() -> System.nanoTime() / 1000000);
+    }
+
+    /**
+     * Creates a router.
+     *
+     * @param clockMs Supplies a monotonic time in milliseconds, for the staleness of measurements
+     */
+    EngineRouter(LongSupplier clockMs) {
+        this.clockMs = clockMs;
+    }
+
+    /**
+     * Enables or disables hedging slow online requests with the offline engine.
+     */
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    /**
+     * Records how a translation by an engine went.
+     *
+     * @param engine The engine
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @param elapsedNanos How long the engine took
+     * @param success Whether it returned a translation
+     */
+    public void record(Engine engine, String sourceLanguage, String targetLanguage, long elapsedNanos,
+                       boolean success) {
+        double latencyMs = elapsedNanos / 1000000.0;
+        long now = clockMs.getAsLong();
+        stats.computeIfAbsent(statsKey(engine, getPairKey(sourceLanguage, targetLanguage)), key -> new EngineStats())
+                .record(latencyMs, success, now);
+        stats.computeIfAbsent(statsKey(engine, ALL_PAIRS), key -> new EngineStats())
+                .record(latencyMs, success, now);
+    }
+
+    /**
+     * Decides which engine translates a text in auto mode.
+     *
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @param offlineReady Whether offline translation can run, i.e. its models are downloaded
+     * @param onlineReady Whether online translation can run, i.e. an API key is set
+     * @return The decision
+     */
+    public Decision choose(String sourceLanguage, String targetLanguage, boolean offlineReady, boolean onlineReady) {
+        String pair = getPairKey(sourceLanguage, targetLanguage);
+        long now = clockMs.getAsLong();
+        EngineStats online = getFreshStats(Engine.ONLINE, pair, now);
+        EngineStats offline = getFreshStats(Engine.OFFLINE, pair, now);
+
+        Engine engine;
+        String reason;
+        if (!onlineReady) {
+            engine = Engine.OFFLINE;
+            reason = "online unavailable";
+        } else if (!offlineReady) {
+            engine = Engine.ONLINE;
+            reason = "offline unavailable";
+        } else if (offline != null && offline.getErrorRate() > MAX_OFFLINE_ERROR_RATE
+                && (online == null || online.getErrorRate() < offline.getErrorRate())) {
+            engine = Engine.ONLINE;
+            reason = String.format(Locale.US, "offline failing %.0f%%", offline.getErrorRate() * 100);
+        } else if (offline == null || online == null) {
+            boolean explore = decisionCounts.merge(pair, 1, Integer::sum) % EXPLORE_INTERVAL == 0;
+            if (explore && online == null && offline != null) {
+                engine = Engine.ONLINE;
+                reason = "measuring online";
+            } else {
+                engine = Engine.OFFLINE;
+                reason = offline == null ? "measuring offline" : "no online measurements";
+            }
+        } else if (online.getExpectedMs() * ONLINE_ADVANTAGE < offline.getExpectedMs()) {
+            engine = Engine.ONLINE;
+            reason = String.format(Locale.US, "online faster: %.0fms vs %.0fms",
+                    online.getExpectedMs(), offline.getExpectedMs());
+        } else {
+            engine = Engine.OFFLINE;
+            reason = String.format(Locale.US, "offline fast enough: %.0fms vs %.0fms",
+                    offline.getExpectedMs(), online.getExpectedMs());
+        }
+
+        EngineStats chosen = engine == Engine.ONLINE ? online : offline;
+        long timeoutMs = chosen != null
+                ? clamp(chosen.getLatencyBoundMs(4), MIN_TIMEOUT_MS, MAX_TIMEOUT_MS)
+                : DEFAULT_TIMEOUT_MS;
+        long hedgeDelayMs = -1;
+        if (engine == Engine.ONLINE && offlineReady && hedgingEnabled) {
+            hedgeDelayMs = online != null
+                    ? clamp(online.getLatencyBoundMs(2), MIN_HEDGE_DELAY_MS, MAX_HEDGE_DELAY_MS)
+                    : DEFAULT_HEDGE_DELAY_MS;
+        }
+
+        Decision decision = new Decision(engine, reason, timeoutMs, hedgeDelayMs);
+        Log.d(TAG, pair + ": " + decision);
+        synchronized (recentDecisions) {
+            if (recentDecisions.size() >= MAX_RECENT_DECISIONS) {
+                recentDecisions.removeFirst();
+            }
+            recentDecisions.addLast(pair + ": " + decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Gets the most recent decisions, oldest first.
+     */
+    public List<String> getRecentDecisions() {
+        synchronized (recentDecisions) {
+            return new ArrayList<>(recentDecisions);
+        }
+    }
+
+    /**
+     * Gets the rolling latency and error rate of every engine and language pair.
+     */
+    public String getStatistics() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, EngineStats> entry : stats.entrySet()) {
+            lines.add(entry.getKey() + ": " + entry.getValue());
+        }
+        Collections.sort(lines);
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Gets the trusted measurements of an engine for a pair, falling back to the
+     * engine's measurements over all pairs.
+     */
+    private EngineStats getFreshStats(Engine engine, String pair, long now) {
+        EngineStats pairStats = stats.get(statsKey(engine, pair));
+        if (pairStats != null && pairStats.isFresh(now)) {
+            return pairStats;
+        }
+        EngineStats engineStats = stats.get(statsKey(engine, ALL_PAIRS));
+        return engineStats != null && engineStats.isFresh(now) ? engineStats : null;
+    }
+
+    private static String statsKey(Engine engine, String pair) {
+        return engine + " " + pair;
+    }
+
+    private static String getPairKey(String sourceLanguage, String targetLanguage) {
+        return (sourceLanguage != null ? sourceLanguage : "auto") + "->" + targetLanguage;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
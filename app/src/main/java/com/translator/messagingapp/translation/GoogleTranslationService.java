@@ -4,41 +4,60 @@ import com.translator.messagingapp.message.*;
 
 import com.translator.messagingapp.translation.*;
 
+import android.util.JsonReader;
 import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 /**
  * Service for translating text using Google Cloud Translation API.
  */
-public class GoogleTranslationService {
+public class GoogleTranslationService implements TranslationEngine {
     private static final String TAG = "GoogleTranslationService";
-    private static final String API_URL = "https://translation.googleapis.com/language/translate/v2";
+    private static final String DEFAULT_API_URL = "https://translation.googleapis.com/language/translate/v2";
+
+    // Request quota shared by every user of the API key
+    private static final String ENGINE_NAME = "google";
+    private static final TokenBucketRateLimiter.Limits RATE_LIMITS = new TokenBucketRateLimiter.Limits(5, 0.5, 100);
+
+    // Single-text requests arriving within this window are sent as one request
+    private static final long BATCH_WINDOW_MS = 25;
+    private static final int MAX_BATCH_SIZE = 128; // The v2 API accepts at most 128 q values
+    private static final int MAX_BATCH_BYTES = 100 * 1024; // Well under the API's request size limit
+    private static final long BATCH_TIMEOUT_SECONDS = 60;
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
     private String apiKey;
-    private final ExecutorService executorService;
+    private final String apiUrl;
+    private final TranslationScheduler scheduler;
+    private final TranslationRequestBatcher batcher;
 
     /**
      * Default constructor.
      */
     public GoogleTranslationService() {
-        this.apiKey = null;
-        this.executorService = Executors.newCachedThreadPool();
+        this(null);
     }
 
     /**
@@ -47,8 +66,21 @@ public class GoogleTranslationService {
      * @param apiKey The Google Cloud Translation API key
      */
     public GoogleTranslationService(String apiKey) {
+        this(apiKey, DEFAULT_API_URL);
+    }
+
+    /**
+     * Constructor with API key and endpoint, e.g. a local stub server in tests.
+     *
+     * @param apiKey The Google Cloud Translation API key
+     * @param apiUrl The base URL of the v2 translation endpoint
+     */
+    public GoogleTranslationService(String apiKey, String apiUrl) {
         this.apiKey = apiKey;
-        this.executorService = Executors.newCachedThreadPool();
+        this.apiUrl = apiUrl;
+        this.scheduler = TranslationScheduler.getInstance();
+        this.batcher = new TranslationRequestBatcher(this::translateBatch, this::dispatchBatch,
+                BATCH_WINDOW_MS, MAX_BATCH_SIZE, MAX_BATCH_BYTES);
     }
 
     /**
@@ -78,14 +110,48 @@ public class GoogleTranslationService {
         return apiKey != null && !apiKey.isEmpty();
     }
 
+    @Override
+    public String getName() {
+        return ENGINE_NAME;
+    }
+
+    @Override
+    public TokenBucketRateLimiter.Limits getRateLimits() {
+        return RATE_LIMITS;
+    }
+
+    /**
+     * Checks if the service can translate, which takes an API key.
+     */
+    @Override
+    public boolean isAvailable() {
+        return hasApiKey();
+    }
+
+    /**
+     * Checks if the API supports a language pair. It knows every language the
+     * app offers, so unknown codes are left for the API to reject.
+     */
+    @Override
+    public boolean isLanguagePairSupported(String sourceLanguage, String targetLanguage) {
+        return targetLanguage != null && !targetLanguage.isEmpty();
+    }
+
+    @Override
+    public boolean isLanguagePairReady(String sourceLanguage, String targetLanguage) {
+        return hasApiKey() && isLanguagePairSupported(sourceLanguage, targetLanguage);
+    }
+
     /**
      * Translates text from one language to another.
+     * Concurrent calls for the same language pair are coalesced into one API request.
      *
      * @param text The text to translate
      * @param sourceLanguage The source language code (e.g., "en" for English)
      * @param targetLanguage The target language code (e.g., "es" for Spanish)
      * @return The translated text, or null if translation failed
      */
+    @Override
     public String translate(String text, String sourceLanguage, String targetLanguage) {
         if (!hasApiKey()) {
             Log.e(TAG, "API key not set");
@@ -96,64 +162,196 @@ public class GoogleTranslationService {
             return text;
         }
 
+        Future<String> pending;
+        try {
+            pending = batcher.submit(text, sourceLanguage, targetLanguage, TranslationScheduler.currentPriority());
+        } catch (RejectedExecutionException e) {
+            // Shut down; send this text on its own
+            List<String> translations = translateBatch(Collections.singletonList(text), sourceLanguage, targetLanguage);
+            return translations != null ? translations.get(0) : null;
+        }
+
         try {
-            URL url = new URL(API_URL + "?key=" + apiKey);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoOutput(true);
-
-            // Create request body
+            return pending.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Batched translation failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * Translates several texts with a single API request.
+     *
+     * @param texts The texts to translate
+     * @param sourceLanguage The source language code, or null to let the API detect it
+     * @param targetLanguage The target language code
+     * @return The translations in the same order as the texts, or null if translation failed
+     */
+    @Override
+    public List<String> translateBatch(List<String> texts, String sourceLanguage, String targetLanguage) {
+        if (!hasApiKey()) {
+            Log.e(TAG, "API key not set");
+            return null;
+        }
+
+        if (texts == null || texts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            // Create request body; the API accepts q as an array and answers in order
             JSONObject requestBody = new JSONObject();
-            requestBody.put("q", text);
+            requestBody.put("q", new JSONArray(texts));
             requestBody.put("target", targetLanguage);
 
             if (sourceLanguage != null && !sourceLanguage.isEmpty()) {
                 requestBody.put("source", sourceLanguage);
             }
 
-            // Write request body
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = requestBody.toString().getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
+            List<String> results = post(apiUrl, requestBody, "Translation", GoogleTranslationService::readTranslations);
+            if (results != null && results.size() != texts.size()) {
+                Log.e(TAG, "Expected " + texts.size() + " translations, got " + results.size());
+                return null;
             }
+            return results;
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Translation error", e);
+            return null;
+        }
+    }
 
-            // Read response
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String responseLine;
-                    while ((responseLine = br.readLine()) != null) {
-                        response.append(responseLine.trim());
+    /**
+     * Reads a response body as it streams in.
+     */
+    private interface ResponseParser<T> {
+        T parse(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Posts a JSON request on the shared translation HTTP client and parses the
+     * response while it streams in, timing each phase of the request.
+     *
+     * @param url The endpoint, without the API key
+     * @param requestBody The JSON request body
+     * @param label Describes the request in log messages
+     * @param parser Parses a successful response
+     * @return The parsed response, or null if the API returned an error
+     */
+    private <T> T post(String url, JSONObject requestBody, String label, ResponseParser<T> parser) throws IOException {
+        TranslationHttpClient.RequestTimings timings = new TranslationHttpClient.RequestTimings();
+        Request request = new Request.Builder()
+                .url(url + "?key=" + apiKey)
+                .header("Accept", "application/json")
+                .tag(TranslationHttpClient.RequestTimings.class, timings)
+                .post(RequestBody.create(requestBody.toString(), JSON))
+                .build();
+
+        try (Response response = TranslationHttpClient.getClient().newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                Log.e(TAG, label + " API error: " + response.code());
+                if (body != null) {
+                    Log.e(TAG, "Error response: " + body.string());
+                }
+                return null;
+            }
+
+            long parseStart = System.nanoTime();
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                return parser.parse(reader);
+            } finally {
+                timings.recordParse(System.nanoTime() - parseStart);
+            }
+        } catch (IllegalStateException e) {
+            // Malformed JSON surfaces as IllegalStateException from JsonReader
+            throw new IOException("Malformed " + label + " response", e);
+        }
+    }
+
+    /**
+     * Reads {@code data.translations[].translatedText}.
+     */
+    private static List<String> readTranslations(JsonReader reader) throws IOException {
+        List<String> results = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"data".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"translations".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String translatedText = null;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("translatedText".equals(reader.nextName())) {
+                            translatedText = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
                     }
+                    reader.endObject();
+                    if (translatedText == null) {
+                        throw new IOException("Translation without translatedText");
+                    }
+                    results.add(translatedText);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return results;
+    }
 
-                    // Parse response
-                    JSONObject jsonResponse = new JSONObject(response.toString());
-                    JSONObject data = jsonResponse.getJSONObject("data");
-                    JSONArray translations = data.getJSONArray("translations");
-                    JSONObject translation = translations.getJSONObject(0);
-                    return translation.getString("translatedText");
+    /**
+     * Reads the language of the first detection, {@code data.detections[0][0].language}.
+     */
+    private static String readDetectedLanguage(JsonReader reader) throws IOException {
+        String language = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"data".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"detections".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
                 }
-            } else {
-                Log.e(TAG, "Translation API error: " + responseCode);
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String responseLine;
-                    while ((responseLine = br.readLine()) != null) {
-                        response.append(responseLine.trim());
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (language == null && "language".equals(reader.nextName())) {
+                                language = reader.nextString();
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
                     }
-                    Log.e(TAG, "Error response: " + response.toString());
+                    reader.endArray();
                 }
-                return null;
+                reader.endArray();
             }
-        } catch (IOException | JSONException e) {
-            Log.e(TAG, "Translation error", e);
-            return null;
+            reader.endObject();
         }
+        reader.endObject();
+        return language;
     }
 
     /**
@@ -165,12 +363,32 @@ public class GoogleTranslationService {
      * @return A Future that will contain the translated text
      */
     public Future<String> translateAsync(final String text, final String sourceLanguage, final String targetLanguage) {
-        return executorService.submit(new Callable<String>() {
-            @Override
-            public String call() throws Exception {
-                return translate(text, sourceLanguage, targetLanguage);
-            }
-        });
+        return scheduler.submit(TranslationScheduler.Lane.GENERAL, TranslationScheduler.currentPriority(), this,
+                () -> translate(text, sourceLanguage, targetLanguage));
+    }
+
+    /**
+     * Translates text in the background, reporting the result to a callback.
+     *
+     * @param text The text to translate
+     * @param sourceLanguage The source language code
+     * @param targetLanguage The target language code
+     * @param callback Receives the result
+     */
+    @Override
+    public void translateText(String text, String sourceLanguage, String targetLanguage,
+                              TranslationCallback callback) {
+        scheduler.submit(TranslationScheduler.Lane.GENERAL, TranslationScheduler.currentPriority(), this,
+                () -> translate(text, sourceLanguage, targetLanguage))
+                .whenComplete((translatedText, error) -> {
+                    if (error != null) {
+                        callback.onTranslationComplete(false, null, "Online translation cancelled");
+                    } else if (translatedText != null) {
+                        callback.onTranslationComplete(true, translatedText, null);
+                    } else {
+                        callback.onTranslationComplete(false, null, "Online translation failed");
+                    }
+                });
     }
 
     /**
@@ -181,6 +399,7 @@ public class GoogleTranslationService {
      * @param text The text to detect language for
      * @return The detected language code, or null if detection failed
      */
+    @Override
     public String detectLanguage(String text) {
         if (!hasApiKey()) {
             Log.e(TAG, "API key not set");
@@ -192,46 +411,10 @@ public class GoogleTranslationService {
         }
 
         try {
-            URL url = new URL("https://translation.googleapis.com/language/translate/v2/detect?key=" + apiKey);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoOutput(true);
-
-            // Create request body
             JSONObject requestBody = new JSONObject();
             requestBody.put("q", text);
-
-            // Write request body
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = requestBody.toString().getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
-
-            // Read response
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String responseLine;
-                    while ((responseLine = br.readLine()) != null) {
-                        response.append(responseLine.trim());
-                    }
-
-                    // Parse response
-                    JSONObject jsonResponse = new JSONObject(response.toString());
-                    JSONObject data = jsonResponse.getJSONObject("data");
-                    JSONArray detections = data.getJSONArray("detections");
-                    JSONArray detection = detections.getJSONArray(0);
-                    JSONObject detectionData = detection.getJSONObject(0);
-                    return detectionData.getString("language");
-                }
-            } else {
-                Log.e(TAG, "Language detection API error: " + responseCode);
-                return null;
-            }
+            return post(apiUrl + "/detect", requestBody, "Language detection",
+                    GoogleTranslationService::readDetectedLanguage);
         } catch (IOException | JSONException e) {
             Log.e(TAG, "Language detection error", e);
             return null;
@@ -245,12 +428,8 @@ public class GoogleTranslationService {
      * @return A Future that will contain the detected language code
      */
     public Future<String> detectLanguageAsync(final String text) {
-        return executorService.submit(new Callable<String>() {
-            @Override
-            public String call() throws Exception {
-                return detectLanguage(text);
-            }
-        });
+        return scheduler.submit(TranslationScheduler.Lane.GENERAL, TranslationScheduler.currentPriority(), this,
+                () -> detectLanguage(text));
     }
 
     /**
@@ -268,7 +447,7 @@ public class GoogleTranslationService {
             return;
         }
 
-        executorService.execute(() -> {
+        scheduler.execute(TranslationScheduler.Lane.GENERAL, TranslationScheduler.currentPriority(), this, () -> {
             try {
                 String languageCode = detectLanguage(text);
                 if (languageCode != null) {
@@ -332,7 +511,7 @@ public class GoogleTranslationService {
             return;
         }
 
-        executorService.execute(() -> {
+        scheduler.execute(TranslationScheduler.Lane.GENERAL, TranslationScheduler.currentPriority(), this, () -> {
             boolean isValid = testApiKey();
             callback.onTestComplete(isValid);
         });
@@ -374,7 +553,16 @@ public class GoogleTranslationService {
      * Shuts down the executor service.
      */
     public void shutdown() {
-        executorService.shutdown();
+        batcher.shutdown();
+        scheduler.cancelAll(this);
+    }
+
+    /**
+     * Sends a batch on the online lane of the translation scheduler, at the
+     * priority of its most urgent caller.
+     */
+    private CompletableFuture<Void> dispatchBatch(Runnable send, TranslationScheduler.Priority priority) {
+        return scheduler.execute(TranslationScheduler.Lane.ONLINE, priority, null, send);
     }
 }
 
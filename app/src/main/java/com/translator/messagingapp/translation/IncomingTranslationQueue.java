@@ -0,0 +1,254 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import com.translator.messagingapp.sms.SmsMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects bursts of incoming SMS, e.g. a phone catching up after being
+ * offline, so they are translated and delivered together.
+ *
+ * A message that arrives on its own is not held back: {@link #offer} returns
+ * false and the caller translates it right away. Messages that arrive within
+ * the window of the previous one are staged instead, and once the window after
+ * the first of them closes, or the burst is full, they are translated with
+ * {@link TranslationManager#translateSmsMessagesAsync} in as few engine calls
+ * as possible. The listener then gets the whole burst in one call, once every
+ * translation has finished or the delivery timeout has passed, so the app
+ * broadcasts the translations once per burst rather than once per message.
+ * Translations that finish after the timeout, e.g. behind the online quota,
+ * are delivered one message at a time as they come in.
+ * Staging only defers translation: the caller should still notify about each
+ * message as it arrives, since the listener runs after the receiver returned.
+ */
+public class IncomingTranslationQueue {
+    private static final String TAG = "IncomingTranslationQueue";
+    static final long DEFAULT_WINDOW_MS = 500;
+    static final int DEFAULT_MAX_BURST_SIZE = 50;
+    static final long DEFAULT_DELIVERY_TIMEOUT_MS = 5000;
+
+    /**
+     * Receives a burst once its translations are done.
+     */
+    public interface BurstListener {
+        /**
+         * Called on a background thread, once for the burst and once more for
+         * each message translated after the burst was delivered.
+         *
+         * @param messages The messages of the burst, in arrival order, or the one
+         *                 late message; translated ones have their translated text set
+         */
+        void onBurstDelivered(List<SmsMessage> messages);
+    }
+
+    /**
+     * Translates the messages of a burst.
+     */
+    interface BurstTranslator {
+        /**
+         * @return One future per message, in the same order
+         */
+        List<CompletableFuture<SmsMessage>> translate(List<SmsMessage> messages);
+    }
+
+    private final BurstTranslator translator;
+    private final BurstListener listener;
+    private final long windowMs;
+    private final int maxBurstSize;
+    private final long deliveryTimeoutMs;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by this
+    private long lastArrivalMs = Long.MIN_VALUE;
+    private List<SmsMessage> staged = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    // Statistics
+    private final LongAdder alone = new LongAdder();
+    private final LongAdder bursts = new LongAdder();
+    private final LongAdder burstMessages = new LongAdder();
+
+    /**
+     * Creates a queue that translates bursts through the given manager.
+     *
+     * @param translationManager The translation manager, or null to deliver bursts untranslated
+     * @param listener Receives each burst
+     */
+    public IncomingTranslationQueue(TranslationManager translationManager, BurstListener listener) {
+        this(translationManager != null ? translationManager::translateSmsMessagesAsync : null, listener,
+                DEFAULT_WINDOW_MS, DEFAULT_MAX_BURST_SIZE, DEFAULT_DELIVERY_TIMEOUT_MS,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * @param translator Translates a burst, or null to deliver bursts untranslated
+     * @param windowMs How close messages must arrive to count as a burst, and how
+     *                 long a burst is collected after its first staged message
+     * @param maxBurstSize Most messages staged before the burst is sent early
+     * @param deliveryTimeoutMs Longest a burst waits for its translations before delivery
+     * @param clock The current time in milliseconds
+     */
+    IncomingTranslationQueue(BurstTranslator translator, BurstListener listener, long windowMs, int maxBurstSize,
+                             long deliveryTimeoutMs, LongSupplier clock) {
+        this.translator = translator;
+        this.listener = listener;
+        this.windowMs = windowMs;
+        this.maxBurstSize = Math.max(1, maxBurstSize);
+        this.deliveryTimeoutMs = deliveryTimeoutMs;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IncomingTranslationQueue");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Offers an incoming message. Call it as each message is received, after
+     * storing it.
+     *
+     * @param message The received message
+     * @return true if the message is part of a burst and will be translated with
+     *         it; false if it arrived alone and the caller should translate it now
+     */
+    public boolean offer(SmsMessage message) {
+        List<SmsMessage> full = null;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            boolean inBurst = lastArrivalMs != Long.MIN_VALUE && now - lastArrivalMs < windowMs;
+            lastArrivalMs = now;
+            if (!inBurst) {
+                alone.increment();
+                return false;
+            }
+
+            staged.add(message);
+            if (staged.size() >= maxBurstSize) {
+                full = takeStaged();
+            } else if (flushTask == null) {
+                flushTask = scheduler.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            translate(full);
+        }
+        return true;
+    }
+
+    /**
+     * Sends the staged burst now, e.g. when the service is stopping.
+     */
+    public void flush() {
+        List<SmsMessage> burst;
+        synchronized (this) {
+            burst = takeStaged();
+        }
+        if (!burst.isEmpty()) {
+            translate(burst);
+        }
+    }
+
+    /**
+     * Takes the staged messages and cancels their flush. Called holding the lock.
+     */
+    private List<SmsMessage> takeStaged() {
+        List<SmsMessage> burst = staged;
+        staged = new ArrayList<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return burst;
+    }
+
+    private void translate(List<SmsMessage> burst) {
+        bursts.increment();
+        burstMessages.add(burst.size());
+        Log.d(TAG, "Translating a burst of " + burst.size() + " incoming messages");
+
+        List<CompletableFuture<SmsMessage>> results;
+        try {
+            results = translator != null ? translator.translate(burst) : null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error translating burst", e);
+            results = null;
+        }
+        if (results == null || results.isEmpty()) {
+            deliver(burst);
+            return;
+        }
+
+        // Deliver once, when every translation is done or the timeout passes
+        AtomicBoolean delivered = new AtomicBoolean();
+        List<CompletableFuture<SmsMessage>> finalResults = results;
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            if (delivered.compareAndSet(false, true)) {
+                deliverTimedOut(burst, finalResults);
+            }
+        }, deliveryTimeoutMs, TimeUnit.MILLISECONDS);
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> {
+                    timeout.cancel(false);
+                    if (delivered.compareAndSet(false, true)) {
+                        deliver(burst);
+                    }
+                });
+    }
+
+    /**
+     * Delivers a burst whose translations are not all done, then each pending
+     * message on its own once it is translated.
+     */
+    private void deliverTimedOut(List<SmsMessage> burst, List<CompletableFuture<SmsMessage>> results) {
+        List<CompletableFuture<SmsMessage>> pending = new ArrayList<>();
+        for (CompletableFuture<SmsMessage> result : results) {
+            if (!result.isDone()) {
+                pending.add(result);
+            }
+        }
+        Log.d(TAG, "Delivering a burst with " + pending.size() + " translations still pending");
+        deliver(burst);
+
+        for (CompletableFuture<SmsMessage> result : pending) {
+            result.thenAccept(message -> {
+                if (message != null && message.isTranslated()) {
+                    deliver(Collections.singletonList(message));
+                }
+            });
+        }
+    }
+
+    private void deliver(List<SmsMessage> burst) {
+        try {
+            listener.onBurstDelivered(burst);
+        } catch (Exception e) {
+            Log.e(TAG, "Error delivering burst", e);
+        }
+    }
+
+    /**
+     * Gets queue statistics for debugging.
+     */
+    public String getStatistics() {
+        return "Incoming: alone=" + alone.sum()
+                + ", bursts=" + bursts.sum()
+                + ", burstMessages=" + burstMessages.sum();
+    }
+
+    long getBurstCount() {
+        return bursts.sum();
+    }
+}
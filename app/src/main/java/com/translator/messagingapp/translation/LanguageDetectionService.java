@@ -14,9 +14,12 @@ import com.google.mlkit.nl.languageid.IdentifiedLanguage;
 import com.google.mlkit.nl.languageid.LanguageIdentification;
 import com.google.mlkit.nl.languageid.LanguageIdentifier;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for detecting the language of text using ML Kit with Google API fallback.
@@ -28,6 +31,23 @@ public class LanguageDetectionService {
     // Detection configuration
     private static final float MIN_CONFIDENCE_THRESHOLD = 0.5f;
     private static final int DETECTION_TIMEOUT_SECONDS = 10;
+
+    // Memoized detections and per-contact language profiles
+    private static final int MAX_CACHED_DETECTIONS = 500;
+    private static final int MAX_PROFILES = 200;
+    // Messages this short ("ok", "lol", "👍") are too ambiguous to detect reliably
+    private static final int SHORT_TEXT_LENGTH = 20;
+    // Messages up to this length skip detection when the contact's language is very stable
+    private static final int MEDIUM_TEXT_LENGTH = 60;
+    private static final double DOMINANT_SHARE = 0.75;
+    private static final int DOMINANT_MIN_SAMPLES = 3;
+    private static final double STABLE_SHARE = 0.9;
+    private static final int STABLE_MIN_SAMPLES = 8;
+    // Every how many messages a profile could answer one is detected anyway
+    private static final int PROFILE_RECHECK_INTERVAL = 5;
+
+    // Detected once at startup so ML Kit loads its model before the first message
+    private static final String WARM_UP_TEXT = "Warming up the language identifier";
     
     public enum DetectionMethod {
         ML_KIT, ONLINE_API, FALLBACK
@@ -49,6 +69,28 @@ public class LanguageDetectionService {
     private final GoogleTranslationService googleService;
     private final LanguageIdentifier mlkitIdentifier;
     private float minConfidenceThreshold;
+
+    // Detected languages by text hash, least recently used first; guarded by itself
+    private final Map<Long, String> detectionCache = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_CACHED_DETECTIONS;
+        }
+    };
+    // Language profiles by contact or thread, least recently used first; guarded by itself
+    private final Map<String, LanguageProfile> profiles = new LinkedHashMap<String, LanguageProfile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LanguageProfile> eldest) {
+            return size() > MAX_PROFILES;
+        }
+    };
+
+    // Statistics
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder profileOverrides = new LongAdder();
+    private final LongAdder profileRechecks = new LongAdder();
+    private final LongAdder mlKitDetections = new LongAdder();
+    private final LongAdder onlineDetections = new LongAdder();
     
     /**
      * Creates a new LanguageDetectionService with Google service fallback.
@@ -125,27 +167,92 @@ public class LanguageDetectionService {
      * @return The detected language code, or device language if detection failed
      */
     public String detectLanguageSync(String text) {
+        return detectLanguageSync(text, null);
+    }
+
+    /**
+     * Detects the language of a message from a known contact or thread.
+     * The language profile of the contact answers short messages, which can't
+     * be detected reliably, and messages ML Kit isn't confident about; once the
+     * contact's language is very stable it answers everything but long
+     * messages. Long messages, and every few messages the profile could have
+     * answered, are still detected so the profile notices a change of
+     * language. Other texts seen before are answered from a cache.
+     *
+     * @param text The text to detect language for
+     * @param profileKey Identifies the contact or thread, or null to only use the cache
+     * @return The detected language code, or device language if detection failed
+     */
+    public String detectLanguageSync(String text, String profileKey) {
         if (TextUtils.isEmpty(text)) {
             Log.w(TAG, "Empty text provided for language detection, returning device language");
             return java.util.Locale.getDefault().getLanguage();
         }
+
+        long textHash = TranslationCacheKey.hash(text);
+        LanguageProfile profile = profileKey != null ? getProfile(profileKey) : null;
+
+        if (profile != null) {
+            String profileLanguage = text.length() <= SHORT_TEXT_LENGTH
+                    ? profile.getDominantLanguage(DOMINANT_SHARE, DOMINANT_MIN_SAMPLES)
+                    : text.length() <= MEDIUM_TEXT_LENGTH
+                            ? profile.getDominantLanguage(STABLE_SHARE, STABLE_MIN_SAMPLES)
+                            : null;
+            if (profileLanguage != null && profile.shouldRecheck(PROFILE_RECHECK_INTERVAL)) {
+                // Detected and recorded below, so a change of language can wear the profile down
+                profileRechecks.increment();
+            } else if (profileLanguage != null) {
+                // Not recorded in the profile, so the profile can't reinforce itself
+                profileOverrides.increment();
+                Log.d(TAG, "Using language profile: " + profileLanguage);
+                return profileLanguage;
+            }
+        }
         
+        String cachedLanguage;
+        synchronized (detectionCache) {
+            cachedLanguage = detectionCache.get(textHash);
+        }
+        if (cachedLanguage != null) {
+            cacheHits.increment();
+            if (profile != null) {
+                profile.record(cachedLanguage);
+            }
+            return cachedLanguage;
+        }
+
         // Try ML Kit detection first
         try {
+            mlKitDetections.increment();
             String mlkitResult = detectWithMLKitSync(text);
             if (mlkitResult != null) {
                 Log.d(TAG, "ML Kit detected language: " + mlkitResult);
+                remember(textHash, mlkitResult, profile);
                 return mlkitResult;
             }
         } catch (Exception e) {
             Log.w(TAG, "ML Kit detection failed: " + e.getMessage());
         }
+
+        // ML Kit isn't sure; the contact's usual language is a better guess than another lookup
+        if (profile != null) {
+            String profileLanguage = profile.getDominantLanguage(DOMINANT_SHARE, DOMINANT_MIN_SAMPLES);
+            if (profileLanguage != null) {
+                profileOverrides.increment();
+                Log.d(TAG, "Ambiguous text, using language profile: " + profileLanguage);
+                return profileLanguage;
+            }
+        }
         
         // Fallback to online detection if available
         if (isOnlineDetectionAvailable()) {
             try {
+                onlineDetections.increment();
                 String onlineResult = googleService.detectLanguage(text);
                 Log.d(TAG, "Online detection result: " + onlineResult);
+                if (onlineResult != null) {
+                    remember(textHash, onlineResult, profile);
+                }
                 return onlineResult;
             } catch (Exception e) {
                 Log.w(TAG, "Online detection failed: " + e.getMessage());
@@ -155,7 +262,52 @@ public class LanguageDetectionService {
         Log.w(TAG, "All language detection methods failed, returning device language");
         return java.util.Locale.getDefault().getLanguage();
     }
-    
+
+    /**
+     * Gets detection statistics.
+     *
+     * @return A string with cache hits, profile overrides and rechecks, and detections made
+     */
+    public String getStatistics() {
+        int profileCount;
+        synchronized (profiles) {
+            profileCount = profiles.size();
+        }
+        return String.format(java.util.Locale.US,
+                "Cache hits: %d, profile overrides: %d, profile rechecks: %d, ML Kit detections: %d, "
+                        + "online detections: %d, profiles: %d",
+                cacheHits.sum(), profileOverrides.sum(), profileRechecks.sum(), mlKitDetections.sum(),
+                onlineDetections.sum(), profileCount);
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    public long getProfileOverrideCount() {
+        return profileOverrides.sum();
+    }
+
+    private LanguageProfile getProfile(String profileKey) {
+        synchronized (profiles) {
+            LanguageProfile profile = profiles.get(profileKey);
+            if (profile == null) {
+                profile = new LanguageProfile();
+                profiles.put(profileKey, profile);
+            }
+            return profile;
+        }
+    }
+
+    private void remember(long textHash, String language, LanguageProfile profile) {
+        synchronized (detectionCache) {
+            detectionCache.put(textHash, language);
+        }
+        if (profile != null) {
+            profile.record(language);
+        }
+    }
+
     /**
      * Detects the language of the given text asynchronously.
      *
@@ -243,6 +395,22 @@ public class LanguageDetectionService {
         }
     }
     
+    /**
+     * Loads the ML Kit model by detecting a dummy text, so the first real
+     * detection doesn't pay for it. Blocks until done; the result is not cached.
+     *
+     * @return true if ML Kit ran the detection
+     */
+    public boolean warmUp() {
+        try {
+            detectWithMLKitSync(WARM_UP_TEXT);
+            return true;
+        } catch (Exception e) {
+            Log.w(TAG, "ML Kit warm-up failed: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Detects language using ML Kit synchronously with confidence checking.
      */
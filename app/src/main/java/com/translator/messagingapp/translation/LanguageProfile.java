@@ -0,0 +1,91 @@
+package com.translator.messagingapp.translation;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Languages a conversation partner writes in, as an exponentially weighted
+ * distribution: every detected message moves its language's share towards 1
+ * and decays all others, so the profile follows a contact who switches
+ * languages within a few messages while one odd message barely moves it.
+ */
+class LanguageProfile {
+    // Weight of the newest message; 0.2 makes about the last 10 messages count
+    private static final double ALPHA = 0.2;
+    // Shares below this are dropped to keep the map small
+    private static final double MIN_SHARE = 0.01;
+
+    private final Map<String, Double> shares = new HashMap<>();
+    private int sampleCount;
+    // Messages answered from the profile since the last detected one
+    private int answeredSinceRecord;
+
+    /**
+     * Records the detected language of a message.
+     */
+    synchronized void record(String language) {
+        Iterator<Map.Entry<String, Double>> iterator = shares.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Double> entry = iterator.next();
+            double share = entry.getValue() * (1 - ALPHA);
+            if (share < MIN_SHARE) {
+                iterator.remove();
+            } else {
+                entry.setValue(share);
+            }
+        }
+        if (sampleCount == 0) {
+            // The first message sets the profile rather than moving it from nothing
+            shares.put(language, 1.0);
+        } else {
+            shares.merge(language, ALPHA, Double::sum);
+        }
+        sampleCount++;
+        answeredSinceRecord = 0;
+    }
+
+    /**
+     * Counts a message the profile could answer without detection, and says
+     * whether it should be detected anyway, so a contact who switches
+     * language is noticed even if all their messages are short.
+     *
+     * @param interval Every how many answerable messages one is detected
+     * @return true if this message should be detected and recorded
+     */
+    synchronized boolean shouldRecheck(int interval) {
+        answeredSinceRecord++;
+        return answeredSinceRecord >= interval;
+    }
+
+    /**
+     * Gets the language the contact mostly writes in.
+     *
+     * @param minShare The share the language must have, from 0 to 1
+     * @param minSamples The number of messages the profile must be based on
+     * @return The dominant language, or null if no language is dominant enough yet
+     */
+    synchronized String getDominantLanguage(double minShare, int minSamples) {
+        if (sampleCount < minSamples) {
+            return null;
+        }
+        for (Map.Entry<String, Double> entry : shares.entrySet()) {
+            if (entry.getValue() >= minShare) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the share of a language, from 0 to 1.
+     */
+    synchronized double getShare(String language) {
+        Double share = shares.get(language);
+        return share != null ? share : 0;
+    }
+
+    synchronized int getSampleCount() {
+        return sampleCount;
+    }
+}
@@ -0,0 +1,100 @@
+package com.translator.messagingapp.translation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Recording is a couple of striped counter increments, so it is cheap enough
+ * to call on every cache lookup from any thread. Percentiles are approximate:
+ * they report the upper bound of the bucket the percentile falls in.
+ */
+public class LatencyHistogram {
+    // Bucket i holds samples below 2^i microseconds; the last bucket is unbounded (~67s and up)
+    private static final int BUCKET_COUNT = 27;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param elapsedNanos The measured duration in nanoseconds
+     */
+    public void record(long elapsedNanos) {
+        long micros = Math.max(0, elapsedNanos / 1000);
+        buckets[bucketFor(micros)].increment();
+        count.increment();
+        totalMicros.add(micros);
+    }
+
+    /**
+     * Gets the number of recorded samples.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean latency in microseconds, or 0 if nothing was recorded.
+     */
+    public long getMeanMicros() {
+        long samples = count.sum();
+        return samples > 0 ? totalMicros.sum() / samples : 0;
+    }
+
+    /**
+     * Gets an approximate percentile.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The upper bound in microseconds of the bucket holding the percentile, or 0 if empty
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return upperBoundMicros(i);
+            }
+        }
+        return upperBoundMicros(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Clears all samples.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalMicros.reset();
+    }
+
+    private static int bucketFor(long micros) {
+        // Number of bits needed to represent the value: 0 -> 0, 1 -> 1, 2..3 -> 2, ...
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+}
@@ -0,0 +1,201 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import com.translator.messagingapp.contact.UserPreferences;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the ML Kit models at startup, so the first auto-translation after a
+ * cold start doesn't pay for them. The language identifier runs a dummy
+ * detection, then the translators for the user's incoming and outgoing pairs
+ * run a dummy translation each; translators whose models aren't downloaded are
+ * skipped, never downloaded.
+ *
+ * The warm-up is one task at {@link TranslationScheduler.Priority#PREFETCH}
+ * on the offline lane, so real translations go first. Cancelling it drops the
+ * task if it is still queued, or stops it before its next stage.
+ */
+public class ModelWarmUp {
+    private static final String TAG = "ModelWarmUp";
+    static final String STAGE_IDENTIFIER = "language_identifier";
+    static final String STAGE_TOTAL = "total";
+
+    /**
+     * Receives the time each stage took, on the warm-up thread.
+     */
+    public interface Listener {
+        /**
+         * @param stage {@code language_identifier}, {@code translator_<source>_<target>} or {@code total}
+         * @param elapsedMs How long the stage took
+         * @param success Whether the model is warm
+         */
+        void onStageWarmedUp(String stage, long elapsedMs, boolean success);
+    }
+
+    /**
+     * Warms up single models.
+     */
+    interface Models {
+        /**
+         * @return true if the identifier is warm
+         */
+        boolean warmUpIdentifier();
+
+        /**
+         * @return true if the translator is warm
+         */
+        boolean warmUpTranslator(String sourceLanguage, String targetLanguage);
+    }
+
+    private final Models models;
+    private final List<String[]> translatorPairs;
+    private final TranslationScheduler scheduler;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a warm-up of the models the manager uses for the user's languages.
+     * Translators are only warmed up if offline translation is in use.
+     *
+     * @param translationManager The translation manager
+     * @param userPreferences The user's language and translation settings
+     */
+    public ModelWarmUp(TranslationManager translationManager, UserPreferences userPreferences) {
+        this(newModels(translationManager), usesOfflineTranslation(userPreferences)
+                        ? getTranslatorPairs(userPreferences.getPreferredIncomingLanguage(),
+                                userPreferences.getPreferredOutgoingLanguage())
+                        : Collections.emptyList(),
+                TranslationScheduler.getInstance());
+    }
+
+    /**
+     * @param translatorPairs Source and target language of each translator to warm up
+     */
+    ModelWarmUp(Models models, List<String[]> translatorPairs, TranslationScheduler scheduler) {
+        this.models = models;
+        this.translatorPairs = translatorPairs;
+        this.scheduler = scheduler;
+    }
+
+    private static Models newModels(TranslationManager translationManager) {
+        LanguageDetectionService detectionService = translationManager.getLanguageDetectionService();
+        OfflineTranslationService offlineService = translationManager.getOfflineTranslationService();
+        return new Models() {
+            @Override
+            public boolean warmUpIdentifier() {
+                return detectionService != null && detectionService.warmUp();
+            }
+
+            @Override
+            public boolean warmUpTranslator(String sourceLanguage, String targetLanguage) {
+                return offlineService != null && offlineService.warmUp(sourceLanguage, targetLanguage);
+            }
+        };
+    }
+
+    private static boolean usesOfflineTranslation(UserPreferences userPreferences) {
+        return userPreferences.isOfflineTranslationEnabled()
+                && userPreferences.getTranslationMode() != UserPreferences.TRANSLATION_MODE_ONLINE;
+    }
+
+    /**
+     * Gets the pairs translated most: incoming messages from the outgoing
+     * language into the incoming one, and replies the other way.
+     *
+     * @return The distinct pairs, none if both languages are the same
+     */
+    static List<String[]> getTranslatorPairs(String incomingLanguage, String outgoingLanguage) {
+        List<String[]> pairs = new ArrayList<>();
+        if (incomingLanguage == null || incomingLanguage.isEmpty()
+                || outgoingLanguage == null || outgoingLanguage.isEmpty()
+                || incomingLanguage.split("-")[0].equals(outgoingLanguage.split("-")[0])) {
+            return pairs;
+        }
+        pairs.add(new String[]{outgoingLanguage, incomingLanguage});
+        pairs.add(new String[]{incomingLanguage, outgoingLanguage});
+        return pairs;
+    }
+
+    /**
+     * Queues the warm-up. Only the first call does anything.
+     *
+     * @param listener Receives the stage timings, or null
+     * @return A future completed when the warm-up has finished or was cancelled
+     */
+    public CompletableFuture<Void> start(Listener listener) {
+        if (!started.compareAndSet(false, true) || cancelled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return scheduler.execute(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.Priority.PREFETCH, this,
+                () -> run(listener));
+    }
+
+    private void run(Listener listener) {
+        long start = System.nanoTime();
+        if (cancelled) {
+            return;
+        }
+        boolean warm = stage(STAGE_IDENTIFIER, listener, models::warmUpIdentifier);
+        for (String[] pair : translatorPairs) {
+            if (cancelled) {
+                Log.d(TAG, "Warm-up cancelled");
+                return;
+            }
+            warm &= stage("translator_" + pair[0] + "_" + pair[1], listener,
+                    () -> models.warmUpTranslator(pair[0], pair[1]));
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.d(TAG, "Models warmed up in " + elapsedMs + " ms");
+        report(listener, STAGE_TOTAL, elapsedMs, warm);
+    }
+
+    private interface Stage {
+        boolean run();
+    }
+
+    private boolean stage(String name, Listener listener, Stage stage) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = stage.run();
+        } catch (Exception e) {
+            Log.w(TAG, "Warm-up of " + name + " failed", e);
+            success = false;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.d(TAG, "Warmed up " + name + " in " + elapsedMs + " ms" + (success ? "" : " (skipped or failed)"));
+        report(listener, name, elapsedMs, success);
+        return success;
+    }
+
+    private static void report(Listener listener, String stage, long elapsedMs, boolean success) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onStageWarmedUp(stage, elapsedMs, success);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reporting warm-up of " + stage, e);
+        }
+    }
+
+    /**
+     * Stops the warm-up: drops it if still queued, otherwise stops it before
+     * its next stage. A model already loading finishes loading.
+     */
+    public void cancel() {
+        cancelled = true;
+        scheduler.cancelAll(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
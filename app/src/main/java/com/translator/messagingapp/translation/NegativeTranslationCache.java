@@ -0,0 +1,242 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers texts that could not be translated and why, so the next bind or
+ * the next incoming copy of the same text fails fast instead of spending
+ * detection, executor time and rate-limit budget on the same outcome again.
+ * Entries expire after a per-reason TTL, and the whole cache is dropped when a
+ * language model is downloaded or the translation settings change.
+ * Kept in memory only; a fresh process retries everything once.
+ */
+public class NegativeTranslationCache {
+    private static final String TAG = "NegativeTranslationCache";
+
+    private static final int MAX_ENTRIES = 500;
+
+    // Matches URLs, so bodies that are nothing but links count as untranslatable
+    private static final Pattern URL_PATTERN = Pattern.compile("(?i)\\b(?:https?://|www\\.)\\S+");
+
+    // Bumped whenever a model is downloaded; every instance drops its entries on the next lookup
+    private static final AtomicInteger modelGeneration = new AtomicInteger();
+
+    /**
+     * Why a translation was skipped or failed, with how long that is remembered.
+     */
+    public enum Reason {
+        /** No engine can handle the language pair: no model support and no API key. */
+        UNSUPPORTED_PAIR(24 * 60 * 60 * 1000L),
+        /** The text is already in the target language. */
+        SAME_LANGUAGE(7 * 24 * 60 * 60 * 1000L),
+        /** Nothing to translate, e.g. only emoji, numbers or links. */
+        UNTRANSLATABLE(7 * 24 * 60 * 60 * 1000L),
+        /** The source language could not be detected. */
+        DETECTION_FAILED(60 * 60 * 1000L),
+        /** The engine failed; likely transient, so only remembered briefly. */
+        ENGINE_FAILED(5 * 60 * 1000L);
+
+        private final long ttlMs;
+
+        Reason(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+
+        public long getTtlMs() {
+            return ttlMs;
+        }
+    }
+
+    /**
+     * A remembered failure.
+     */
+    public static final class Entry {
+        private final Reason reason;
+        private final String message;
+        private final long expiresAt;
+
+        Entry(Reason reason, String message, long expiresAt) {
+            this.reason = reason;
+            this.message = message;
+            this.expiresAt = expiresAt;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+
+        /**
+         * Gets the error message reported when the failure was recorded.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    // Access-ordered, so the least recently used entry is dropped first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private int generation = modelGeneration.get();
+    private String settingsFingerprint;
+
+    // Statistics
+    private final LongAdder shortCircuits = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+
+    /**
+     * Looks up a remembered failure for a text and target language.
+     *
+     * @param text The source text
+     * @param targetLanguage The target language code
+     * @return The failure, or null if the text should be translated
+     */
+    public Entry get(String text, String targetLanguage) {
+        if (text == null || targetLanguage == null) {
+            return null;
+        }
+        String key = getKey(text, targetLanguage);
+        synchronized (entries) {
+            dropIfModelsChanged();
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            shortCircuits.increment();
+            return entry;
+        }
+    }
+
+    /**
+     * Records that a text could not be translated.
+     *
+     * @param text The source text
+     * @param targetLanguage The target language code
+     * @param reason Why the translation was skipped or failed
+     * @param message The error message to report to later callers
+     */
+    public void put(String text, String targetLanguage, Reason reason, String message) {
+        if (text == null || targetLanguage == null || reason == null) {
+            return;
+        }
+        Entry entry = new Entry(reason, message, System.currentTimeMillis() + reason.getTtlMs());
+        synchronized (entries) {
+            dropIfModelsChanged();
+            entries.put(getKey(text, targetLanguage), entry);
+        }
+        recorded.increment();
+    }
+
+    /**
+     * Forgets a remembered failure, e.g. after a translation succeeded.
+     */
+    public void remove(String text, String targetLanguage) {
+        if (text == null || targetLanguage == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(getKey(text, targetLanguage));
+        }
+    }
+
+    /**
+     * Drops all entries if the translation settings differ from those seen last.
+     * Cheap enough to call before every lookup.
+     *
+     * @param fingerprint A value that changes whenever a setting affecting translation changes
+     */
+    public void validateSettings(String fingerprint) {
+        synchronized (entries) {
+            if (settingsFingerprint != null && !settingsFingerprint.equals(fingerprint) && !entries.isEmpty()) {
+                Log.d(TAG, "Translation settings changed, dropping " + entries.size() + " entries");
+                entries.clear();
+            }
+            settingsFingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Drops all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Tells every negative cache that a language model was downloaded, so pairs that
+     * failed for lack of a model are retried.
+     */
+    public static void onModelsChanged() {
+        modelGeneration.incrementAndGet();
+    }
+
+    /**
+     * Checks whether a text has nothing an engine could translate: no letters
+     * once links are removed, e.g. only emoji, numbers or URLs.
+     *
+     * @param text The text to check
+     * @return true if there is nothing to translate
+     */
+    public static boolean isUntranslatable(String text) {
+        if (text == null) {
+            return true;
+        }
+        String withoutUrls = URL_PATTERN.matcher(text).replaceAll("");
+        for (int i = 0; i < withoutUrls.length(); ) {
+            int codePoint = withoutUrls.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                return false;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of translation attempts answered from this cache.
+     */
+    public long getShortCircuitCount() {
+        return shortCircuits.sum();
+    }
+
+    /**
+     * Gets the number of failures recorded.
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void dropIfModelsChanged() {
+        int current = modelGeneration.get();
+        if (current != generation) {
+            generation = current;
+            entries.clear();
+        }
+    }
+
+    private static String getKey(String text, String targetLanguage) {
+        // Same canonical form as the translation cache, so trivial variants share an entry
+        return CacheKeyNormalizer.normalize(text) + "_" + targetLanguage;
+    }
+}
@@ -20,12 +20,14 @@ import com.google.mlkit.nl.translate.TranslatorOptions;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Manager for ML Kit offline translation models.
@@ -37,6 +39,10 @@ public class OfflineModelManager {
     // Download timeouts - longer for first attempts due to ML Kit initialization
     private static final int DOWNLOAD_TIMEOUT_SECONDS = 60;
     private static final int FIRST_DOWNLOAD_TIMEOUT_SECONDS = 120;
+    private static final int MODEL_QUERY_TIMEOUT_SECONDS = 10;
+    // How long availability checks answer from the index without querying ML Kit after a failed load
+    private static final long MIN_LOAD_BACK_OFF_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long MAX_LOAD_BACK_OFF_MS = TimeUnit.MINUTES.toMillis(10);
     
     public interface DownloadListener {
         void onProgress(int progress);
@@ -49,6 +55,16 @@ public class OfflineModelManager {
         void onError(String errorMessage);
     }
     
+    /**
+     * Told when any manager deletes a model, so translators using it are closed.
+     */
+    public interface ModelDeletedListener {
+        /**
+         * @param mlkitLanguageCode The ML Kit code of the deleted model
+         */
+        void onModelDeleted(String mlkitLanguageCode);
+    }
+    
     public static class OfflineLanguageModel {
         private final String languageCode;
         private final String displayName;
@@ -78,11 +94,23 @@ public class OfflineModelManager {
     
     private final Context context;
     private final RemoteModelManager modelManager;
-    private final ExecutorService executorService;
+    private final TranslationScheduler scheduler;
     private final Map<String, OfflineLanguageModel> modelCache;
     private final List<String> modelOrder; // Maintains frequency-based ordering
     private final Map<String, Boolean> firstDownloadAttempts; // Track first-time downloads
     
+    // ML Kit codes of downloaded models, so availability checks don't query ML Kit.
+    // Shared by every manager, so downloads and deletes made on the models screen
+    // are seen by the translation services right away.
+    private static final Set<String> downloadedModels = ConcurrentHashMap.newKeySet();
+    private static final Object indexLock = new Object();
+    private static volatile boolean indexLoaded;
+    private static final AtomicBoolean indexLoading = new AtomicBoolean();
+    // Guarded by indexLock
+    private static long lastFailedLoadMs;
+    private static long loadBackOffMs;
+    private static final List<ModelDeletedListener> deletedListeners = new CopyOnWriteArrayList<>();
+    
     /**
      * Creates a new OfflineModelManager.
      *
@@ -91,12 +119,14 @@ public class OfflineModelManager {
     public OfflineModelManager(Context context) {
         this.context = context;
         this.modelManager = RemoteModelManager.getInstance();
-        this.executorService = Executors.newCachedThreadPool();
+        this.scheduler = TranslationScheduler.getInstance();
         this.modelCache = new HashMap<>();
         this.modelOrder = new ArrayList<>();
         this.firstDownloadAttempts = new HashMap<>();
         
         initializeModels();
+        // Load the downloaded-model index off the main thread before the first translation needs it
+        requestIndexLoad();
         Log.d(TAG, "OfflineModelManager initialized");
     }
     
@@ -214,7 +244,7 @@ public class OfflineModelManager {
      * @param listener The download progress listener
      */
     public void downloadModel(String languageCode, DownloadListener listener) {
-        executorService.execute(() -> {
+        runInBackground(() -> {
             try {
                 OfflineLanguageModel model = modelCache.get(languageCode);
                 if (model == null) {
@@ -279,11 +309,14 @@ public class OfflineModelManager {
                     model.setDownloadProgress(90);
                     listener.onProgress(90);
                     
-                    // Verify download success
-                    boolean isAvailable = isModelAvailableInMLKit(languageCode);
+                    // Verify download success against ML Kit itself, updating the index
+                    refreshDownloadedModels();
+                    boolean isAvailable = downloadedModels.contains(mlkitLanguageCode);
                     if (isAvailable) {
                         model.setDownloaded(true);
                         model.setDownloadProgress(100);
+                        // Pairs that failed for lack of this model can be retried now
+                        NegativeTranslationCache.onModelsChanged();
                         listener.onProgress(100);
                         listener.onSuccess();
                         Log.d(TAG, "Model downloaded successfully: " + languageCode + 
@@ -329,7 +362,7 @@ public class OfflineModelManager {
      */
     public void deleteModel(String languageCode, Runnable onSuccess, 
                            java.util.function.Consumer<String> onError) {
-        executorService.execute(() -> {
+        runInBackground(() -> {
             try {
                 String mlkitLanguageCode = convertToMLKitLanguageCode(languageCode);
                 if (mlkitLanguageCode == null) {
@@ -341,6 +374,10 @@ public class OfflineModelManager {
                 Task<Void> deleteTask = modelManager.deleteDownloadedModel(model);
                 
                 Tasks.await(deleteTask, 30, TimeUnit.SECONDS);
+                downloadedModels.remove(mlkitLanguageCode);
+                for (ModelDeletedListener deletedListener : deletedListeners) {
+                    deletedListener.onModelDeleted(mlkitLanguageCode);
+                }
                 
                 // Update cache
                 OfflineLanguageModel cachedModel = modelCache.get(languageCode);
@@ -364,7 +401,7 @@ public class OfflineModelManager {
      * Models are returned in usage frequency order (most common first).
      */
     public void getAvailableModels(ModelStatusListener listener) {
-        executorService.execute(() -> {
+        runInBackground(() -> {
             try {
                 updateModelStatuses();
                 // Return models in frequency-based order
@@ -387,6 +424,8 @@ public class OfflineModelManager {
      * Updates the download status of all models.
      */
     private void updateModelStatuses() {
+        // One ML Kit query for all models; the checks below use the refreshed index
+        refreshDownloadedModels();
         for (OfflineLanguageModel model : modelCache.values()) {
             if (!model.isDownloading()) {
                 boolean isDownloaded = isModelAvailableInMLKit(model.getLanguageCode());
@@ -402,32 +441,102 @@ public class OfflineModelManager {
     
     /**
      * Checks if a model is available in ML Kit.
+     * Answered from the in-memory index of downloaded models, without waiting:
+     * until the index is loaded, models not known yet count as not downloaded,
+     * and the check starts a load in the background if none is running.
      */
     public boolean isModelAvailableInMLKit(String languageCode) {
-        try {
-            String mlkitLanguageCode = convertToMLKitLanguageCode(languageCode);
-            if (mlkitLanguageCode == null) {
+        String mlkitLanguageCode = convertToMLKitLanguageCode(languageCode);
+        if (mlkitLanguageCode == null) {
+            return false;
+        }
+        if (!indexLoaded) {
+            requestIndexLoad();
+        }
+        return downloadedModels.contains(mlkitLanguageCode);
+    }
+
+    /**
+     * Reloads the index of downloaded models from ML Kit, e.g. after models
+     * were downloaded outside this manager.
+     *
+     * @return True if the index was refreshed, false if ML Kit couldn't be queried
+     */
+    public boolean refreshDownloadedModels() {
+        synchronized (indexLock) {
+            try {
+                Task<Set<TranslateRemoteModel>> getModelsTask = modelManager.getDownloadedModels(TranslateRemoteModel.class);
+                Set<TranslateRemoteModel> models = Tasks.await(getModelsTask, MODEL_QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                Set<String> languages = new HashSet<>();
+                for (TranslateRemoteModel model : models) {
+                    languages.add(model.getLanguage());
+                }
+                boolean added = !downloadedModels.containsAll(languages);
+                downloadedModels.addAll(languages);
+                downloadedModels.retainAll(languages);
+                indexLoaded = true;
+                loadBackOffMs = 0;
+
+                if (added) {
+                    // Pairs that failed for lack of these models can be retried now
+                    NegativeTranslationCache.onModelsChanged();
+                }
+                Log.d(TAG, "Downloaded models: " + languages);
+                return true;
+            } catch (Exception e) {
+                lastFailedLoadMs = elapsedMillis();
+                loadBackOffMs = loadBackOffMs == 0 ? MIN_LOAD_BACK_OFF_MS
+                        : Math.min(loadBackOffMs * 2, MAX_LOAD_BACK_OFF_MS);
+                Log.w(TAG, "Error loading downloaded models, retrying in " + loadBackOffMs + "ms", e);
                 return false;
             }
-            
-            TranslateRemoteModel model = new TranslateRemoteModel.Builder(mlkitLanguageCode).build();
-            Task<Set<TranslateRemoteModel>> getModelsTask = modelManager.getDownloadedModels(TranslateRemoteModel.class);
-            
-            Set<TranslateRemoteModel> downloadedModels = Tasks.await(getModelsTask, 10, TimeUnit.SECONDS);
-            
-            for (TranslateRemoteModel downloadedModel : downloadedModels) {
-                if (downloadedModel.getLanguage().equals(mlkitLanguageCode)) {
-                    return true;
+        }
+    }
+
+    /**
+     * Loads the index in the background unless a load is already running.
+     */
+    private void requestIndexLoad() {
+        if (indexLoading.compareAndSet(false, true)) {
+            runInBackground(() -> {
+                try {
+                    ensureIndexLoaded();
+                } finally {
+                    indexLoading.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads the index once; later calls return immediately. After a failed
+     * load, calls return immediately until the back-off has passed.
+     */
+    private void ensureIndexLoaded() {
+        if (!indexLoaded) {
+            synchronized (indexLock) {
+                if (!indexLoaded && elapsedMillis() - lastFailedLoadMs >= loadBackOffMs) {
+                    refreshDownloadedModels();
                 }
             }
-            
-            return false;
-            
-        } catch (Exception e) {
-            Log.w(TAG, "Error checking model availability for " + languageCode, e);
-            return false;
         }
     }
+
+    private static long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Registers a listener for models deleted by any manager.
+     */
+    public static void addModelDeletedListener(ModelDeletedListener listener) {
+        deletedListeners.add(listener);
+    }
+
+    public static void removeModelDeletedListener(ModelDeletedListener listener) {
+        deletedListeners.remove(listener);
+    }
     
     /**
      * Gets a specific model by language code.
@@ -440,17 +549,14 @@ public class OfflineModelManager {
      * Cleans up resources.
      */
     public void cleanup() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+        scheduler.cancelAll(this);
         Log.d(TAG, "OfflineModelManager cleaned up");
     }
+
+    /**
+     * Runs model work on the scheduler's model lane, which bounds concurrent downloads.
+     */
+    private void runInBackground(Runnable work) {
+        scheduler.execute(TranslationScheduler.Lane.MODELS, TranslationScheduler.Priority.USER_INITIATED, this, work);
+    }
 }
\ No newline at end of file
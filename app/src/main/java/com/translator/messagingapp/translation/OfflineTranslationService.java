@@ -4,6 +4,7 @@ import com.translator.messagingapp.message.*;
 
 import com.translator.messagingapp.translation.*;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.text.TextUtils;
 import android.util.Log;
@@ -15,22 +16,37 @@ import com.google.mlkit.nl.translate.Translation;
 import com.google.mlkit.nl.translate.Translator;
 import com.google.mlkit.nl.translate.TranslatorOptions;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for performing offline translation using ML Kit.
  * Handles text translation using downloaded language models.
  */
-public class OfflineTranslationService {
+public class OfflineTranslationService implements TranslationEngine {
     private static final String TAG = "OfflineTranslationService";
+    private static final String ENGINE_NAME = "mlkit";
     
     // Translation timeout
     private static final int TRANSLATION_TIMEOUT_SECONDS = 30;
+
+    // Each open translator holds its models in memory, so only keep a few warm
+    private static final int MAX_POOLED_TRANSLATORS = 3;
+    private static final long TRANSLATOR_IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(2);
+
+    // Translated once at startup so ML Kit loads the models before the first message
+    private static final String WARM_UP_TEXT = "Hello";
     
-    public interface TranslationCallback {
-        void onTranslationComplete(boolean success, String translatedText, String errorMessage);
+    /**
+     * Kept for callers written before {@link TranslationEngine.TranslationCallback}.
+     */
+    public interface TranslationCallback extends TranslationEngine.TranslationCallback {
     }
     
     public interface ModelDownloadCallback {
@@ -40,7 +56,10 @@ public class OfflineTranslationService {
     
     private final Context context;
     private final OfflineModelManager modelManager;
-    private final ExecutorService executorService;
+    private final TranslationScheduler scheduler;
+    private final TranslatorPool<Translator> translatorPool;
+    // Translators still holding a deleted model must not be reused, wherever it was deleted from
+    private final OfflineModelManager.ModelDeletedListener modelDeletedListener;
     
     /**
      * Creates a new OfflineTranslationService.
@@ -50,7 +69,15 @@ public class OfflineTranslationService {
     public OfflineTranslationService(Context context) {
         this.context = context;
         this.modelManager = new OfflineModelManager(context);
-        this.executorService = Executors.newCachedThreadPool();
+        this.scheduler = TranslationScheduler.getInstance();
+        this.translatorPool = new TranslatorPool<>(
+                (source, target) -> Translation.getClient(new TranslatorOptions.Builder()
+                        .setSourceLanguage(source)
+                        .setTargetLanguage(target)
+                        .build()),
+                MAX_POOLED_TRANSLATORS, TRANSLATOR_IDLE_TIMEOUT_MS);
+        this.modelDeletedListener = translatorPool::evictLanguage;
+        OfflineModelManager.addModelDeletedListener(modelDeletedListener);
         
         Log.d(TAG, "OfflineTranslationService initialized");
     }
@@ -63,8 +90,9 @@ public class OfflineTranslationService {
      * @param targetLanguage The target language code
      * @param callback The callback to receive the result
      */
-    public void translateText(String text, String sourceLanguage, String targetLanguage, 
-                             TranslationCallback callback) {
+    @Override
+    public void translateText(String text, String sourceLanguage, String targetLanguage,
+                              TranslationEngine.TranslationCallback callback) {
         if (TextUtils.isEmpty(text)) {
             callback.onTranslationComplete(false, null, "Empty text provided");
             return;
@@ -81,7 +109,8 @@ public class OfflineTranslationService {
             return;
         }
         
-        executorService.execute(() -> {
+        // ML Kit work keeps the priority of the translation that asked for it
+        scheduler.execute(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.currentPriority(), this, () -> {
             try {
                 // Check if models are available
                 if (!areModelsAvailable(sourceLanguage, targetLanguage)) {
@@ -100,28 +129,19 @@ public class OfflineTranslationService {
                     return;
                 }
                 
-                // Create translator
-                TranslatorOptions options = new TranslatorOptions.Builder()
-                        .setSourceLanguage(sourceMLKit)
-                        .setTargetLanguage(targetMLKit)
-                        .build();
-                
-                Translator translator = Translation.getClient(options);
-                
-                try {
+                // Borrow a warm translator for the pair; it stays open for the next call
+                String translatedText;
+                try (TranslatorPool.Lease<Translator> lease = translatorPool.acquire(sourceMLKit, targetMLKit)) {
                     // Perform translation
-                    Task<String> translationTask = translator.translate(text);
-                    String translatedText = Tasks.await(translationTask, TRANSLATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                    
-                    if (translatedText != null && !translatedText.isEmpty()) {
-                        callback.onTranslationComplete(true, translatedText, null);
-                        Log.d(TAG, "Translation successful: " + sourceLanguage + " -> " + targetLanguage);
-                    } else {
-                        callback.onTranslationComplete(false, null, "Translation returned empty result");
-                    }
-                    
-                } finally {
-                    translator.close();
+                    Task<String> translationTask = lease.get().translate(text);
+                    translatedText = Tasks.await(translationTask, TRANSLATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+                
+                if (translatedText != null && !translatedText.isEmpty()) {
+                    callback.onTranslationComplete(true, translatedText, null);
+                    Log.d(TAG, "Translation successful: " + sourceLanguage + " -> " + targetLanguage);
+                } else {
+                    callback.onTranslationComplete(false, null, "Translation returned empty result");
                 }
                 
             } catch (Exception e) {
@@ -129,9 +149,87 @@ public class OfflineTranslationService {
                 String errorMessage = "Offline translation failed: " + e.getMessage();
                 callback.onTranslationComplete(false, null, errorMessage);
             }
+        }).whenComplete((result, error) -> {
+            if (error instanceof RejectedExecutionException || error instanceof CancellationException) {
+                callback.onTranslationComplete(false, null, "Offline translation cancelled");
+            }
         });
     }
     
+    /**
+     * Translates text offline, blocking until it is done. Must not be called
+     * from the offline lane, whose workers do the translation.
+     *
+     * @return The translated text, or null if translation failed
+     */
+    @Override
+    public String translate(String text, String sourceLanguage, String targetLanguage) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        translateText(text, sourceLanguage, targetLanguage,
+                (success, translatedText, errorMessage) -> result.complete(success ? translatedText : null));
+        return await(result);
+    }
+
+    /**
+     * Translates several texts offline in parallel, blocking until all are done.
+     *
+     * @return The translations in order, or null if any failed
+     */
+    @Override
+    public List<String> translateBatch(List<String> texts, String sourceLanguage, String targetLanguage) {
+        List<CompletableFuture<String>> pending = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            translateText(text, sourceLanguage, targetLanguage,
+                    (success, translatedText, errorMessage) -> result.complete(success ? translatedText : null));
+            pending.add(result);
+        }
+
+        List<String> translations = new ArrayList<>(texts.size());
+        for (CompletableFuture<String> result : pending) {
+            String translatedText = await(result);
+            if (translatedText == null) {
+                return null;
+            }
+            translations.add(translatedText);
+        }
+        return translations;
+    }
+
+    private static String await(CompletableFuture<String> result) {
+        try {
+            return result.get(TRANSLATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Offline translation did not complete", e);
+            return null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return ENGINE_NAME;
+    }
+
+    /**
+     * Checks if offline translation can be used; ML Kit is always bundled.
+     */
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Checks if a language pair is supported and its models are downloaded.
+     */
+    @Override
+    public boolean isLanguagePairReady(String sourceLanguage, String targetLanguage) {
+        return isLanguagePairSupported(sourceLanguage, targetLanguage)
+                && areModelsAvailable(sourceLanguage, targetLanguage);
+    }
+
     /**
      * Downloads a language model.
      *
@@ -166,9 +264,43 @@ public class OfflineTranslationService {
      */
     public void deleteLanguageModel(String languageCode, Runnable onSuccess, 
                                    java.util.function.Consumer<String> onError) {
-        modelManager.deleteModel(languageCode, onSuccess, onError);
+        // The pool is evicted by the model deleted listener
+        modelManager.deleteModel(languageCode, () -> {
+            if (onSuccess != null) {
+                onSuccess.run();
+            }
+        }, onError);
     }
     
+    /**
+     * Opens the pooled translator for a pair and translates a dummy text, so
+     * its models are loaded before the first real translation. Blocks until
+     * done; models are never downloaded for it. The translator stays in the
+     * pool for the next call, until the pool's idle timeout.
+     *
+     * @return true if the translator is warm, false if its models aren't downloaded or it failed
+     */
+    public boolean warmUp(String sourceLanguage, String targetLanguage) {
+        String sourceMLKit = convertToMLKitLanguageCode(sourceLanguage);
+        String targetMLKit = convertToMLKitLanguageCode(targetLanguage);
+        if (sourceMLKit == null || targetMLKit == null || sourceMLKit.equals(targetMLKit)
+                || !areModelsAvailable(sourceLanguage, targetLanguage)) {
+            return false;
+        }
+        try (TranslatorPool.Lease<Translator> lease = translatorPool.acquire(sourceMLKit, targetMLKit)) {
+            String translatedText = Tasks.await(lease.get().translate(WARM_UP_TEXT),
+                    TRANSLATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return translatedText != null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            Log.w(TAG, "Translator warm-up failed for " + sourceLanguage + " -> " + targetLanguage
+                    + ": " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Checks if the required models are available for translation.
      *
@@ -210,6 +342,27 @@ public class OfflineTranslationService {
         return modelManager;
     }
     
+    /**
+     * Releases warm translators when the system is low on memory.
+     *
+     * @param level The trim level passed to {@code ComponentCallbacks2.onTrimMemory}
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            Log.d(TAG, "Releasing pooled translators, trim level " + level);
+            translatorPool.evictAll();
+        }
+    }
+
+    /**
+     * Gets translator pool statistics.
+     *
+     * @return A string with the pool size, hits, misses and evictions
+     */
+    public String getTranslatorPoolStatistics() {
+        return translatorPool.getStatistics();
+    }
+    
     /**
      * Checks if offline translation is supported for the given language pair.
      *
@@ -217,6 +370,7 @@ public class OfflineTranslationService {
      * @param targetLanguage The target language code
      * @return True if the language pair is supported by ML Kit
      */
+    @Override
     public boolean isLanguagePairSupported(String sourceLanguage, String targetLanguage) {
         String sourceMLKit = convertToMLKitLanguageCode(sourceLanguage);
         String targetMLKit = convertToMLKitLanguageCode(targetLanguage);
@@ -259,21 +413,14 @@ public class OfflineTranslationService {
      * Cleans up resources.
      */
     public void cleanup() {
+        OfflineModelManager.removeModelDeletedListener(modelDeletedListener);
+        translatorPool.close();
+
         if (modelManager != null) {
             modelManager.cleanup();
         }
         
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+        scheduler.cancelAll(this);
         
         Log.d(TAG, "OfflineTranslationService cleaned up");
     }
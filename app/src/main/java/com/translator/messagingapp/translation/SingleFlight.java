@@ -0,0 +1,81 @@
+package com.translator.messagingapp.translation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs at most one call per key at a time. Callers that ask for a key while a
+ * call for it is in flight join that call and get its result instead of
+ * starting their own. Once a call completes the key is free again, so results
+ * are shared, never cached.
+ *
+ * @param <K> The key type
+ * @param <V> The result type
+ */
+class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+
+    /**
+     * Starts a call for the key, or joins the one already in flight.
+     *
+     * @param key The key identifying the call
+     * @param call Starts the call and completes the given future with its
+     *             result, synchronously or later. Only run if no call for the
+     *             key is in flight; exceptions it throws fail the call.
+     * @return A future completed with the result of the shared call
+     */
+    CompletableFuture<V> execute(K key, Consumer<CompletableFuture<V>> call) {
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            joined.increment();
+            return existing;
+        }
+        calls.increment();
+
+        CompletableFuture<V> result = new CompletableFuture<>();
+        // Free the key before anyone sees the result, so a caller reacting to
+        // it (e.g. by retrying on another engine) starts a new call
+        result.whenComplete((value, error) -> {
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(value);
+            }
+        });
+        try {
+            call.accept(result);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return shared;
+    }
+
+    /**
+     * Gets the number of calls started.
+     */
+    long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * Gets the number of callers that joined a call already in flight.
+     */
+    long getJoinedCount() {
+        return joined.sum();
+    }
+
+    /**
+     * Gets the number of calls in flight.
+     */
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+}
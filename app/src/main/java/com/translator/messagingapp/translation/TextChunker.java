@@ -0,0 +1,111 @@
+package com.translator.messagingapp.translation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits long text into chunks an engine can translate on their own. Chunks
+ * end at paragraph breaks where possible, otherwise at sentence ends, and only
+ * split a sentence at spaces (or, without spaces, anywhere) if it alone is too
+ * long. The whitespace around each chunk is kept verbatim, so translated
+ * chunks reassemble into the original layout.
+ */
+final class TextChunker {
+
+    private TextChunker() {
+    }
+
+    /**
+     * Splits text into chunks of at most {@code maxChars} characters.
+     *
+     * @param text The text to split
+     * @param maxChars The maximum chunk length
+     * @return The chunks in order; a single chunk if the text is short enough
+     */
+    static List<TranslationMemory.Segment> split(String text, int maxChars) {
+        if (text.length() <= maxChars || maxChars <= 0) {
+            return Collections.singletonList(toSegment(text, 0, text.length()));
+        }
+
+        // Offsets where a chunk may end: after each sentence, or inside one that is too long
+        List<Integer> breaks = new ArrayList<>();
+        int start = 0;
+        for (TranslationMemory.Segment sentence : TranslationMemory.segment(text)) {
+            int end = start + sentence.leading.length() + sentence.text.length() + sentence.trailing.length();
+            if (end - start > maxChars) {
+                addWordBreaks(text, start, end, maxChars, breaks);
+            }
+            breaks.add(end);
+            start = end;
+        }
+
+        // Pack breaks greedily, cutting at the last paragraph break when a chunk is full
+        List<TranslationMemory.Segment> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int lastBreak = 0;
+        int lastParagraphBreak = 0;
+        for (int end : breaks) {
+            while (end - chunkStart > maxChars && lastBreak > chunkStart) {
+                int cut = lastParagraphBreak > chunkStart ? lastParagraphBreak : lastBreak;
+                chunks.add(toSegment(text, chunkStart, cut));
+                chunkStart = cut;
+            }
+            if (isParagraphBreak(text, end)) {
+                lastParagraphBreak = end;
+            }
+            lastBreak = end;
+        }
+        if (chunkStart < text.length()) {
+            chunks.add(toSegment(text, chunkStart, text.length()));
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds breaks inside a sentence longer than {@code maxChars}: after the last
+     * space that fits, or at the limit itself if there is none.
+     */
+    private static void addWordBreaks(String text, int start, int end, int maxChars, List<Integer> breaks) {
+        int position = start;
+        while (end - position > maxChars) {
+            int limit = position + maxChars;
+            int cut = limit;
+            while (cut > position + 1 && !Character.isWhitespace(text.charAt(cut - 1))) {
+                cut--;
+            }
+            if (cut <= position + 1) {
+                // No space to break at, e.g. Chinese or Japanese text
+                cut = Character.isLowSurrogate(text.charAt(limit)) ? limit - 1 : limit;
+            }
+            breaks.add(cut);
+            position = cut;
+        }
+    }
+
+    /**
+     * Checks whether the whitespace before {@code end} contains a blank line.
+     */
+    private static boolean isParagraphBreak(String text, int end) {
+        int newlines = 0;
+        for (int i = end - 1; i >= 0 && Character.isWhitespace(text.charAt(i)); i--) {
+            if (text.charAt(i) == '\n' && ++newlines == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TranslationMemory.Segment toSegment(String text, int start, int end) {
+        int textStart = start;
+        while (textStart < end && Character.isWhitespace(text.charAt(textStart))) {
+            textStart++;
+        }
+        int textEnd = end;
+        while (textEnd > textStart && Character.isWhitespace(text.charAt(textEnd - 1))) {
+            textEnd--;
+        }
+        return new TranslationMemory.Segment(text.substring(start, textStart),
+                text.substring(textStart, textEnd), text.substring(textEnd, end));
+    }
+}
@@ -0,0 +1,262 @@
+package com.translator.messagingapp.translation;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that paces the requests sent to one translation engine.
+ *
+ * <p>The bucket holds up to {@code burst} tokens and refills at a steady rate;
+ * every request takes one. A request that finds the bucket empty reserves the
+ * next token and waits for it, so a burst of incoming messages is spread out
+ * instead of dropped. Reservations are handed out in arrival order, and a
+ * request is only queued if its token arrives within the caller's deadline.
+ * Callers that shouldn't block a thread take a {@link Reservation} and send
+ * the request once it is due; a reservation the caller gives up on is
+ * returned to the bucket.
+ *
+ * <p>The bucket also enforces a daily quota. The number of requests made today
+ * is persisted, so restarting the app doesn't reset it.
+ */
+public class TokenBucketRateLimiter {
+    private static final String TAG = "TokenBucketRateLimiter";
+    private static final String PREFS_NAME = "translation_quota";
+
+    // Limiters are shared by engine name, so every TranslationManager draws from the same quota
+    private static final Map<String, TokenBucketRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * Quota of one engine.
+     */
+    public static final class Limits {
+        final int burst;
+        final double permitsPerSecond;
+        final int dailyLimit;
+
+        /**
+         * @param burst The number of requests that may be sent back to back
+         * @param permitsPerSecond The sustained request rate
+         * @param dailyLimit The number of requests allowed per day, or 0 for no limit
+         */
+        public Limits(int burst, double permitsPerSecond, int dailyLimit) {
+            if (burst < 1 || permitsPerSecond <= 0 || dailyLimit < 0) {
+                throw new IllegalArgumentException("Invalid rate limits");
+            }
+            this.burst = burst;
+            this.permitsPerSecond = permitsPerSecond;
+            this.dailyLimit = dailyLimit;
+        }
+    }
+
+    private final String engine;
+    private final Limits limits;
+    private final SharedPreferences preferences;
+    private final LongSupplier currentDay;
+
+    // Guarded by this. Tokens go negative while requests are waiting for reserved tokens.
+    private double tokens;
+    private long lastRefillNanos;
+    private long day;
+    private int usedToday;
+
+    // Statistics, guarded by this
+    private long granted;
+    private long rejectedDaily;
+    private long timedOut;
+    private long cancelledReservations;
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    /**
+     * Gets the limiter of an engine, creating it with the given limits on first use.
+     *
+     * @param context The context, used to persist the daily count; may be null
+     * @param engine The engine name, e.g. "google"
+     * @param limits The engine's limits
+     * @return The limiter shared by all users of the engine
+     */
+    public static TokenBucketRateLimiter forEngine(Context context, String engine, Limits limits) {
+        return LIMITERS.computeIfAbsent(engine, name -> new TokenBucketRateLimiter(name, limits,
+                context != null ? context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE) : null,
+                () -> LocalDate.now().toEpochDay()));
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param preferences Where the daily count is persisted; null keeps it in memory only
+     * @param currentDay Supplies the current day number, for the daily quota
+     */
+    TokenBucketRateLimiter(String engine, Limits limits, SharedPreferences preferences, LongSupplier currentDay) {
+        this.engine = engine;
+        this.limits = limits;
+        this.preferences = preferences;
+        this.currentDay = currentDay;
+        this.tokens = limits.burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.day = currentDay.getAsLong();
+        if (preferences != null && preferences.getLong(engine + "_day", -1) == day) {
+            usedToday = preferences.getInt(engine + "_count", 0);
+        }
+    }
+
+    /**
+     * A token taken from the bucket, which may only be used once its delay has passed.
+     */
+    public final class Reservation {
+        private final long delayNanos;
+        private final long reservedDay;
+        private boolean cancelled;
+
+        private Reservation(long delayNanos, long reservedDay) {
+            this.delayNanos = delayNanos;
+            this.reservedDay = reservedDay;
+        }
+
+        /**
+         * Gets how long after reserving the request may be sent.
+         */
+        public long getDelayNanos() {
+            return delayNanos;
+        }
+
+        /**
+         * Returns the token to the bucket and the daily quota, if the request
+         * won't be sent after all. Only the first call has an effect.
+         */
+        public void cancel() {
+            synchronized (TokenBucketRateLimiter.this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                refill(System.nanoTime());
+                tokens = Math.min(limits.burst, tokens + 1);
+                rollOverDay();
+                if (day == reservedDay && usedToday > 0) {
+                    usedToday--;
+                }
+                granted--;
+                cancelledReservations++;
+                persist();
+            }
+        }
+    }
+
+    /**
+     * Reserves a token without waiting for it.
+     *
+     * @param maxWaitMs How long the caller may wait; 0 only reserves a token that is available now
+     * @return The reservation, or null if the daily quota is used up or the
+     *         token wouldn't arrive in time
+     */
+    public synchronized Reservation reserve(long maxWaitMs) {
+        rollOverDay();
+        if (limits.dailyLimit > 0 && usedToday >= limits.dailyLimit) {
+            rejectedDaily++;
+            Log.d(TAG, engine + " daily quota reached: " + usedToday + " requests today");
+            return null;
+        }
+
+        refill(System.nanoTime());
+        long waitNanos = tokens >= 1 ? 0 : (long) ((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / limits.permitsPerSecond);
+        if (waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+            timedOut++;
+            Log.d(TAG, engine + " token not available within " + maxWaitMs + "ms");
+            return null;
+        }
+
+        tokens--;
+        usedToday++;
+        granted++;
+        waitTimes.record(waitNanos);
+        persist();
+        return new Reservation(waitNanos, day);
+    }
+
+    /**
+     * Takes a token, blocking the calling thread until it is due.
+     *
+     * @param maxWaitMs How long the caller may wait; 0 only takes a token if one is available
+     * @return true if the request may be sent, false if the daily quota is used up,
+     *         the token wouldn't arrive in time or the thread was interrupted
+     */
+    public boolean acquire(long maxWaitMs) {
+        Reservation reservation = reserve(maxWaitMs);
+        if (reservation == null) {
+            return false;
+        }
+        if (reservation.getDelayNanos() > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(reservation.getDelayNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reservation.cancel();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of requests counted against today's quota.
+     */
+    public synchronized int getUsedToday() {
+        rollOverDay();
+        return usedToday;
+    }
+
+    /**
+     * Gets how long granted requests waited for a token.
+     */
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * Gets a summary of the quota and of how long requests waited.
+     */
+    public synchronized String getStatistics() {
+        rollOverDay();
+        refill(System.nanoTime());
+        return String.format(Locale.US,
+                "%s: %.1f/%d tokens, %d/%s today, %d granted, %d over daily quota, %d timed out, "
+                        + "%d returned, wait mean %dms p95 ≤%dms",
+                engine, Math.max(0, tokens), limits.burst, usedToday,
+                limits.dailyLimit > 0 ? String.valueOf(limits.dailyLimit) : "∞",
+                granted, rejectedDaily, timedOut, cancelledReservations,
+                TimeUnit.MICROSECONDS.toMillis(waitTimes.getMeanMicros()),
+                TimeUnit.MICROSECONDS.toMillis(waitTimes.getPercentileMicros(95)));
+    }
+
+    private void refill(long nowNanos) {
+        double elapsedSeconds = (nowNanos - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(limits.burst, tokens + elapsedSeconds * limits.permitsPerSecond);
+        lastRefillNanos = nowNanos;
+    }
+
+    private void rollOverDay() {
+        long today = currentDay.getAsLong();
+        if (today != day) {
+            day = today;
+            usedToday = 0;
+            Log.d(TAG, "Reset daily request count of " + engine);
+        }
+    }
+
+    private void persist() {
+        if (preferences != null) {
+            preferences.edit()
+                    .putLong(engine + "_day", day)
+                    .putInt(engine + "_count", usedToday)
+                    .apply();
+        }
+    }
+}
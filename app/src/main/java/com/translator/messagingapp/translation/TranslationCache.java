@@ -4,15 +4,33 @@ import com.translator.messagingapp.message.*;
 
 import com.translator.messagingapp.translation.*;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
+import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Cache for storing translated text using SQLite database with memory cache layer.
@@ -20,59 +38,199 @@ import java.util.concurrent.ConcurrentHashMap;
 public class TranslationCache {
     private static final String TAG = "TranslationCache";
 
-    // In-memory cache for fastest access to recent translations
-    private final ConcurrentHashMap<String, String> memoryCache;
-    private static final int MEMORY_CACHE_SIZE = 100; // Keep most recent 100 translations in memory
+    // In-memory cache for fastest access to frequently used translations
+    private final TranslationMemoryCache memoryCache;
+    private static final long MEMORY_CACHE_BYTES = 2 * 1024 * 1024; // 2MB of translated text
 
     // Database helper and constants
     private final TranslationDbHelper dbHelper;
     private static final int MAX_CACHE_SIZE = 10000; // Maximum entries in the database
     private static final long CACHE_EXPIRY_MS = 30 * 24 * 60 * 60 * 1000L; // 30 days
+    private static final int MAINTENANCE_CHUNK_SIZE = 500; // Rows deleted per maintenance transaction
 
-    // Statistics
-    private int cacheHits = 0;
-    private int cacheMisses = 0;
+    // Write-behind batching for inserts, deletes and timestamp touches
+    private final CacheWriteBehindQueue writeQueue;
+    private static final long WRITE_FLUSH_INTERVAL_MS = 2000; // Flush at most 2 seconds after a write
+    private static final int WRITE_BATCH_SIZE = 64; // Or as soon as this many operations are queued
+
+    // Keys per IN (...) query in getAll; stays well under SQLite's 999 bound-parameter limit
+    private static final int BULK_QUERY_CHUNK_SIZE = 500;
+
+    // Statistics, updated from many threads
+    private final CacheTierMetrics memoryMetrics = new CacheTierMetrics();
+    private final CacheTierMetrics databaseMetrics = new CacheTierMetrics();
+    private final CacheTierMetrics engineMetrics = new CacheTierMetrics();
+    // Lookups that missed their exact key but were answered through the normalized one
+    private final LongAdder normalizedHits = new LongAdder();
+    // Row count kept up to date by the writer instead of running COUNT(*) per call; -1 until loaded
+    private final AtomicLong databaseRows = new AtomicLong(-1);
 
     /**
      * Database helper class for the translation cache.
+     * Each source text is stored once in {@code source_texts}, keyed by its 64-bit hash;
+     * translation rows reference it by hash plus language pair.
      */
     private static class TranslationDbHelper extends SQLiteOpenHelper {
         private static final String DATABASE_NAME = "translations.db";
-        private static final int DATABASE_VERSION = 1;
+        private static final int DATABASE_VERSION = 2;
 
         // Table and column names
         static final String TABLE_TRANSLATIONS = "translations";
-        static final String COLUMN_CACHE_KEY = "cache_key";
+        static final String TABLE_SOURCE_TEXTS = "source_texts";
+        static final String COLUMN_SOURCE_HASH = "source_hash";
+        static final String COLUMN_SOURCE_TEXT = "source_text";
+        static final String COLUMN_LANGUAGE_PAIR = "lang_pair";
         static final String COLUMN_TRANSLATION = "translation";
         static final String COLUMN_TIMESTAMP = "timestamp";
 
+        // Version 1 layout, only used for migration
+        private static final String TABLE_TRANSLATIONS_V1 = "translations_v1";
+        private static final String COLUMN_CACHE_KEY_V1 = "cache_key";
+
         // SQL statements
+        private static final String SQL_CREATE_SOURCE_TEXTS_TABLE =
+                "CREATE TABLE " + TABLE_SOURCE_TEXTS + " (" +
+                        COLUMN_SOURCE_HASH + " INTEGER PRIMARY KEY, " +
+                        COLUMN_SOURCE_TEXT + " TEXT NOT NULL)";
+
         private static final String SQL_CREATE_TABLE =
                 "CREATE TABLE " + TABLE_TRANSLATIONS + " (" +
-                        COLUMN_CACHE_KEY + " TEXT PRIMARY KEY, " +
+                        COLUMN_SOURCE_HASH + " INTEGER NOT NULL, " +
+                        COLUMN_LANGUAGE_PAIR + " TEXT NOT NULL, " +
                         COLUMN_TRANSLATION + " TEXT NOT NULL, " +
-                        COLUMN_TIMESTAMP + " INTEGER NOT NULL)";
+                        COLUMN_TIMESTAMP + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_SOURCE_HASH + ", " + COLUMN_LANGUAGE_PAIR + "))";
 
         private static final String SQL_CREATE_INDEX =
                 "CREATE INDEX idx_timestamp ON " + TABLE_TRANSLATIONS + "(" + COLUMN_TIMESTAMP + ")";
 
+        static final String SQL_INSERT_SOURCE_TEXT =
+                "INSERT OR IGNORE INTO " + TABLE_SOURCE_TEXTS + " (" +
+                        COLUMN_SOURCE_HASH + ", " + COLUMN_SOURCE_TEXT + ") VALUES (?, ?)";
+
+        static final String SQL_SELECT_SOURCE_TEXT =
+                "SELECT " + COLUMN_SOURCE_TEXT + " FROM " + TABLE_SOURCE_TEXTS +
+                        " WHERE " + COLUMN_SOURCE_HASH + " = ?";
+
+        static final String SQL_UPDATE_TRANSLATION =
+                "UPDATE " + TABLE_TRANSLATIONS + " SET " +
+                        COLUMN_TRANSLATION + " = ?, " + COLUMN_TIMESTAMP + " = ? WHERE " +
+                        COLUMN_SOURCE_HASH + " = ? AND " + COLUMN_LANGUAGE_PAIR + " = ?";
+
+        static final String SQL_INSERT_TRANSLATION =
+                "INSERT INTO " + TABLE_TRANSLATIONS + " (" +
+                        COLUMN_SOURCE_HASH + ", " + COLUMN_LANGUAGE_PAIR + ", " +
+                        COLUMN_TRANSLATION + ", " + COLUMN_TIMESTAMP + ") VALUES (?, ?, ?, ?)";
+
+        // Snapshot imports never overwrite a translation used more recently on this device
+        static final String SQL_UPDATE_TRANSLATION_IF_OLDER =
+                "UPDATE " + TABLE_TRANSLATIONS + " SET " +
+                        COLUMN_TRANSLATION + " = ?1, " + COLUMN_TIMESTAMP + " = ?2 WHERE " +
+                        COLUMN_SOURCE_HASH + " = ?3 AND " + COLUMN_LANGUAGE_PAIR + " = ?4 AND " +
+                        COLUMN_TIMESTAMP + " < ?2";
+
+        static final String SQL_INSERT_TRANSLATION_IF_ABSENT =
+                "INSERT OR IGNORE INTO " + TABLE_TRANSLATIONS + " (" +
+                        COLUMN_SOURCE_HASH + ", " + COLUMN_LANGUAGE_PAIR + ", " +
+                        COLUMN_TRANSLATION + ", " + COLUMN_TIMESTAMP + ") VALUES (?, ?, ?, ?)";
+
+        // Results of insertTranslation
+        static final int RESULT_COLLISION = -1;
+        static final int RESULT_UPDATED = 0;
+        static final int RESULT_INSERTED = 1;
+
         TranslationDbHelper(Context context) {
             super(context, DATABASE_NAME, null, DATABASE_VERSION);
         }
 
         @Override
         public void onCreate(SQLiteDatabase db) {
+            db.execSQL(SQL_CREATE_SOURCE_TEXTS_TABLE);
             db.execSQL(SQL_CREATE_TABLE);
             db.execSQL(SQL_CREATE_INDEX);
         }
 
         @Override
         public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-            // For future schema upgrades
-            if (oldVersion < newVersion) {
-                db.execSQL("DROP TABLE IF EXISTS " + TABLE_TRANSLATIONS);
-                onCreate(db);
+            if (oldVersion < 2) {
+                migrateFromVersion1(db);
+            }
+        }
+
+        /**
+         * Moves rows from the text-keyed version 1 table into the hashed layout.
+         * Runs inside the upgrade transaction, so a failure leaves the old data untouched.
+         */
+        private void migrateFromVersion1(SQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS idx_timestamp");
+            db.execSQL("ALTER TABLE " + TABLE_TRANSLATIONS + " RENAME TO " + TABLE_TRANSLATIONS_V1);
+            onCreate(db);
+
+            int migrated = 0;
+            int skipped = 0;
+            SQLiteStatement insertSource = db.compileStatement(SQL_INSERT_SOURCE_TEXT);
+            SQLiteStatement selectSource = db.compileStatement(SQL_SELECT_SOURCE_TEXT);
+            SQLiteStatement updateTranslation = db.compileStatement(SQL_UPDATE_TRANSLATION);
+            SQLiteStatement insertTranslation = db.compileStatement(SQL_INSERT_TRANSLATION);
+            try (Cursor cursor = db.query(TABLE_TRANSLATIONS_V1,
+                    new String[]{COLUMN_CACHE_KEY_V1, COLUMN_TRANSLATION, COLUMN_TIMESTAMP},
+                    null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    TranslationCacheKey key = TranslationCacheKey.parse(cursor.getString(0));
+                    if (insertTranslation(insertSource, selectSource, updateTranslation, insertTranslation, key,
+                            cursor.getString(1), cursor.getLong(2)) != RESULT_COLLISION) {
+                        migrated++;
+                    } else {
+                        skipped++;
+                    }
+                }
+            } finally {
+                insertSource.close();
+                selectSource.close();
+                updateTranslation.close();
+                insertTranslation.close();
+            }
+
+            db.execSQL("DROP TABLE " + TABLE_TRANSLATIONS_V1);
+            Log.d(TAG, "Migrated " + migrated + " cached translations to hashed keys (" + skipped + " skipped)");
+        }
+
+        /**
+         * Stores a translation, adding its source text if it isn't stored yet.
+         * Existing rows are updated in place rather than replaced, so the caller can
+         * tell new rows apart. If a different text already owns the hash, the
+         * translation is not stored.
+         *
+         * @return {@link #RESULT_INSERTED}, {@link #RESULT_UPDATED} or {@link #RESULT_COLLISION}
+         */
+        static int insertTranslation(SQLiteStatement insertSource, SQLiteStatement selectSource,
+                                     SQLiteStatement updateTranslation, SQLiteStatement insertTranslation,
+                                     TranslationCacheKey key, String translation, long timestamp) {
+            insertSource.bindLong(1, key.sourceHash);
+            insertSource.bindString(2, key.sourceText);
+            if (insertSource.executeInsert() == -1) {
+                // Source text row already existed; make sure it is the same text
+                selectSource.bindLong(1, key.sourceHash);
+                if (!key.sourceText.equals(selectSource.simpleQueryForString())) {
+                    Log.w(TAG, "Hash collision for cached source text, not persisting key");
+                    return RESULT_COLLISION;
+                }
+
+                updateTranslation.bindString(1, translation);
+                updateTranslation.bindLong(2, timestamp);
+                updateTranslation.bindLong(3, key.sourceHash);
+                updateTranslation.bindString(4, key.languagePair);
+                if (updateTranslation.executeUpdateDelete() > 0) {
+                    return RESULT_UPDATED;
+                }
             }
+
+            insertTranslation.bindLong(1, key.sourceHash);
+            insertTranslation.bindString(2, key.languagePair);
+            insertTranslation.bindString(3, translation);
+            insertTranslation.bindLong(4, timestamp);
+            insertTranslation.executeInsert();
+            return RESULT_INSERTED;
         }
     }
 
@@ -82,11 +240,12 @@ public class TranslationCache {
      * @param context The application context
      */
     public TranslationCache(Context context) {
-        this.memoryCache = new ConcurrentHashMap<>(MEMORY_CACHE_SIZE);
+        this.memoryCache = new TranslationMemoryCache(MEMORY_CACHE_BYTES);
         this.dbHelper = new TranslationDbHelper(context.getApplicationContext());
+        this.writeQueue = new CacheWriteBehindQueue(this::writeBatch, WRITE_FLUSH_INTERVAL_MS, WRITE_BATCH_SIZE);
 
-        // Perform maintenance on startup (in background)
-        new Thread(this::performMaintenance).start();
+        // Count rows once on the writer thread; afterwards the writer keeps the count current
+        writeQueue.submit(() -> databaseRows.set(getDatabaseSize()));
     }
 
     /**
@@ -100,53 +259,238 @@ public class TranslationCache {
             return null;
         }
 
-        // Check memory cache first (fastest)
-        String translation = memoryCache.get(key);
+        // Check memory cache first (fastest), then writes that haven't reached the database yet
+        long start = System.nanoTime();
+        String translation = getFromMemory(key);
+        memoryMetrics.recordLatency(System.nanoTime() - start);
 
         if (translation != null) {
             // Cache hit
-            cacheHits++;
+            memoryMetrics.recordHit();
             return translation;
         }
+        memoryMetrics.recordMiss();
+
+        if (writeQueue.isPendingDelete(key)) {
+            return null;
+        }
 
         // Check database
-        SQLiteDatabase db;
-        Cursor cursor = null;
+        Map<String, String> found = new HashMap<>(1);
+        getFromDatabase(Collections.singletonList(key), found);
+        return found.get(key);
+    }
 
-        try {
-            db = dbHelper.getReadableDatabase();
+    /**
+     * Looks a key up in the memory tier and in the pending writes.
+     *
+     * @return The cached value, or null if neither has it
+     */
+    private String getFromMemory(String key) {
+        String translation = memoryCache.get(key);
+        if (translation == null) {
+            translation = writeQueue.getPending(key);
+            if (translation != null) {
+                memoryCache.put(key, translation);
+            }
+        }
+        return translation;
+    }
 
-            // Query the database
-            cursor = db.query(
-                    TranslationDbHelper.TABLE_TRANSLATIONS,
-                    new String[]{TranslationDbHelper.COLUMN_TRANSLATION},
-                    TranslationDbHelper.COLUMN_CACHE_KEY + " = ?",
-                    new String[]{key},
-                    null, null, null);
+    /**
+     * Gets translations for many keys at once.
+     * Keys are answered from memory and pending writes first; the remaining
+     * misses are resolved with chunked {@code cache_key IN (...)} queries
+     * instead of one query per key.
+     *
+     * @param keys The cache keys to look up
+     * @return A map from each key found to its cached value; missing keys are absent
+     */
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> results = new HashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return results;
+        }
 
-            if (cursor.moveToFirst()) {
-                translation = cursor.getString(0);
+        // Resolve from memory and pending writes, collecting the rest for the database
+        List<String> misses = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (key == null) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            String translation = getFromMemory(key);
+            memoryMetrics.recordLatency(System.nanoTime() - start);
+
+            if (translation != null) {
+                results.put(key, translation);
+                memoryMetrics.recordHit();
+            } else {
+                memoryMetrics.recordMiss();
+                if (!writeQueue.isPendingDelete(key)) {
+                    misses.add(key);
+                }
+            }
+        }
 
-                // Update the timestamp in background to mark as recently used
-                updateTimestamp(key);
+        if (misses.isEmpty()) {
+            return results;
+        }
 
-                // Add to memory cache
-                addToMemoryCache(key, translation);
+        getFromDatabase(misses, results);
+        return results;
+    }
 
-                cacheHits++;
-                return translation;
+    /**
+     * Looks up keys that missed memory in the database. A translation is stored
+     * under its normalized key, so that is queried first; the exact key is only
+     * queried for rows written before keys were normalized. The texts only
+     * differ in spacing or invisible characters, so a translation found under
+     * the normalized key applies as is; it is kept in memory under the exact key.
+     *
+     * @param keys Keys that missed memory and the pending writes
+     * @param results The map to add found translations to
+     */
+    private void getFromDatabase(List<String> keys, Map<String, String> results) {
+        Map<String, List<String>> keysByDbKey = new LinkedHashMap<>();
+        List<String> aliased = new ArrayList<>();
+        int found = 0;
+        for (String key : keys) {
+            String alias = getNormalizedKey(key);
+            if (alias == null) {
+                keysByDbKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(key);
+                continue;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error retrieving translation from database", e);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+            aliased.add(key);
+            String translation = getFromMemory(alias);
+            if (translation != null) {
+                putNormalized(key, translation, results);
+                found++;
+            } else if (!writeQueue.isPendingDelete(alias)) {
+                keysByDbKey.computeIfAbsent(alias, k -> new ArrayList<>(1)).add(key);
+            }
+        }
+
+        try {
+            SQLiteDatabase db = dbHelper.getReadableDatabase();
+            Map<String, String> foundByDbKey = new HashMap<>();
+            queryChunks(db, new ArrayList<>(keysByDbKey.keySet()), foundByDbKey);
+            for (Map.Entry<String, String> entry : foundByDbKey.entrySet()) {
+                for (String key : keysByDbKey.get(entry.getKey())) {
+                    if (key.equals(entry.getKey())) {
+                        results.put(key, entry.getValue());
+                    } else {
+                        putNormalized(key, entry.getValue(), results);
+                    }
+                    found++;
+                }
+            }
+
+            // Rows from before normalization are stored under the exact key
+            List<String> legacy = new ArrayList<>();
+            for (String key : aliased) {
+                if (!results.containsKey(key)) {
+                    legacy.add(key);
+                }
+            }
+            if (!legacy.isEmpty()) {
+                found += queryChunks(db, legacy, results);
             }
+        } catch (Exception e) {
+            Log.e(TAG, "Error retrieving translations from database", e);
+        }
+
+        databaseMetrics.recordHits(found);
+        databaseMetrics.recordMisses(keys.size() - found);
+    }
+
+    /**
+     * Queries keys in chunks of {@link #BULK_QUERY_CHUNK_SIZE}.
+     *
+     * @return The number of keys found
+     */
+    private int queryChunks(SQLiteDatabase db, List<String> keys, Map<String, String> results) {
+        int found = 0;
+        for (int offset = 0; offset < keys.size(); offset += BULK_QUERY_CHUNK_SIZE) {
+            long start = System.nanoTime();
+            found += queryChunk(db, keys.subList(offset, Math.min(offset + BULK_QUERY_CHUNK_SIZE, keys.size())),
+                    results);
+            databaseMetrics.recordLatency(System.nanoTime() - start);
+        }
+        return found;
+    }
+
+    private void putNormalized(String key, String translation, Map<String, String> results) {
+        results.put(key, translation);
+        memoryCache.put(key, translation);
+        normalizedHits.increment();
+    }
+
+    /**
+     * Gets the key a translation is stored under in the database, with its source text normalized.
+     *
+     * @return The normalized key, or null if the key isn't a translation key or is already normalized
+     */
+    private static String getNormalizedKey(String key) {
+        TranslationCacheKey parsed = TranslationCacheKey.parse(key);
+        if (parsed.languagePair.isEmpty()) {
+            // Message state and other non-translation entries
+            return null;
         }
+        String normalized = CacheKeyNormalizer.normalize(parsed.sourceText);
+        return normalized.equals(parsed.sourceText) ? null : TranslationCacheKey.toKey(normalized, parsed.languagePair);
+    }
 
-        // Cache miss
-        cacheMisses++;
-        return null;
+    /**
+     * Looks up one chunk of keys with a single query, adding hits to the results,
+     * promoting them to memory and queueing their timestamp touches.
+     * Rows are matched by source hash and then verified against the stored source
+     * text, so a hash collision reads as a miss rather than a wrong translation.
+     *
+     * @return The number of keys found
+     */
+    private int queryChunk(SQLiteDatabase db, List<String> keys, Map<String, String> results) {
+        Set<String> wanted = new HashSet<>(keys);
+        Set<Long> hashes = new LinkedHashSet<>();
+        for (String key : keys) {
+            hashes.add(TranslationCacheKey.parse(key).sourceHash);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT t.")
+                .append(TranslationDbHelper.COLUMN_LANGUAGE_PAIR).append(", t.")
+                .append(TranslationDbHelper.COLUMN_TRANSLATION).append(", s.")
+                .append(TranslationDbHelper.COLUMN_SOURCE_TEXT)
+                .append(" FROM ").append(TranslationDbHelper.TABLE_TRANSLATIONS).append(" t JOIN ")
+                .append(TranslationDbHelper.TABLE_SOURCE_TEXTS).append(" s ON s.")
+                .append(TranslationDbHelper.COLUMN_SOURCE_HASH).append(" = t.")
+                .append(TranslationDbHelper.COLUMN_SOURCE_HASH)
+                .append(" WHERE t.").append(TranslationDbHelper.COLUMN_SOURCE_HASH).append(" IN (");
+        String[] args = new String[hashes.size()];
+        int i = 0;
+        for (Long hash : hashes) {
+            sql.append(i == 0 ? "?" : ",?");
+            args[i++] = String.valueOf(hash);
+        }
+        sql.append(')');
+
+        int found = 0;
+        try (Cursor cursor = db.rawQuery(sql.toString(), args)) {
+            while (cursor.moveToNext()) {
+                // Other language pairs of the same text come back too; keep only requested keys
+                String key = TranslationCacheKey.toKey(cursor.getString(2), cursor.getString(0));
+                if (!wanted.remove(key)) {
+                    continue;
+                }
+                String translation = cursor.getString(1);
+
+                results.put(key, translation);
+                memoryCache.put(key, translation);
+                writeQueue.enqueueTouch(key);
+                found++;
+            }
+        }
+        return found;
     }
 
     /**
@@ -161,29 +505,12 @@ public class TranslationCache {
         }
 
         // Add to memory cache
-        addToMemoryCache(key, translation);
-
-        // Add to database
-        SQLiteDatabase db;
-
-        try {
-            db = dbHelper.getWritableDatabase();
-
-            ContentValues values = new ContentValues();
-            values.put(TranslationDbHelper.COLUMN_CACHE_KEY, key);
-            values.put(TranslationDbHelper.COLUMN_TRANSLATION, translation);
-            values.put(TranslationDbHelper.COLUMN_TIMESTAMP, System.currentTimeMillis());
-
-            // Insert or replace if exists
-            db.insertWithOnConflict(
-                    TranslationDbHelper.TABLE_TRANSLATIONS,
-                    null,
-                    values,
-                    SQLiteDatabase.CONFLICT_REPLACE);
+        memoryCache.put(key, translation);
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error storing translation in database", e);
-        }
+        // Queue for the database under the normalized key only, so equivalent variants
+        // share one row; lookups of the exact key fall back to it. Written in the next batch.
+        String alias = getNormalizedKey(key);
+        writeQueue.enqueuePut(alias != null ? alias : key, translation);
     }
 
     /**
@@ -210,16 +537,13 @@ public class TranslationCache {
         // Remove from memory cache
         memoryCache.remove(key);
 
-        // Remove from database
-        SQLiteDatabase db;
-        try {
-            db = dbHelper.getWritableDatabase();
-            db.delete(
-                    TranslationDbHelper.TABLE_TRANSLATIONS,
-                    TranslationDbHelper.COLUMN_CACHE_KEY + " = ?",
-                    new String[]{key});
-        } catch (Exception e) {
-            Log.e(TAG, "Error deleting from translation cache", e);
+        // Queue the delete; this also cancels any pending insert for the key
+        writeQueue.enqueueDelete(key);
+
+        String alias = getNormalizedKey(key);
+        if (alias != null) {
+            memoryCache.remove(alias);
+            writeQueue.enqueueDelete(alias);
         }
     }
 
@@ -259,21 +583,40 @@ public class TranslationCache {
      * Clears the cache.
      */
     public void clear() {
-        // Clear memory cache
+        // Clear memory cache and anything not yet written
         memoryCache.clear();
+        writeQueue.discardPending();
 
-        // Clear database
-        SQLiteDatabase db;
-        try {
-            db = dbHelper.getWritableDatabase();
-            db.delete(TranslationDbHelper.TABLE_TRANSLATIONS, null, null);
-        } catch (Exception e) {
-            Log.e(TAG, "Error clearing translation cache", e);
+        // Clear database on the writer thread so it can't interleave with a batch
+        Future<?> clearTask = writeQueue.submit(() -> {
+            try {
+                SQLiteDatabase db = dbHelper.getWritableDatabase();
+                db.beginTransaction();
+                try {
+                    db.delete(TranslationDbHelper.TABLE_TRANSLATIONS, null, null);
+                    db.delete(TranslationDbHelper.TABLE_SOURCE_TEXTS, null, null);
+                    db.setTransactionSuccessful();
+                    databaseRows.set(0);
+                } finally {
+                    db.endTransaction();
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error clearing translation cache", e);
+            }
+        });
+        if (clearTask != null) {
+            try {
+                clearTask.get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                Log.e(TAG, "Error waiting for translation cache to clear", e);
+            }
         }
 
         // Reset statistics
-        cacheHits = 0;
-        cacheMisses = 0;
+        memoryMetrics.reset();
+        databaseMetrics.reset();
+        engineMetrics.reset();
+        normalizedHits.reset();
         Log.d(TAG, "Cache cleared");
     }
 
@@ -283,16 +626,44 @@ public class TranslationCache {
      * @return A string containing cache statistics
      */
     public String getStatistics() {
-        int total = cacheHits + cacheMisses;
-        float hitRate = total > 0 ? (float) cacheHits / total * 100 : 0;
-        int dbSize = getDatabaseSize();
-
-        // Use Locale.US for consistent formatting
-        return String.format(Locale.US,
-                "Memory cache size: %d entries\n" +
-                        "Database cache size: %d entries\n" +
-                        "Hits: %d\nMisses: %d\nHit rate: %.1f%%",
-                memoryCache.size(), dbSize, cacheHits, cacheMisses, hitRate);
+        return getStats().toString();
+    }
+
+    /**
+     * Gets a snapshot of the cache statistics.
+     * Cheap enough to call from the UI thread: it reads counters only and never queries the database.
+     *
+     * @return The current statistics
+     */
+    public TranslationCacheStats getStats() {
+        return new TranslationCacheStats(
+                memoryMetrics.snapshot(),
+                databaseMetrics.snapshot(),
+                engineMetrics.snapshot(),
+                memoryCache.size(),
+                memoryCache.getWeightedSize(),
+                memoryCache.getMaxBytes(),
+                memoryCache.getAdmissionCount(),
+                memoryCache.getRejectionCount(),
+                memoryCache.getEvictionCount(),
+                databaseRows.get(),
+                writeQueue.getPendingCount(),
+                normalizedHits.sum());
+    }
+
+    /**
+     * Records a call to a translation engine, so engine latency can be compared with the cache tiers.
+     *
+     * @param elapsedNanos How long the call took
+     * @param success Whether the engine returned a translation
+     */
+    public void recordEngineCall(long elapsedNanos, boolean success) {
+        engineMetrics.recordLatency(elapsedNanos);
+        if (success) {
+            engineMetrics.recordHit();
+        } else {
+            engineMetrics.recordMiss();
+        }
     }
 
     /**
@@ -321,118 +692,337 @@ public class TranslationCache {
     }
 
     /**
-     * Updates the timestamp for a cache entry to mark it as recently used.
+     * Writes a batch of queued operations in a single transaction.
+     * Runs on the write-behind queue's thread.
      */
-    private void updateTimestamp(final String key) {
-        new Thread(() -> {
-            SQLiteDatabase db;
-            try {
-                db = dbHelper.getWritableDatabase();
-
-                ContentValues values = new ContentValues();
-                values.put(TranslationDbHelper.COLUMN_TIMESTAMP, System.currentTimeMillis());
+    private void writeBatch(Map<String, CacheWriteBehindQueue.PendingPut> puts, Set<String> deletes,
+                            Map<String, Long> touches) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insertSource = null;
+        SQLiteStatement selectSource = null;
+        SQLiteStatement update = null;
+        SQLiteStatement insert = null;
+        SQLiteStatement delete = null;
+        SQLiteStatement touch = null;
+        int rowDelta = 0;
+
+        db.beginTransaction();
+        try {
+            if (!puts.isEmpty()) {
+                insertSource = db.compileStatement(TranslationDbHelper.SQL_INSERT_SOURCE_TEXT);
+                selectSource = db.compileStatement(TranslationDbHelper.SQL_SELECT_SOURCE_TEXT);
+                update = db.compileStatement(TranslationDbHelper.SQL_UPDATE_TRANSLATION);
+                insert = db.compileStatement(TranslationDbHelper.SQL_INSERT_TRANSLATION);
+                for (Map.Entry<String, CacheWriteBehindQueue.PendingPut> entry : puts.entrySet()) {
+                    int result = TranslationDbHelper.insertTranslation(insertSource, selectSource, update, insert,
+                            TranslationCacheKey.parse(entry.getKey()),
+                            entry.getValue().value, entry.getValue().timestamp);
+                    if (result == TranslationDbHelper.RESULT_INSERTED) {
+                        rowDelta++;
+                    }
+                }
+            }
 
-                db.update(
-                        TranslationDbHelper.TABLE_TRANSLATIONS,
-                        values,
-                        TranslationDbHelper.COLUMN_CACHE_KEY + " = ?",
-                        new String[]{key});
+            // Source text rows left without translations are removed during maintenance
+            if (!deletes.isEmpty()) {
+                delete = db.compileStatement("DELETE FROM " + TranslationDbHelper.TABLE_TRANSLATIONS +
+                        " WHERE " + TranslationDbHelper.COLUMN_SOURCE_HASH + " = ? AND " +
+                        TranslationDbHelper.COLUMN_LANGUAGE_PAIR + " = ? AND EXISTS (SELECT 1 FROM " +
+                        TranslationDbHelper.TABLE_SOURCE_TEXTS + " WHERE " +
+                        TranslationDbHelper.COLUMN_SOURCE_HASH + " = ? AND " +
+                        TranslationDbHelper.COLUMN_SOURCE_TEXT + " = ?)");
+                for (String key : deletes) {
+                    bindKey(delete, TranslationCacheKey.parse(key));
+                    rowDelta -= delete.executeUpdateDelete();
+                }
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error updating timestamp", e);
+            if (!touches.isEmpty()) {
+                touch = db.compileStatement("UPDATE " + TranslationDbHelper.TABLE_TRANSLATIONS +
+                        " SET " + TranslationDbHelper.COLUMN_TIMESTAMP + " = ? WHERE " +
+                        TranslationDbHelper.COLUMN_SOURCE_HASH + " = ? AND " +
+                        TranslationDbHelper.COLUMN_LANGUAGE_PAIR + " = ?");
+                for (Map.Entry<String, Long> entry : touches.entrySet()) {
+                    TranslationCacheKey key = TranslationCacheKey.parse(entry.getKey());
+                    touch.bindLong(1, entry.getValue());
+                    touch.bindLong(2, key.sourceHash);
+                    touch.bindString(3, key.languagePair);
+                    touch.executeUpdateDelete();
+                }
             }
-        }).start();
+
+            db.setTransactionSuccessful();
+            adjustDatabaseRows(rowDelta);
+        } finally {
+            db.endTransaction();
+            closeQuietly(insertSource);
+            closeQuietly(selectSource);
+            closeQuietly(update);
+            closeQuietly(insert);
+            closeQuietly(delete);
+            closeQuietly(touch);
+        }
     }
 
     /**
-     * Adds an entry to the memory cache, managing its size.
+     * Applies a change to the tracked row count, unless it hasn't been loaded yet.
      */
-    private synchronized void addToMemoryCache(String key, String translation) {
-        // If memory cache is full, remove the first entry (approximate LRU)
-        if (memoryCache.size() >= MEMORY_CACHE_SIZE) {
-            String firstKey = memoryCache.keySet().iterator().next();
-            memoryCache.remove(firstKey);
+    private void adjustDatabaseRows(long delta) {
+        if (delta != 0) {
+            databaseRows.getAndUpdate(rows -> rows < 0 ? rows : Math.max(0, rows + delta));
         }
+    }
 
-        // Add the new entry
-        memoryCache.put(key, translation);
+    /**
+     * Binds a key to a statement matching on hash and language pair, verified against the source text.
+     */
+    private static void bindKey(SQLiteStatement statement, TranslationCacheKey key) {
+        statement.bindLong(1, key.sourceHash);
+        statement.bindString(2, key.languagePair);
+        statement.bindLong(3, key.sourceHash);
+        statement.bindString(4, key.sourceText);
+    }
+
+    private static void closeQuietly(SQLiteStatement statement) {
+        if (statement != null) {
+            statement.close();
+        }
     }
 
     /**
      * Performs maintenance on the cache:
      * 1. Removes expired entries
      * 2. Trims the cache if it exceeds the maximum size
+     * 3. Removes source texts that are no longer referenced
+     * Each step deletes in bounded, timestamp-ordered chunks with one set-based
+     * statement and transaction per chunk, so the write lock is released between chunks.
+     * Intended to run from a background job, never on the main thread.
+     *
+     * @return The number of translations removed
      */
-    public void performMaintenance() {
-        SQLiteDatabase db = null;
+    public int performMaintenance() {
+        SQLiteStatement deleteExpired = null;
+        SQLiteStatement deleteOldest = null;
+        SQLiteStatement deleteOrphans = null;
 
         try {
-            db = dbHelper.getWritableDatabase();
-
-            // Begin transaction for better performance
-            db.beginTransaction();
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
 
-            // 1. Remove expired entries
+            // 1. Remove expired entries, oldest first
             long expiryThreshold = System.currentTimeMillis() - CACHE_EXPIRY_MS;
-            int deletedExpired = db.delete(
-                    TranslationDbHelper.TABLE_TRANSLATIONS,
-                    TranslationDbHelper.COLUMN_TIMESTAMP + " < ?",
-                    new String[]{String.valueOf(expiryThreshold)});
-
-            // 2. Check if we still need to trim the cache
-            Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TranslationDbHelper.TABLE_TRANSLATIONS, null);
-            int count = 0;
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
-                cursor.close();
-            } else {
-                cursor.close();
-            }
-
-            // If still too many entries, delete oldest ones
-            if (count > MAX_CACHE_SIZE) {
-                int toDelete = count - MAX_CACHE_SIZE;
-
-                // Find the oldest entries
-                cursor = db.query(
-                        TranslationDbHelper.TABLE_TRANSLATIONS,
-                        new String[]{TranslationDbHelper.COLUMN_CACHE_KEY},
-                        null, null, null, null,
-                        TranslationDbHelper.COLUMN_TIMESTAMP + " ASC",
-                        String.valueOf(toDelete));
-
-                while (cursor.moveToNext()) {
-                    String key = cursor.getString(0);
-                    db.delete(
-                            TranslationDbHelper.TABLE_TRANSLATIONS,
-                            TranslationDbHelper.COLUMN_CACHE_KEY + " = ?",
-                            new String[]{key});
+            deleteExpired = db.compileStatement("DELETE FROM " + TranslationDbHelper.TABLE_TRANSLATIONS +
+                    " WHERE rowid IN (SELECT rowid FROM " + TranslationDbHelper.TABLE_TRANSLATIONS +
+                    " WHERE " + TranslationDbHelper.COLUMN_TIMESTAMP + " < ?" +
+                    " ORDER BY " + TranslationDbHelper.COLUMN_TIMESTAMP + " LIMIT ?)");
+            int deletedExpired = 0;
+            int deleted;
+            do {
+                deleteExpired.bindLong(1, expiryThreshold);
+                deleteExpired.bindLong(2, MAINTENANCE_CHUNK_SIZE);
+                deleted = executeChunk(db, deleteExpired);
+                deletedExpired += deleted;
+                adjustDatabaseRows(-deleted);
+            } while (deleted == MAINTENANCE_CHUNK_SIZE);
+
+            // 2. If still too many entries, delete the least recently used ones
+            int deletedOldest = 0;
+            // Count exactly here, which also corrects any drift in the tracked row count
+            int count = getDatabaseSize();
+            databaseRows.set(count);
+            int excess = count - MAX_CACHE_SIZE;
+            if (excess > 0) {
+                deleteOldest = db.compileStatement("DELETE FROM " + TranslationDbHelper.TABLE_TRANSLATIONS +
+                        " WHERE rowid IN (SELECT rowid FROM " + TranslationDbHelper.TABLE_TRANSLATIONS +
+                        " ORDER BY " + TranslationDbHelper.COLUMN_TIMESTAMP + " LIMIT ?)");
+                while (excess > 0) {
+                    deleteOldest.bindLong(1, Math.min(excess, MAINTENANCE_CHUNK_SIZE));
+                    deleted = executeChunk(db, deleteOldest);
+                    if (deleted == 0) {
+                        break;
+                    }
+                    deletedOldest += deleted;
+                    excess -= deleted;
+                    adjustDatabaseRows(-deleted);
                 }
-                cursor.close();
             }
 
-            // Commit the transaction
-            db.setTransactionSuccessful();
+            // 3. Remove source texts no translation refers to any more
+            deleteOrphans = db.compileStatement("DELETE FROM " + TranslationDbHelper.TABLE_SOURCE_TEXTS +
+                    " WHERE " + TranslationDbHelper.COLUMN_SOURCE_HASH + " IN (SELECT s." +
+                    TranslationDbHelper.COLUMN_SOURCE_HASH + " FROM " + TranslationDbHelper.TABLE_SOURCE_TEXTS +
+                    " s WHERE NOT EXISTS (SELECT 1 FROM " + TranslationDbHelper.TABLE_TRANSLATIONS + " t WHERE t." +
+                    TranslationDbHelper.COLUMN_SOURCE_HASH + " = s." + TranslationDbHelper.COLUMN_SOURCE_HASH +
+                    ") LIMIT ?)");
+            int deletedOrphans = 0;
+            do {
+                deleteOrphans.bindLong(1, MAINTENANCE_CHUNK_SIZE);
+                deleted = executeChunk(db, deleteOrphans);
+                deletedOrphans += deleted;
+            } while (deleted == MAINTENANCE_CHUNK_SIZE);
 
             // Use Locale.US for consistent formatting in log messages
             Log.d(TAG, String.format(Locale.US,
-                    "Cache maintenance completed. Removed %d expired entries.",
-                    deletedExpired));
-
+                    "Cache maintenance completed. Removed %d expired entries, %d over the size limit " +
+                            "and %d unused source texts.",
+                    deletedExpired, deletedOldest, deletedOrphans));
+            return deletedExpired + deletedOldest;
         } catch (Exception e) {
             Log.e(TAG, "Error during cache maintenance", e);
+            return 0;
         } finally {
-            if (db != null && db.inTransaction()) {
-                db.endTransaction();
+            closeQuietly(deleteExpired);
+            closeQuietly(deleteOldest);
+            closeQuietly(deleteOrphans);
+        }
+    }
+
+    /**
+     * Runs one chunk of a maintenance delete in its own short transaction.
+     *
+     * @return The number of rows deleted
+     */
+    private static int executeChunk(SQLiteDatabase db, SQLiteStatement statement) {
+        db.beginTransaction();
+        try {
+            int deleted = statement.executeUpdateDelete();
+            db.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Writes every cached translation to a portable snapshot, most recently used first.
+     * Only text translations are exported; per-message entries such as
+     * {@code msg_<id>_translation} refer to this device's message IDs and stay behind.
+     * Pending writes are flushed first so the snapshot includes them. Records are
+     * streamed from the database, so memory use doesn't grow with the cache.
+     * Runs on the caller's thread; never call it on the main thread.
+     *
+     * @param out The stream to write to; not closed
+     * @return The number of translations exported
+     * @throws IOException If writing fails
+     */
+    public int exportSnapshot(OutputStream out) throws IOException {
+        writeQueue.flushNow();
+
+        long start = System.nanoTime();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        TranslationCacheSnapshot.Writer writer = new TranslationCacheSnapshot.Writer(out);
+        try (Cursor cursor = db.rawQuery("SELECT s." + TranslationDbHelper.COLUMN_SOURCE_TEXT +
+                ", t." + TranslationDbHelper.COLUMN_LANGUAGE_PAIR +
+                ", t." + TranslationDbHelper.COLUMN_TRANSLATION +
+                ", t." + TranslationDbHelper.COLUMN_TIMESTAMP +
+                " FROM " + TranslationDbHelper.TABLE_TRANSLATIONS + " t JOIN " +
+                TranslationDbHelper.TABLE_SOURCE_TEXTS + " s ON s." + TranslationDbHelper.COLUMN_SOURCE_HASH +
+                " = t." + TranslationDbHelper.COLUMN_SOURCE_HASH +
+                " WHERE t." + TranslationDbHelper.COLUMN_LANGUAGE_PAIR + " != ''" +
+                " ORDER BY t." + TranslationDbHelper.COLUMN_TIMESTAMP + " DESC", null)) {
+            while (cursor.moveToNext()) {
+                writer.write(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getLong(3));
+            }
+        }
+        int exported = writer.finish();
+
+        Log.d(TAG, "Exported " + exported + " translations in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        return exported;
+    }
+
+    /**
+     * Imports a snapshot written by {@link #exportSnapshot(OutputStream)}.
+     * All records are inserted in a single transaction, which is only committed
+     * once the snapshot's checksum has been verified; a damaged snapshot changes nothing.
+     * Translations already cached and used more recently on this device are kept.
+     * The import runs on the writer thread, so it can't interleave with a batch,
+     * and the memory tier is dropped afterwards so it doesn't serve entries the
+     * import replaced. Blocks until done; never call it on the main thread.
+     *
+     * @param in The stream to read from; not closed
+     * @return The number of translations imported
+     * @throws IOException If the snapshot is unreadable or damaged
+     */
+    public int importSnapshot(InputStream in) throws IOException {
+        int[] imported = new int[1];
+        IOException[] failure = new IOException[1];
+        Future<?> importTask = writeQueue.submit(() -> {
+            try {
+                imported[0] = importSnapshotOnWriter(in);
+            } catch (IOException e) {
+                failure[0] = e;
             }
+        });
+        if (importTask == null) {
+            throw new IOException("Translation cache is closed");
+        }
+        try {
+            importTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while importing translation cache");
+        } catch (ExecutionException e) {
+            throw new IOException("Error importing translation cache", e.getCause());
         }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        memoryCache.clear();
+        return imported[0];
+    }
+
+    /**
+     * Imports a snapshot into the database. Runs on the writer thread.
+     */
+    private int importSnapshotOnWriter(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insertSource = db.compileStatement(TranslationDbHelper.SQL_INSERT_SOURCE_TEXT);
+        SQLiteStatement selectSource = db.compileStatement(TranslationDbHelper.SQL_SELECT_SOURCE_TEXT);
+        SQLiteStatement update = db.compileStatement(TranslationDbHelper.SQL_UPDATE_TRANSLATION_IF_OLDER);
+        SQLiteStatement insert = db.compileStatement(TranslationDbHelper.SQL_INSERT_TRANSLATION_IF_ABSENT);
+        int[] skipped = new int[1];
+        int read;
+
+        db.beginTransaction();
+        try {
+            read = TranslationCacheSnapshot.read(in, (sourceText, languagePair, translation, timestamp) -> {
+                if (languagePair.isEmpty()) {
+                    // Per-message entry from another device, exported by an older version
+                    skipped[0]++;
+                    return;
+                }
+                TranslationCacheKey key = TranslationCacheKey.parse(TranslationCacheKey.toKey(sourceText, languagePair));
+                if (TranslationDbHelper.insertTranslation(insertSource, selectSource, update, insert,
+                        key, translation, timestamp) == TranslationDbHelper.RESULT_COLLISION) {
+                    skipped[0]++;
+                }
+            });
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            closeQuietly(insertSource);
+            closeQuietly(selectSource);
+            closeQuietly(update);
+            closeQuietly(insert);
+        }
+
+        // Updates and ignored inserts are indistinguishable here, so recount once
+        databaseRows.set(getDatabaseSize());
+
+        int imported = read - skipped[0];
+        Log.d(TAG, "Imported " + imported + " translations (" + skipped[0] + " skipped) in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        return imported;
     }
 
     /**
-     * Closes the database helper.
+     * Writes any queued operations, then closes the database helper.
      * Should be called when the app is being destroyed.
      */
     public void close() {
+        writeQueue.close();
         dbHelper.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.translator.messagingapp.translation;
+
+import java.util.regex.Pattern;
+
+/**
+ * Splits a translation cache key into its source text and language-pair suffix
+ * so the database can store each source text once and key rows by a compact
+ * 64-bit hash of it instead of the full text.
+ * Keys look like {@code text_target} or {@code text_source_target}; keys without
+ * a recognizable language suffix (e.g. per-message state keys) are stored with
+ * an empty language pair.
+ */
+final class TranslationCacheKey {
+    // Language codes as used by Google Translate and ML Kit ("es", "fil", "zh-TW"), or "auto"
+    private static final Pattern LANGUAGE_SEGMENT = Pattern.compile("auto|[a-z]{2,3}(-[A-Za-z]{2,4})?");
+
+    // At most source and target language
+    private static final int MAX_LANGUAGE_SEGMENTS = 2;
+
+    final String sourceText;
+    final String languagePair;
+    final long sourceHash;
+
+    private TranslationCacheKey(String sourceText, String languagePair) {
+        this.sourceText = sourceText;
+        this.languagePair = languagePair;
+        this.sourceHash = hash(sourceText);
+    }
+
+    /**
+     * Parses a cache key.
+     *
+     * @param key The full cache key
+     * @return The parsed key
+     */
+    static TranslationCacheKey parse(String key) {
+        int split = key.length();
+        for (int segments = 0; segments < MAX_LANGUAGE_SEGMENTS; segments++) {
+            int separator = key.lastIndexOf('_', split - 1);
+            // Keep at least one character of source text
+            if (separator <= 0) {
+                break;
+            }
+            if (!LANGUAGE_SEGMENT.matcher(key.substring(separator + 1, split)).matches()) {
+                break;
+            }
+            split = separator;
+        }
+
+        if (split == key.length()) {
+            return new TranslationCacheKey(key, "");
+        }
+        return new TranslationCacheKey(key.substring(0, split), key.substring(split + 1));
+    }
+
+    /**
+     * Rebuilds the full cache key from a stored source text and language pair.
+     */
+    static String toKey(String sourceText, String languagePair) {
+        return languagePair.isEmpty() ? sourceText : sourceText + "_" + languagePair;
+    }
+
+    /**
+     * Computes a 64-bit hash of the text: FNV-1a over the UTF-16 code units,
+     * followed by a MurmurHash3 finalizer to spread the bits.
+     */
+    static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return toKey(sourceText, languagePair);
+    }
+}
@@ -0,0 +1,190 @@
+package com.translator.messagingapp.translation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Portable binary snapshot of the translation cache, used to carry a warm
+ * cache across reinstalls and device migrations.
+ *
+ * <p>Layout: a 4-byte magic and a 4-byte format version, followed by a
+ * deflate stream holding the records and a trailer. Each record is the source
+ * text, language pair and translation as length-prefixed UTF-8, then the
+ * last-used timestamp. A negative length ends the records; the trailer holds
+ * the record count and a CRC32 of everything before it in the deflate stream.
+ * Records are written and read one at a time, so neither side holds the whole
+ * snapshot in memory.
+ */
+final class TranslationCacheSnapshot {
+    static final int MAGIC = 0x4C544353; // "LTCS"
+    static final int VERSION = 1;
+
+    private static final int END_OF_RECORDS = -1;
+    // Upper bound for one string, so a corrupt length can't trigger a huge allocation
+    private static final int MAX_STRING_BYTES = 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives records while a snapshot is read.
+     */
+    interface RecordSink {
+        void accept(String sourceText, String languagePair, String translation, long timestamp);
+    }
+
+    private TranslationCacheSnapshot() {
+        // Utility class
+    }
+
+    /**
+     * Streams records into a snapshot.
+     */
+    static final class Writer {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream deflated;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream data;
+        private int count;
+
+        Writer(OutputStream out) throws IOException {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.flush();
+
+            deflated = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            // Checksum above the buffer, so it always covers exactly the bytes written so far
+            data = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(deflated, BUFFER_SIZE), crc));
+        }
+
+        void write(String sourceText, String languagePair, String translation, long timestamp) throws IOException {
+            writeString(data, sourceText);
+            writeString(data, languagePair);
+            writeString(data, translation);
+            data.writeLong(timestamp);
+            count++;
+        }
+
+        /**
+         * Writes the trailer and finishes the deflate stream. Does not close the
+         * underlying output stream.
+         *
+         * @return The number of records written
+         */
+        int finish() throws IOException {
+            try {
+                data.writeInt(END_OF_RECORDS);
+                data.writeInt(count);
+                // The checksum covers everything up to here
+                data.writeLong(crc.getValue());
+                data.flush();
+                deflated.finish();
+                return count;
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot, handing each record to the sink as it is decoded.
+     * The checksum can only be verified at the end, so callers should apply the
+     * records in a transaction they commit only if this method returns normally.
+     *
+     * @param in The snapshot stream
+     * @param sink Receives the records
+     * @return The number of records read
+     * @throws IOException If the stream is not a snapshot, has an unsupported
+     *                     version, is truncated, or fails the checksum
+     */
+    static int read(InputStream in, RecordSink sink) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        int magic;
+        try {
+            magic = header.readInt();
+        } catch (EOFException e) {
+            throw new IOException("Empty translation cache snapshot");
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a translation cache snapshot");
+        }
+        int version = header.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported translation cache snapshot version " + version);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            CRC32 crc = new CRC32();
+            // Checksum above the buffer, so read-ahead isn't counted before it is consumed
+            DataInputStream data = new DataInputStream(new CheckedInputStream(new BufferedInputStream(
+                    new InflaterInputStream(in, inflater, BUFFER_SIZE), BUFFER_SIZE), crc));
+
+            int count = 0;
+            try {
+                while (true) {
+                    String sourceText = readString(data);
+                    if (sourceText == null) {
+                        break;
+                    }
+                    String languagePair = readString(data);
+                    String translation = readString(data);
+                    long timestamp = data.readLong();
+                    if (languagePair == null || translation == null) {
+                        throw new IOException("Corrupt translation cache snapshot record " + count);
+                    }
+                    sink.accept(sourceText, languagePair, translation, timestamp);
+                    count++;
+                }
+
+                int expectedCount = data.readInt();
+                long expectedCrc = crc.getValue();
+                if (data.readLong() != expectedCrc || expectedCount != count) {
+                    throw new IOException("Translation cache snapshot failed its checksum");
+                }
+            } catch (EOFException e) {
+                throw new IOException("Truncated translation cache snapshot after " + count + " records", e);
+            }
+            return count;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed string.
+     *
+     * @return The string, or null at the end-of-records marker
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt translation cache snapshot: string of " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
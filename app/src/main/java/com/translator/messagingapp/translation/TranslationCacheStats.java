@@ -0,0 +1,203 @@
+package com.translator.messagingapp.translation;
+
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of translation cache statistics.
+ * Cheap to build: every value comes from in-memory counters, none from a database query.
+ */
+public final class TranslationCacheStats {
+
+    /**
+     * Hit, miss and latency figures for one tier.
+     * For the engine tier, hits are successful translations and misses are failures.
+     */
+    public static final class TierStats {
+        private final long hits;
+        private final long misses;
+        private final long samples;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+
+        TierStats(long hits, long misses, long samples, long meanMicros,
+                  long p50Micros, long p95Micros, long p99Micros) {
+            this.hits = hits;
+            this.misses = misses;
+            this.samples = samples;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Gets the number of latency samples recorded.
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP95Micros() {
+            return p95Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d hits, %d misses, latency mean %dµs p50 ≤%dµs p95 ≤%dµs p99 ≤%dµs (%d samples)",
+                    hits, misses, meanMicros, p50Micros, p95Micros, p99Micros, samples);
+        }
+    }
+
+    private final TierStats memory;
+    private final TierStats database;
+    private final TierStats engine;
+    private final int memoryEntries;
+    private final long memoryBytes;
+    private final long memoryMaxBytes;
+    private final long memoryAdmissions;
+    private final long memoryRejections;
+    private final long memoryEvictions;
+    private final long databaseRows;
+    private final int pendingWrites;
+    private final long normalizedHits;
+
+    TranslationCacheStats(TierStats memory, TierStats database, TierStats engine,
+                          int memoryEntries, long memoryBytes, long memoryMaxBytes,
+                          long memoryAdmissions, long memoryRejections, long memoryEvictions,
+                          long databaseRows, int pendingWrites, long normalizedHits) {
+        this.memory = memory;
+        this.database = database;
+        this.engine = engine;
+        this.memoryEntries = memoryEntries;
+        this.memoryBytes = memoryBytes;
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.memoryAdmissions = memoryAdmissions;
+        this.memoryRejections = memoryRejections;
+        this.memoryEvictions = memoryEvictions;
+        this.databaseRows = databaseRows;
+        this.pendingWrites = pendingWrites;
+        this.normalizedHits = normalizedHits;
+    }
+
+    public TierStats getMemory() {
+        return memory;
+    }
+
+    public TierStats getDatabase() {
+        return database;
+    }
+
+    public TierStats getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the number of lookups answered by any cache tier.
+     */
+    public long getHits() {
+        return memory.getHits() + database.getHits() + normalizedHits;
+    }
+
+    /**
+     * Gets the number of lookups no cache tier could answer.
+     */
+    public long getMisses() {
+        // Every lookup that misses memory hits the database, hits a normalized key, or misses overall
+        return Math.max(0, memory.getMisses() - database.getHits() - normalizedHits);
+    }
+
+    /**
+     * Gets the overall hit rate as a percentage.
+     */
+    public float getHitRate() {
+        long total = getHits() + getMisses();
+        return total > 0 ? (float) getHits() / total * 100 : 0;
+    }
+
+    public int getMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getMemoryMaxBytes() {
+        return memoryMaxBytes;
+    }
+
+    public long getMemoryAdmissions() {
+        return memoryAdmissions;
+    }
+
+    public long getMemoryRejections() {
+        return memoryRejections;
+    }
+
+    public long getMemoryEvictions() {
+        return memoryEvictions;
+    }
+
+    /**
+     * Gets the number of rows in the database, maintained incrementally.
+     * Returns -1 until the initial count has been loaded.
+     */
+    public long getDatabaseRows() {
+        return databaseRows;
+    }
+
+    /**
+     * Gets the number of writes queued but not yet written to the database.
+     */
+    public int getPendingWrites() {
+        return pendingWrites;
+    }
+
+    /**
+     * Gets the number of extra hits from key normalization: lookups whose exact
+     * key missed but that were answered by a variant differing only in case,
+     * spacing, trailing punctuation or invisible characters.
+     */
+    public long getNormalizedHits() {
+        return normalizedHits;
+    }
+
+    @Override
+    public String toString() {
+        // Use Locale.US for consistent formatting
+        return String.format(Locale.US,
+                "Memory cache size: %d entries (%d KB of %d KB)\n" +
+                        "Memory admissions: %d\nMemory rejections: %d\nMemory evictions: %d\n" +
+                        "Database cache size: %d entries (%d pending writes)\n" +
+                        "Hits: %d (%d from normalized keys)\nMisses: %d\nHit rate: %.1f%%\n" +
+                        "Memory: %s\nDatabase: %s\nEngine: %s",
+                memoryEntries, memoryBytes / 1024, memoryMaxBytes / 1024,
+                memoryAdmissions, memoryRejections, memoryEvictions,
+                databaseRows, pendingWrites,
+                getHits(), normalizedHits, getMisses(), getHitRate(),
+                memory, database, engine);
+    }
+}
@@ -0,0 +1,86 @@
+package com.translator.messagingapp.translation;
+
+import java.util.List;
+
+/**
+ * A machine translation engine. TranslationManager has an online and an
+ * offline engine slot, filled by {@link GoogleTranslationService} and
+ * {@link OfflineTranslationService} in the app; tests can plug in any other
+ * implementation.
+ *
+ * Engines translate single texts and batches, blocking or with a callback.
+ * Caching, coalescing, rate limiting and scheduling are the manager's job, so
+ * an engine only has to translate.
+ */
+public interface TranslationEngine {
+
+    /**
+     * Receives the result of {@link #translateText}.
+     */
+    interface TranslationCallback {
+        void onTranslationComplete(boolean success, String translatedText, String errorMessage);
+    }
+
+    /**
+     * Gets the engine name, used for logs and to share its rate limiter.
+     */
+    String getName();
+
+    /**
+     * Gets the engine's request quota.
+     *
+     * @return The limits requests are paced to, or null if the engine has no quota
+     */
+    default TokenBucketRateLimiter.Limits getRateLimits() {
+        return null;
+    }
+
+    /**
+     * Checks whether the engine can translate at all, e.g. has its credentials.
+     */
+    boolean isAvailable();
+
+    /**
+     * Checks whether the engine knows both languages of a pair.
+     */
+    boolean isLanguagePairSupported(String sourceLanguage, String targetLanguage);
+
+    /**
+     * Checks whether the engine can translate a pair right now, without
+     * downloading anything first.
+     */
+    boolean isLanguagePairReady(String sourceLanguage, String targetLanguage);
+
+    /**
+     * Translates text, blocking until it is done.
+     *
+     * @param text The text to translate
+     * @param sourceLanguage The source language code
+     * @param targetLanguage The target language code
+     * @return The translated text, or null if translation failed
+     */
+    String translate(String text, String sourceLanguage, String targetLanguage);
+
+    /**
+     * Translates several texts, blocking until all are done.
+     *
+     * @return The translations in the same order as the texts, or null if translation failed
+     */
+    List<String> translateBatch(List<String> texts, String sourceLanguage, String targetLanguage);
+
+    /**
+     * Translates text in the background.
+     *
+     * @param callback Receives the result, on a background thread
+     */
+    void translateText(String text, String sourceLanguage, String targetLanguage, TranslationCallback callback);
+
+    /**
+     * Detects the language of text.
+     *
+     * @return The language code, or null if the engine can't detect languages
+     */
+    default String detectLanguage(String text) {
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.translator.messagingapp.translation;
+
+/**
+ * Fails a translation future when text can't be translated. The message is
+ * the one the callback API reports, e.g. "Could not detect language".
+ */
+public class TranslationException extends Exception {
+
+    public TranslationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,220 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Shared HTTP client for translation traffic.
+ * One pooled OkHttp client keeps connections to the translation API alive
+ * between requests, negotiates HTTP/2 and transparently asks for gzip
+ * responses. Every call is timed phase by phase (DNS, connect, time to first
+ * byte, response parsing) into histograms, so slow requests can be traced to
+ * the network or to the API.
+ */
+public final class TranslationHttpClient {
+    private static final String TAG = "TranslationHttpClient";
+
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+    private static final long WRITE_TIMEOUT_SECONDS = 10;
+    private static final long CALL_TIMEOUT_SECONDS = 30;
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static final LatencyHistogram dnsLatency = new LatencyHistogram();
+    private static final LatencyHistogram connectLatency = new LatencyHistogram();
+    private static final LatencyHistogram firstByteLatency = new LatencyHistogram();
+    private static final LatencyHistogram parseLatency = new LatencyHistogram();
+    private static final LatencyHistogram totalLatency = new LatencyHistogram();
+    private static final LongAdder reusedConnections = new LongAdder();
+    private static final LongAdder failedCalls = new LongAdder();
+
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .callTimeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true)
+            .eventListenerFactory(call -> {
+                RequestTimings timings = call.request().tag(RequestTimings.class);
+                return timings != null ? new TimingListener(timings) : EventListener.NONE;
+            })
+            .build();
+
+    private TranslationHttpClient() {
+        // Utility class
+    }
+
+    /**
+     * Phase timings of one request, in nanoseconds; -1 for phases that didn't
+     * happen, e.g. DNS and connect on a reused connection. Attach a fresh instance
+     * to a request with {@code Request.Builder.tag(RequestTimings.class, timings)}.
+     */
+    public static final class RequestTimings {
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        volatile long dnsNanos = -1;
+        volatile long connectNanos = -1;
+        volatile long firstByteNanos = -1;
+        volatile long parseNanos = -1;
+        volatile long totalNanos = -1;
+        volatile boolean failed;
+
+        public long getDnsMillis() {
+            return toMillis(dnsNanos);
+        }
+
+        public long getConnectMillis() {
+            return toMillis(connectNanos);
+        }
+
+        /**
+         * Gets the time from the start of the call to the first response byte.
+         */
+        public long getFirstByteMillis() {
+            return toMillis(firstByteNanos);
+        }
+
+        public long getParseMillis() {
+            return toMillis(parseNanos);
+        }
+
+        public long getTotalMillis() {
+            return toMillis(totalNanos);
+        }
+
+        /**
+         * Records how long parsing the response body took.
+         */
+        void recordParse(long elapsedNanos) {
+            parseNanos = elapsedNanos;
+            parseLatency.record(elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "dns %dms, connect %dms, first byte %dms, parse %dms, total %dms%s",
+                    getDnsMillis(), getConnectMillis(), getFirstByteMillis(), getParseMillis(), getTotalMillis(),
+                    failed ? " (failed)" : "");
+        }
+
+        private static long toMillis(long nanos) {
+            return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+
+    /**
+     * Gets the shared client. Use it for all translation API calls so they share
+     * the connection pool.
+     */
+    public static OkHttpClient getClient() {
+        return CLIENT;
+    }
+
+    /**
+     * Gets a summary of request timings since the app started.
+     *
+     * @return Count, mean and p95 per phase
+     */
+    public static String getStatistics() {
+        return String.format(Locale.US,
+                "Requests: %d (%d failed, %d on reused connections)\n" +
+                        "DNS: %s\nConnect: %s\nFirst byte: %s\nParse: %s\nTotal: %s",
+                totalLatency.getCount(), failedCalls.sum(), reusedConnections.sum(),
+                describe(dnsLatency), describe(connectLatency), describe(firstByteLatency),
+                describe(parseLatency), describe(totalLatency));
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return String.format(Locale.US, "mean %dµs, p95 ≤%dµs (%d samples)",
+                histogram.getMeanMicros(), histogram.getPercentileMicros(95), histogram.getCount());
+    }
+
+    /**
+     * Feeds OkHttp call events into a request's timings and the shared histograms.
+     */
+    private static final class TimingListener extends EventListener {
+        private final RequestTimings timings;
+
+        TimingListener(RequestTimings timings) {
+            this.timings = timings;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            timings.callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            timings.dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            timings.dnsNanos = System.nanoTime() - timings.dnsStart;
+            dnsLatency.record(timings.dnsNanos);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            timings.connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            timings.connectNanos = System.nanoTime() - timings.connectStart;
+            connectLatency.record(timings.connectNanos);
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            if (timings.connectStart == 0) {
+                reusedConnections.increment();
+            }
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            timings.firstByteNanos = System.nanoTime() - timings.callStart;
+            firstByteLatency.record(timings.firstByteNanos);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            finish();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            timings.failed = true;
+            failedCalls.increment();
+            finish();
+        }
+
+        private void finish() {
+            timings.totalNanos = System.nanoTime() - timings.callStart;
+            totalLatency.record(timings.totalNanos);
+            Log.d(TAG, "Translation request: " + timings);
+        }
+    }
+}
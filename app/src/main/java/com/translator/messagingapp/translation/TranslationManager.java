@@ -12,10 +12,28 @@ import android.util.Log;
 
 import com.translator.messagingapp.sms.SmsMessage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Manager class for handling translation functionality.
@@ -25,28 +43,37 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class TranslationManager {
     private static final String TAG = "TranslationManager";
 
-    // Rate limiting parameters
-    private static final Object SYNC_OBJECT = new Object();
-    private static long lastTranslationTime = 0;
-    private static final long MIN_TRANSLATION_INTERVAL = 5000; // 5 seconds minimum between translations
-    private static int translationsToday = 0;
-    private static long dayStartTime = System.currentTimeMillis();
-    private static final int MAX_TRANSLATIONS_PER_DAY = 100; // Maximum translations per day
-
     // Cache for recently translated messages to avoid duplicates
     private static final ConcurrentHashMap<String, Long> recentlyTranslatedMessages = new ConcurrentHashMap<>();
     private static final int MAX_CACHE_SIZE = 50;
 
+    // Longer text is split into chunks that are translated in parallel
+    static final int DEFAULT_MAX_CHUNK_CHARS = 1000;
+
+    // Most messages of a burst sent to an engine in one call
+    private static final int MAX_SMS_BATCH_SIZE = 32;
+
     // Counter for generating unique notification IDs
     private static final AtomicInteger notificationIdCounter = new AtomicInteger(1001);
 
     private final Context context;
-    private final GoogleTranslationService translationService;
+    private final TranslationEngine onlineEngine;
+    private final TranslationEngine offlineEngine;
     private final UserPreferences userPreferences;
-    private final ExecutorService executorService;
+    private final TranslationScheduler scheduler;
     private final TranslationCache translationCache;
+    private final TranslationMemory translationMemory;
+    private final NegativeTranslationCache negativeCache = new NegativeTranslationCache();
+    // Engine calls in flight, so racing callers for the same text share one
+    private final SingleFlight<String, EngineResult> inFlightTranslations = new SingleFlight<>();
     private final OfflineTranslationService offlineTranslationService;
     private final LanguageDetectionService languageDetectionService;
+    // Null if the online engine has no quota
+    private final TokenBucketRateLimiter onlineRateLimiter;
+    private final EngineRouter engineRouter = new EngineRouter();
+    // Starts the offline engine when a routed online request is slow
+    private final ScheduledThreadPoolExecutor fallbackTimer = newFallbackTimer();
+    private volatile int maxChunkChars = DEFAULT_MAX_CHUNK_CHARS;
 
     /**
      * Creates a new TranslationManager.
@@ -56,13 +83,29 @@ public class TranslationManager {
      * @param userPreferences The user preferences
      */
     public TranslationManager(Context context, GoogleTranslationService translationService, UserPreferences userPreferences) {
+        this(context, translationService, userPreferences, new TranslationCache(context));
+    }
+
+    /**
+     * Creates a new TranslationManager that shares an existing translation cache.
+     *
+     * @param context The application context
+     * @param translationService The translation service
+     * @param userPreferences The user preferences
+     * @param translationCache The translation cache shared with the rest of the app
+     */
+    public TranslationManager(Context context, GoogleTranslationService translationService, UserPreferences userPreferences,
+                              TranslationCache translationCache) {
         this.context = context;
-        this.translationService = translationService;
+        this.onlineEngine = translationService;
         this.userPreferences = userPreferences;
-        this.executorService = Executors.newCachedThreadPool();
-        this.translationCache = new TranslationCache(context);
+        this.scheduler = TranslationScheduler.getInstance();
+        this.translationCache = translationCache != null ? translationCache : new TranslationCache(context);
+        this.translationMemory = new TranslationMemory(this.translationCache);
         this.offlineTranslationService = new OfflineTranslationService(context);
+        this.offlineEngine = offlineTranslationService;
         this.languageDetectionService = new LanguageDetectionService(context, translationService);
+        this.onlineRateLimiter = newRateLimiter(context, translationService);
         
         Log.d(TAG, "TranslationManager initialized with offline and online translation services");
     }
@@ -81,16 +124,64 @@ public class TranslationManager {
                             TranslationCache translationCache, OfflineTranslationService offlineTranslationService,
                             LanguageDetectionService languageDetectionService) {
         this.context = context;
-        this.translationService = translationService;
+        this.onlineEngine = translationService;
         this.userPreferences = userPreferences;
-        this.executorService = Executors.newCachedThreadPool();
+        this.scheduler = TranslationScheduler.getInstance();
         this.translationCache = translationCache;
+        this.translationMemory = new TranslationMemory(translationCache);
         this.offlineTranslationService = offlineTranslationService;
+        this.offlineEngine = offlineTranslationService;
         this.languageDetectionService = languageDetectionService;
+        this.onlineRateLimiter = newRateLimiter(context, translationService);
         
         Log.d(TAG, "TranslationManager initialized with injected dependencies");
     }
 
+    /**
+     * Creates a new TranslationManager with pluggable engines, e.g. a fake
+     * engine for load tests.
+     *
+     * @param context The application context
+     * @param userPreferences The user preferences
+     * @param translationCache The translation cache
+     * @param onlineEngine The engine used for online translation, or null
+     * @param offlineEngine The engine used for offline translation, or null
+     * @param languageDetectionService The language detection service, or null to
+     *                                 detect with the online engine
+     */
+    public TranslationManager(Context context, UserPreferences userPreferences, TranslationCache translationCache,
+                              TranslationEngine onlineEngine, TranslationEngine offlineEngine,
+                              LanguageDetectionService languageDetectionService) {
+        this.context = context;
+        this.onlineEngine = onlineEngine;
+        this.userPreferences = userPreferences;
+        this.scheduler = TranslationScheduler.getInstance();
+        this.translationCache = translationCache;
+        this.translationMemory = new TranslationMemory(translationCache);
+        this.offlineTranslationService = offlineEngine instanceof OfflineTranslationService
+                ? (OfflineTranslationService) offlineEngine : null;
+        this.offlineEngine = offlineEngine;
+        this.languageDetectionService = languageDetectionService;
+        this.onlineRateLimiter = newRateLimiter(context, onlineEngine);
+
+        Log.d(TAG, "TranslationManager initialized with engines "
+                + (onlineEngine != null ? onlineEngine.getName() : "none") + " and "
+                + (offlineEngine != null ? offlineEngine.getName() : "none"));
+    }
+
+    /**
+     * Gets the shared rate limiter of an engine with a quota.
+     *
+     * @return The limiter, or null if the engine has no quota
+     */
+    private static TokenBucketRateLimiter newRateLimiter(Context context, TranslationEngine engine) {
+        TokenBucketRateLimiter.Limits limits = engine != null ? engine.getRateLimits() : null;
+        if (limits == null || engine.getName() == null) {
+            return null;
+        }
+        return TokenBucketRateLimiter.forEngine(context, engine.getName(), limits);
+    }
+
     /**
      * Gets the translation cache instance.
      *
@@ -100,6 +191,15 @@ public class TranslationManager {
         return translationCache;
     }
 
+    /**
+     * Gets the cache of recent translation failures.
+     *
+     * @return The NegativeTranslationCache instance
+     */
+    public NegativeTranslationCache getNegativeTranslationCache() {
+        return negativeCache;
+    }
+
     /**
      * Gets the offline translation service instance.
      *
@@ -109,6 +209,15 @@ public class TranslationManager {
         return offlineTranslationService;
     }
 
+    /**
+     * Gets the router that picks the online or offline engine in auto mode.
+     *
+     * @return The EngineRouter instance, with its statistics and recent decisions
+     */
+    public EngineRouter getEngineRouter() {
+        return engineRouter;
+    }
+
     /**
      * Gets the language detection service instance.
      *
@@ -118,6 +227,16 @@ public class TranslationManager {
         return languageDetectionService;
     }
 
+    private static ScheduledThreadPoolExecutor newFallbackTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "TranslationFallbackTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
     /**
      * Gets a translated text from the cache.
      *
@@ -145,6 +264,34 @@ public class TranslationManager {
     }
 
 
+    /**
+     * Result of one engine call, shared by every caller that joined it.
+     */
+    private static final class EngineResult {
+        final String translatedText;
+        final String errorMessage;
+
+        EngineResult(String translatedText, String errorMessage) {
+            this.translatedText = translatedText;
+            this.errorMessage = errorMessage;
+        }
+    }
+
+    /**
+     * Receives the translation of long text as it is translated chunk by chunk.
+     */
+    public interface PartialTranslationListener {
+        /**
+         * Called on a background thread, in order, each time a chunk is translated.
+         *
+         * @param translatedPrefix The translation of the leading chunks translated so far;
+         *                         empty while the first chunk is still being translated
+         * @param translatedChunks The number of chunks translated
+         * @param chunkCount The number of chunks
+         */
+        void onPartialTranslation(String translatedPrefix, int translatedChunks, int chunkCount);
+    }
+
     /**
      * Interface for SMS message translation callbacks.
      */
@@ -197,27 +344,132 @@ public class TranslationManager {
      * @param forceTranslation Whether to force translation even if source and target languages match
      */
     public void translateText(String text, String sourceLanguage, String targetLanguage, TranslationCallback callback, boolean forceTranslation) {
+        translateText(text, sourceLanguage, targetLanguage, callback, forceTranslation,
+                TranslationScheduler.Priority.USER_INITIATED);
+    }
+
+    /**
+     * Translates text with a scheduling priority, so e.g. a message on screen is
+     * translated before a backlog of incoming messages.
+     *
+     * @param text The text to translate
+     * @param sourceLanguage The source language code (can be null for auto-detect)
+     * @param targetLanguage The target language code
+     * @param callback The callback to receive the result
+     * @param forceTranslation Whether to force translation even if source and target languages match
+     * @param priority The priority of the background work
+     */
+    public void translateText(String text, String sourceLanguage, String targetLanguage, TranslationCallback callback,
+                              boolean forceTranslation, TranslationScheduler.Priority priority) {
+        translateText(text, sourceLanguage, targetLanguage, callback, forceTranslation, priority, this);
+    }
+
+    /**
+     * Translates text with a scheduling priority on behalf of an owner, whose
+     * queued translations can be dropped with {@link #cancelTranslations(Object)}.
+     *
+     * @param text The text to translate
+     * @param sourceLanguage The source language code (can be null for auto-detect)
+     * @param targetLanguage The target language code
+     * @param callback The callback to receive the result
+     * @param forceTranslation Whether to force translation even if source and target languages match
+     * @param priority The priority of the background work
+     * @param owner Identifies who asked for the translation
+     */
+    public void translateText(String text, String sourceLanguage, String targetLanguage, TranslationCallback callback,
+                              boolean forceTranslation, TranslationScheduler.Priority priority, Object owner) {
+        android.app.Activity activity = callback instanceof EnhancedTranslationCallback
+                ? ((EnhancedTranslationCallback) callback).getActivity() : null;
+        translateTextAsync(text, sourceLanguage, targetLanguage, forceTranslation, priority, owner, activity)
+                .whenComplete((translatedText, error) -> deliver(callback, translatedText, error));
+    }
+
+    /**
+     * Translates text, auto-detecting its language if no source language is given.
+     *
+     * @see #translateTextAsync(String, String, String, boolean, TranslationScheduler.Priority, Object, android.app.Activity)
+     */
+    public CompletableFuture<String> translateTextAsync(String text, String sourceLanguage, String targetLanguage) {
+        return translateTextAsync(text, sourceLanguage, targetLanguage, false,
+                TranslationScheduler.Priority.USER_INITIATED, this, null);
+    }
+
+    /**
+     * Translates text. Cancelling the returned future, or letting it time out
+     * with {@link #withTimeout(CompletableFuture, long)}, drops the translation
+     * if it is still queued and stops it before it reaches an engine otherwise.
+     *
+     * @param text The text to translate
+     * @param sourceLanguage The source language code (can be null for auto-detect)
+     * @param targetLanguage The target language code
+     * @param forceTranslation Whether to force translation even if source and target languages match
+     * @param priority The priority of the background work
+     * @param owner Identifies who asked for the translation
+     * @param activity Used to offer downloading missing offline models, or null to fail instead
+     * @return A future completed with the translated text, or failed with a
+     *         {@link TranslationException} if the text can't be translated
+     */
+    public CompletableFuture<String> translateTextAsync(String text, String sourceLanguage, String targetLanguage,
+                                                        boolean forceTranslation, TranslationScheduler.Priority priority,
+                                                        Object owner, android.app.Activity activity) {
+        return translateTextAsync(text, sourceLanguage, targetLanguage, forceTranslation, priority, owner, activity,
+                null);
+    }
+
+    /**
+     * Translates text, reporting partial translations of long text. Text longer
+     * than {@link #getMaxChunkChars()} is split at paragraph or sentence
+     * boundaries and its chunks are translated in parallel.
+     *
+     * @param listener Receives partial translations of long text, or null
+     * @see #translateTextAsync(String, String, String, boolean, TranslationScheduler.Priority, Object, android.app.Activity)
+     */
+    public CompletableFuture<String> translateTextAsync(String text, String sourceLanguage, String targetLanguage,
+                                                        boolean forceTranslation, TranslationScheduler.Priority priority,
+                                                        Object owner, android.app.Activity activity,
+                                                        PartialTranslationListener listener) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        TranslationCallback callback = new FutureCallback(result, activity);
         if (text == null || text.isEmpty()) {
-            if (callback != null) {
-                callback.onTranslationComplete(false, null, "No text to translate");
-            }
-            return;
+            callback.onTranslationComplete(false, null, "No text to translate");
+            return result;
         }
 
         // Generate cache key
-        String cacheKey = text + "_" + (sourceLanguage != null ? sourceLanguage : "auto") + "_" + targetLanguage;
+        String cacheKey = getTextCacheKey(text, sourceLanguage, targetLanguage);
 
         // Check cache first
         String cachedTranslation = translationCache.get(cacheKey);
         if (cachedTranslation != null) {
-            if (callback != null) {
-                callback.onTranslationComplete(true, cachedTranslation, null);
+            callback.onTranslationComplete(true, cachedTranslation, null);
+            return result;
+        }
+
+        // Fail fast on text that recently failed, unless the user explicitly asked again
+        if (!forceTranslation) {
+            NegativeTranslationCache.Entry failure = getRecentFailure(text, targetLanguage);
+            if (failure != null) {
+                callback.onTranslationComplete(false, null, failure.getMessage());
+                return result;
+            }
+            if (NegativeTranslationCache.isUntranslatable(text)) {
+                recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.UNTRANSLATABLE, "No translatable text");
+                callback.onTranslationComplete(false, null, "No translatable text");
+                return result;
+            }
+        }
+
+        // Long text goes to the engines in chunks, translated in parallel
+        if (text.length() > maxChunkChars) {
+            List<TranslationMemory.Segment> chunks = TextChunker.split(text, maxChunkChars);
+            if (chunks.size() > 1) {
+                return translateLongText(result, text, sourceLanguage, targetLanguage, cacheKey, forceTranslation,
+                        priority, owner, chunks, listener);
             }
-            return;
         }
 
         // Translate in background using offline-first approach
-        executorService.execute(() -> {
+        CompletableFuture<Void> work = runInBackground(priority, owner, () -> {
             try {
                 String finalSourceLanguage = sourceLanguage;
                 
@@ -226,9 +478,9 @@ public class TranslationManager {
                     finalSourceLanguage = detectLanguage(text);
                     
                     if (finalSourceLanguage == null) {
-                        if (callback != null) {
-                            callback.onTranslationComplete(false, null, "Could not detect language");
-                        }
+                        recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.DETECTION_FAILED,
+                                "Could not detect language");
+                        callback.onTranslationComplete(false, null, "Could not detect language");
                         return;
                     }
                 }
@@ -239,39 +491,46 @@ public class TranslationManager {
                 String baseTarget = targetLanguage.split("-")[0];
 
                 if (baseDetected.equals(baseTarget) && !forceTranslation) {
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null, "Text is already in " + getLanguageName(baseTarget));
-                    }
+                    String message = "Text is already in " + getLanguageName(baseTarget);
+                    recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.SAME_LANGUAGE, message);
+                    callback.onTranslationComplete(false, null, message);
+                    return;
+                }
+
+                // Stop before the engine if the caller gave up on the translation
+                if (result.isDone()) {
                     return;
                 }
 
                 // Try offline translation first if enabled and models are available
-                if (shouldUseOfflineTranslation(finalSourceLanguage, targetLanguage)) {
+                EngineRouter.Decision route = routeAutoTranslation(finalSourceLanguage, targetLanguage);
+                if (shouldUseOfflineTranslation(finalSourceLanguage, targetLanguage, route)) {
                     translateOffline(text, finalSourceLanguage, targetLanguage, cacheKey, callback);
                 } else {
                     // Fall back to online translation
-                    if (translationService != null && translationService.hasApiKey()) {
-                        if (!checkRateLimiting()) {
-                            if (callback != null) {
-                                callback.onTranslationComplete(false, null, "Translation rate limit exceeded");
+                    if (isOnlineEngineAvailable()) {
+                        String detectedLanguage = finalSourceLanguage;
+                        withOnlineQuota(priority, result, () -> {
+                            if (route != null) {
+                                translateOnlineRouted(text, detectedLanguage, targetLanguage, cacheKey, callback, route);
+                            } else {
+                                translateOnline(text, detectedLanguage, targetLanguage, cacheKey, callback);
                             }
-                            return;
-                        }
-                        translateOnline(text, finalSourceLanguage, targetLanguage, cacheKey, callback);
+                        }, () -> callback.onTranslationComplete(false, null, "Translation rate limit exceeded"));
                     } else {
-                        if (callback != null) {
-                            callback.onTranslationComplete(false, null, "No translation service available - offline models not downloaded and no API key");
-                        }
+                        String message = "No translation service available - offline models not downloaded and no API key";
+                        recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.UNSUPPORTED_PAIR, message);
+                        callback.onTranslationComplete(false, null, message);
                     }
                 }
                 
             } catch (Exception e) {
                 Log.e(TAG, "Error in translation process", e);
-                if (callback != null) {
-                    callback.onTranslationComplete(false, null, "Translation error: " + e.getMessage());
-                }
+                callback.onTranslationComplete(false, null, "Translation error: " + e.getMessage());
             }
-        });
+        }, () -> result.cancel(false));
+        cancelOnCompletion(result, work);
+        return result;
     }
 
     /**
@@ -281,31 +540,108 @@ public class TranslationManager {
      * @param callback The callback to receive the result
      */
     public void translateSmsMessage(SmsMessage message, SmsTranslationCallback callback) {
-        if (message == null || TextUtils.isEmpty(message.getOriginalText())) {
+        translateSmsMessageAsync(message).whenComplete((translatedMessage, error) -> {
             if (callback != null) {
-                callback.onTranslationComplete(false, null);
+                callback.onTranslationComplete(error == null, error == null ? translatedMessage : null);
             }
-            return;
+        });
+    }
+
+    /**
+     * Auto-translates an incoming SMS message into the preferred incoming language:
+     * detects its language, translates it, caches the translation and sets it on
+     * the message. Cancelling the returned future stops the work before the next
+     * of these stages.
+     *
+     * @param message The SMS message to translate
+     * @return A future completed with the translated message, or failed with a
+     *         {@link TranslationException} if it was not translated
+     */
+    public CompletableFuture<SmsMessage> translateSmsMessageAsync(SmsMessage message) {
+        CompletableFuture<SmsMessage> result = new CompletableFuture<>();
+        String targetLanguage = startSmsTranslation(message, result);
+        if (targetLanguage == null) {
+            return result;
+        }
+        translateSmsInBackground(message, targetLanguage, result);
+        return result;
+    }
+
+    /**
+     * Translates a burst of incoming SMS messages together. Each message goes
+     * through the same checks as {@link #translateSmsMessageAsync}; the rest
+     * are detected in one background pass, grouped by language and sent to the
+     * engine in batches, so a burst costs one engine call and one unit of
+     * online quota per batch rather than per message. Long messages are
+     * translated on their own, in chunks.
+     *
+     * @param messages The SMS messages to translate
+     * @return One future per message, in the same order, completed like those of
+     *         {@link #translateSmsMessageAsync}
+     */
+    public List<CompletableFuture<SmsMessage>> translateSmsMessagesAsync(List<SmsMessage> messages) {
+        List<CompletableFuture<SmsMessage>> results = new ArrayList<>(messages.size());
+        List<SmsMessage> burst = new ArrayList<>();
+        List<String> burstTargets = new ArrayList<>();
+        List<CompletableFuture<SmsMessage>> burstResults = new ArrayList<>();
+        for (SmsMessage message : messages) {
+            CompletableFuture<SmsMessage> result = new CompletableFuture<>();
+            results.add(result);
+            String targetLanguage = startSmsTranslation(message, result);
+            if (targetLanguage == null) {
+                continue;
+            }
+            if (message.getOriginalText().length() > maxChunkChars) {
+                translateSmsInBackground(message, targetLanguage, result);
+            } else {
+                burst.add(message);
+                burstTargets.add(targetLanguage);
+                burstResults.add(result);
+            }
+        }
+
+        if (burst.size() == 1) {
+            translateSmsInBackground(burst.get(0), burstTargets.get(0), burstResults.get(0));
+        } else if (!burst.isEmpty()) {
+            Log.d(TAG, "Translating a burst of " + burst.size() + " incoming messages");
+            runInBackground(TranslationScheduler.Priority.INCOMING, this,
+                    () -> translateSmsBurst(burst, burstTargets, burstResults),
+                    () -> {
+                        for (CompletableFuture<SmsMessage> result : burstResults) {
+                            result.cancel(false);
+                        }
+                    });
+        }
+        return results;
+    }
+
+    /**
+     * Runs the checks shared by single and burst SMS translation: settings,
+     * duplicates, the cache and recent failures. Completes the result if the
+     * message needs no engine.
+     *
+     * @return The target language if the message needs translating, or null if the result is complete
+     */
+    private String startSmsTranslation(SmsMessage message, CompletableFuture<SmsMessage> result) {
+        if (message == null || TextUtils.isEmpty(message.getOriginalText())) {
+            fail(result, "No text to translate");
+            return null;
         }
 
         // Check if auto-translate is enabled
         if (!userPreferences.isAutoTranslateEnabled()) {
             Log.d(TAG, "Auto-translate is disabled, skipping translation for message from: " + message.getAddress());
-            if (callback != null) {
-                callback.onTranslationComplete(false, null);
-            }
-            return;
+            fail(result, "Auto-translate is disabled");
+            return null;
         }
 
         // Check if any translation service is available
-        boolean hasOfflineCapability = offlineTranslationService != null;
-        boolean hasOnlineCapability = translationService != null && translationService.hasApiKey();
+        boolean hasOfflineCapability = offlineEngine != null;
+        boolean hasOnlineCapability = isOnlineEngineAvailable();
         
         if (!hasOfflineCapability && !hasOnlineCapability) {
-            if (callback != null) {
-                callback.onTranslationComplete(false, null);
-            }
-            return;
+            fail(result, "No translation service available");
+            return null;
         }
 
         // Create a message ID for deduplication
@@ -313,10 +649,8 @@ public class TranslationManager {
 
         // Check if we've recently translated this message
         if (recentlyTranslatedMessages.containsKey(messageId)) {
-            if (callback != null) {
-                callback.onTranslationComplete(false, null);
-            }
-            return;
+            fail(result, "Message was translated recently");
+            return null;
         }
 
         // Add to recently translated messages
@@ -331,72 +665,85 @@ public class TranslationManager {
         String targetLanguage = userPreferences.getPreferredIncomingLanguage();
         if (targetLanguage == null || targetLanguage.isEmpty()) {
             Log.w(TAG, "No target language set for auto-translation, skipping for message from: " + message.getAddress());
-            if (callback != null) {
-                callback.onTranslationComplete(false, null);
-            }
-            return;
+            fail(result, "No target language set");
+            return null;
         }
-        String cacheKey = message.getOriginalText() + "_" + targetLanguage;
+        String cacheKey = getSmsCacheKey(message, targetLanguage);
 
         // Check cache first
         String cachedTranslation = translationCache.get(cacheKey);
         if (cachedTranslation != null) {
             message.setTranslatedText(cachedTranslation);
             message.setTranslatedLanguage(targetLanguage);
-            if (callback != null) {
-                callback.onTranslationComplete(true, message);
-            }
-            return;
+            result.complete(message);
+            return null;
+        }
+
+        // Don't retry another copy of a message that recently failed
+        NegativeTranslationCache.Entry failure = getRecentFailure(message.getOriginalText(), targetLanguage);
+        if (failure != null) {
+            fail(result, failure.getMessage());
+            return null;
+        }
+        if (NegativeTranslationCache.isUntranslatable(message.getOriginalText())) {
+            recordFailure(message.getOriginalText(), targetLanguage, NegativeTranslationCache.Reason.UNTRANSLATABLE,
+                    "No translatable text");
+            fail(result, "No translatable text");
+            return null;
         }
 
+        return targetLanguage;
+    }
+
+    private static String getSmsCacheKey(SmsMessage message, String targetLanguage) {
+        return message.getOriginalText() + "_" + targetLanguage;
+    }
+
+    /**
+     * Detects the language of a message and translates it on the scheduler.
+     */
+    private void translateSmsInBackground(SmsMessage message, String targetLanguage,
+                                          CompletableFuture<SmsMessage> result) {
+        String cacheKey = getSmsCacheKey(message, targetLanguage);
+
         // Translate in background
-        executorService.execute(() -> {
+        CompletableFuture<Void> work = runInBackground(TranslationScheduler.Priority.INCOMING, this, () -> {
             try {
-                String detectedLanguage = null;
-                
-                // Use offline language detection service first
-                if (languageDetectionService != null) {
-                    detectedLanguage = languageDetectionService.detectLanguageSync(message.getOriginalText());
-                    Log.d(TAG, "Offline language detection result: " + detectedLanguage);
-                } else if (translationService != null) {
-                    // Fallback to online detection if offline service is not available
-                    detectedLanguage = translationService.detectLanguage(message.getOriginalText());
-                    Log.d(TAG, "Online language detection result: " + detectedLanguage);
-                }
-                
+                String detectedLanguage = detectSmsLanguage(message, targetLanguage, result);
                 if (detectedLanguage == null) {
-                    Log.w(TAG, "Could not detect language for auto-translate, skipping translation for message from: " + message.getAddress());
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null);
-                    }
                     return;
                 }
-                
-                Log.d(TAG, "Detected language '" + detectedLanguage + "' for auto-translate, target language is '" + targetLanguage + "' for message from: " + message.getAddress());
-                message.setOriginalLanguage(detectedLanguage);
-
-                // Skip translation if already in user's language (comparing base language codes)
-                String baseDetected = detectedLanguage.split("-")[0];
-                String baseTarget = targetLanguage.split("-")[0];
 
-                if (baseDetected.equals(baseTarget)) {
-                    Log.d(TAG, "Message is already in preferred language (" + baseDetected + "), skipping auto-translation for message from: " + message.getAddress());
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null);
-                    }
+                // Stop before the engine if the caller gave up on the translation
+                if (result.isDone()) {
                     return;
                 }
 
-                // Check rate limiting for online translation only if we're going to use it
-                boolean shouldUseOffline = shouldUseOfflineTranslation(detectedLanguage, targetLanguage);
-                
-                if (!shouldUseOffline && !checkRateLimiting()) {
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null);
-                    }
+                // Long messages go to the engines in chunks, translated in parallel
+                List<TranslationMemory.Segment> chunks = TextChunker.split(message.getOriginalText(), maxChunkChars);
+                if (chunks.size() > 1) {
+                    final String finalDetectedLanguage = detectedLanguage;
+                    CompletableFuture<String> chunked = translateChunks(chunks, detectedLanguage, targetLanguage,
+                            TranslationScheduler.Priority.INCOMING, this, null);
+                    cancelOnCompletion(result, chunked);
+                    chunked.whenComplete((translatedText, error) -> {
+                        if (error != null) {
+                            fail(result, getErrorMessage(error));
+                            return;
+                        }
+                        message.setTranslatedText(translatedText);
+                        message.setTranslatedLanguage(targetLanguage);
+                        message.setOriginalLanguage(finalDetectedLanguage);
+                        translationCache.put(cacheKey, translatedText);
+                        result.complete(message);
+                    });
                     return;
                 }
 
+                // Check rate limiting for online translation only if we're going to use it
+                boolean shouldUseOffline = shouldUseOfflineTranslation(detectedLanguage, targetLanguage,
+                        routeAutoTranslation(detectedLanguage, targetLanguage));
+
                 // Use offline-first approach for auto-translation
                 if (shouldUseOffline) {
                     Log.d(TAG, "Performing offline auto-translation from '" + detectedLanguage + "' to '" + targetLanguage + "' for message from: " + message.getAddress());
@@ -406,9 +753,9 @@ public class TranslationManager {
                     final String finalTargetLanguage = targetLanguage;
                     final String finalCacheKey = cacheKey;
                     
-                    offlineTranslationService.translateText(
+                    translateOfflineWithMemory(
                             message.getOriginalText(), detectedLanguage, targetLanguage,
-                            new OfflineTranslationService.TranslationCallback() {
+                            new TranslationEngine.TranslationCallback() {
                                 @Override
                                 public void onTranslationComplete(boolean success, String translatedText, String errorMessage) {
                                     if (success && translatedText != null) {
@@ -421,22 +768,25 @@ public class TranslationManager {
                                         translationCache.put(finalCacheKey, translatedText);
 
                                         // Return result
-                                        if (callback != null) {
-                                            callback.onTranslationComplete(true, message);
-                                        }
+                                        result.complete(message);
                                     } else {
                                         Log.w(TAG, "Offline auto-translation failed: " + errorMessage);
                                         
                                         // Fallback to online if available and auto mode is enabled
                                         if (userPreferences.getTranslationMode() == UserPreferences.TRANSLATION_MODE_AUTO &&
-                                            translationService != null && translationService.hasApiKey()) {
+                                            isOnlineEngineAvailable()) {
                                             
                                             Log.d(TAG, "Falling back to online auto-translation");
-                                            performOnlineAutoTranslation(message, finalDetectedLanguage, finalTargetLanguage, finalCacheKey, callback);
-                                        } else {
-                                            if (callback != null) {
-                                                callback.onTranslationComplete(false, null);
+                                            if (result.isDone()) {
+                                                return;
                                             }
+                                            withOnlineQuota(TranslationScheduler.Priority.INCOMING, result,
+                                                    () -> performOnlineAutoTranslation(message, finalDetectedLanguage,
+                                                            finalTargetLanguage, finalCacheKey, result),
+                                                    () -> fail(result, "Offline translation failed and rate limit exceeded for online fallback"));
+                                        } else {
+                                            recordEngineFailure(message.getOriginalText(), finalTargetLanguage, errorMessage);
+                                            fail(result, "Offline translation failed: " + errorMessage);
                                         }
                                     }
                                 }
@@ -444,176 +794,862 @@ public class TranslationManager {
                 } else {
                     // Use online translation
                     Log.d(TAG, "Performing online auto-translation from '" + detectedLanguage + "' to '" + targetLanguage + "' for message from: " + message.getAddress());
-                    performOnlineAutoTranslation(message, detectedLanguage, targetLanguage, cacheKey, callback);
+                    String finalDetectedLanguage = detectedLanguage;
+                    withOnlineQuota(TranslationScheduler.Priority.INCOMING, result,
+                            () -> performOnlineAutoTranslation(message, finalDetectedLanguage, targetLanguage, cacheKey, result),
+                            () -> fail(result, "Translation rate limit exceeded"));
                 }
             } catch (Exception e) {
                 Log.e(TAG, "Error translating SMS message", e);
-                if (callback != null) {
-                    callback.onTranslationComplete(false, null);
-                }
+                fail(result, "Translation error: " + e.getMessage());
             }
-        });
+        }, () -> result.cancel(false));
+        cancelOnCompletion(result, work);
     }
 
     /**
-     * Translates a Message object.
-     *
-     * @param message The Message to translate
-     * @param callback The callback to receive the result
+     * Detects every message of a burst, then translates the messages of each
+     * language pair in batches.
      */
-    public void translateMessage(Message message, TranslationCallback callback) {
-        if (message == null || TextUtils.isEmpty(message.getBody())) {
-            if (callback != null) {
-                callback.onTranslationComplete(false, null, "No text to translate");
+    private void translateSmsBurst(List<SmsMessage> messages, List<String> targetLanguages,
+                                   List<CompletableFuture<SmsMessage>> results) {
+        // Message indexes by language pair, in arrival order
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (results.get(i).isDone()) {
+                continue;
+            }
+            try {
+                String detectedLanguage = detectSmsLanguage(messages.get(i), targetLanguages.get(i), results.get(i));
+                if (detectedLanguage != null) {
+                    String pair = detectedLanguage + "_" + targetLanguages.get(i);
+                    List<Integer> group = groups.get(pair);
+                    if (group == null) {
+                        group = new ArrayList<>();
+                        groups.put(pair, group);
+                    }
+                    group.add(i);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error detecting language of SMS message", e);
+                fail(results.get(i), "Translation error: " + e.getMessage());
             }
-            return;
-        }
-
-        // Get user's preferred language
-        String targetLanguage = message.isIncoming() ?
-                userPreferences.getPreferredIncomingLanguage() :
-                userPreferences.getPreferredOutgoingLanguage();
-
-        // If not set, fall back to general preferred language
-        if (targetLanguage == null || targetLanguage.isEmpty()) {
-            targetLanguage = userPreferences.getPreferredLanguage();
         }
 
-        final String finalTargetLanguage = targetLanguage;
-
-        // Generate cache key
-        String cacheKey = message.getBody() + "_" + targetLanguage;
-
-        // Check cache first
-        String cachedTranslation = translationCache.get(cacheKey);
-        if (cachedTranslation != null && !cachedTranslation.trim().isEmpty()) {
-            message.setTranslatedText(cachedTranslation);
-            message.setTranslatedLanguage(targetLanguage);
-            message.setShowTranslation(true);
-            if (callback != null) {
-                callback.onTranslationComplete(true, cachedTranslation, null);
+        for (List<Integer> group : groups.values()) {
+            for (int from = 0; from < group.size(); from += MAX_SMS_BATCH_SIZE) {
+                List<Integer> batch = group.subList(from, Math.min(group.size(), from + MAX_SMS_BATCH_SIZE));
+                try {
+                    translateSmsBatch(messages, targetLanguages.get(batch.get(0)), batch, results);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error translating SMS batch", e);
+                    for (int index : batch) {
+                        fail(results.get(index), "Translation error: " + e.getMessage());
+                    }
+                }
             }
-            return;
         }
+    }
 
-        // Check rate limiting - this method currently only uses online translation
-        if (!checkRateLimiting()) {
-            if (callback != null) {
-                callback.onTranslationComplete(false, null, "Translation rate limit exceeded");
+    /**
+     * Translates messages of one language pair in a single engine call, offline
+     * or online as for a single message. Identical texts are sent once.
+     */
+    private void translateSmsBatch(List<SmsMessage> messages, String targetLanguage, List<Integer> batch,
+                                   List<CompletableFuture<SmsMessage>> results) {
+        String sourceLanguage = messages.get(batch.get(0)).getOriginalLanguage();
+        Map<String, List<Integer>> indexesByText = new LinkedHashMap<>();
+        for (int index : batch) {
+            if (results.get(index).isDone()) {
+                continue;
             }
+            String text = messages.get(index).getOriginalText();
+            List<Integer> indexes = indexesByText.get(text);
+            if (indexes == null) {
+                indexes = new ArrayList<>();
+                indexesByText.put(text, indexes);
+            }
+            indexes.add(index);
+        }
+        if (indexesByText.isEmpty()) {
             return;
         }
-
-        // Translate in background
-        executorService.execute(() -> {
-            try {
-                // Detect language
-                String detectedLanguage = translationService.detectLanguage(message.getBody());
-                if (detectedLanguage == null) {
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null, "Could not detect language");
-                    }
+        List<String> texts = new ArrayList<>(indexesByText.keySet());
+
+        List<String> translations = null;
+        String errorMessage;
+        boolean shouldUseOffline = shouldUseOfflineTranslation(sourceLanguage, targetLanguage,
+                routeAutoTranslation(sourceLanguage, targetLanguage));
+        if (shouldUseOffline) {
+            Log.d(TAG, "Performing offline auto-translation of " + texts.size() + " messages from '"
+                    + sourceLanguage + "' to '" + targetLanguage + "'");
+            if (offlineEngine.isLanguagePairReady(sourceLanguage, targetLanguage)) {
+                long startTime = System.nanoTime();
+                translations = checkBatchResult(offlineEngine.translateBatch(texts, sourceLanguage, targetLanguage),
+                        texts.size());
+                errorMessage = translations != null ? null : "Offline translation failed";
+                recordOfflineEngineCall(sourceLanguage, targetLanguage, System.nanoTime() - startTime,
+                        translations != null, errorMessage);
+            } else {
+                errorMessage = "Language models not downloaded for " + sourceLanguage + " -> " + targetLanguage;
+            }
+            if (translations == null) {
+                Log.w(TAG, "Offline auto-translation failed: " + errorMessage);
+                if (userPreferences.getTranslationMode() != UserPreferences.TRANSLATION_MODE_AUTO
+                        || !isOnlineEngineAvailable()) {
+                    failSmsBatch(messages, targetLanguage, indexesByText, results,
+                            "Offline translation failed: " + errorMessage, true);
                     return;
                 }
+                Log.d(TAG, "Falling back to online auto-translation");
+            }
+        }
 
-                // Skip if already in target language (comparing base language codes)
-                String baseDetected = detectedLanguage.split("-")[0];
-                String baseTarget = finalTargetLanguage.split("-")[0];
+        if (translations == null) {
+            if (!isOnlineEngineAvailable()) {
+                failSmsBatch(messages, targetLanguage, indexesByText, results,
+                        "Online translation service not available", false);
+                return;
+            }
+            // One request, so the whole batch takes one token
+            withOnlineQuota(TranslationScheduler.Priority.INCOMING, null,
+                    () -> translateSmsBatchOnline(messages, sourceLanguage, targetLanguage, texts, indexesByText,
+                            results),
+                    () -> failSmsBatch(messages, targetLanguage, indexesByText, results,
+                            "Translation rate limit exceeded", false));
+            return;
+        }
+        completeSmsBatch(messages, targetLanguage, texts, translations, indexesByText, results);
+    }
 
-                if (baseDetected.equals(baseTarget)) {
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null, "Text is already in " + getLanguageName(baseTarget));
+    /**
+     * Sends a batch of messages to the online engine.
+     */
+    private void translateSmsBatchOnline(List<SmsMessage> messages, String sourceLanguage, String targetLanguage,
+                                         List<String> texts, Map<String, List<Integer>> indexesByText,
+                                         List<CompletableFuture<SmsMessage>> results) {
+        try {
+            Log.d(TAG, "Performing online auto-translation of " + texts.size() + " messages from '"
+                    + sourceLanguage + "' to '" + targetLanguage + "'");
+            long startTime = System.nanoTime();
+            List<String> translations = checkBatchResult(
+                    onlineEngine.translateBatch(texts, sourceLanguage, targetLanguage), texts.size());
+            long elapsed = System.nanoTime() - startTime;
+            translationCache.recordEngineCall(elapsed, translations != null);
+            engineRouter.record(EngineRouter.Engine.ONLINE, sourceLanguage, targetLanguage, elapsed,
+                    translations != null);
+            if (translations == null) {
+                failSmsBatch(messages, targetLanguage, indexesByText, results, "Online translation failed", true);
+                return;
+            }
+            completeSmsBatch(messages, targetLanguage, texts, translations, indexesByText, results);
+        } catch (Exception e) {
+            Log.e(TAG, "Error translating SMS batch", e);
+            failSmsBatch(messages, targetLanguage, indexesByText, results, "Translation error: " + e.getMessage(),
+                    false);
+        }
+    }
+
+    /**
+     * Sets and caches the translations of a batch and completes its messages.
+     */
+    private void completeSmsBatch(List<SmsMessage> messages, String targetLanguage, List<String> texts,
+                                  List<String> translations, Map<String, List<Integer>> indexesByText,
+                                  List<CompletableFuture<SmsMessage>> results) {
+        for (int i = 0; i < texts.size(); i++) {
+            for (int index : indexesByText.get(texts.get(i))) {
+                SmsMessage message = messages.get(index);
+                message.setTranslatedText(translations.get(i));
+                message.setTranslatedLanguage(targetLanguage);
+                translationCache.put(getSmsCacheKey(message, targetLanguage), translations.get(i));
+                results.get(index).complete(message);
+            }
+        }
+    }
+
+    /**
+     * Checks that a batch came back whole.
+     *
+     * @return The translations, or null if any is missing
+     */
+    private static List<String> checkBatchResult(List<String> translations, int expectedSize) {
+        if (translations == null || translations.size() != expectedSize) {
+            return null;
+        }
+        for (String translation : translations) {
+            if (translation == null || translation.trim().isEmpty()) {
+                return null;
+            }
+        }
+        return translations;
+    }
+
+    /**
+     * Fails every message of a batch.
+     *
+     * @param engineFailed Whether the engine failed, as opposed to not being called
+     */
+    private void failSmsBatch(List<SmsMessage> messages, String targetLanguage, Map<String, List<Integer>> indexesByText,
+                              List<CompletableFuture<SmsMessage>> results, String errorMessage, boolean engineFailed) {
+        for (List<Integer> indexes : indexesByText.values()) {
+            if (engineFailed) {
+                recordEngineFailure(messages.get(indexes.get(0)).getOriginalText(), targetLanguage, errorMessage);
+            }
+            for (int index : indexes) {
+                fail(results.get(index), errorMessage);
+            }
+        }
+    }
+
+    /**
+     * Detects the language of an incoming SMS and checks it needs translating.
+     * Fails the result if detection fails or the message is already in the
+     * target language.
+     *
+     * @return The detected language, or null if the result has failed
+     */
+    private String detectSmsLanguage(SmsMessage message, String targetLanguage, CompletableFuture<SmsMessage> result) {
+        String detectedLanguage = null;
+        
+        // Use offline language detection service first
+        if (languageDetectionService != null) {
+            // The sender's language profile saves detections on short and ambiguous messages
+            detectedLanguage = languageDetectionService.detectLanguageSync(
+                    message.getOriginalText(), message.getAddress());
+            Log.d(TAG, "Offline language detection result: " + detectedLanguage);
+        } else if (onlineEngine != null) {
+            // Fallback to online detection if offline service is not available
+            detectedLanguage = onlineEngine.detectLanguage(message.getOriginalText());
+            Log.d(TAG, "Online language detection result: " + detectedLanguage);
+        }
+        
+        if (detectedLanguage == null) {
+            Log.w(TAG, "Could not detect language for auto-translate, skipping translation for message from: " + message.getAddress());
+            recordFailure(message.getOriginalText(), targetLanguage,
+                    NegativeTranslationCache.Reason.DETECTION_FAILED, "Could not detect language");
+            fail(result, "Could not detect language");
+            return null;
+        }
+        
+        Log.d(TAG, "Detected language '" + detectedLanguage + "' for auto-translate, target language is '" + targetLanguage + "' for message from: " + message.getAddress());
+        message.setOriginalLanguage(detectedLanguage);
+
+        // Skip translation if already in user's language (comparing base language codes)
+        String baseDetected = detectedLanguage.split("-")[0];
+        String baseTarget = targetLanguage.split("-")[0];
+
+        if (baseDetected.equals(baseTarget)) {
+            Log.d(TAG, "Message is already in preferred language (" + baseDetected + "), skipping auto-translation for message from: " + message.getAddress());
+            String alreadyTranslated = "Text is already in " + getLanguageName(baseTarget);
+            recordFailure(message.getOriginalText(), targetLanguage, NegativeTranslationCache.Reason.SAME_LANGUAGE,
+                    alreadyTranslated);
+            fail(result, alreadyTranslated);
+            return null;
+        }
+        return detectedLanguage;
+    }
+
+    /**
+     * Translates a Message object.
+     *
+     * @param message The Message to translate
+     * @param callback The callback to receive the result
+     */
+    public void translateMessage(Message message, TranslationCallback callback) {
+        translateMessageAsync(message).whenComplete((translatedText, error) -> deliver(callback, translatedText, error));
+    }
+
+    /**
+     * Translates a Message object online into the preferred language for its
+     * direction. Runs as a chain of stages, detect, then translate, then update
+     * the message and cache; cancelling the returned future stops the chain
+     * before its next stage.
+     *
+     * @param message The Message to translate
+     * @return A future completed with the translated text, or failed with a
+     *         {@link TranslationException} if the message can't be translated
+     */
+    public CompletableFuture<String> translateMessageAsync(Message message) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (message == null || TextUtils.isEmpty(message.getBody())) {
+            return fail(result, "No text to translate");
+        }
+
+        // Get user's preferred language
+        String targetLanguage = message.isIncoming() ?
+                userPreferences.getPreferredIncomingLanguage() :
+                userPreferences.getPreferredOutgoingLanguage();
+
+        // If not set, fall back to general preferred language
+        if (targetLanguage == null || targetLanguage.isEmpty()) {
+            targetLanguage = userPreferences.getPreferredLanguage();
+        }
+
+        final String finalTargetLanguage = targetLanguage;
+
+        // Generate cache key
+        String cacheKey = message.getBody() + "_" + targetLanguage;
+
+        // Check cache first
+        String cachedTranslation = translationCache.get(cacheKey);
+        if (cachedTranslation != null && !cachedTranslation.trim().isEmpty()) {
+            message.setTranslatedText(cachedTranslation);
+            message.setTranslatedLanguage(targetLanguage);
+            message.setShowTranslation(true);
+            result.complete(cachedTranslation);
+            return result;
+        }
+
+        // The user asked for this translation, so recent failures aren't looked up: a stale
+        // entry, e.g. an earlier same-language detection, must not refuse the tap for days.
+        // Failures are still recorded for automatic translations of the same text.
+        TranslationScheduler.Priority priority = TranslationScheduler.Priority.USER_INITIATED;
+        CompletableFuture<Void> quota = new CompletableFuture<>();
+        withOnlineQuota(priority, result, () -> quota.complete(null),
+                () -> quota.completeExceptionally(new TranslationException("Translation rate limit exceeded")));
+        quota.thenCompose(ignored -> runStage(result, priority,
+                        () -> detectForOnlineTranslation(message.getBody(), finalTargetLanguage)))
+                .thenCompose(detectedLanguage -> runStage(result, priority, () -> {
+                    String translatedText = translateOnlineWithMemory(
+                            message.getBody(), detectedLanguage, finalTargetLanguage);
+                    if (translatedText == null || translatedText.trim().isEmpty()) {
+                        recordEngineFailure(message.getBody(), finalTargetLanguage, "Translation failed or returned empty");
+                        throw new TranslationException("Translation failed or returned empty");
                     }
-                    return;
+
+                    // Update message
+                    message.setTranslatedText(translatedText);
+                    message.setOriginalLanguage(detectedLanguage);
+                    message.setTranslatedLanguage(finalTargetLanguage);
+                    message.setShowTranslation(true);
+
+                    // Cache the translation
+                    translationCache.put(cacheKey, translatedText);
+                    return translatedText;
+                }))
+                .whenComplete((translatedText, error) -> {
+                    if (error == null) {
+                        result.complete(translatedText);
+                    } else {
+                        result.completeExceptionally(unwrap(error));
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Detects the language of text for online translation.
+     *
+     * @return The detected language, which differs from the target language
+     * @throws TranslationException If the text shouldn't be translated
+     */
+    private String detectForOnlineTranslation(String text, String targetLanguage) throws TranslationException {
+        // Detect language
+        String detectedLanguage = onlineEngine != null ? onlineEngine.detectLanguage(text) : null;
+        if (detectedLanguage == null) {
+            recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.DETECTION_FAILED,
+                    "Could not detect language");
+            throw new TranslationException("Could not detect language");
+        }
+
+        // Skip if already in target language (comparing base language codes)
+        String baseDetected = detectedLanguage.split("-")[0];
+        String baseTarget = targetLanguage.split("-")[0];
+
+        if (baseDetected.equals(baseTarget)) {
+            String alreadyTranslated = "Text is already in " + getLanguageName(baseTarget);
+            recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.SAME_LANGUAGE, alreadyTranslated);
+            throw new TranslationException(alreadyTranslated);
+        }
+        return detectedLanguage;
+    }
+
+    /**
+     * Detects the language of text in the background.
+     *
+     * @param text The text
+     * @param priority The priority of the background work
+     * @param owner Identifies who asked, for {@link #cancelTranslations(Object)}
+     * @return A future completed with the language code, or failed with a
+     *         {@link TranslationException} if it could not be detected
+     */
+    public CompletableFuture<String> detectLanguageAsync(String text, TranslationScheduler.Priority priority,
+                                                         Object owner) {
+        return scheduler.submit(TranslationScheduler.Lane.GENERAL, priority, owner, () -> {
+            String language = detectLanguage(text);
+            if (language == null) {
+                throw new TranslationException("Could not detect language");
+            }
+            return language;
+        });
+    }
+
+    /**
+     * Fails a translation future if it isn't complete by then, e.g. because the
+     * view waiting for it should not wait longer. The failure stops the
+     * translation like cancelling the future does.
+     *
+     * @param future A future returned by this manager
+     * @param timeoutMs The timeout in milliseconds
+     * @return The same future, failed with a TimeoutException on timeout
+     */
+    public <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMs) {
+        if (future.isDone()) {
+            return future;
+        }
+        try {
+            ScheduledFuture<?> timeout = fallbackTimer.schedule(
+                    () -> future.completeExceptionally(new TimeoutException("Translation timed out")),
+                    timeoutMs, TimeUnit.MILLISECONDS);
+            future.whenComplete((result, error) -> timeout.cancel(false));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Translation manager is shut down, not timing out the translation");
+        }
+        return future;
+    }
+
+    /**
+     * Drops the queued translations of an owner that haven't started yet; their
+     * callbacks report the cancellation.
+     *
+     * @param owner The owner passed to {@code translateText}
+     * @return The number of dropped translations
+     */
+    public int cancelTranslations(Object owner) {
+        return scheduler.cancelAll(owner);
+    }
+
+    /**
+     * Gets the key under which {@code translateText} caches a translation.
+     */
+    static String getTextCacheKey(String text, String sourceLanguage, String targetLanguage) {
+        return text + "_" + (sourceLanguage != null ? sourceLanguage : "auto") + "_" + targetLanguage;
+    }
+
+    /**
+     * Sets the length above which text is split into chunks for translation.
+     *
+     * @param maxChunkChars The maximum chunk length in characters
+     */
+    public void setMaxChunkChars(int maxChunkChars) {
+        if (maxChunkChars <= 0) {
+            throw new IllegalArgumentException("Chunk length must be positive");
+        }
+        this.maxChunkChars = maxChunkChars;
+    }
+
+    /**
+     * Gets the length above which text is split into chunks for translation.
+     */
+    public int getMaxChunkChars() {
+        return maxChunkChars;
+    }
+
+    /**
+     * Translates text too long for one engine call: detects its language if
+     * needed, translates its chunks and caches the reassembled translation.
+     */
+    private CompletableFuture<String> translateLongText(CompletableFuture<String> result, String text,
+                                                       String sourceLanguage, String targetLanguage, String cacheKey,
+                                                       boolean forceTranslation, TranslationScheduler.Priority priority,
+                                                       Object owner, List<TranslationMemory.Segment> chunks,
+                                                       PartialTranslationListener listener) {
+        // All chunks are translated from the language of the whole text
+        CompletableFuture<String> detection = sourceLanguage != null
+                ? CompletableFuture.completedFuture(sourceLanguage)
+                : detectLanguageAsync(text, priority, owner);
+        cancelOnCompletion(result, detection);
+        detection.whenComplete((language, detectionError) -> {
+            if (detectionError != null) {
+                if (unwrap(detectionError) instanceof TranslationException) {
+                    recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.DETECTION_FAILED,
+                            "Could not detect language");
                 }
+                result.completeExceptionally(unwrap(detectionError));
+                return;
+            }
 
-                // Translate
-                String translatedText = translationService.translate(
-                        message.getBody(), detectedLanguage, finalTargetLanguage);
+            String baseTarget = targetLanguage.split("-")[0];
+            if (language.split("-")[0].equals(baseTarget) && !forceTranslation) {
+                String message = "Text is already in " + getLanguageName(baseTarget);
+                recordFailure(text, targetLanguage, NegativeTranslationCache.Reason.SAME_LANGUAGE, message);
+                fail(result, message);
+                return;
+            }
 
-                if (translatedText == null || translatedText.trim().isEmpty()) {
-                    if (callback != null) {
-                        callback.onTranslationComplete(false, null, "Translation failed or returned empty");
+            CompletableFuture<String> chunked = translateChunks(chunks, language, targetLanguage, priority, owner,
+                    listener);
+            cancelOnCompletion(result, chunked);
+            chunked.whenComplete((translatedText, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else {
+                    translationCache.put(cacheKey, translatedText);
+                    result.complete(translatedText);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Translates chunks of text in parallel and reassembles them in order.
+     * Cancelling the returned future cancels the chunks still in flight.
+     */
+    private CompletableFuture<String> translateChunks(List<TranslationMemory.Segment> chunks, String sourceLanguage,
+                                                      String targetLanguage, TranslationScheduler.Priority priority,
+                                                      Object owner, PartialTranslationListener listener) {
+        Log.d(TAG, "Translating " + chunks.size() + " chunks: " + sourceLanguage + " -> " + targetLanguage);
+        return new ChunkedTranslation(chunks, sourceLanguage, targetLanguage, priority, owner, listener)
+                .start(getChunkParallelism(sourceLanguage, targetLanguage));
+    }
+
+    /**
+     * Gets how many chunks of one text may be translated at once: as many as the
+     * engine that will likely translate them runs in parallel.
+     */
+    private int getChunkParallelism(String sourceLanguage, String targetLanguage) {
+        boolean offline = userPreferences.isOfflineTranslationEnabled()
+                && userPreferences.getTranslationMode() != UserPreferences.TRANSLATION_MODE_ONLINE
+                && offlineEngine != null
+                && offlineEngine.isLanguagePairSupported(sourceLanguage, targetLanguage);
+        TranslationScheduler.Lane engineLane = offline
+                ? TranslationScheduler.Lane.OFFLINE : TranslationScheduler.Lane.ONLINE;
+        // Each chunk may hold a general worker while it waits on its engine; one is left for other translations
+        return Math.max(1, Math.min(engineLane.maxThreads, TranslationScheduler.Lane.GENERAL.maxThreads - 1));
+    }
+
+    /**
+     * Translation of a long text split into chunks. A limited number of chunks
+     * is in flight at a time; each finished chunk starts the next one.
+     */
+    private final class ChunkedTranslation {
+        private final List<TranslationMemory.Segment> chunks;
+        private final String sourceLanguage;
+        private final String targetLanguage;
+        private final TranslationScheduler.Priority priority;
+        private final Object owner;
+        private final PartialTranslationListener listener;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final Set<CompletableFuture<String>> inFlight = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger nextChunk = new AtomicInteger();
+
+        // Guarded by this
+        private final String[] translations;
+        private int translatedChunks;
+        private int translatedPrefix;
+
+        ChunkedTranslation(List<TranslationMemory.Segment> chunks, String sourceLanguage, String targetLanguage,
+                           TranslationScheduler.Priority priority, Object owner, PartialTranslationListener listener) {
+            this.chunks = chunks;
+            this.sourceLanguage = sourceLanguage;
+            this.targetLanguage = targetLanguage;
+            this.priority = priority;
+            this.owner = owner;
+            this.listener = listener;
+            this.translations = new String[chunks.size()];
+        }
+
+        CompletableFuture<String> start(int parallelism) {
+            // A failed chunk or a cancelled translation stops the other chunks
+            result.whenComplete((translatedText, error) -> {
+                if (error != null) {
+                    for (CompletableFuture<String> chunk : inFlight) {
+                        chunk.cancel(false);
                     }
-                    return;
                 }
+            });
+            for (int i = 0; i < parallelism; i++) {
+                translateNext();
+            }
+            return result;
+        }
 
-                // Update message
-                message.setTranslatedText(translatedText);
-                message.setOriginalLanguage(detectedLanguage);
-                message.setTranslatedLanguage(finalTargetLanguage);
-                message.setShowTranslation(true);
+        private void translateNext() {
+            int index = nextChunk.getAndIncrement();
+            if (index >= chunks.size() || result.isDone()) {
+                return;
+            }
 
-                // Cache the translation
-                translationCache.put(cacheKey, translatedText);
+            String text = chunks.get(index).text;
+            if (NegativeTranslationCache.isUntranslatable(text)) {
+                // Numbers, links and blank chunks stay as they are
+                chunkTranslated(index, text);
+                return;
+            }
 
-                // Update translation counters
-                updateTranslationCounters();
+            // The whole text was checked against the target language; a quoted line in it is not
+            CompletableFuture<String> translation = translateTextAsync(text, sourceLanguage, targetLanguage, true,
+                    priority, owner, null);
+            inFlight.add(translation);
+            if (result.isDone()) {
+                translation.cancel(false);
+            }
+            translation.whenComplete((translatedText, error) -> {
+                inFlight.remove(translation);
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else {
+                    chunkTranslated(index, translatedText);
+                }
+            });
+        }
 
-                // Return result
-                if (callback != null) {
-                    callback.onTranslationComplete(true, translatedText, null);
+        private void chunkTranslated(int index, String translatedText) {
+            synchronized (this) {
+                translations[index] = translatedText;
+                translatedChunks++;
+                while (translatedPrefix < translations.length && translations[translatedPrefix] != null) {
+                    translatedPrefix++;
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error translating message", e);
-                if (callback != null) {
-                    callback.onTranslationComplete(false, null, e.getMessage());
+                if (translatedChunks == translations.length) {
+                    result.complete(assemble(translations.length));
+                    return;
                 }
+                if (listener != null) {
+                    try {
+                        listener.onPartialTranslation(assemble(translatedPrefix), translatedChunks, translations.length);
+                    } catch (RuntimeException e) {
+                        Log.e(TAG, "Error reporting partial translation", e);
+                    }
+                }
+            }
+            translateNext();
+        }
+
+        /**
+         * Joins the translations of the first {@code count} chunks with the original whitespace.
+         */
+        private String assemble(int count) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                TranslationMemory.Segment chunk = chunks.get(i);
+                builder.append(chunk.leading).append(translations[i]).append(chunk.trailing);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Runs translation work on the shared scheduler.
+     *
+     * @param owner Identifies the work for {@link TranslationScheduler#cancelAll(Object)}
+     * @param onDropped Run instead if the work is cancelled or rejected before it starts
+     * @return The scheduler's future for the work; cancel it to drop the work if queued
+     */
+    private CompletableFuture<Void> runInBackground(TranslationScheduler.Priority priority, Object owner,
+                                                    Runnable work, Runnable onDropped) {
+        CompletableFuture<Void> task = scheduler.execute(TranslationScheduler.Lane.GENERAL, priority, owner, work);
+        task.whenComplete((result, error) -> {
+            if (error instanceof RejectedExecutionException || error instanceof CancellationException) {
+                onDropped.run();
             }
         });
+        return task;
     }
 
     /**
-     * Checks if translation rate limiting allows a new translation.
+     * Runs one stage of a translation chain on the shared scheduler. The stage
+     * is skipped if the translation was cancelled or timed out before it started.
      *
-     * @return true if a new translation is allowed, false otherwise
+     * @param request The future the caller of the chain holds
+     * @param priority The priority of the background work
+     * @param work The stage
+     * @return A future completed with the result of the stage
      */
-    private boolean checkRateLimiting() {
-        long currentTime = System.currentTimeMillis();
-        synchronized (SYNC_OBJECT) {
-            // Reset daily counter if a new day has started
-            if (currentTime - dayStartTime > 24 * 60 * 60 * 1000) { // 24 hours
-                dayStartTime = currentTime;
-                translationsToday = 0;
-                Log.d(TAG, "Reset daily translation counter");
+    private <T> CompletableFuture<T> runStage(CompletableFuture<?> request, TranslationScheduler.Priority priority,
+                                              Callable<T> work) {
+        CompletableFuture<T> stage = scheduler.submit(TranslationScheduler.Lane.GENERAL, priority, this, () -> {
+            if (request.isDone()) {
+                throw new CancellationException("Translation cancelled");
             }
+            return work.call();
+        });
+        cancelOnCompletion(request, stage);
+        return stage;
+    }
 
-            // Check daily translation limit
-            if (translationsToday >= MAX_TRANSLATIONS_PER_DAY) {
-                Log.d(TAG, "Daily translation limit reached: " + translationsToday + " translations today");
-                return false;
+    /**
+     * Cancels queued work once the translation it serves is cancelled or timed out.
+     */
+    private static void cancelOnCompletion(CompletableFuture<?> request, Future<?> work) {
+        request.whenComplete((result, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                work.cancel(false);
             }
+        });
+    }
+
+    private static <T> CompletableFuture<T> fail(CompletableFuture<T> result, String message) {
+        result.completeExceptionally(new TranslationException(message));
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
 
-            // Rate limiting - check if we've translated recently
-            if (currentTime - lastTranslationTime < MIN_TRANSLATION_INTERVAL) {
-                Log.d(TAG, "Skipping translation due to rate limiting (too frequent)");
-                return false;
+    /**
+     * Reports the outcome of a translation future to a callback.
+     */
+    private static void deliver(TranslationCallback callback, String translatedText, Throwable error) {
+        if (callback == null) {
+            return;
+        }
+        if (error == null) {
+            callback.onTranslationComplete(true, translatedText, null);
+        } else {
+            callback.onTranslationComplete(false, null, getErrorMessage(error));
+        }
+    }
+
+    /**
+     * Gets the message the callback API reports for a failed translation future.
+     *
+     * @param error The failure of a future returned by this manager
+     * @return A message to show the user
+     */
+    public static String getErrorMessage(Throwable error) {
+        error = unwrap(error);
+        if (error instanceof CancellationException || error instanceof RejectedExecutionException) {
+            return "Translation cancelled";
+        } else if (error instanceof TimeoutException) {
+            return "Translation timed out";
+        } else if (error instanceof TranslationException) {
+            return error.getMessage();
+        }
+        return "Translation error: " + error.getMessage();
+    }
+
+    /**
+     * Completes a translation future from the callbacks of the translation steps.
+     */
+    private static final class FutureCallback implements EnhancedTranslationCallback {
+        private final CompletableFuture<String> result;
+        private final android.app.Activity activity;
+
+        FutureCallback(CompletableFuture<String> result, android.app.Activity activity) {
+            this.result = result;
+            this.activity = activity;
+        }
+
+        @Override
+        public android.app.Activity getActivity() {
+            return activity;
+        }
+
+        @Override
+        public void onTranslationComplete(boolean success, String translatedText, String errorMessage) {
+            if (success && translatedText != null) {
+                result.complete(translatedText);
+            } else {
+                fail(result, errorMessage != null ? errorMessage : "Translation failed");
             }
+        }
+    }
 
-            return true;
+    /**
+     * Takes a token for an online translation request and sends the request
+     * once the token is due, waiting as long as the priority of the work
+     * allows. The wait runs on the fallback timer, not on a scheduler worker,
+     * so requests waiting for quota never hold up a lane; the request is then
+     * queued again at its priority. Offline translation is exempt.
+     *
+     * @param priority The priority of the request
+     * @param caller The future the caller holds; if it completes during the wait, the token is given back
+     * @param request Sends the request
+     * @param denied Runs instead if no token arrives in time or the request is dropped
+     */
+    private void withOnlineQuota(TranslationScheduler.Priority priority, CompletableFuture<?> caller,
+                                 Runnable request, Runnable denied) {
+        if (onlineRateLimiter == null) {
+            request.run();
+            return;
+        }
+        long maxWaitMs = getMaxQuotaWaitMs(priority);
+        TokenBucketRateLimiter.Reservation reservation = maxWaitMs >= 0 ? onlineRateLimiter.reserve(maxWaitMs) : null;
+        if (reservation == null) {
+            Log.d(TAG, "Online translation quota not available for " + priority + " work");
+            denied.run();
+            return;
+        }
+        if (reservation.getDelayNanos() == 0) {
+            request.run();
+            return;
+        }
+
+        Runnable dropped = () -> {
+            reservation.cancel();
+            denied.run();
+        };
+        try {
+            fallbackTimer.schedule(() -> {
+                if (caller != null && caller.isDone()) {
+                    reservation.cancel();
+                    return;
+                }
+                scheduler.execute(TranslationScheduler.Lane.GENERAL, priority, this, () -> {
+                    if (caller != null && caller.isDone()) {
+                        reservation.cancel();
+                        return;
+                    }
+                    request.run();
+                }).whenComplete((ignored, error) -> {
+                    if (error instanceof RejectedExecutionException || error instanceof CancellationException) {
+                        dropped.run();
+                    } else if (error != null) {
+                        Log.e(TAG, "Error sending online translation request", error);
+                    }
+                });
+            }, reservation.getDelayNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            dropped.run();
         }
     }
 
     /**
-     * Updates translation counters after a successful translation.
+     * Gets how long work of a priority may wait for an online quota token.
+     *
+     * @return The wait in milliseconds, or -1 if the work may not take a token at all
      */
-    private void updateTranslationCounters() {
-        long currentTime = System.currentTimeMillis();
-        synchronized (SYNC_OBJECT) {
-            lastTranslationTime = currentTime;
-            translationsToday++;
-            Log.d(TAG, "Translation completed. Total today: " + translationsToday);
+    private long getMaxQuotaWaitMs(TranslationScheduler.Priority priority) {
+        switch (priority) {
+            case VISIBLE:
+                return 5000;
+            case USER_INITIATED:
+                return 10000;
+            case INCOMING:
+                // Nobody is watching, so incoming messages may queue longer instead of losing their translation
+                return 60000;
+            default:
+                // Speculative work never waits, and leaves half of the daily quota for real requests
+                int dailyLimit = onlineEngine.getRateLimits().dailyLimit;
+                if (dailyLimit > 0 && onlineRateLimiter.getUsedToday() >= dailyLimit / 2) {
+                    Log.d(TAG, "Leaving the remaining online quota to non-speculative translations");
+                    return -1;
+                }
+                return 0;
         }
     }
 
     /**
      * Performs online auto-translation for SMS messages.
      */
-    private void performOnlineAutoTranslation(SmsMessage message, String detectedLanguage, String targetLanguage, String cacheKey, SmsTranslationCallback callback) {
-        if (translationService != null && translationService.hasApiKey()) {
+    private void performOnlineAutoTranslation(SmsMessage message, String detectedLanguage, String targetLanguage,
+                                              String cacheKey, CompletableFuture<SmsMessage> result) {
+        if (isOnlineEngineAvailable()) {
             try {
-                String translatedText = translationService.translate(
+                String translatedText = translateOnlineWithMemory(
                         message.getOriginalText(), detectedLanguage, targetLanguage);
+                if (translatedText == null) {
+                    recordEngineFailure(message.getOriginalText(), targetLanguage, "Online translation failed");
+                    fail(result, "Online translation failed");
+                    return;
+                }
 
                 // Update message with translation
                 message.setTranslatedText(translatedText);
@@ -623,24 +1659,15 @@ public class TranslationManager {
                 // Cache the translation
                 translationCache.put(cacheKey, translatedText);
 
-                // Update translation counters
-                updateTranslationCounters();
-
                 // Return result
-                if (callback != null) {
-                    callback.onTranslationComplete(true, message);
-                }
+                result.complete(message);
             } catch (Exception e) {
                 Log.e(TAG, "Online auto-translation failed", e);
-                if (callback != null) {
-                    callback.onTranslationComplete(false, null);
-                }
+                fail(result, "Online translation error: " + e.getMessage());
             }
         } else {
             // No online translation service available
-            if (callback != null) {
-                callback.onTranslationComplete(false, null);
-            }
+            fail(result, "Online translation service not available");
         }
     }
 
@@ -665,10 +1692,32 @@ public class TranslationManager {
         }
     }
 
+    /**
+     * Asks the engine router which engine to use, when in auto mode both engines
+     * could translate the language pair.
+     *
+     * @return The decision, or null if the settings or downloaded models leave no choice
+     */
+    private EngineRouter.Decision routeAutoTranslation(String sourceLanguage, String targetLanguage) {
+        if (userPreferences.getTranslationMode() != UserPreferences.TRANSLATION_MODE_AUTO
+                || !userPreferences.isOfflineTranslationEnabled()
+                || offlineEngine == null
+                || !isOnlineEngineAvailable()) {
+            return null;
+        }
+        if (!offlineEngine.isLanguagePairReady(sourceLanguage, targetLanguage)) {
+            return null;
+        }
+        return engineRouter.choose(sourceLanguage, targetLanguage, true, true);
+    }
+
     /**
      * Determines if offline translation should be used for the given language pair.
+     *
+     * @param route The engine router's decision in auto mode, or null if it had no choice
      */
-    private boolean shouldUseOfflineTranslation(String sourceLanguage, String targetLanguage) {
+    private boolean shouldUseOfflineTranslation(String sourceLanguage, String targetLanguage,
+                                                EngineRouter.Decision route) {
         // Check user preferences
         if (!userPreferences.isOfflineTranslationEnabled()) {
             return false;
@@ -680,7 +1729,7 @@ public class TranslationManager {
         }
         
         // Check if offline translation is supported for this language pair
-        if (!offlineTranslationService.isLanguagePairSupported(sourceLanguage, targetLanguage)) {
+        if (!offlineEngine.isLanguagePairSupported(sourceLanguage, targetLanguage)) {
             Log.d(TAG, "Language pair not supported by ML Kit: " + sourceLanguage + " -> " + targetLanguage);
             return false;
         }
@@ -690,7 +1739,12 @@ public class TranslationManager {
         if (translationMode == UserPreferences.TRANSLATION_MODE_OFFLINE || 
             translationMode == UserPreferences.TRANSLATION_MODE_AUTO) {
             
-            boolean modelsAvailable = offlineTranslationService.areModelsAvailable(sourceLanguage, targetLanguage);
+            if (route != null) {
+                // Both engines are ready; the faster one on this device and network wins
+                return route.getEngine() == EngineRouter.Engine.OFFLINE;
+            }
+
+            boolean modelsAvailable = offlineEngine.isLanguagePairReady(sourceLanguage, targetLanguage);
             Log.d(TAG, "Models available for " + sourceLanguage + " -> " + targetLanguage + ": " + modelsAvailable);
             
             // Return true to attempt offline translation, which will prompt for missing models if needed
@@ -705,6 +1759,9 @@ public class TranslationManager {
      */
     private String detectLanguage(String text) {
         try {
+            if (languageDetectionService == null) {
+                return onlineEngine != null ? onlineEngine.detectLanguage(text) : null;
+            }
             return languageDetectionService.detectLanguageSync(text);
         } catch (Exception e) {
             Log.w(TAG, "Language detection failed: " + e.getMessage());
@@ -717,9 +1774,11 @@ public class TranslationManager {
      */
     private void translateOffline(String text, String sourceLanguage, String targetLanguage, String cacheKey, TranslationCallback callback) {
         Log.d(TAG, "Attempting offline translation: " + sourceLanguage + " -> " + targetLanguage);
+        // The callback may run on another thread, so keep the priority for the online fallback
+        TranslationScheduler.Priority priority = TranslationScheduler.currentPriority();
         
-        offlineTranslationService.translateText(text, sourceLanguage, targetLanguage, 
-            new OfflineTranslationService.TranslationCallback() {
+        translateOfflineWithMemory(text, sourceLanguage, targetLanguage, 
+            new TranslationEngine.TranslationCallback() {
                 @Override
                 public void onTranslationComplete(boolean success, String translatedText, String errorMessage) {
                     if (success && translatedText != null) {
@@ -740,7 +1799,8 @@ public class TranslationManager {
                             EnhancedTranslationCallback enhancedCallback = (EnhancedTranslationCallback) callback;
                             android.app.Activity activity = enhancedCallback.getActivity();
                             
-                            if (activity != null && !activity.isFinishing() && !activity.isDestroyed()) {
+                            if (activity != null && !activity.isFinishing() && !activity.isDestroyed()
+                                    && offlineTranslationService != null) {
                                 // Prompt user to download missing models
                                 promptForMissingModels(activity, text, sourceLanguage, targetLanguage, cacheKey, callback);
                                 return;
@@ -749,17 +1809,18 @@ public class TranslationManager {
                         
                         // Try online fallback if available and allowed
                         if (userPreferences.getTranslationMode() == UserPreferences.TRANSLATION_MODE_AUTO &&
-                            translationService != null && translationService.hasApiKey()) {
+                            isOnlineEngineAvailable()) {
                             
                             Log.d(TAG, "Falling back to online translation");
-                            if (checkRateLimiting()) {
-                                translateOnline(text, sourceLanguage, targetLanguage, cacheKey, callback);
-                            } else {
-                                if (callback != null) {
-                                    callback.onTranslationComplete(false, null, "Offline translation failed and rate limit exceeded for online fallback");
-                                }
-                            }
+                            withOnlineQuota(priority, null,
+                                    () -> translateOnline(text, sourceLanguage, targetLanguage, cacheKey, callback),
+                                    () -> {
+                                        if (callback != null) {
+                                            callback.onTranslationComplete(false, null, "Offline translation failed and rate limit exceeded for online fallback");
+                                        }
+                                    });
                         } else {
+                            recordEngineFailure(text, targetLanguage, "Offline translation failed: " + errorMessage);
                             if (callback != null) {
                                 callback.onTranslationComplete(false, null, "Offline translation failed: " + errorMessage);
                             }
@@ -803,7 +1864,7 @@ public class TranslationManager {
     }
     
     private void translateOnline(String text, String sourceLanguage, String targetLanguage, String cacheKey, TranslationCallback callback) {
-        if (translationService == null || !translationService.hasApiKey()) {
+        if (!isOnlineEngineAvailable()) {
             if (callback != null) {
                 callback.onTranslationComplete(false, null, "Online translation service not available");
             }
@@ -812,8 +1873,9 @@ public class TranslationManager {
 
         try {
             // Translate using online service
-            String translatedText = translationService.translate(text, sourceLanguage, targetLanguage);
+            String translatedText = translateOnlineWithMemory(text, sourceLanguage, targetLanguage);
             if (translatedText == null) {
+                recordEngineFailure(text, targetLanguage, "Online translation failed");
                 if (callback != null) {
                     callback.onTranslationComplete(false, null, "Online translation failed");
                 }
@@ -822,9 +1884,6 @@ public class TranslationManager {
 
             // Cache the translation
             translationCache.put(cacheKey, translatedText);
-            
-            // Update translation counters
-            updateTranslationCounters();
 
             // Return result
             if (callback != null) {
@@ -838,6 +1897,336 @@ public class TranslationManager {
         }
     }
 
+    /**
+     * Translates online as routed in auto mode, falling back to offline translation
+     * if the online request fails or exceeds the route's timeout. A hedged request
+     * starts offline translation as soon as the online one is slower than usual,
+     * and whichever translation arrives first is used.
+     */
+    private void translateOnlineRouted(String text, String sourceLanguage, String targetLanguage, String cacheKey,
+                                       TranslationCallback callback, EngineRouter.Decision route) {
+        RoutedTranslation translation = new RoutedTranslation(text, targetLanguage, cacheKey, callback);
+        Runnable startOffline = () -> {
+            if (!translation.startOffline()) {
+                return;
+            }
+            Log.d(TAG, route.isHedged() ? "Hedging slow online translation with offline translation"
+                    : "Online translation timed out, falling back to offline translation");
+            translateOfflineWithMemory(text, sourceLanguage, targetLanguage,
+                    (success, translatedText, errorMessage) -> {
+                        if (success && translatedText != null) {
+                            translation.succeed(translatedText, "offline");
+                        } else {
+                            translation.offlineFailed();
+                        }
+                    });
+        };
+
+        // The timer only queues the offline work, at the priority of this translation
+        TranslationScheduler.Priority priority = TranslationScheduler.currentPriority();
+        ScheduledFuture<?> fallback = fallbackTimer.schedule(
+                () -> scheduler.execute(TranslationScheduler.Lane.GENERAL, priority, this, startOffline),
+                route.isHedged() ? route.getHedgeDelayMs() : route.getTimeoutMs(), TimeUnit.MILLISECONDS);
+
+        String translatedText = null;
+        try {
+            translatedText = translateOnlineWithMemory(text, sourceLanguage, targetLanguage);
+        } catch (Exception e) {
+            Log.e(TAG, "Online translation error", e);
+        }
+        fallback.cancel(false);
+
+        if (translatedText != null) {
+            translation.succeed(translatedText, "online");
+        } else if (translation.onlineFailed()) {
+            startOffline.run();
+        }
+    }
+
+    /**
+     * Result of a translation raced between the online and offline engine; the
+     * first translation is delivered, and failure only once both engines failed.
+     */
+    private final class RoutedTranslation {
+        private final String text;
+        private final String targetLanguage;
+        private final String cacheKey;
+        private final TranslationCallback callback;
+        private final AtomicBoolean delivered = new AtomicBoolean();
+        private final AtomicBoolean offlineStarted = new AtomicBoolean();
+        // Each engine sets its flag before reading the other's, so one of them sees both
+        private final AtomicBoolean onlineFailed = new AtomicBoolean();
+        private final AtomicBoolean offlineFailed = new AtomicBoolean();
+
+        RoutedTranslation(String text, String targetLanguage, String cacheKey, TranslationCallback callback) {
+            this.text = text;
+            this.targetLanguage = targetLanguage;
+            this.cacheKey = cacheKey;
+            this.callback = callback;
+        }
+
+        /**
+         * @return true if the caller should start offline translation now
+         */
+        boolean startOffline() {
+            return !delivered.get() && offlineStarted.compareAndSet(false, true);
+        }
+
+        /**
+         * Marks the online request as failed.
+         *
+         * @return true if offline translation wasn't started yet and should be now
+         */
+        boolean onlineFailed() {
+            onlineFailed.set(true);
+            if (!offlineStarted.get()) {
+                return true;
+            }
+            if (offlineFailed.get()) {
+                fail();
+            }
+            return false;
+        }
+
+        void offlineFailed() {
+            offlineFailed.set(true);
+            if (onlineFailed.get()) {
+                fail();
+            }
+        }
+
+        void succeed(String translatedText, String engine) {
+            // A late translation from the other engine is cached, but not delivered twice
+            translationCache.put(cacheKey, translatedText);
+            if (delivered.compareAndSet(false, true)) {
+                Log.d(TAG, "Routed translation delivered by " + engine + " engine");
+                if (callback != null) {
+                    callback.onTranslationComplete(true, translatedText, null);
+                }
+            }
+        }
+
+        private void fail() {
+            if (delivered.compareAndSet(false, true)) {
+                recordEngineFailure(text, targetLanguage, "Online translation failed");
+                if (callback != null) {
+                    callback.onTranslationComplete(false, null, "Online translation failed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up a recent failure for the text, first dropping all failures if the
+     * translation settings changed since the last lookup.
+     *
+     * @return The failure, or null if the text should be translated
+     */
+    private NegativeTranslationCache.Entry getRecentFailure(String text, String targetLanguage) {
+        negativeCache.validateSettings(getTranslationSettingsFingerprint());
+        NegativeTranslationCache.Entry failure = negativeCache.get(text, targetLanguage);
+        if (failure != null) {
+            Log.d(TAG, "Skipping translation that failed recently: " + failure.getReason());
+        }
+        return failure;
+    }
+
+    private void recordFailure(String text, String targetLanguage, NegativeTranslationCache.Reason reason,
+                               String message) {
+        negativeCache.put(text, targetLanguage, reason, message);
+    }
+
+    /**
+     * Records an engine failure; missing models are remembered until a model is downloaded.
+     */
+    private void recordEngineFailure(String text, String targetLanguage, String message) {
+        boolean missingModels = message != null && message.contains("Language models not downloaded");
+        recordFailure(text, targetLanguage, missingModels
+                ? NegativeTranslationCache.Reason.UNSUPPORTED_PAIR
+                : NegativeTranslationCache.Reason.ENGINE_FAILED, message);
+    }
+
+    /**
+     * Gets a value that changes whenever a setting that decides how text is translated changes.
+     */
+    private String getTranslationSettingsFingerprint() {
+        return userPreferences.getTranslationMode() + "|" + userPreferences.isOfflineTranslationEnabled() + "|"
+                + isOnlineEngineAvailable();
+    }
+
+    /**
+     * Gets the key under which concurrent engine calls are shared. Texts that only
+     * differ in spacing or invisible characters share a call, like they share a
+     * cache entry. Each engine has its own flights, so an offline fallback or
+     * hedge never joins the online request it is meant to race.
+     */
+    private static String getFlightKey(EngineRouter.Engine engine, String text, String sourceLanguage,
+                                       String targetLanguage) {
+        return CacheKeyNormalizer.normalize(text) + "_" + (sourceLanguage != null ? sourceLanguage : "auto")
+                + "_" + targetLanguage + "|" + engine;
+    }
+
+    /**
+     * Translates text online, reusing cached sentences from the translation memory.
+     * Only sentences missing from the memory are sent, all in one request.
+     * Concurrent calls for the same text and language pair share one engine call.
+     *
+     * @return The translated text, or null if translation failed
+     */
+    private String translateOnlineWithMemory(String text, String sourceLanguage, String targetLanguage) {
+        CompletableFuture<EngineResult> flight = inFlightTranslations.execute(
+                getFlightKey(EngineRouter.Engine.ONLINE, text, sourceLanguage, targetLanguage),
+                result -> {
+                    String translatedText = translateOnlineUncoalesced(text, sourceLanguage, targetLanguage);
+                    result.complete(new EngineResult(translatedText,
+                            translatedText != null ? null : "Online translation failed"));
+                });
+        try {
+            return flight.get().translatedText;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            Log.e(TAG, "Online translation error", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Translates text online without joining concurrent calls for the same text.
+     *
+     * @return The translated text, or null if translation failed
+     */
+    private String translateOnlineUncoalesced(String text, String sourceLanguage, String targetLanguage) {
+        TranslationMemory.Plan plan = translationMemory.plan(text, sourceLanguage, targetLanguage);
+        if (plan != null && plan.isComplete()) {
+            Log.d(TAG, "Translation assembled from " + plan.getSegmentCount() + " cached sentences");
+            return plan.assemble();
+        }
+
+        long startTime = System.nanoTime();
+        String translatedText;
+        if (plan == null || plan.getSegmentCount() == 1) {
+            // Single sentence: translate the text as-is
+            translatedText = onlineEngine.translate(text, sourceLanguage, targetLanguage);
+            if (plan != null && translatedText != null && text.equals(text.trim())) {
+                plan.complete(Collections.singletonList(translatedText));
+            }
+        } else {
+            List<String> translatedMissing = onlineEngine.translateBatch(
+                    plan.getMissingTexts(), sourceLanguage, targetLanguage);
+            translatedText = plan.complete(translatedMissing);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        translationCache.recordEngineCall(elapsed, translatedText != null);
+        engineRouter.record(EngineRouter.Engine.ONLINE, sourceLanguage, targetLanguage, elapsed, translatedText != null);
+        return translatedText;
+    }
+
+    /**
+     * Translates text offline, reusing cached sentences from the translation memory.
+     * Only sentences missing from the memory are passed to ML Kit. Concurrent
+     * calls for the same text and language pair share one engine call.
+     */
+    private void translateOfflineWithMemory(String text, String sourceLanguage, String targetLanguage,
+                                            TranslationEngine.TranslationCallback callback) {
+        inFlightTranslations.execute(getFlightKey(EngineRouter.Engine.OFFLINE, text, sourceLanguage, targetLanguage),
+                result -> translateOfflineUncoalesced(text, sourceLanguage, targetLanguage,
+                        (success, translatedText, errorMessage) -> result.complete(new EngineResult(
+                                success ? translatedText : null, errorMessage))))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Offline translation error", error);
+                        callback.onTranslationComplete(false, null, "Translation error: " + error.getMessage());
+                        return;
+                    }
+                    String translatedText = result.translatedText;
+                    callback.onTranslationComplete(translatedText != null, translatedText, result.errorMessage);
+                });
+    }
+
+    /**
+     * Translates text offline without joining concurrent calls for the same text.
+     */
+    private void translateOfflineUncoalesced(String text, String sourceLanguage, String targetLanguage,
+                                             TranslationEngine.TranslationCallback callback) {
+        TranslationMemory.Plan plan = translationMemory.plan(text, sourceLanguage, targetLanguage);
+        if (plan != null && plan.isComplete()) {
+            Log.d(TAG, "Translation assembled from " + plan.getSegmentCount() + " cached sentences");
+            callback.onTranslationComplete(true, plan.assemble(), null);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        if (plan == null || plan.getSegmentCount() == 1) {
+            // Single sentence: translate the text as-is
+            offlineEngine.translateText(text, sourceLanguage, targetLanguage,
+                    (success, translatedText, errorMessage) -> {
+                        boolean translated = success && translatedText != null;
+                        recordOfflineEngineCall(sourceLanguage, targetLanguage, System.nanoTime() - startTime,
+                                translated, errorMessage);
+                        if (plan != null && translated && text.equals(text.trim())) {
+                            plan.complete(Collections.singletonList(translatedText));
+                        }
+                        callback.onTranslationComplete(success, translatedText, errorMessage);
+                    });
+            return;
+        }
+
+        // Translate the missing sentences in parallel and assemble once all are back
+        List<String> missingTexts = plan.getMissingTexts();
+        String[] translatedMissing = new String[missingTexts.size()];
+        AtomicInteger remaining = new AtomicInteger(missingTexts.size());
+        AtomicReference<String> firstError = new AtomicReference<>();
+
+        for (int i = 0; i < missingTexts.size(); i++) {
+            final int index = i;
+            offlineEngine.translateText(missingTexts.get(i), sourceLanguage, targetLanguage,
+                    (success, translatedText, errorMessage) -> {
+                        if (success && translatedText != null) {
+                            translatedMissing[index] = translatedText;
+                        } else {
+                            firstError.compareAndSet(null, errorMessage != null ? errorMessage : "Translation failed");
+                        }
+                        if (remaining.decrementAndGet() > 0) {
+                            return;
+                        }
+
+                        String error = firstError.get();
+                        String assembled = error == null ? plan.complete(Arrays.asList(translatedMissing)) : null;
+                        recordOfflineEngineCall(sourceLanguage, targetLanguage, System.nanoTime() - startTime,
+                                assembled != null, error);
+                        if (assembled != null) {
+                            callback.onTranslationComplete(true, assembled, null);
+                        } else {
+                            callback.onTranslationComplete(false, null, error != null ? error : "Translation failed");
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Records an offline engine call. Calls that failed for lack of models say
+     * nothing about the engine's speed, so the router doesn't learn from them.
+     */
+    private void recordOfflineEngineCall(String sourceLanguage, String targetLanguage, long elapsedNanos,
+                                         boolean success, String errorMessage) {
+        translationCache.recordEngineCall(elapsedNanos, success);
+        if (success || errorMessage == null || !errorMessage.contains("Language models not downloaded")) {
+            engineRouter.record(EngineRouter.Engine.OFFLINE, sourceLanguage, targetLanguage, elapsedNanos, success);
+        }
+    }
+
+    /**
+     * Checks whether the online engine can translate, e.g. has an API key.
+     */
+    private boolean isOnlineEngineAvailable() {
+        return onlineEngine != null && onlineEngine.isAvailable();
+    }
+
     /**
      * Gets a human-readable language name from a language code.
      *
@@ -878,17 +2267,13 @@ public class TranslationManager {
      * @param callback The callback to receive the result
      */
     public void translateMessageAndSave(Message message, TranslationCallback callback) {
-        translateMessage(message, (success, translatedText, errorMessage) -> {
-            if (success) {
-                // Save the message state to ensure persistence
-                message.saveTranslationState(translationCache);
-            }
-
-            // Forward the result to the original callback
-            if (callback != null) {
-                callback.onTranslationComplete(success, translatedText, errorMessage);
-            }
-        });
+        translateMessageAsync(message)
+                .thenApply(translatedText -> {
+                    // Save the message state to ensure persistence
+                    message.saveTranslationState(translationCache);
+                    return translatedText;
+                })
+                .whenComplete((translatedText, error) -> deliver(callback, translatedText, error));
     }
     /**
      * Gets translation cache statistics.
@@ -899,11 +2284,60 @@ public class TranslationManager {
         return translationCache.getStatistics();
     }
 
+    /**
+     * Gets structured translation cache statistics, including per-tier latency.
+     *
+     * @return A snapshot of the cache statistics
+     */
+    public TranslationCacheStats getCacheStats() {
+        return translationCache.getStats();
+    }
+
+    /**
+     * Gets the number of translations that joined an identical engine call
+     * already in flight instead of starting their own.
+     *
+     * @return The number of coalesced translations
+     */
+    public long getCoalescedTranslationCount() {
+        return inFlightTranslations.getJoinedCount();
+    }
+
+    /**
+     * Gets per-phase timings of online translation requests.
+     *
+     * @return A string containing DNS, connect, first byte and parse latencies
+     */
+    public String getRequestStatistics() {
+        return TranslationHttpClient.getStatistics();
+    }
+
+    /**
+     * Gets the online translation quota and how long requests waited for it.
+     *
+     * @return A string containing token bucket, daily quota and wait statistics
+     */
+    public String getRateLimiterStatistics() {
+        return onlineRateLimiter != null ? onlineRateLimiter.getStatistics() : "No online quota";
+    }
+
     /**
      * Clears the translation cache.
      */
     public void clearCache() {
         translationCache.clear();
+        negativeCache.clear();
+    }
+
+    /**
+     * Releases memory held for faster translation when the system is low on memory.
+     *
+     * @param level The trim level passed to {@code ComponentCallbacks2.onTrimMemory}
+     */
+    public void onTrimMemory(int level) {
+        if (offlineTranslationService != null) {
+            offlineTranslationService.onTrimMemory(level);
+        }
     }
 
     /**
@@ -916,9 +2350,9 @@ public class TranslationManager {
         if (languageDetectionService != null) {
             languageDetectionService.cleanup();
         }
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdownNow();
-        }
+        // Queued translations of this manager are dropped; their callbacks report the cancellation
+        scheduler.cancelAll(this);
+        fallbackTimer.shutdownNow();
         if (translationCache != null) {
             translationCache.close();
         }
@@ -0,0 +1,229 @@
+package com.translator.messagingapp.translation;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sentence-level translation memory on top of {@link TranslationCache}.
+ * Messages are split into sentences and each sentence is cached on its own,
+ * so greetings, signatures and quoted lines repeated across messages are only
+ * translated once. Callers plan a translation, send only the missing sentences
+ * to an engine, and then assemble the full result from cached and new pieces.
+ */
+public class TranslationMemory {
+    // Longer messages are translated whole; per-sentence requests stop paying off
+    static final int MAX_SEGMENTS = 16;
+
+    private final TranslationCache cache;
+
+    // Statistics
+    private final LongAdder segmentHits = new LongAdder();
+    private final LongAdder segmentMisses = new LongAdder();
+
+    /**
+     * One sentence of a message, with the whitespace around it kept verbatim.
+     */
+    static final class Segment {
+        final String leading;
+        final String text;
+        final String trailing;
+
+        Segment(String leading, String text, String trailing) {
+            this.leading = leading;
+            this.text = text;
+            this.trailing = trailing;
+        }
+    }
+
+    /**
+     * A translation of one message, partly filled from the memory.
+     */
+    public final class Plan {
+        private final List<Segment> segments;
+        private final String sourceLanguage;
+        private final String targetLanguage;
+        private final String[] translations;
+        private final List<Integer> missing = new ArrayList<>();
+
+        private Plan(List<Segment> segments, String sourceLanguage, String targetLanguage,
+                     Map<String, String> cached) {
+            this.segments = segments;
+            this.sourceLanguage = sourceLanguage;
+            this.targetLanguage = targetLanguage;
+            this.translations = new String[segments.size()];
+
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                if (segment.text.isEmpty()) {
+                    translations[i] = "";
+                    continue;
+                }
+                String translation = cached.get(getCacheKey(segment.text, sourceLanguage, targetLanguage));
+                if (translation != null) {
+                    translations[i] = translation;
+                } else {
+                    missing.add(i);
+                }
+            }
+        }
+
+        /**
+         * Checks whether every sentence was found in the memory.
+         */
+        public boolean isComplete() {
+            return missing.isEmpty();
+        }
+
+        /**
+         * Gets the number of sentences in the message.
+         */
+        public int getSegmentCount() {
+            return segments.size();
+        }
+
+        /**
+         * Gets the sentences that still need an engine, in message order.
+         */
+        public List<String> getMissingTexts() {
+            List<String> texts = new ArrayList<>(missing.size());
+            for (int index : missing) {
+                texts.add(segments.get(index).text);
+            }
+            return texts;
+        }
+
+        /**
+         * Fills in engine translations for the missing sentences, caches them, and
+         * assembles the full translation.
+         *
+         * @param translatedMissing Translations in the order of {@link #getMissingTexts()}
+         * @return The full translation, or null if any sentence is still missing
+         */
+        public String complete(List<String> translatedMissing) {
+            if (translatedMissing == null || translatedMissing.size() != missing.size()) {
+                return null;
+            }
+            for (int i = 0; i < missing.size(); i++) {
+                String translation = translatedMissing.get(i);
+                if (translation == null) {
+                    return null;
+                }
+                int index = missing.get(i);
+                translations[index] = translation;
+                cache.put(getCacheKey(segments.get(index).text, sourceLanguage, targetLanguage), translation);
+            }
+            missing.clear();
+            return assemble();
+        }
+
+        /**
+         * Joins the sentence translations, restoring the original whitespace between them.
+         *
+         * @return The full translation, or null if any sentence is still missing
+         */
+        public String assemble() {
+            if (!missing.isEmpty()) {
+                return null;
+            }
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                result.append(segment.leading).append(translations[i]).append(segment.trailing);
+            }
+            return result.toString();
+        }
+    }
+
+    /**
+     * Creates a translation memory backed by the given cache.
+     *
+     * @param cache The translation cache that stores the sentences
+     */
+    public TranslationMemory(TranslationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Plans a translation, looking up all sentences of the text with one bulk cache read.
+     *
+     * @param text The text to translate
+     * @param sourceLanguage The detected source language code, or null if unknown
+     * @param targetLanguage The target language code
+     * @return The plan, or null if the text is empty or has too many sentences to segment
+     */
+    public Plan plan(String text, String sourceLanguage, String targetLanguage) {
+        if (cache == null || text == null || text.trim().isEmpty() || targetLanguage == null) {
+            return null;
+        }
+
+        List<Segment> segments = segment(text);
+        if (segments.isEmpty() || segments.size() > MAX_SEGMENTS) {
+            return null;
+        }
+
+        List<String> keys = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            if (!segment.text.isEmpty()) {
+                keys.add(getCacheKey(segment.text, sourceLanguage, targetLanguage));
+            }
+        }
+        Map<String, String> cached = keys.isEmpty() ? Collections.emptyMap() : cache.getAll(keys);
+
+        Plan plan = new Plan(segments, sourceLanguage, targetLanguage, cached);
+        int missing = plan.missing.size();
+        segmentMisses.add(missing);
+        segmentHits.add(keys.size() - missing);
+        return plan;
+    }
+
+    /**
+     * Gets the number of sentences answered from the memory.
+     */
+    public long getSegmentHits() {
+        return segmentHits.sum();
+    }
+
+    /**
+     * Gets the number of sentences that had to go to an engine.
+     */
+    public long getSegmentMisses() {
+        return segmentMisses.sum();
+    }
+
+    /**
+     * Splits text into sentences. Line breaks always end a sentence, so signatures
+     * and quoted lines become their own segments.
+     */
+    static List<Segment> segment(String text) {
+        List<Segment> segments = new ArrayList<>();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.ROOT);
+        iterator.setText(text);
+
+        int start = iterator.first();
+        for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            int textStart = start;
+            while (textStart < end && Character.isWhitespace(text.charAt(textStart))) {
+                textStart++;
+            }
+            int textEnd = end;
+            while (textEnd > textStart && Character.isWhitespace(text.charAt(textEnd - 1))) {
+                textEnd--;
+            }
+            segments.add(new Segment(
+                    text.substring(start, textStart),
+                    text.substring(textStart, textEnd),
+                    text.substring(textEnd, end)));
+        }
+        return segments;
+    }
+
+    private static String getCacheKey(String sentence, String sourceLanguage, String targetLanguage) {
+        // Same format as whole-text keys, so a sentence detected as another language gets its own entry
+        return TranslationManager.getTextCacheKey(sentence, sourceLanguage, targetLanguage);
+    }
+}
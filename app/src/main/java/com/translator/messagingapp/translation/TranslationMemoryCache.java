@@ -0,0 +1,419 @@
+package com.translator.messagingapp.translation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded in-memory tier for the translation cache.
+ * Uses a W-TinyLFU policy: new entries land in a small LRU admission window,
+ * and entries leaving the window only enter the main segmented LRU if they are
+ * used more often than the entry they would displace. Capacity is measured in
+ * approximate bytes rather than entry count, so a few very long messages can't
+ * push out hundreds of short ones.
+ */
+public class TranslationMemoryCache {
+    // Fraction of the budget reserved for the admission window and the protected segment
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    // Rough per-entry overhead of the map node, entry object and two String headers
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private static final class Entry {
+        final String key;
+        String value;
+        int weight;
+
+        Entry(String key, String value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long windowMaxBytes;
+    private final long protectedMaxBytes;
+    private final long mainMaxBytes;
+
+    // All segments are kept in LRU order (eldest first)
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FrequencySketch sketch;
+
+    private long windowBytes;
+    private long probationBytes;
+    private long protectedBytes;
+
+    // Statistics
+    private long admissions;
+    private long rejections;
+    private long evictions;
+
+    /**
+     * Creates a new memory cache.
+     *
+     * @param maxBytes The approximate number of bytes the cache may hold
+     */
+    public TranslationMemoryCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.windowMaxBytes = Math.max(1, maxBytes * WINDOW_PERCENT / 100);
+        this.mainMaxBytes = maxBytes - windowMaxBytes;
+        this.protectedMaxBytes = mainMaxBytes * PROTECTED_PERCENT / 100;
+        // Never let a single entry take more than an eighth of the cache
+        this.maxEntryBytes = Math.max(1, maxBytes / 8);
+        // Size the sketch for the number of average (~256 byte) entries that fit
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE / 4, Math.max(16, maxBytes / 256)));
+    }
+
+    /**
+     * Gets a value from the cache, recording the access.
+     *
+     * @param key The cache key
+     * @return The cached value, or null if not present
+     */
+    public synchronized String get(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        sketch.increment(key);
+
+        Entry entry = window.get(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        entry = protectedSegment.get(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        entry = probation.remove(key);
+        if (entry != null) {
+            // Second hit in the main area: promote to the protected segment
+            probationBytes -= entry.weight;
+            protectedSegment.put(key, entry);
+            protectedBytes += entry.weight;
+            demoteProtectedOverflow();
+            return entry.value;
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds or replaces a value in the cache.
+     * New keys enter the admission window and compete for a place in the main
+     * area once they age out of it.
+     *
+     * @param key The cache key
+     * @param value The value to cache
+     */
+    public synchronized void put(String key, String value) {
+        if (key == null || value == null) {
+            return;
+        }
+
+        int weight = weigh(key, value);
+        if (weight > maxEntryBytes) {
+            // Too large to be worth holding in memory; drop any stale copy
+            remove(key);
+            return;
+        }
+
+        sketch.increment(key);
+
+        int previousWeight = replace(window, key, value, weight);
+        if (previousWeight >= 0) {
+            windowBytes += weight - previousWeight;
+            evictWindowOverflow();
+            return;
+        }
+        previousWeight = replace(probation, key, value, weight);
+        if (previousWeight >= 0) {
+            probationBytes += weight - previousWeight;
+            evictMainOverflow();
+            return;
+        }
+        previousWeight = replace(protectedSegment, key, value, weight);
+        if (previousWeight >= 0) {
+            protectedBytes += weight - previousWeight;
+            demoteProtectedOverflow();
+            evictMainOverflow();
+            return;
+        }
+
+        window.put(key, new Entry(key, value, weight));
+        windowBytes += weight;
+        evictWindowOverflow();
+    }
+
+    /**
+     * Replaces the value of an existing entry in a segment.
+     *
+     * @return The previous weight of the entry, or -1 if the key is not in the segment
+     */
+    private static int replace(LinkedHashMap<String, Entry> segment, String key, String value, int weight) {
+        Entry entry = segment.get(key);
+        if (entry == null) {
+            return -1;
+        }
+        int previousWeight = entry.weight;
+        entry.value = value;
+        entry.weight = weight;
+        return previousWeight;
+    }
+
+    /**
+     * Removes a key from the cache.
+     *
+     * @param key The cache key
+     */
+    public synchronized void remove(String key) {
+        if (key == null) {
+            return;
+        }
+
+        Entry entry = window.remove(key);
+        if (entry != null) {
+            windowBytes -= entry.weight;
+            return;
+        }
+        entry = probation.remove(key);
+        if (entry != null) {
+            probationBytes -= entry.weight;
+            return;
+        }
+        entry = protectedSegment.remove(key);
+        if (entry != null) {
+            protectedBytes -= entry.weight;
+        }
+    }
+
+    /**
+     * Removes every entry and resets the frequency history and statistics.
+     */
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowBytes = 0;
+        probationBytes = 0;
+        protectedBytes = 0;
+        sketch.clear();
+        admissions = 0;
+        rejections = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     */
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * Gets the approximate number of bytes held by the cache.
+     */
+    public synchronized long getWeightedSize() {
+        return windowBytes + probationBytes + protectedBytes;
+    }
+
+    /**
+     * Gets the configured capacity in bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Gets the number of entries admitted from the window into the main area.
+     */
+    public synchronized long getAdmissionCount() {
+        return admissions;
+    }
+
+    /**
+     * Gets the number of window entries that lost the frequency comparison and were dropped.
+     */
+    public synchronized long getRejectionCount() {
+        return rejections;
+    }
+
+    /**
+     * Gets the number of entries evicted from the main area to make room for new ones.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Moves entries that overflow the window into the main area, subject to admission.
+     */
+    private void evictWindowOverflow() {
+        while (windowBytes > windowMaxBytes && !window.isEmpty()) {
+            Entry candidate = removeEldest(window);
+            windowBytes -= candidate.weight;
+            admit(candidate);
+        }
+    }
+
+    /**
+     * Admits a candidate into the probation segment if it is used more often than
+     * the entries it would displace.
+     */
+    private void admit(Entry candidate) {
+        int candidateFrequency = sketch.frequency(candidate.key);
+
+        while (probationBytes + protectedBytes + candidate.weight > mainMaxBytes) {
+            LinkedHashMap<String, Entry> victimSegment = !probation.isEmpty() ? probation : protectedSegment;
+            if (victimSegment.isEmpty()) {
+                break;
+            }
+
+            Entry victim = eldest(victimSegment);
+            if (candidateFrequency <= sketch.frequency(victim.key)) {
+                rejections++;
+                return;
+            }
+
+            victimSegment.remove(victim.key);
+            if (victimSegment == probation) {
+                probationBytes -= victim.weight;
+            } else {
+                protectedBytes -= victim.weight;
+            }
+            evictions++;
+        }
+
+        probation.put(candidate.key, candidate);
+        probationBytes += candidate.weight;
+        admissions++;
+    }
+
+    /**
+     * Moves the least recently used protected entries back to probation when the
+     * protected segment exceeds its share.
+     */
+    private void demoteProtectedOverflow() {
+        while (protectedBytes > protectedMaxBytes && !protectedSegment.isEmpty()) {
+            Entry entry = removeEldest(protectedSegment);
+            protectedBytes -= entry.weight;
+            probation.put(entry.key, entry);
+            probationBytes += entry.weight;
+        }
+    }
+
+    /**
+     * Evicts probation entries (then protected) until the main area fits its budget.
+     * Only needed when an existing entry grows in place.
+     */
+    private void evictMainOverflow() {
+        while (probationBytes + protectedBytes > mainMaxBytes) {
+            if (!probation.isEmpty()) {
+                probationBytes -= removeEldest(probation).weight;
+            } else if (!protectedSegment.isEmpty()) {
+                protectedBytes -= removeEldest(protectedSegment).weight;
+            } else {
+                break;
+            }
+            evictions++;
+        }
+    }
+
+    private static Entry eldest(LinkedHashMap<String, Entry> segment) {
+        return segment.values().iterator().next();
+    }
+
+    private static Entry removeEldest(LinkedHashMap<String, Entry> segment) {
+        Iterator<Map.Entry<String, Entry>> iterator = segment.entrySet().iterator();
+        Entry entry = iterator.next().getValue();
+        iterator.remove();
+        return entry;
+    }
+
+    private static int weigh(String key, String value) {
+        // Java strings are UTF-16, so two bytes per char
+        return ENTRY_OVERHEAD_BYTES + 2 * (key.length() + value.length());
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters used to estimate how often a key has been seen.
+     * Counters are periodically halved so old popularity fades.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb7ccc9d9, 0x4e1c3c4b, 0xd2a8f4b5};
+
+        private final byte[] table;
+        private final int widthMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+            this.table = new byte[width * DEPTH];
+            this.widthMask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = indexOf(hash, row);
+                if (table[index] < MAX_COUNT) {
+                    table[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, table[indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        void clear() {
+            java.util.Arrays.fill(table, (byte) 0);
+            additions = 0;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (byte) (table[i] >>> 1);
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            h ^= h >>> 16;
+            return row * (widthMask + 1) + (h & widthMask);
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
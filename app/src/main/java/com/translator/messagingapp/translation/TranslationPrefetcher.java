@@ -0,0 +1,203 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import com.translator.messagingapp.message.Message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Translates the incoming messages of a conversation before the user asks for
+ * them, so tapping a message finds its translation in the cache.
+ *
+ * Messages that are already translated or cached are skipped. The rest are
+ * translated at {@link TranslationScheduler.Priority#PREFETCH} in small
+ * batches, one batch at a time, so prefetching never fills the scheduler
+ * queue. Text in the target language is left to {@code translateText}, which
+ * detects it and remembers the skip.
+ */
+public class TranslationPrefetcher {
+    private static final String TAG = "TranslationPrefetcher";
+    static final int DEFAULT_BATCH_SIZE = 8;
+
+    /**
+     * Translates one text on behalf of the prefetcher.
+     */
+    interface Engine {
+        void translate(String text, String targetLanguage, Object owner,
+                       TranslationManager.TranslationCallback callback);
+    }
+
+    /**
+     * Looks up several cache keys at once, returning the ones found.
+     */
+    interface CacheLookup {
+        Map<String, String> getAll(Collection<String> keys);
+    }
+
+    private final Engine engine;
+    private final CacheLookup cacheLookup;
+    private final int batchSize;
+    private final Consumer<Object> cancelOwner;
+
+    // Texts queued or in flight, so reloading a page doesn't prefetch them twice
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // Statistics
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder alreadyCached = new LongAdder();
+    private final LongAdder translated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Creates a prefetcher that translates through the given manager.
+     *
+     * @param translationManager The translation manager
+     * @param translationCache The cache checked for existing translations
+     */
+    public TranslationPrefetcher(TranslationManager translationManager, TranslationCache translationCache) {
+        this((text, targetLanguage, owner, callback) -> translationManager.translateText(text, null,
+                        targetLanguage, callback, false, TranslationScheduler.Priority.PREFETCH, owner),
+                translationCache::getAll, DEFAULT_BATCH_SIZE, translationManager::cancelTranslations);
+    }
+
+    /**
+     * @param cancelOwner Drops the queued translations of an owner, or null
+     */
+    TranslationPrefetcher(Engine engine, CacheLookup cacheLookup, int batchSize, Consumer<Object> cancelOwner) {
+        this.engine = engine;
+        this.cacheLookup = cacheLookup;
+        this.batchSize = Math.max(1, batchSize);
+        this.cancelOwner = cancelOwner;
+    }
+
+    /**
+     * Prefetches translations for the incoming messages of a page. Newer
+     * messages go first, as they are the ones on screen. Looks up the cache,
+     * so call it off the main thread.
+     *
+     * @param messages A page of messages, oldest first
+     * @param targetLanguage The language to translate into
+     * @return The number of texts queued for translation
+     */
+    public int prefetch(List<? extends Message> messages, String targetLanguage) {
+        if (messages == null || messages.isEmpty() || targetLanguage == null || targetLanguage.isEmpty()) {
+            return 0;
+        }
+
+        // Distinct texts by cache key, newest first
+        Map<String, String> candidates = new LinkedHashMap<>();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            Message message = messages.get(i);
+            if (message == null || !message.isIncoming() || !message.isTranslatable() || message.isTranslated()) {
+                continue;
+            }
+            String text = message.getBody();
+            if (NegativeTranslationCache.isUntranslatable(text)) {
+                continue;
+            }
+            String cacheKey = TranslationManager.getTextCacheKey(text, null, targetLanguage);
+            if (!pending.contains(cacheKey)) {
+                candidates.put(cacheKey, text);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, String> cached = cacheLookup.getAll(candidates.keySet());
+        List<String> keys = new ArrayList<>(candidates.size());
+        for (String cacheKey : candidates.keySet()) {
+            if (cached.containsKey(cacheKey)) {
+                alreadyCached.increment();
+            } else if (pending.add(cacheKey)) {
+                keys.add(cacheKey);
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        requested.add(keys.size());
+        Log.d(TAG, "Prefetching " + keys.size() + " translations into " + targetLanguage
+                + " (" + cached.size() + " already cached)");
+        submitBatch(keys, candidates, 0, targetLanguage, generation.get());
+        return keys.size();
+    }
+
+    /**
+     * Queues the batch starting at {@code from}; the next one is queued once
+     * every translation of this one has completed.
+     */
+    private void submitBatch(List<String> keys, Map<String, String> texts, int from, String targetLanguage,
+                             int batchGeneration) {
+        if (from >= keys.size()) {
+            return;
+        }
+        if (generation.get() != batchGeneration) {
+            // Cancelled; the pending set was cleared with it
+            return;
+        }
+
+        int to = Math.min(keys.size(), from + batchSize);
+        AtomicInteger remaining = new AtomicInteger(to - from);
+        for (int i = from; i < to; i++) {
+            String cacheKey = keys.get(i);
+            engine.translate(texts.get(cacheKey), targetLanguage, this, (success, translatedText, errorMessage) -> {
+                pending.remove(cacheKey);
+                if (success) {
+                    translated.increment();
+                } else {
+                    failed.increment();
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    submitBatch(keys, texts, to, targetLanguage, batchGeneration);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops prefetching: drops queued translations and skips the batches not
+     * yet queued. Translations already running finish and are cached.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        pending.clear();
+        if (cancelOwner != null) {
+            cancelOwner.accept(this);
+        }
+    }
+
+    /**
+     * Gets prefetch statistics for debugging.
+     */
+    public String getStatistics() {
+        return "Prefetch: requested=" + requested.sum()
+                + ", alreadyCached=" + alreadyCached.sum()
+                + ", translated=" + translated.sum()
+                + ", failed=" + failed.sum();
+    }
+
+    long getRequestedCount() {
+        return requested.sum();
+    }
+
+    long getAlreadyCachedCount() {
+        return alreadyCached.sum();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+}
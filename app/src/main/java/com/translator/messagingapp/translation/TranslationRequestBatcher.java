@@ -0,0 +1,260 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces single-text translation requests into multi-text API calls.
+ * Requests for the same language pair that arrive within a short window are
+ * sent together, as soon as the window closes or the batch reaches its size or
+ * byte cap, and each caller gets its own result back. Identical texts in a
+ * batch are only sent once. A batch is sent at the priority of its most urgent
+ * caller.
+ */
+class TranslationRequestBatcher {
+    private static final String TAG = "TranslationRequestBatcher";
+
+    /**
+     * Translates a list of texts in one call.
+     */
+    interface BatchTranslator {
+        /**
+         * @return The translations in the same order as the texts, or null if translation failed
+         */
+        List<String> translateBatch(List<String> texts, String sourceLanguage, String targetLanguage);
+    }
+
+    /**
+     * Runs batch sends.
+     */
+    interface Dispatcher {
+        /**
+         * @param send Sends the batch
+         * @param priority The priority of the most urgent caller in the batch
+         * @return A future completed once the send has run, or completed
+         *         exceptionally if it was rejected or dropped before running
+         */
+        CompletableFuture<Void> dispatch(Runnable send, TranslationScheduler.Priority priority);
+    }
+
+    private final BatchTranslator translator;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final int maxBatchBytes;
+    private final ScheduledExecutorService scheduler;
+    private final Dispatcher dispatcher;
+
+    // Open batches by language pair; guarded by this
+    private final Map<String, Batch> openBatches = new HashMap<>();
+
+    // Statistics
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * Requests collected for one language pair.
+     */
+    private static final class Batch {
+        final String sourceLanguage;
+        final String targetLanguage;
+        // Distinct texts in arrival order, each with the futures waiting for it
+        final Map<String, List<CompletableFuture<String>>> waiters = new LinkedHashMap<>();
+        int bytes;
+        TranslationScheduler.Priority priority;
+        ScheduledFuture<?> flushTask;
+
+        Batch(String sourceLanguage, String targetLanguage) {
+            this.sourceLanguage = sourceLanguage;
+            this.targetLanguage = targetLanguage;
+        }
+    }
+
+    /**
+     * Creates a batcher.
+     *
+     * @param translator Sends one batch
+     * @param dispatcher Runs batch sends; if it rejects one right away, the batch is sent on the
+     *                   calling thread, and if it drops one later, its callers get null
+     * @param windowMs How long to wait for more requests after the first one of a batch
+     * @param maxBatchSize Maximum number of distinct texts per batch
+     * @param maxBatchBytes Maximum UTF-8 size of the texts in a batch
+     */
+    TranslationRequestBatcher(BatchTranslator translator, Dispatcher dispatcher, long windowMs, int maxBatchSize,
+                              int maxBatchBytes) {
+        this.translator = translator;
+        this.dispatcher = dispatcher;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TranslationBatchTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a text for translation.
+     *
+     * @param priority The priority of the caller
+     * @return A future completed with the translation, or with null if translation failed
+     */
+    CompletableFuture<String> submit(String text, String sourceLanguage, String targetLanguage,
+                                     TranslationScheduler.Priority priority) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        int textBytes = text.getBytes(StandardCharsets.UTF_8).length;
+        String pairKey = (sourceLanguage != null ? sourceLanguage : "auto") + "|" + targetLanguage;
+        requests.increment();
+
+        List<Batch> ready = new ArrayList<>(2);
+        synchronized (this) {
+            Batch batch = openBatches.get(pairKey);
+            // Start a new batch if this text would push the open one over its caps
+            if (batch != null && !batch.waiters.containsKey(text)
+                    && (batch.waiters.size() >= maxBatchSize || batch.bytes + textBytes > maxBatchBytes)) {
+                ready.add(close(pairKey, batch));
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(sourceLanguage, targetLanguage);
+                openBatches.put(pairKey, batch);
+                Batch opened = batch;
+                batch.flushTask = scheduler.schedule(() -> flush(pairKey, opened), windowMs, TimeUnit.MILLISECONDS);
+            }
+
+            List<CompletableFuture<String>> waiting = batch.waiters.get(text);
+            if (waiting == null) {
+                waiting = new ArrayList<>(1);
+                batch.waiters.put(text, waiting);
+                batch.bytes += textBytes;
+            }
+            waiting.add(future);
+            if (batch.priority == null || priority.compareTo(batch.priority) < 0) {
+                batch.priority = priority;
+            }
+
+            if (batch.waiters.size() >= maxBatchSize || batch.bytes >= maxBatchBytes) {
+                ready.add(close(pairKey, batch));
+            }
+        }
+        for (Batch batch : ready) {
+            dispatch(batch);
+        }
+        return future;
+    }
+
+    /**
+     * Gets the number of texts submitted.
+     */
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of batches sent.
+     */
+    long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Stops the batcher; batches already open are still sent.
+     */
+    void shutdown() {
+        List<Batch> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        for (Batch batch : remaining) {
+            batch.flushTask.cancel(false);
+            dispatch(batch);
+        }
+        scheduler.shutdown();
+    }
+
+    private void flush(String pairKey, Batch batch) {
+        synchronized (this) {
+            // The batch may already have been sent because it filled up
+            if (openBatches.get(pairKey) != batch) {
+                return;
+            }
+            openBatches.remove(pairKey);
+        }
+        dispatch(batch);
+    }
+
+    private Batch close(String pairKey, Batch batch) {
+        openBatches.remove(pairKey);
+        batch.flushTask.cancel(false);
+        return batch;
+    }
+
+    private void dispatch(Batch batch) {
+        CompletableFuture<Void> queued;
+        try {
+            queued = dispatcher.dispatch(() -> send(batch), batch.priority);
+        } catch (Exception e) {
+            queued = null;
+        }
+        if (queued == null || queued.isCompletedExceptionally()) {
+            // Dispatcher is full or shut down; send on the calling thread rather than leaving callers waiting
+            send(batch);
+            return;
+        }
+        queued.whenComplete((ignored, error) -> {
+            if (error != null) {
+                // Dropped after it was queued, e.g. displaced by more urgent work; don't
+                // block whichever thread dropped it with the request, fail the callers instead
+                Log.w(TAG, "Batch of " + batch.waiters.size() + " texts was dropped before it was sent");
+                completeAll(batch, null);
+            }
+        });
+    }
+
+    private void send(Batch batch) {
+        List<String> texts = new ArrayList<>(batch.waiters.keySet());
+        batches.increment();
+
+        List<String> translations = null;
+        try {
+            translations = translator.translateBatch(texts, batch.sourceLanguage, batch.targetLanguage);
+        } catch (Exception e) {
+            Log.e(TAG, "Error translating batch of " + texts.size() + " texts", e);
+        }
+        if (translations != null && translations.size() != texts.size()) {
+            Log.e(TAG, "Batch returned " + translations.size() + " translations for " + texts.size() + " texts");
+            translations = null;
+        }
+
+        if (translations == null) {
+            completeAll(batch, null);
+            return;
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            for (CompletableFuture<String> future : batch.waiters.get(texts.get(i))) {
+                future.complete(translations.get(i));
+            }
+        }
+    }
+
+    private static void completeAll(Batch batch, String translation) {
+        for (List<CompletableFuture<String>> futures : batch.waiters.values()) {
+            for (CompletableFuture<String> future : futures) {
+                future.complete(translation);
+            }
+        }
+    }
+}
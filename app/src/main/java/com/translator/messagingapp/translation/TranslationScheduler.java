@@ -0,0 +1,395 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs all background translation work with bounded concurrency and priorities.
+ *
+ * <p>Work is split into lanes, one per engine, each with a few worker threads
+ * and a bounded queue, so a backlog of incoming messages can't spawn threads
+ * that compete with the UI. Within a lane, queued work runs strictly by
+ * priority and first in, first out within a priority. One worker per lane is
+ * never given prefetch work, so visible and user-initiated translations don't
+ * wait behind a batch of prefetches.
+ *
+ * <p>Backpressure: when a lane's queue is full, new work displaces the
+ * newest queued work of a lower priority, which fails with a
+ * {@link RejectedExecutionException}; work that can't displace anything is
+ * rejected the same way. Producers of optional work can check
+ * {@link #isSaturated(Lane)} before submitting. Queued work is cancelled by
+ * cancelling its future, or for a whole owner with {@link #cancelAll(Object)}.
+ */
+public final class TranslationScheduler {
+    private static final String TAG = "TranslationScheduler";
+
+    private static final long KEEP_ALIVE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Priority classes, most urgent first.
+     */
+    public enum Priority {
+        /** A message on screen that the user is looking at. */
+        VISIBLE,
+        /** Something the user asked for, e.g. translating a draft or a whole conversation. */
+        USER_INITIATED,
+        /** Auto-translation of an incoming message. */
+        INCOMING,
+        /** Speculative work whose result may never be shown. */
+        PREFETCH
+    }
+
+    /**
+     * Lanes, each with its own concurrency limit.
+     */
+    public enum Lane {
+        /** Translation orchestration: cache checks, detection, waiting on engines. */
+        GENERAL(4, 256),
+        /** Requests to the online translation API. */
+        ONLINE(4, 256),
+        /** ML Kit translation; CPU bound, so only a couple at once. */
+        OFFLINE(2, 256),
+        /** Model downloads and deletions. */
+        MODELS(2, 32);
+
+        final int maxThreads;
+        final int capacity;
+
+        Lane(int maxThreads, int capacity) {
+            this.maxThreads = maxThreads;
+            this.capacity = capacity;
+        }
+    }
+
+    // Priority of the task running on the current worker thread
+    private static final ThreadLocal<Priority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+    private static final class Holder {
+        static final TranslationScheduler INSTANCE = new TranslationScheduler();
+    }
+
+    private final LaneExecutor[] executors;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Gets the scheduler shared by all translation services.
+     */
+    public static TranslationScheduler getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    TranslationScheduler() {
+        executors = new LaneExecutor[Lane.values().length];
+        for (Lane lane : Lane.values()) {
+            executors[lane.ordinal()] = new LaneExecutor(lane.name(), lane.maxThreads, lane.capacity);
+        }
+    }
+
+    /**
+     * Gets the priority of the task running on this thread, so work it queues
+     * on another lane keeps its place in line.
+     *
+     * @return The priority, or USER_INITIATED outside the scheduler's threads
+     */
+    public static Priority currentPriority() {
+        Priority priority = CURRENT_PRIORITY.get();
+        return priority != null ? priority : Priority.USER_INITIATED;
+    }
+
+    /**
+     * Queues work.
+     *
+     * @param lane The lane to run on
+     * @param priority The priority within the lane
+     * @param owner Identifies who queued the work, for {@link #cancelAll(Object)}; may be null
+     * @param work The work
+     * @return A future completed with the result. Cancel it to drop the work if it
+     *         hasn't started; it fails with a RejectedExecutionException if the work
+     *         was rejected or displaced by more urgent work.
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, Priority priority, Object owner, Callable<T> work) {
+        Task<T> task = new Task<>(executors[lane.ordinal()], priority, owner, sequence.getAndIncrement(), work);
+        task.executor.enqueue(task);
+        return task.future;
+    }
+
+    /**
+     * Queues work whose result nobody waits for.
+     *
+     * @see #submit(Lane, Priority, Object, Callable)
+     */
+    public CompletableFuture<Void> execute(Lane lane, Priority priority, Object owner, Runnable work) {
+        return submit(lane, priority, owner, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Cancels all queued work of an owner in every lane. Work that already
+     * started runs to completion.
+     *
+     * @return The number of cancelled tasks
+     */
+    public int cancelAll(Object owner) {
+        int cancelled = 0;
+        for (LaneExecutor executor : executors) {
+            for (Task<?> task : executor.removeOwnedBy(owner)) {
+                task.future.cancel(false);
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Checks whether a lane's queue is full, so optional work should not be queued.
+     */
+    public boolean isSaturated(Lane lane) {
+        return executors[lane.ordinal()].isSaturated();
+    }
+
+    /**
+     * Gets the number of tasks waiting in a lane.
+     */
+    public int getQueuedCount(Lane lane) {
+        return executors[lane.ordinal()].getQueuedCount();
+    }
+
+    /**
+     * Gets a summary of every lane's load, throughput and queue wait.
+     */
+    public String getStatistics() {
+        StringBuilder builder = new StringBuilder();
+        for (Lane lane : Lane.values()) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(executors[lane.ordinal()].getStatistics());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A queued piece of work; ordered by priority, then by submission order.
+     */
+    private static final class Task<T> implements Comparable<Task<?>> {
+        final LaneExecutor executor;
+        final Priority priority;
+        final Object owner;
+        final long sequence;
+        final Callable<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+
+        Task(LaneExecutor executor, Priority priority, Object owner, long sequence, Callable<T> work) {
+            this.executor = executor;
+            this.priority = priority;
+            this.owner = owner;
+            this.sequence = sequence;
+            this.work = work;
+            // Cancelling the future frees the task's queue slot right away
+            future.whenComplete((result, error) -> {
+                if (future.isCancelled()) {
+                    executor.remove(this);
+                }
+            });
+        }
+
+        void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(work.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Worker threads and queue of one lane.
+     */
+    private static final class LaneExecutor {
+        private final String name;
+        private final int maxThreads;
+        private final int capacity;
+
+        // Guarded by this
+        private final PriorityQueue<Task<?>> queue = new PriorityQueue<>();
+        private int threads;
+        private int idleThreads;
+        private int running;
+        private int runningPrefetch;
+        private int threadNumber;
+
+        // Statistics
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+
+        LaneExecutor(String name, int maxThreads, int capacity) {
+            this.name = name;
+            this.maxThreads = maxThreads;
+            this.capacity = capacity;
+        }
+
+        void enqueue(Task<?> task) {
+            Task<?> refused = null;
+            synchronized (this) {
+                if (queue.size() >= capacity) {
+                    Task<?> displaced = findLeastUrgent();
+                    if (displaced.priority.compareTo(task.priority) > 0) {
+                        queue.remove(displaced);
+                        refused = displaced;
+                    } else {
+                        refused = task;
+                    }
+                }
+                if (refused != task) {
+                    queue.add(task);
+                    if (idleThreads > 0) {
+                        notifyAll();
+                    }
+                    if (queue.size() > idleThreads && threads < maxThreads) {
+                        startThread();
+                    }
+                }
+            }
+            if (refused != null) {
+                rejected.increment();
+                Log.w(TAG, name + " queue full, dropping " + refused.priority + " task");
+                refused.future.completeExceptionally(new RejectedExecutionException(
+                        "Translation queue " + name + " is full"));
+            }
+        }
+
+        synchronized void remove(Task<?> task) {
+            queue.remove(task);
+        }
+
+        synchronized List<Task<?>> removeOwnedBy(Object owner) {
+            List<Task<?>> removed = new ArrayList<>();
+            Iterator<Task<?>> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Task<?> task = iterator.next();
+                if (task.owner == owner) {
+                    iterator.remove();
+                    removed.add(task);
+                }
+            }
+            return removed;
+        }
+
+        synchronized boolean isSaturated() {
+            return queue.size() >= capacity;
+        }
+
+        synchronized int getQueuedCount() {
+            return queue.size();
+        }
+
+        synchronized String getStatistics() {
+            return String.format(Locale.US, "%s: %d/%d running, %d queued, %d done, %d rejected, wait p95 ≤%dms",
+                    name, running, maxThreads, queue.size(), completed.sum(), rejected.sum(),
+                    TimeUnit.MICROSECONDS.toMillis(queueWait.getPercentileMicros(95)));
+        }
+
+        private Task<?> findLeastUrgent() {
+            Task<?> leastUrgent = null;
+            for (Task<?> task : queue) {
+                if (leastUrgent == null || task.compareTo(leastUrgent) > 0) {
+                    leastUrgent = task;
+                }
+            }
+            return leastUrgent;
+        }
+
+        private void startThread() {
+            threads++;
+            Thread thread = new Thread(this::work, "Translation-" + name + "-" + (++threadNumber));
+            thread.setDaemon(true);
+            // Below normal, so translation work yields to the UI thread
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.start();
+        }
+
+        /**
+         * Takes the next task a worker may run, or null. Prefetch work is held
+         * back once it would occupy the last free worker.
+         */
+        private Task<?> poll() {
+            Task<?> next = queue.peek();
+            if (next == null) {
+                return null;
+            }
+            if (next.priority == Priority.PREFETCH && maxThreads > 1 && runningPrefetch >= maxThreads - 1) {
+                return null;
+            }
+            return queue.poll();
+        }
+
+        private void work() {
+            while (true) {
+                Task<?> task;
+                synchronized (this) {
+                    long deadline = System.currentTimeMillis() + KEEP_ALIVE_MS;
+                    while ((task = poll()) == null) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            threads--;
+                            return;
+                        }
+                        idleThreads++;
+                        try {
+                            wait(remaining);
+                        } catch (InterruptedException e) {
+                            // Keep serving the queue; workers only exit when idle
+                        } finally {
+                            idleThreads--;
+                        }
+                    }
+                    running++;
+                    if (task.priority == Priority.PREFETCH) {
+                        runningPrefetch++;
+                    }
+                }
+
+                queueWait.record(System.nanoTime() - task.queuedAt);
+                CURRENT_PRIORITY.set(task.priority);
+                try {
+                    task.run();
+                } finally {
+                    CURRENT_PRIORITY.remove();
+                    completed.increment();
+                    synchronized (this) {
+                        running--;
+                        if (task.priority == Priority.PREFETCH) {
+                            runningPrefetch--;
+                            // Held-back prefetch work may be able to run now
+                            notifyAll();
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.translator.messagingapp.translation;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of warm translators keyed by language pair.
+ * Creating a translator is cheap, but its first translation loads the model,
+ * which takes hundreds of milliseconds; keeping translators open between calls
+ * avoids paying that every time. Translators are reference counted so several
+ * callers can use one at once. A translator is closed once it has been idle
+ * for the idle timeout, when the pool needs room for another pair, or on
+ * memory pressure; one still in use is closed as soon as its last user
+ * releases it.
+ *
+ * @param <T> The translator type
+ */
+class TranslatorPool<T extends Closeable> {
+    private static final String TAG = "TranslatorPool";
+
+    /**
+     * Creates translators for the pool.
+     */
+    interface Factory<T> {
+        T create(String sourceLanguage, String targetLanguage);
+    }
+
+    /**
+     * A translator borrowed from the pool. Close it to give the translator back.
+     */
+    static final class Lease<T extends Closeable> implements AutoCloseable {
+        private final TranslatorPool<T> pool;
+        private final Entry<T> entry;
+        private boolean released;
+
+        private Lease(TranslatorPool<T> pool, Entry<T> entry) {
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        T get() {
+            return entry.translator;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                pool.release(entry);
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        final String key;
+        final T translator;
+        int refCount;
+        long lastUsedMs;
+        boolean retired;
+
+        Entry(String key, T translator) {
+            this.key = key;
+            this.translator = translator;
+        }
+    }
+
+    private final Factory<T> factory;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+
+    // Pooled translators by language pair, least recently used first; guarded by this
+    private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private ScheduledExecutorService sweeper;
+    private ScheduledFuture<?> sweep;
+    private boolean closed;
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a pool.
+     *
+     * @param factory Creates a translator for a language pair
+     * @param maxSize Maximum number of translators kept open
+     * @param idleTimeoutMs How long an unused translator stays open
+     */
+    TranslatorPool(Factory<T> factory, int maxSize, long idleTimeoutMs) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Borrows the translator for a language pair, creating it if it isn't pooled.
+     * If the pool is full, the least recently used idle translator makes room;
+     * if all of them are in use, the pool temporarily grows past its size.
+     *
+     * @return A lease to close once the translation is done
+     */
+    Lease<T> acquire(String sourceLanguage, String targetLanguage) {
+        String key = sourceLanguage + "_" + targetLanguage;
+        List<T> toClose = new ArrayList<>(1);
+        Lease<T> lease;
+        synchronized (this) {
+            Entry<T> entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                entry = new Entry<>(key, factory.create(sourceLanguage, targetLanguage));
+                if (closed) {
+                    // Still hand out a working translator; it's closed on release
+                    entry.retired = true;
+                } else {
+                    evictForRoom(toClose);
+                    entries.put(key, entry);
+                }
+            }
+            entry.refCount++;
+            lease = new Lease<>(this, entry);
+        }
+        closeAll(toClose);
+        return lease;
+    }
+
+    /**
+     * Closes translators that have been idle for the idle timeout.
+     *
+     * @return The number of translators closed
+     */
+    int evictIdle() {
+        List<T> toClose = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Iterator<Entry<T>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.refCount == 0 && now - entry.lastUsedMs >= idleTimeoutMs) {
+                    iterator.remove();
+                    toClose.add(entry.translator);
+                }
+            }
+            evictions.add(toClose.size());
+        }
+        closeAll(toClose);
+        return toClose.size();
+    }
+
+    /**
+     * Closes every pooled translator whose pair includes the language, e.g.
+     * after its model was deleted.
+     */
+    void evictLanguage(String language) {
+        List<T> toClose = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry<T>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.key.startsWith(language + "_") || entry.key.endsWith("_" + language)) {
+                    iterator.remove();
+                    retire(entry, toClose);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Closes every translator; ones in use are closed when released. The pool
+     * keeps working and fills up again on demand.
+     */
+    void evictAll() {
+        List<T> toClose = new ArrayList<>();
+        synchronized (this) {
+            for (Entry<T> entry : entries.values()) {
+                retire(entry, toClose);
+            }
+            entries.clear();
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Closes every translator and stops pooling. Later acquisitions still work
+     * but their translators are closed on release.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+            if (sweeper != null) {
+                sweeper.shutdownNow();
+            }
+        }
+        evictAll();
+    }
+
+    /**
+     * Gets the number of pooled translators.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets a summary of the pool's size and hit rate.
+     */
+    String getStatistics() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return String.format(Locale.US, "Translators: %d/%d, hits %d, misses %d (%.1f%% hit rate), evictions %d",
+                size(), maxSize, hitCount, misses.sum(), total > 0 ? hitCount * 100.0 / total : 0.0,
+                evictions.sum());
+    }
+
+    private void release(Entry<T> entry) {
+        boolean closeNow;
+        synchronized (this) {
+            entry.refCount--;
+            entry.lastUsedMs = System.currentTimeMillis();
+            closeNow = entry.retired && entry.refCount == 0;
+            if (!closeNow) {
+                scheduleSweep();
+            }
+        }
+        if (closeNow) {
+            closeQuietly(entry.translator);
+        }
+    }
+
+    /**
+     * Removes least recently used idle translators until there is room for one more.
+     */
+    private void evictForRoom(List<T> toClose) {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (entry.refCount == 0) {
+                iterator.remove();
+                evictions.increment();
+                toClose.add(entry.translator);
+            }
+        }
+    }
+
+    private void retire(Entry<T> entry, List<T> toClose) {
+        evictions.increment();
+        if (entry.refCount == 0) {
+            toClose.add(entry.translator);
+        } else {
+            entry.retired = true;
+        }
+    }
+
+    /**
+     * Schedules an idle sweep unless one is pending. Must hold the lock.
+     */
+    private void scheduleSweep() {
+        if (closed || (sweep != null && !sweep.isDone())) {
+            return;
+        }
+        if (sweeper == null) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "TranslatorPoolSweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        sweep = sweeper.schedule(() -> {
+            int closedCount = evictIdle();
+            if (closedCount > 0) {
+                Log.d(TAG, "Closed " + closedCount + " idle translators");
+            }
+            synchronized (this) {
+                sweep = null;
+                if (!entries.isEmpty()) {
+                    scheduleSweep();
+                }
+            }
+        }, idleTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeAll(List<T> translators) {
+        for (T translator : translators) {
+            closeQuietly(translator);
+        }
+    }
+
+    private static void closeQuietly(Closeable translator) {
+        try {
+            translator.close();
+        } catch (Exception e) {
+            Log.w(TAG, "Error closing translator", e);
+        }
+    }
+}
@@ -9,6 +9,10 @@ import com.translator.messagingapp.message.*;
 
 import com.translator.messagingapp.conversation.*;
 
+import com.translator.messagingapp.system.*;
+
+import com.translator.messagingapp.translation.*;
+
 import android.content.Intent;
 import android.database.Cursor;
 import android.net.Uri;
@@ -580,6 +584,19 @@ public class DebugActivity extends BaseActivity {
                     report.append("   ERROR: ").append(e.getMessage()).append("\n");
                 }
             }
+
+            // 5. Translation cache statistics (counters only, no database query)
+            report.append("\n5. Translation Cache:\n");
+            try {
+                TranslationManager translationManager = ((TranslatorApp) getApplication()).getTranslationManager();
+                if (translationManager != null) {
+                    report.append(translationManager.getCacheStats()).append("\n");
+                } else {
+                    report.append("   Translation manager not available\n");
+                }
+            } catch (Exception e) {
+                report.append("   ERROR: ").append(e.getMessage()).append("\n");
+            }
             
         } catch (Exception e) {
             report.append("\nCRITICAL ERROR: ").append(e.getMessage()).append("\n");
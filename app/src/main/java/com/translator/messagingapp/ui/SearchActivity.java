@@ -204,11 +204,7 @@ public class SearchActivity extends BaseActivity implements MessageRecyclerAdapt
                 List<Message> results = messageService.searchMessages(query);
 
                 // Restore translation states for search results
-                if (translationCache != null) {
-                    for (Message message : results) {
-                        message.restoreTranslationState(translationCache);
-                    }
-                }
+                Message.restoreTranslationStates(results, translationCache, null);
 
                 // Cache the results
                 lastSearchQuery = query;
@@ -52,6 +52,7 @@ public class AutoTranslateLanguageDetectionTest {
         when(mockUserPreferences.getTranslationMode()).thenReturn(UserPreferences.TRANSLATION_MODE_AUTO);
         when(mockUserPreferences.isOfflineTranslationEnabled()).thenReturn(true);
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         when(mockTranslationCache.get(anyString())).thenReturn(null); // No cache hits
         
         translationManager = new TranslationManager(context, mockTranslationService, mockUserPreferences,
@@ -108,6 +109,7 @@ public class AutoTranslateLanguageDetectionTest {
         when(mockUserPreferences.isOfflineTranslationEnabled()).thenReturn(true);
         when(mockOfflineTranslationService.isLanguagePairSupported("en", "es")).thenReturn(true);
         when(mockOfflineTranslationService.areModelsAvailable("en", "es")).thenReturn(true);
+        when(mockOfflineTranslationService.isLanguagePairReady("en", "es")).thenReturn(true);
         
         SmsMessage message = new SmsMessage("1234567890", "Hello world", new Date());
         message.setIncoming(true);
@@ -118,7 +120,7 @@ public class AutoTranslateLanguageDetectionTest {
         
         // Mock successful offline translation
         doAnswer(invocation -> {
-            OfflineTranslationService.TranslationCallback callback = invocation.getArgument(3);
+            TranslationEngine.TranslationCallback callback = invocation.getArgument(3);
             callback.onTranslationComplete(true, "Hola mundo", null);
             return null;
         }).when(mockOfflineTranslationService).translateText(eq("Hello world"), eq("en"), eq("es"), any());
@@ -285,6 +287,7 @@ public class AutoTranslateLanguageDetectionTest {
         when(mockUserPreferences.isOfflineTranslationEnabled()).thenReturn(true);
         when(mockOfflineTranslationService.isLanguagePairSupported("en", "es")).thenReturn(true);
         when(mockOfflineTranslationService.areModelsAvailable("en", "es")).thenReturn(false);
+        when(mockOfflineTranslationService.isLanguagePairReady("en", "es")).thenReturn(false);
         when(mockTranslationService.translate("Hello world", "en", "es")).thenReturn("Hola mundo");
         
         SmsMessage message = new SmsMessage("1234567890", "Hello world", new Date());
@@ -296,7 +299,7 @@ public class AutoTranslateLanguageDetectionTest {
         
         // Mock offline translation failure
         doAnswer(invocation -> {
-            OfflineTranslationService.TranslationCallback callback = invocation.getArgument(3);
+            TranslationEngine.TranslationCallback callback = invocation.getArgument(3);
             callback.onTranslationComplete(false, null, "Language models not downloaded");
             return null;
         }).when(mockOfflineTranslationService).translateText(eq("Hello world"), eq("en"), eq("es"), any());
@@ -37,6 +37,7 @@ public class ConversationInputTranslationTest {
         // Create mock translation service
         mockTranslationService = mock(GoogleTranslationService.class);
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         
         // Set up mock preferences - English user wanting to translate to Spanish
         when(mockUserPreferences.isAutoTranslateEnabled()).thenReturn(true);
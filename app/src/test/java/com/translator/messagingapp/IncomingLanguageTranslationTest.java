@@ -44,6 +44,7 @@ public class IncomingLanguageTranslationTest {
         when(mockUserPreferences.getPreferredLanguage()).thenReturn("en"); // General preference is English
         when(mockUserPreferences.getPreferredIncomingLanguage()).thenReturn("zh"); // Incoming preference is Chinese
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         when(mockTranslationService.detectLanguage(anyString())).thenReturn("en");
         when(mockTranslationService.translate(anyString(), eq("en"), eq("zh"))).thenReturn("你好世界");
         
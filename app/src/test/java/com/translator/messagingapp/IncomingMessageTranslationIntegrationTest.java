@@ -65,6 +65,7 @@ public class IncomingMessageTranslationIntegrationTest {
         
         // Set up mock translation service
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         when(mockTranslationService.detectLanguage("Hello world")).thenReturn("en");
         when(mockTranslationService.translate("Hello world", "en", "es")).thenReturn("Hola mundo");
     }
@@ -146,6 +147,7 @@ public class IncomingMessageTranslationIntegrationTest {
     public void testTranslationServiceUnavailableIntegration() {
         // Given: Translation service is unavailable (no API key)
         when(mockTranslationService.hasApiKey()).thenReturn(false);
+        when(mockTranslationService.isAvailable()).thenReturn(false);
         
         // Create SmsMessage for translation
         SmsMessage smsMessage = new SmsMessage("1234567890", "Hello world", new Date());
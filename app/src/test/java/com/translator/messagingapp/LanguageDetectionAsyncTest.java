@@ -43,6 +43,7 @@ public class LanguageDetectionAsyncTest {
     public void testAsyncDetectionCallback_withOnlineSuccess() throws InterruptedException {
         // Setup mock to simulate online service availability and successful detection
         when(mockOnlineService.hasApiKey()).thenReturn(true);
+        when(mockOnlineService.isAvailable()).thenReturn(true);
         
         // Create a mock Future that returns "en" for English
         Future<String> mockFuture = CompletableFuture.completedFuture("en");
@@ -80,6 +81,7 @@ public class LanguageDetectionAsyncTest {
     public void testAsyncDetectionCallback_withOnlineFailure() throws InterruptedException {
         // Setup mock to simulate online service failure
         when(mockOnlineService.hasApiKey()).thenReturn(true);
+        when(mockOnlineService.isAvailable()).thenReturn(true);
         
         // Create a mock Future that throws an exception
         Future<String> mockFuture = CompletableFuture.supplyAsync(() -> {
@@ -119,6 +121,7 @@ public class LanguageDetectionAsyncTest {
     public void testAsyncDetectionCallback_noOnlineService() throws InterruptedException {
         // Test with no online service available
         when(mockOnlineService.hasApiKey()).thenReturn(false);
+        when(mockOnlineService.isAvailable()).thenReturn(false);
 
         // Setup countdown latch to wait for async callback
         CountDownLatch latch = new CountDownLatch(1);
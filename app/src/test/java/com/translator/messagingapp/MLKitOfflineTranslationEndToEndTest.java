@@ -51,6 +51,7 @@ public class MLKitOfflineTranslationEndToEndTest {
         
         // Setup Google service
         when(mockGoogleService.hasApiKey()).thenReturn(true);
+        when(mockGoogleService.isAvailable()).thenReturn(true);
     }
 
     @Test
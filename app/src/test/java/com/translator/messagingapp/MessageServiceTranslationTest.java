@@ -58,6 +58,7 @@ public class MessageServiceTranslationTest {
         // Set up mock translation service
         when(mockTranslationService.detectLanguage(anyString())).thenReturn("en");
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         
         // Initialize message service
         messageService = new MessageService(mockApp, mockTranslationManager);
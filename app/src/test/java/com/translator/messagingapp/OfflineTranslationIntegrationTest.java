@@ -84,10 +84,12 @@ public class OfflineTranslationIntegrationTest {
         
         // Test online detection availability based on API key
         when(mockGoogleService.hasApiKey()).thenReturn(true);
+        when(mockGoogleService.isAvailable()).thenReturn(true);
         assertTrue("Should have online detection when API key is available", 
                   detectionService.isOnlineDetectionAvailable());
         
         when(mockGoogleService.hasApiKey()).thenReturn(false);
+        when(mockGoogleService.isAvailable()).thenReturn(false);
         assertFalse("Should not have online detection without API key", 
                    detectionService.isOnlineDetectionAvailable());
     }
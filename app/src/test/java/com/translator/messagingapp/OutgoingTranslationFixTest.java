@@ -36,6 +36,7 @@ public class OutgoingTranslationFixTest {
         // Create mock translation service
         mockTranslationService = mock(GoogleTranslationService.class);
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         
         // Set up mock preferences
         when(mockUserPreferences.isAutoTranslateEnabled()).thenReturn(true);
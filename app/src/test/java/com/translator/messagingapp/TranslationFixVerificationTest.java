@@ -35,6 +35,7 @@ public class TranslationFixVerificationTest {
         // Create mock translation service
         mockTranslationService = mock(GoogleTranslationService.class);
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         
         // Set up mock preferences for online translation
         when(mockUserPreferences.isAutoTranslateEnabled()).thenReturn(true);
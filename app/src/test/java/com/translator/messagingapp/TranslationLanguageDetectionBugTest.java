@@ -39,6 +39,7 @@ public class TranslationLanguageDetectionBugTest {
         // Create mock translation service
         mockTranslationService = mock(GoogleTranslationService.class);
         when(mockTranslationService.hasApiKey()).thenReturn(true);
+        when(mockTranslationService.isAvailable()).thenReturn(true);
         
         // Set up mock preferences for online translation
         when(mockUserPreferences.isAutoTranslateEnabled()).thenReturn(true);
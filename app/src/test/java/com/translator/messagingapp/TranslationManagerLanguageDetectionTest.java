@@ -60,6 +60,7 @@ public class TranslationManagerLanguageDetectionTest {
     @Test
     public void testOnlineDetectionAvailability_withApiKey() {
         when(mockGoogleService.hasApiKey()).thenReturn(true);
+        when(mockGoogleService.isAvailable()).thenReturn(true);
         
         LanguageDetectionService detectionService = translationManager.getLanguageDetectionService();
         assertTrue("Should have online detection when API key is available", 
@@ -69,6 +70,7 @@ public class TranslationManagerLanguageDetectionTest {
     @Test
     public void testOnlineDetectionAvailability_withoutApiKey() {
         when(mockGoogleService.hasApiKey()).thenReturn(false);
+        when(mockGoogleService.isAvailable()).thenReturn(false);
         
         LanguageDetectionService detectionService = translationManager.getLanguageDetectionService();
         assertFalse("Should not have online detection when API key is unavailable", 
@@ -89,6 +91,7 @@ public class TranslationManagerLanguageDetectionTest {
     public void testTranslationWithoutSourceLanguage() {
         // Setup mock to have API key for online fallback
         when(mockGoogleService.hasApiKey()).thenReturn(true);
+        when(mockGoogleService.isAvailable()).thenReturn(true);
         when(mockGoogleService.detectLanguage(anyString())).thenReturn("en");
         when(mockGoogleService.translateText(anyString(), anyString(), anyString())).thenReturn("translated text");
         
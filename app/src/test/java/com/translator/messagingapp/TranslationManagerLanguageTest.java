@@ -63,6 +63,7 @@ public class TranslationManagerLanguageTest {
         
         UserPreferences frenchPrefs = new UserPreferences(context);
         when(mockTranslationService.hasApiKey()).thenReturn(false);
+        when(mockTranslationService.isAvailable()).thenReturn(false);
         
         // Set up for offline translation
         frenchPrefs.setTranslationMode(UserPreferences.TRANSLATION_MODE_OFFLINE_ONLY);
@@ -0,0 +1,126 @@
+package com.translator.messagingapp.translation;
+
+import com.translator.messagingapp.contact.*;
+import com.translator.messagingapp.message.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for restoring the translation state of a page of messages with one bulk cache lookup.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BulkTranslationRestoreTest {
+
+    private TranslationCache mockTranslationCache;
+    private UserPreferences mockUserPreferences;
+
+    @Before
+    public void setUp() {
+        mockTranslationCache = mock(TranslationCache.class);
+        mockUserPreferences = mock(UserPreferences.class);
+        when(mockUserPreferences.getPreferredIncomingLanguage()).thenReturn("en");
+        when(mockUserPreferences.getPreferredOutgoingLanguage()).thenReturn("es");
+    }
+
+    private static Message createMessage(long id, String body, int type) {
+        Message message = new Message();
+        message.setId(id);
+        message.setBody(body);
+        message.setType(type);
+        return message;
+    }
+
+    @Test
+    public void testRestoresPageWithSingleLookup() {
+        List<Message> messages = new ArrayList<>();
+        messages.add(createMessage(1L, "Hola", Message.TYPE_INBOX));
+        messages.add(createMessage(2L, "Hello", Message.TYPE_SENT));
+        messages.add(createMessage(3L, "Bonjour", Message.TYPE_INBOX));
+
+        Map<String, String> cached = new HashMap<>();
+        cached.put("msg_1_translation_state",
+                "{\"translatedText\":\"Hello\",\"originalLanguage\":\"es\",\"translatedLanguage\":\"en\",\"showTranslation\":true}");
+        cached.put("Hello_es", "Hola");
+        when(mockTranslationCache.getAll(anyCollection())).thenReturn(cached);
+
+        int restored = Message.restoreTranslationStates(messages, mockTranslationCache, mockUserPreferences);
+
+        assertEquals(2, restored);
+        assertEquals("Hello", messages.get(0).getTranslatedText());
+        assertEquals("es", messages.get(0).getOriginalLanguage());
+        assertEquals("Hola", messages.get(1).getTranslatedText());
+        assertEquals("es", messages.get(1).getTranslatedLanguage());
+        assertTrue(messages.get(1).isShowTranslation());
+        assertFalse(messages.get(2).isTranslated());
+
+        // One bulk lookup, no per-message gets
+        verify(mockTranslationCache, times(1)).getAll(anyCollection());
+        verify(mockTranslationCache, never()).get(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLooksUpMessageAndAutoTranslationKeys() {
+        List<Message> messages = new ArrayList<>();
+        messages.add(createMessage(7L, "Ciao", Message.TYPE_INBOX));
+        when(mockTranslationCache.getAll(anyCollection())).thenReturn(new HashMap<>());
+
+        Message.restoreTranslationStates(messages, mockTranslationCache, mockUserPreferences);
+
+        ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+        verify(mockTranslationCache).getAll(keys.capture());
+        assertTrue(keys.getValue().contains("msg_7_translation_state"));
+        assertTrue(keys.getValue().contains("Ciao_en"));
+    }
+
+    @Test
+    public void testSkipsAutoTranslationKeysWithoutPreferences() {
+        List<Message> messages = new ArrayList<>();
+        messages.add(createMessage(8L, "Hallo", Message.TYPE_INBOX));
+        Map<String, String> cached = new HashMap<>();
+        cached.put("Hallo_en", "Hello");
+        when(mockTranslationCache.getAll(anyCollection())).thenReturn(cached);
+
+        int restored = Message.restoreTranslationStates(messages, mockTranslationCache, null);
+
+        assertEquals(0, restored);
+        assertFalse(messages.get(0).isTranslated());
+    }
+
+    @Test
+    public void testEmptyStateDoesNotShowTranslation() {
+        List<Message> messages = new ArrayList<>();
+        Message message = createMessage(9L, "Hola", Message.TYPE_INBOX);
+        message.setShowTranslation(true);
+        messages.add(message);
+
+        Map<String, String> cached = new HashMap<>();
+        cached.put("msg_9_translation_state", "{\"translatedText\":\"\",\"showTranslation\":true}");
+        when(mockTranslationCache.getAll(anyCollection())).thenReturn(cached);
+
+        Message.restoreTranslationStates(messages, mockTranslationCache, null);
+
+        assertFalse(message.isShowTranslation());
+    }
+
+    @Test
+    public void testEmptyPageSkipsLookup() {
+        assertEquals(0, Message.restoreTranslationStates(new ArrayList<>(), mockTranslationCache, mockUserPreferences));
+        verifyNoInteractions(mockTranslationCache);
+    }
+}
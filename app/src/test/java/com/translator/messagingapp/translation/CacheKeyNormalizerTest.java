@@ -0,0 +1,67 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for CacheKeyNormalizer.
+ */
+public class CacheKeyNormalizerTest {
+
+    @Test
+    public void testWhitespaceVariantsShareKey() {
+        String expected = CacheKeyNormalizer.normalize("Hello world");
+
+        assertEquals("Hello world", expected);
+        assertEquals(expected, CacheKeyNormalizer.normalize("  Hello   world  "));
+        assertEquals(expected, CacheKeyNormalizer.normalize("Hello\tworld"));
+        assertEquals(expected, CacheKeyNormalizer.normalize("Hello\u00A0world\n"));
+    }
+
+    @Test
+    public void testLineBreaksAreKept() {
+        assertEquals("Hello\nworld", CacheKeyNormalizer.normalize("Hello \r\n  world"));
+        assertEquals("Hello\n\nworld", CacheKeyNormalizer.normalize("Hello\n\nworld\n"));
+        assertNotEquals(CacheKeyNormalizer.normalize("Hello world"), CacheKeyNormalizer.normalize("Hello\nworld"));
+    }
+
+    @Test
+    public void testCaseAndPunctuationAreKept() {
+        // Questions and statements translate differently
+        assertNotEquals(CacheKeyNormalizer.normalize("You're coming?"), CacheKeyNormalizer.normalize("You're coming."));
+        assertEquals("¿Vienes?", CacheKeyNormalizer.normalize("¿Vienes?"));
+        // Names aren't merged with words
+        assertNotEquals(CacheKeyNormalizer.normalize("Rose"), CacheKeyNormalizer.normalize("rose"));
+    }
+
+    @Test
+    public void testInvisibleCharactersAreRemoved() {
+        // Zero-width characters as used by hidden secret messages, and a BOM
+        assertEquals("Hello world",
+                CacheKeyNormalizer.normalize("\uFEFFHello\u200B\u200C\u200D world\u200D"));
+        // Emoji presentation selector
+        assertEquals(CacheKeyNormalizer.normalize("I ❤ it"),
+                CacheKeyNormalizer.normalize("I ❤\uFE0F it"));
+    }
+
+    @Test
+    public void testEmojiJoinerSequencesAreKept() {
+        String family = "👨\u200D👩\u200D👧";
+        String separate = "👨👩👧";
+
+        assertNotEquals(CacheKeyNormalizer.normalize(family), CacheKeyNormalizer.normalize(separate));
+    }
+
+    @Test
+    public void testComposedAndDecomposedFormsShareKey() {
+        assertEquals(CacheKeyNormalizer.normalize("café"), CacheKeyNormalizer.normalize("cafe\u0301"));
+    }
+
+    @Test
+    public void testPunctuationOnlyTextIsKept() {
+        assertEquals("?", CacheKeyNormalizer.normalize("?"));
+        assertNotEquals(CacheKeyNormalizer.normalize("?"), CacheKeyNormalizer.normalize("!"));
+    }
+}
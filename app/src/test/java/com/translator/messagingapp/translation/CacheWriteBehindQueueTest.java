@@ -0,0 +1,157 @@
+package com.translator.messagingapp.translation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the translation cache write-behind queue.
+ */
+public class CacheWriteBehindQueueTest {
+
+    private static final class RecordingWriter implements CacheWriteBehindQueue.BatchWriter {
+        final List<Integer> batchSizes = new ArrayList<>();
+        final Map<String, String> stored = new HashMap<>();
+        final Set<String> deleted = new HashSet<>();
+        final Map<String, Long> touched = new HashMap<>();
+
+        @Override
+        public synchronized void writeBatch(Map<String, CacheWriteBehindQueue.PendingPut> puts, Set<String> deletes,
+                                            Map<String, Long> touches) {
+            batchSizes.add(puts.size() + deletes.size() + touches.size());
+            for (Map.Entry<String, CacheWriteBehindQueue.PendingPut> entry : puts.entrySet()) {
+                stored.put(entry.getKey(), entry.getValue().value);
+            }
+            deleted.addAll(deletes);
+            touched.putAll(touches);
+        }
+    }
+
+    private RecordingWriter writer;
+    private CacheWriteBehindQueue queue;
+
+    @Before
+    public void setUp() {
+        writer = new RecordingWriter();
+        // Long interval so only explicit flushes or the batch size trigger writes
+        queue = new CacheWriteBehindQueue(writer, 60_000, 10);
+    }
+
+    @After
+    public void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    public void testPutsAreCoalescedIntoOneBatch() {
+        queue.enqueuePut("a", "1");
+        queue.enqueuePut("b", "2");
+        queue.enqueuePut("a", "3");
+
+        assertEquals("Repeated keys should coalesce", 2, queue.getPendingCount());
+        assertTrue("Nothing should be written before the flush", writer.batchSizes.isEmpty());
+
+        queue.flushNow();
+
+        assertEquals(1, writer.batchSizes.size());
+        assertEquals("3", writer.stored.get("a"));
+        assertEquals("2", writer.stored.get("b"));
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testPendingValuesAreReadable() {
+        queue.enqueuePut("key", "value");
+
+        assertEquals("value", queue.getPending("key"));
+        assertNull(queue.getPending("other"));
+    }
+
+    @Test
+    public void testDeleteCancelsPendingPut() {
+        queue.enqueuePut("key", "value");
+        queue.enqueueDelete("key");
+
+        assertNull(queue.getPending("key"));
+        assertTrue(queue.isPendingDelete("key"));
+
+        queue.flushNow();
+
+        assertFalse(writer.stored.containsKey("key"));
+        assertTrue(writer.deleted.contains("key"));
+    }
+
+    @Test
+    public void testTouchOnPendingPutIsFolded() {
+        queue.enqueuePut("key", "value");
+        queue.enqueueTouch("key");
+
+        assertEquals("Touch should ride along with the pending insert", 1, queue.getPendingCount());
+
+        queue.flushNow();
+
+        assertTrue(writer.touched.isEmpty());
+        assertEquals("value", writer.stored.get("key"));
+    }
+
+    @Test
+    public void testTouchesAreCoalesced() {
+        queue.enqueueTouch("key");
+        queue.enqueueTouch("key");
+        queue.enqueueTouch("other");
+
+        assertEquals(2, queue.getPendingCount());
+
+        queue.flushNow();
+
+        assertEquals(1, writer.batchSizes.size());
+        assertEquals(2, writer.touched.size());
+    }
+
+    @Test
+    public void testBatchSizeTriggersFlush() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            queue.enqueuePut("key" + i, "value" + i);
+        }
+
+        // Batch size reached; the writer thread should pick it up without an explicit flush
+        for (int i = 0; i < 50 && writer.stored.size() < 10; i++) {
+            Thread.sleep(20);
+        }
+        synchronized (writer) {
+            assertEquals(10, writer.stored.size());
+        }
+    }
+
+    @Test
+    public void testCloseFlushesPendingWrites() {
+        queue.enqueuePut("key", "value");
+        queue.close();
+
+        assertEquals("value", writer.stored.get("key"));
+
+        // Writes after close are ignored
+        queue.enqueuePut("late", "value");
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testDiscardPending() {
+        queue.enqueuePut("key", "value");
+        queue.enqueueTouch("other");
+        queue.discardPending();
+
+        queue.flushNow();
+
+        assertTrue(writer.batchSizes.isEmpty());
+    }
+}
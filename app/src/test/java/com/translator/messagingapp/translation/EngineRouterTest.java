@@ -0,0 +1,146 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for EngineRouter.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class EngineRouterTest {
+
+    private final AtomicLong now = new AtomicLong(1000000);
+    private final EngineRouter router = new EngineRouter(now::get);
+
+    private void record(EngineRouter.Engine engine, long latencyMs, boolean success, int times) {
+        for (int i = 0; i < times; i++) {
+            router.record(engine, "es", "en", TimeUnit.MILLISECONDS.toNanos(latencyMs), success);
+        }
+    }
+
+    private EngineRouter.Decision choose() {
+        return router.choose("es", "en", true, true);
+    }
+
+    @Test
+    public void testPrefersOfflineWithoutMeasurements() {
+        EngineRouter.Decision decision = choose();
+
+        assertEquals(EngineRouter.Engine.OFFLINE, decision.getEngine());
+        assertFalse(decision.isHedged());
+        assertEquals(10000, decision.getTimeoutMs());
+    }
+
+    @Test
+    public void testRoutesToTheClearlyFasterOnlineEngine() {
+        record(EngineRouter.Engine.OFFLINE, 900, true, 10);
+        record(EngineRouter.Engine.ONLINE, 200, true, 10);
+
+        EngineRouter.Decision decision = choose();
+
+        assertEquals(EngineRouter.Engine.ONLINE, decision.getEngine());
+        assertTrue(decision.isHedged());
+        assertTrue(decision.getHedgeDelayMs() >= 250 && decision.getHedgeDelayMs() <= 3000);
+        assertEquals("Timeouts are never shorter than the minimum", 2000, decision.getTimeoutMs());
+    }
+
+    @Test
+    public void testKeepsOfflineWhenOnlineIsOnlySlightlyFaster() {
+        record(EngineRouter.Engine.OFFLINE, 250, true, 10);
+        record(EngineRouter.Engine.ONLINE, 220, true, 10);
+
+        assertEquals(EngineRouter.Engine.OFFLINE, choose().getEngine());
+    }
+
+    @Test
+    public void testCountsErrorsAgainstAnEngine() {
+        record(EngineRouter.Engine.OFFLINE, 100, false, 10);
+        record(EngineRouter.Engine.ONLINE, 400, true, 10);
+
+        EngineRouter.Decision decision = choose();
+
+        assertEquals(EngineRouter.Engine.ONLINE, decision.getEngine());
+        assertTrue(decision.getReason().startsWith("offline failing"));
+    }
+
+    @Test
+    public void testStaleMeasurementsAreMeasuredAgain() {
+        record(EngineRouter.Engine.OFFLINE, 900, true, 10);
+        record(EngineRouter.Engine.ONLINE, 200, true, 10);
+        assertEquals(EngineRouter.Engine.ONLINE, choose().getEngine());
+
+        // Only online is used for a while; the offline numbers go stale
+        now.addAndGet(TimeUnit.MINUTES.toMillis(11));
+        record(EngineRouter.Engine.ONLINE, 200, true, 1);
+
+        assertEquals(EngineRouter.Engine.OFFLINE, choose().getEngine());
+    }
+
+    @Test
+    public void testOtherPairsUseTheEngineWideMeasurements() {
+        record(EngineRouter.Engine.OFFLINE, 900, true, 10);
+        record(EngineRouter.Engine.ONLINE, 200, true, 10);
+
+        assertEquals(EngineRouter.Engine.ONLINE, router.choose("fr", "en", true, true).getEngine());
+    }
+
+    @Test
+    public void testOccasionallyMeasuresAnUnmeasuredOnlineEngine() {
+        record(EngineRouter.Engine.OFFLINE, 300, true, 10);
+
+        int online = 0;
+        for (int i = 0; i < 40; i++) {
+            if (choose().getEngine() == EngineRouter.Engine.ONLINE) {
+                online++;
+            }
+        }
+
+        assertEquals(2, online);
+    }
+
+    @Test
+    public void testHedgingCanBeDisabled() {
+        record(EngineRouter.Engine.OFFLINE, 900, true, 10);
+        record(EngineRouter.Engine.ONLINE, 200, true, 10);
+        router.setHedgingEnabled(false);
+
+        EngineRouter.Decision decision = choose();
+
+        assertEquals(EngineRouter.Engine.ONLINE, decision.getEngine());
+        assertFalse(decision.isHedged());
+    }
+
+    @Test
+    public void testUnavailableEnginesAreNeverChosen() {
+        record(EngineRouter.Engine.OFFLINE, 900, true, 10);
+        record(EngineRouter.Engine.ONLINE, 200, true, 10);
+
+        assertEquals(EngineRouter.Engine.OFFLINE, router.choose("es", "en", true, false).getEngine());
+        EngineRouter.Decision onlineOnly = router.choose("es", "en", false, true);
+        assertEquals(EngineRouter.Engine.ONLINE, onlineOnly.getEngine());
+        assertFalse("Nothing to hedge with", onlineOnly.isHedged());
+    }
+
+    @Test
+    public void testDecisionsAreKeptForDebugging() {
+        choose();
+        router.choose("es", "en", true, false);
+
+        List<String> decisions = router.getRecentDecisions();
+        assertEquals(2, decisions.size());
+        assertTrue(decisions.get(1).contains("online unavailable"));
+        for (int i = 0; i < 60; i++) {
+            choose();
+        }
+        assertEquals(50, router.getRecentDecisions().size());
+    }
+}
@@ -0,0 +1,296 @@
+package com.translator.messagingapp.translation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * In-process translation engine for load tests. Translations are
+ * deterministic ("[es] Hello" for Spanish), and latency, failures and
+ * throughput are configured up front, so caching, coalescing and scheduling
+ * can be measured without network or Play services.
+ *
+ * Latency is a fixed cost per request plus a cost per character. Requests
+ * beyond the concurrency cap wait for a slot; requests beyond the rate cap
+ * wait for their turn, paced at fixed intervals.
+ */
+public class FakeTranslationEngine implements TranslationEngine {
+
+    private final String name;
+    private volatile boolean available = true;
+    private volatile long latencyMs;
+    private volatile long latencyPerCharMicros;
+    private volatile int failEvery;
+    private volatile Predicate<String> failWhen = text -> false;
+    private volatile TokenBucketRateLimiter.Limits rateLimits;
+    private volatile String detectedLanguage;
+    private final Map<String, String> detectedLanguages = Collections.synchronizedMap(new HashMap<>());
+
+    // Throughput caps
+    private volatile Semaphore concurrencyCap;
+    private long minIntervalNanos;
+    private long nextSlotNanos; // Guarded by this
+
+    // Statistics
+    private final AtomicInteger requests = new AtomicInteger();
+    private final LongAdder batchRequests = new LongAdder();
+    private final LongAdder texts = new LongAdder();
+    private final LongAdder characters = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    public FakeTranslationEngine(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Sets how long each request takes: a fixed cost plus a cost per character.
+     */
+    public FakeTranslationEngine setLatency(long latencyMs, long latencyPerCharMicros) {
+        this.latencyMs = latencyMs;
+        this.latencyPerCharMicros = latencyPerCharMicros;
+        return this;
+    }
+
+    /**
+     * Fails every {@code n}th request, or none for 0.
+     */
+    public FakeTranslationEngine setFailEvery(int n) {
+        this.failEvery = n;
+        return this;
+    }
+
+    /**
+     * Fails every request for a text matching the predicate.
+     */
+    public FakeTranslationEngine setFailWhen(Predicate<String> failWhen) {
+        this.failWhen = failWhen;
+        return this;
+    }
+
+    /**
+     * Limits how many requests run at once; the rest wait. 0 for no limit.
+     */
+    public FakeTranslationEngine setMaxConcurrentRequests(int max) {
+        this.concurrencyCap = max > 0 ? new Semaphore(max, true) : null;
+        return this;
+    }
+
+    /**
+     * Limits the request rate; requests over it wait. 0 for no limit.
+     */
+    public synchronized FakeTranslationEngine setMaxRequestsPerSecond(double max) {
+        this.minIntervalNanos = max > 0 ? (long) (1_000_000_000L / max) : 0;
+        return this;
+    }
+
+    /**
+     * Sets the quota TranslationManager paces requests to, or null for none.
+     */
+    public FakeTranslationEngine setRateLimits(TokenBucketRateLimiter.Limits rateLimits) {
+        this.rateLimits = rateLimits;
+        return this;
+    }
+
+    public FakeTranslationEngine setAvailable(boolean available) {
+        this.available = available;
+        return this;
+    }
+
+    /**
+     * Sets the language detected for texts without their own.
+     */
+    public FakeTranslationEngine setDetectedLanguage(String language) {
+        this.detectedLanguage = language;
+        return this;
+    }
+
+    public FakeTranslationEngine setDetectedLanguage(String text, String language) {
+        detectedLanguages.put(text, language);
+        return this;
+    }
+
+    /**
+     * Gets the translation this engine returns for a text.
+     */
+    public static String translationOf(String text, String targetLanguage) {
+        return "[" + targetLanguage + "] " + text;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public TokenBucketRateLimiter.Limits getRateLimits() {
+        return rateLimits;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public boolean isLanguagePairSupported(String sourceLanguage, String targetLanguage) {
+        return sourceLanguage != null && targetLanguage != null;
+    }
+
+    @Override
+    public boolean isLanguagePairReady(String sourceLanguage, String targetLanguage) {
+        return available && isLanguagePairSupported(sourceLanguage, targetLanguage);
+    }
+
+    @Override
+    public String translate(String text, String sourceLanguage, String targetLanguage) {
+        List<String> translations = request(Collections.singletonList(text), targetLanguage);
+        return translations != null ? translations.get(0) : null;
+    }
+
+    @Override
+    public List<String> translateBatch(List<String> texts, String sourceLanguage, String targetLanguage) {
+        batchRequests.increment();
+        return request(texts, targetLanguage);
+    }
+
+    /**
+     * Translates on the calling thread, then calls back.
+     */
+    @Override
+    public void translateText(String text, String sourceLanguage, String targetLanguage,
+                              TranslationCallback callback) {
+        String translatedText = translate(text, sourceLanguage, targetLanguage);
+        if (translatedText != null) {
+            callback.onTranslationComplete(true, translatedText, null);
+        } else {
+            callback.onTranslationComplete(false, null, "Fake translation failed");
+        }
+    }
+
+    @Override
+    public String detectLanguage(String text) {
+        String language = detectedLanguages.get(text);
+        return language != null ? language : detectedLanguage;
+    }
+
+    private List<String> request(List<String> batch, String targetLanguage) {
+        int request = requests.incrementAndGet();
+        Semaphore cap = concurrencyCap;
+        try {
+            if (cap != null) {
+                cap.acquire();
+            }
+            try {
+                waitForRateSlot();
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                try {
+                    return translateAll(batch, targetLanguage, request);
+                } finally {
+                    running.decrementAndGet();
+                }
+            } finally {
+                if (cap != null) {
+                    cap.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.increment();
+            return null;
+        }
+    }
+
+    private List<String> translateAll(List<String> batch, String targetLanguage, int request)
+            throws InterruptedException {
+        long chars = 0;
+        for (String text : batch) {
+            chars += text.length();
+        }
+        texts.add(batch.size());
+        characters.add(chars);
+        long latencyMicros = latencyMs * 1000 + chars * latencyPerCharMicros;
+        if (latencyMicros > 0) {
+            Thread.sleep(latencyMicros / 1000, (int) (latencyMicros % 1000) * 1000);
+        }
+
+        if (!available || (failEvery > 0 && request % failEvery == 0)) {
+            failures.increment();
+            return null;
+        }
+        List<String> translations = new ArrayList<>(batch.size());
+        for (String text : batch) {
+            if (failWhen.test(text)) {
+                failures.increment();
+                return null;
+            }
+            translations.add(translationOf(text, targetLanguage));
+        }
+        return translations;
+    }
+
+    private void waitForRateSlot() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            if (minIntervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlotNanos);
+            nextSlotNanos = slot + minIntervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Gets the number of requests, single and batched.
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public long getBatchRequestCount() {
+        return batchRequests.sum();
+    }
+
+    /**
+     * Gets the number of texts sent, over all requests.
+     */
+    public long getTextCount() {
+        return texts.sum();
+    }
+
+    public long getCharacterCount() {
+        return characters.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the most requests that ran at once.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxRunning.get();
+    }
+
+    public String getStatistics() {
+        return name + ": requests=" + requests.get()
+                + ", batches=" + batchRequests.sum()
+                + ", texts=" + texts.sum()
+                + ", failures=" + failures.sum()
+                + ", maxConcurrent=" + maxRunning.get();
+    }
+}
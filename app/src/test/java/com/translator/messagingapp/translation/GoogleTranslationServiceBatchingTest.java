@@ -0,0 +1,176 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests request batching in GoogleTranslationService against a local stub of the v2 endpoint.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GoogleTranslationServiceBatchingTest {
+
+    private HttpServer server;
+    private GoogleTranslationService service;
+    private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<>());
+    private volatile int responseCode = 200;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/translate", exchange -> {
+            JSONObject request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = new JSONObject(readFully(in));
+            } catch (Exception e) {
+                throw new java.io.IOException(e);
+            }
+
+            byte[] response;
+            try {
+                JSONArray q = request.getJSONArray("q");
+                List<String> texts = new ArrayList<>();
+                JSONArray translations = new JSONArray();
+                for (int i = 0; i < q.length(); i++) {
+                    texts.add(q.getString(i));
+                    translations.put(new JSONObject().put("translatedText",
+                            request.getString("target") + ":" + q.getString(i)));
+                }
+                requests.add(texts);
+                response = new JSONObject().put("data", new JSONObject().put("translations", translations))
+                        .toString().getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                throw new java.io.IOException(e);
+            }
+
+            exchange.sendResponseHeaders(responseCode, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        service = new GoogleTranslationService("test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/translate");
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneCall() throws Exception {
+        List<Future<String>> results = translateConcurrently(20, "es");
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("es:Message " + i, results.get(i).get());
+        }
+        assertTrue("Expected batching, got " + requests.size() + " requests", requests.size() < 20);
+    }
+
+    @Test
+    public void testIdenticalTextsAreSentOnce() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(5);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(callers.submit(() -> service.translate("Hello", "en", "fr")));
+        }
+        for (Future<String> result : results) {
+            assertEquals("fr:Hello", result.get());
+        }
+        callers.shutdown();
+
+        int sent = 0;
+        for (List<String> request : requests) {
+            sent += request.size();
+        }
+        assertTrue(sent < 5);
+    }
+
+    @Test
+    public void testLanguagePairsAreNotMixed() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<String> spanish = callers.submit(() -> service.translate("Hello", "en", "es"));
+        Future<String> german = callers.submit(() -> service.translate("Hello", "en", "de"));
+
+        assertEquals("es:Hello", spanish.get());
+        assertEquals("de:Hello", german.get());
+        callers.shutdown();
+    }
+
+    @Test
+    public void testApiErrorFailsEveryCaller() throws Exception {
+        responseCode = 500;
+
+        for (Future<String> result : translateConcurrently(3, "es")) {
+            assertNull(result.get());
+        }
+    }
+
+    @Test
+    public void testRequestsAreTimed() throws Exception {
+        TranslationHttpClient.RequestTimings timings = new TranslationHttpClient.RequestTimings();
+        okhttp3.Request request = new okhttp3.Request.Builder()
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + "/translate")
+                .tag(TranslationHttpClient.RequestTimings.class, timings)
+                .post(okhttp3.RequestBody.create("{\"q\":[\"Hi\"],\"target\":\"es\"}",
+                        okhttp3.MediaType.get("application/json")))
+                .build();
+
+        try (okhttp3.Response response = TranslationHttpClient.getClient().newCall(request).execute()) {
+            assertEquals(200, response.code());
+            response.body().string();
+        }
+
+        assertTrue(timings.getFirstByteMillis() >= 0);
+        assertTrue(timings.getTotalMillis() >= timings.getFirstByteMillis());
+        assertTrue(TranslationHttpClient.getStatistics().startsWith("Requests: "));
+    }
+
+    private List<Future<String>> translateConcurrently(int count, String targetLanguage) {
+        ExecutorService callers = Executors.newFixedThreadPool(count);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String text = "Message " + i;
+            Callable<String> call = () -> service.translate(text, "en", targetLanguage);
+            results.add(callers.submit(call));
+        }
+        callers.shutdown();
+        return results;
+    }
+
+    private static String readFully(InputStream in) throws java.io.IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.translator.messagingapp.sms.SmsMessage;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for IncomingTranslationQueue.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class IncomingTranslationQueueTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final List<List<SmsMessage>> translated = Collections.synchronizedList(new ArrayList<>());
+    private final List<List<SmsMessage>> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch deliveredLatch = new CountDownLatch(1);
+
+    private IncomingTranslationQueue createQueue(IncomingTranslationQueue.BurstTranslator translator,
+                                                 long windowMs, int maxBurstSize, long deliveryTimeoutMs) {
+        return new IncomingTranslationQueue(messages -> {
+            translated.add(new ArrayList<>(messages));
+            return translator.translate(messages);
+        }, messages -> {
+            delivered.add(messages);
+            deliveredLatch.countDown();
+        }, windowMs, maxBurstSize, deliveryTimeoutMs, now::get);
+    }
+
+    private static List<CompletableFuture<SmsMessage>> completeAll(List<SmsMessage> messages) {
+        List<CompletableFuture<SmsMessage>> results = new ArrayList<>();
+        for (SmsMessage message : messages) {
+            message.setTranslatedText("translated " + message.getOriginalText());
+            results.add(CompletableFuture.completedFuture(message));
+        }
+        return results;
+    }
+
+    private static SmsMessage message(String text) {
+        SmsMessage message = new SmsMessage("+15550100", text);
+        message.setIncoming(true);
+        return message;
+    }
+
+    @Test
+    public void testLoneMessagesAreNotHeld() {
+        IncomingTranslationQueue queue = createQueue(IncomingTranslationQueueTest::completeAll, 500, 50, 5000);
+
+        assertFalse(queue.offer(message("one")));
+        now.addAndGet(600);
+        assertFalse(queue.offer(message("two")));
+
+        assertTrue(translated.isEmpty());
+        assertEquals(0, queue.getBurstCount());
+    }
+
+    @Test
+    public void testBurstIsTranslatedAndDeliveredTogether() throws Exception {
+        IncomingTranslationQueue queue = createQueue(IncomingTranslationQueueTest::completeAll, 50, 50, 5000);
+        SmsMessage second = message("two");
+        SmsMessage third = message("three");
+
+        assertFalse(queue.offer(message("one")));
+        now.addAndGet(10);
+        assertTrue(queue.offer(second));
+        now.addAndGet(10);
+        assertTrue(queue.offer(third));
+
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(Arrays.asList(second, third)), translated);
+        assertEquals(1, delivered.size());
+        assertEquals("translated three", delivered.get(0).get(1).getTranslatedText());
+    }
+
+    @Test
+    public void testFullBurstIsSentEarly() throws Exception {
+        IncomingTranslationQueue queue = createQueue(IncomingTranslationQueueTest::completeAll, 60_000, 2, 5000);
+
+        queue.offer(message("one"));
+        queue.offer(message("two"));
+        queue.offer(message("three"));
+
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, translated.size());
+        assertEquals(2, translated.get(0).size());
+    }
+
+    @Test
+    public void testSlowBurstIsDeliveredAfterTimeout() throws Exception {
+        IncomingTranslationQueue queue = createQueue(messages -> {
+            List<CompletableFuture<SmsMessage>> results = new ArrayList<>();
+            for (int i = 0; i < messages.size(); i++) {
+                results.add(new CompletableFuture<>());
+            }
+            return results;
+        }, 50, 50, 50);
+
+        queue.offer(message("one"));
+        queue.offer(message("two"));
+
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertFalse(delivered.get(0).get(0).isTranslated());
+    }
+
+    @Test
+    public void testLateTranslationIsDeliveredAfterTimeout() throws Exception {
+        CompletableFuture<SmsMessage> late = new CompletableFuture<>();
+        CountDownLatch lateLatch = new CountDownLatch(2);
+        IncomingTranslationQueue queue = new IncomingTranslationQueue(messages -> {
+            List<CompletableFuture<SmsMessage>> results = completeAll(messages.subList(0, 1));
+            results.add(late);
+            return results;
+        }, messages -> {
+            delivered.add(new ArrayList<>(messages));
+            deliveredLatch.countDown();
+            lateLatch.countDown();
+        }, 50, 50, 50, now::get);
+        SmsMessage second = message("two");
+        SmsMessage third = message("three");
+
+        queue.offer(message("one"));
+        queue.offer(second);
+        queue.offer(third);
+        queue.flush();
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertFalse(delivered.get(0).get(1).isTranslated());
+
+        third.setTranslatedText("translated three");
+        late.complete(third);
+
+        assertTrue(lateLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(second, third), delivered.get(0));
+        assertEquals(Collections.singletonList(third), delivered.get(1));
+    }
+
+    @Test
+    public void testBurstIsDeliveredWithoutTranslator() throws Exception {
+        IncomingTranslationQueue queue = new IncomingTranslationQueue(null, messages -> {
+            delivered.add(messages);
+            deliveredLatch.countDown();
+        }, 50, 50, 5000, now::get);
+
+        queue.offer(message("one"));
+        queue.offer(message("two"));
+        queue.flush();
+
+        assertTrue(deliveredLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, delivered.get(0).size());
+    }
+}
@@ -0,0 +1,81 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for LanguageProfile.
+ */
+public class LanguageProfileTest {
+
+    @Test
+    public void testNeedsEnoughSamples() {
+        LanguageProfile profile = new LanguageProfile();
+        profile.record("es");
+        profile.record("es");
+
+        assertNull(profile.getDominantLanguage(0.75, 3));
+        profile.record("es");
+        assertEquals("es", profile.getDominantLanguage(0.75, 3));
+    }
+
+    @Test
+    public void testOneOddMessageKeepsTheDominantLanguage() {
+        LanguageProfile profile = new LanguageProfile();
+        for (int i = 0; i < 10; i++) {
+            profile.record("es");
+        }
+        profile.record("en");
+
+        assertEquals("es", profile.getDominantLanguage(0.75, 3));
+        assertNull("A single message shouldn't keep the profile very stable", profile.getDominantLanguage(0.9, 3));
+        assertEquals(0.2, profile.getShare("en"), 0.001);
+    }
+
+    @Test
+    public void testFollowsALanguageSwitch() {
+        LanguageProfile profile = new LanguageProfile();
+        for (int i = 0; i < 20; i++) {
+            profile.record("es");
+        }
+        for (int i = 0; i < 7; i++) {
+            profile.record("de");
+        }
+
+        assertEquals("de", profile.getDominantLanguage(0.75, 3));
+        assertEquals(27, profile.getSampleCount());
+    }
+
+    @Test
+    public void testMixedLanguagesHaveNoDominantLanguage() {
+        LanguageProfile profile = new LanguageProfile();
+        for (int i = 0; i < 10; i++) {
+            profile.record(i % 2 == 0 ? "es" : "en");
+        }
+
+        assertNull(profile.getDominantLanguage(0.75, 3));
+        assertTrue(profile.getShare("es") + profile.getShare("en") > 0.99);
+    }
+
+    @Test
+    public void testAnsweredMessagesAreRecheckedPeriodically() {
+        LanguageProfile profile = new LanguageProfile();
+        for (int i = 0; i < 10; i++) {
+            profile.record("es");
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertFalse(profile.shouldRecheck(5));
+        }
+        assertTrue(profile.shouldRecheck(5));
+
+        // The contact switched; rechecks wear the stable profile down
+        profile.record("en");
+        assertFalse("Recording a detection starts a new interval", profile.shouldRecheck(5));
+        assertNull(profile.getDominantLanguage(0.9, 8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.translator.messagingapp.translation;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the translation cache latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMicros());
+        assertEquals(0, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void testMeanAndPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // 90 fast samples around 10µs, 10 slow ones around 5ms
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals((90 * 10 + 10 * 5000) / 100, histogram.getMeanMicros());
+
+        // Percentiles report the upper bound of the power-of-two bucket
+        assertEquals(16, histogram.getPercentileMicros(50));
+        assertEquals(16, histogram.getPercentileMicros(90));
+        assertEquals(8192, histogram.getPercentileMicros(95));
+    }
+
+    @Test
+    public void testVeryLongSamplesLandInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+
+        assertTrue(histogram.getPercentileMicros(100) >= TimeUnit.SECONDS.toMicros(60));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(50));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int samplesPerThread = 10000;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < samplesPerThread; i++) {
+                    histogram.record(i);
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(threads * samplesPerThread, histogram.getCount());
+    }
+}
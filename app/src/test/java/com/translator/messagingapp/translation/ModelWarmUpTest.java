@@ -0,0 +1,121 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for ModelWarmUp.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ModelWarmUpTest {
+
+    private final List<String> warmed = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> reported = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch identifierStarted = new CountDownLatch(1);
+    private CountDownLatch identifierRelease;
+    private TranslationScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new TranslationScheduler();
+        identifierRelease = new CountDownLatch(0);
+    }
+
+    private ModelWarmUp createWarmUp(List<String[]> pairs) {
+        return new ModelWarmUp(new ModelWarmUp.Models() {
+            @Override
+            public boolean warmUpIdentifier() {
+                identifierStarted.countDown();
+                try {
+                    identifierRelease.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                warmed.add("identifier");
+                return true;
+            }
+
+            @Override
+            public boolean warmUpTranslator(String sourceLanguage, String targetLanguage) {
+                warmed.add(sourceLanguage + "->" + targetLanguage);
+                // No models for French
+                return !sourceLanguage.equals("fr");
+            }
+        }, pairs, scheduler);
+    }
+
+    private void record(String stage, long elapsedMs, boolean success) {
+        reported.add(stage + (success ? "" : " failed"));
+    }
+
+    @Test
+    public void testTranslatorPairsCoverBothDirections() {
+        List<String[]> pairs = ModelWarmUp.getTranslatorPairs("en", "es");
+
+        assertEquals(2, pairs.size());
+        assertArrayEquals(new String[]{"es", "en"}, pairs.get(0));
+        assertArrayEquals(new String[]{"en", "es"}, pairs.get(1));
+        assertTrue(ModelWarmUp.getTranslatorPairs("en", "en-GB").isEmpty());
+        assertTrue(ModelWarmUp.getTranslatorPairs("en", null).isEmpty());
+    }
+
+    @Test
+    public void testWarmsUpIdentifierThenTranslators() throws Exception {
+        ModelWarmUp warmUp = createWarmUp(Arrays.asList(new String[]{"es", "en"}, new String[]{"fr", "en"}));
+
+        warmUp.start(this::record).get(5, TimeUnit.SECONDS);
+        warmUp.start(this::record).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("identifier", "es->en", "fr->en"), warmed);
+        assertEquals(Arrays.asList(ModelWarmUp.STAGE_IDENTIFIER, "translator_es_en", "translator_fr_en failed",
+                ModelWarmUp.STAGE_TOTAL + " failed"), reported);
+    }
+
+    @Test
+    public void testCancelStopsBeforeNextStage() throws Exception {
+        identifierRelease = new CountDownLatch(1);
+        ModelWarmUp warmUp = createWarmUp(Collections.singletonList(new String[]{"es", "en"}));
+
+        warmUp.start(this::record);
+        assertTrue(identifierStarted.await(5, TimeUnit.SECONDS));
+        warmUp.cancel();
+        identifierRelease.countDown();
+
+        assertEquals(Collections.singletonList("identifier"), waitForStages(1));
+        Thread.sleep(100);
+        assertEquals(Collections.singletonList("identifier"), warmed);
+        assertEquals(Collections.singletonList(ModelWarmUp.STAGE_IDENTIFIER), reported);
+    }
+
+    @Test
+    public void testCancelledWarmUpNeverStarts() throws Exception {
+        ModelWarmUp warmUp = createWarmUp(Collections.singletonList(new String[]{"es", "en"}));
+
+        warmUp.cancel();
+        warmUp.start(this::record).get(5, TimeUnit.SECONDS);
+
+        assertTrue(warmed.isEmpty());
+        assertTrue(warmUp.isCancelled());
+    }
+
+    private List<String> waitForStages(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (warmed.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return new ArrayList<>(warmed);
+    }
+}
@@ -0,0 +1,79 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for NegativeTranslationCache.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NegativeTranslationCacheTest {
+
+    private NegativeTranslationCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new NegativeTranslationCache();
+    }
+
+    @Test
+    public void testRecordedFailureShortCircuitsRepeatAttempts() {
+        cache.put("Hola amigo", "es", NegativeTranslationCache.Reason.SAME_LANGUAGE, "Text is already in Spanish");
+
+        NegativeTranslationCache.Entry entry = cache.get("Hola amigo", "es");
+        assertNotNull(entry);
+        assertEquals(NegativeTranslationCache.Reason.SAME_LANGUAGE, entry.getReason());
+        assertEquals("Text is already in Spanish", entry.getMessage());
+        assertEquals(1, cache.getShortCircuitCount());
+
+        // Other targets are still attempted
+        assertNull(cache.get("Hola amigo", "fr"));
+    }
+
+    @Test
+    public void testVariantsShareEntry() {
+        cache.put("Hola amigo", "es", NegativeTranslationCache.Reason.SAME_LANGUAGE, null);
+
+        assertNotNull(cache.get("  Hola\u200B  amigo ", "es"));
+        assertNull(cache.get("Hola amigo?", "es"));
+    }
+
+    @Test
+    public void testModelDownloadDropsEntries() {
+        cache.put("Hello", "xx", NegativeTranslationCache.Reason.UNSUPPORTED_PAIR, "Unsupported");
+
+        NegativeTranslationCache.onModelsChanged();
+
+        assertNull(cache.get("Hello", "xx"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSettingsChangeDropsEntries() {
+        cache.validateSettings("auto|true|false");
+        cache.put("Hello", "es", NegativeTranslationCache.Reason.ENGINE_FAILED, "Failed");
+
+        cache.validateSettings("auto|true|false");
+        assertNotNull(cache.get("Hello", "es"));
+
+        cache.validateSettings("auto|true|true");
+        assertNull(cache.get("Hello", "es"));
+    }
+
+    @Test
+    public void testUntranslatableText() {
+        assertTrue(NegativeTranslationCache.isUntranslatable("😀👍"));
+        assertTrue(NegativeTranslationCache.isUntranslatable("https://example.com/a?b=c"));
+        assertTrue(NegativeTranslationCache.isUntranslatable("12:30 +1 555 0100"));
+        assertFalse(NegativeTranslationCache.isUntranslatable("See https://example.com"));
+        assertFalse(NegativeTranslationCache.isUntranslatable("Привет 😀"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for SingleFlight.
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(flight.execute("hello_es", result -> callers.execute(() -> {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                result.complete("hola");
+            })));
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            assertEquals("hola", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(7, flight.getJoinedCount());
+        assertEquals(0, flight.getInFlightCount());
+        callers.shutdown();
+    }
+
+    @Test
+    public void testDifferentKeysRunSeparately() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> spanish = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("hello_es", result -> spanish.thenAccept(result::complete));
+        CompletableFuture<String> second = flight.execute("hello_de", result -> result.complete("hallo"));
+
+        assertEquals("hallo", second.join());
+        assertFalse(first.isDone());
+        spanish.complete("hola");
+        assertEquals("hola", first.join());
+        assertEquals(2, flight.getCallCount());
+    }
+
+    @Test
+    public void testKeyIsFreedBeforeCallersSeeTheResult() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicReference<CompletableFuture<String>> retry = new AtomicReference<>();
+
+        // A caller that retries as soon as the first call fails must start a new call
+        flight.execute("hello_es", result -> result.complete(null))
+                .thenAccept(value -> retry.set(flight.execute("hello_es", result -> result.complete("hola"))));
+
+        assertEquals("hola", retry.get().join());
+        assertEquals(2, flight.getCallCount());
+        assertEquals(0, flight.getJoinedCount());
+    }
+
+    @Test
+    public void testFailureIsSharedAndThenForgotten() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("engine down");
+
+        CompletableFuture<String> failed = flight.execute("hello_es", result -> {
+            throw failure;
+        });
+        try {
+            failed.get();
+            fail("Expected the call to fail");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertTrue(failed.isCompletedExceptionally());
+
+        assertEquals("hola", flight.execute("hello_es", result -> result.complete("hola")).get());
+    }
+}
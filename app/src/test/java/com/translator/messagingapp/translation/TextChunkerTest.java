@@ -0,0 +1,71 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests for TextChunker.
+ */
+public class TextChunkerTest {
+
+    private static String join(List<TranslationMemory.Segment> chunks) {
+        StringBuilder builder = new StringBuilder();
+        for (TranslationMemory.Segment chunk : chunks) {
+            builder.append(chunk.leading).append(chunk.text).append(chunk.trailing);
+        }
+        return builder.toString();
+    }
+
+    private static void assertChunksFit(List<TranslationMemory.Segment> chunks, int maxChars) {
+        for (TranslationMemory.Segment chunk : chunks) {
+            int length = chunk.leading.length() + chunk.text.length() + chunk.trailing.length();
+            assertTrue("Chunk too long: " + chunk.text, length <= maxChars);
+        }
+    }
+
+    @Test
+    public void testShortTextIsOneChunk() {
+        List<TranslationMemory.Segment> chunks = TextChunker.split("Hola. ¿Qué tal?", 100);
+
+        assertEquals(1, chunks.size());
+        assertEquals("Hola. ¿Qué tal?", chunks.get(0).text);
+    }
+
+    @Test
+    public void testChunksReassembleIntoOriginalText() {
+        String text = "First sentence here. Second one follows!\n\nA new paragraph starts. It goes on a while.\n"
+                + "Another line?  Yes.   ";
+
+        for (int maxChars : new int[] {30, 60, 1000}) {
+            List<TranslationMemory.Segment> chunks = TextChunker.split(text, maxChars);
+            assertEquals(text, join(chunks));
+            assertChunksFit(chunks, maxChars);
+        }
+    }
+
+    @Test
+    public void testPrefersParagraphBreaks() {
+        String text = "One. Two.\n\nThree. Four. Five.";
+
+        List<TranslationMemory.Segment> chunks = TextChunker.split(text, 25);
+
+        assertEquals(2, chunks.size());
+        assertEquals("One. Two.", chunks.get(0).text);
+        assertEquals("Three. Four. Five.", chunks.get(1).text);
+    }
+
+    @Test
+    public void testSplitsTextWithoutSpaces() {
+        String text = "这是一个很长的句子没有任何空格也没有标点符号所以只能在任意位置切开";
+
+        List<TranslationMemory.Segment> chunks = TextChunker.split(text, 10);
+
+        assertTrue(chunks.size() > 1);
+        assertEquals(text, join(chunks));
+        assertChunksFit(chunks, 10);
+    }
+}
@@ -0,0 +1,108 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for TokenBucketRateLimiter.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TokenBucketRateLimiterTest {
+
+    private final AtomicLong day = new AtomicLong(19000);
+
+    private TokenBucketRateLimiter newLimiter(TokenBucketRateLimiter.Limits limits, SharedPreferences preferences) {
+        return new TokenBucketRateLimiter("test", limits, preferences, day::get);
+    }
+
+    private static SharedPreferences newPreferences() {
+        return RuntimeEnvironment.getApplication().getSharedPreferences("quota_test", Context.MODE_PRIVATE);
+    }
+
+    @Test
+    public void testBurstThenWaitsForRefill() {
+        TokenBucketRateLimiter limiter = newLimiter(new TokenBucketRateLimiter.Limits(2, 5, 0), null);
+
+        assertTrue(limiter.acquire(0));
+        assertTrue(limiter.acquire(0));
+        assertFalse("An empty bucket shouldn't grant a request that can't wait", limiter.acquire(0));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire(1000));
+        long waitedMs = (System.nanoTime() - start) / 1000000;
+        assertTrue("Should have waited for the next token, waited " + waitedMs + "ms", waitedMs >= 100);
+        assertEquals(3, limiter.getWaitTimes().getCount());
+    }
+
+    @Test
+    public void testRequestIsNotQueuedPastItsDeadline() {
+        TokenBucketRateLimiter limiter = newLimiter(new TokenBucketRateLimiter.Limits(1, 1, 0), null);
+
+        assertTrue(limiter.acquire(0));
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire(100));
+        assertTrue("Should fail right away", (System.nanoTime() - start) / 1000000 < 100);
+        assertTrue(limiter.getStatistics().contains("1 timed out"));
+    }
+
+    @Test
+    public void testSustainedRateIsPaced() {
+        TokenBucketRateLimiter limiter = newLimiter(new TokenBucketRateLimiter.Limits(1, 20, 0), null);
+        assertTrue(limiter.acquire(0));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire(1000));
+        assertTrue(limiter.acquire(1000));
+        long waitedMs = (System.nanoTime() - start) / 1000000;
+        assertTrue("Both tokens should have been waited for, waited " + waitedMs + "ms", waitedMs >= 80);
+    }
+
+    @Test
+    public void testDailyQuotaIsPersistedUntilTheNextDay() {
+        TokenBucketRateLimiter.Limits limits = new TokenBucketRateLimiter.Limits(10, 100, 2);
+        SharedPreferences preferences = newPreferences();
+        TokenBucketRateLimiter limiter = newLimiter(limits, preferences);
+
+        assertTrue(limiter.acquire(0));
+        assertTrue(limiter.acquire(0));
+        assertFalse(limiter.acquire(1000));
+
+        TokenBucketRateLimiter restarted = newLimiter(limits, preferences);
+        assertEquals(2, restarted.getUsedToday());
+        assertFalse(restarted.acquire(0));
+
+        day.incrementAndGet();
+        assertTrue(restarted.acquire(0));
+        assertEquals(1, restarted.getUsedToday());
+    }
+
+    @Test
+    public void testCancelledReservationIsReturned() {
+        TokenBucketRateLimiter limiter = newLimiter(new TokenBucketRateLimiter.Limits(1, 1, 2), null);
+
+        assertTrue(limiter.acquire(0));
+        TokenBucketRateLimiter.Reservation reservation = limiter.reserve(5000);
+        assertNotNull(reservation);
+        assertTrue("The second token isn't due yet", reservation.getDelayNanos() > 0);
+        assertNull("The daily quota is used up", limiter.reserve(5000));
+
+        reservation.cancel();
+        reservation.cancel();
+        assertEquals(1, limiter.getUsedToday());
+        assertTrue(limiter.getStatistics().contains("1 returned"));
+        assertNotNull("The returned token should be reserved again", limiter.reserve(5000));
+    }
+}
@@ -0,0 +1,71 @@
+package com.translator.messagingapp.translation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for splitting translation cache keys into hashed source text and language pair.
+ */
+public class TranslationCacheKeyTest {
+
+    @Test
+    public void testSplitsTargetLanguage() {
+        TranslationCacheKey key = TranslationCacheKey.parse("Hello world_es");
+
+        assertEquals("Hello world", key.sourceText);
+        assertEquals("es", key.languagePair);
+        assertEquals("Hello world_es", key.toString());
+    }
+
+    @Test
+    public void testSplitsSourceAndTargetLanguage() {
+        TranslationCacheKey key = TranslationCacheKey.parse("Hello_auto_zh-TW");
+
+        assertEquals("Hello", key.sourceText);
+        assertEquals("auto_zh-TW", key.languagePair);
+    }
+
+    @Test
+    public void testSameTextSharesHashAcrossLanguages() {
+        TranslationCacheKey spanish = TranslationCacheKey.parse("Good morning_es");
+        TranslationCacheKey french = TranslationCacheKey.parse("Good morning_fr");
+
+        assertEquals(spanish.sourceHash, french.sourceHash);
+        assertNotEquals(spanish.languagePair, french.languagePair);
+    }
+
+    @Test
+    public void testKeysWithoutLanguageKeepWholeKey() {
+        TranslationCacheKey key = TranslationCacheKey.parse("msg_123_translation_state");
+
+        assertEquals("msg_123_translation_state", key.sourceText);
+        assertEquals("", key.languagePair);
+        assertEquals("msg_123_translation_state", key.toString());
+    }
+
+    @Test
+    public void testSourceTextIsNeverEmpty() {
+        TranslationCacheKey key = TranslationCacheKey.parse("fr_es");
+
+        assertEquals("fr", key.sourceText);
+        assertEquals("es", key.languagePair);
+        assertEquals("_es", TranslationCacheKey.parse("_es").sourceText);
+    }
+
+    @Test
+    public void testRoundTripsUnusualKeys() {
+        String[] keys = {"", "_", "a_", "text_with_underscores_de", "emoji 😀_ja", "x_en_fr_de"};
+        for (String original : keys) {
+            TranslationCacheKey key = TranslationCacheKey.parse(original);
+            assertEquals(original, TranslationCacheKey.toKey(key.sourceText, key.languagePair));
+        }
+    }
+
+    @Test
+    public void testHashDistinguishesSimilarTexts() {
+        assertNotEquals(TranslationCacheKey.hash("ab"), TranslationCacheKey.hash("ba"));
+        assertNotEquals(TranslationCacheKey.hash("Hello"), TranslationCacheKey.hash("Hello "));
+        assertEquals(TranslationCacheKey.hash("Hello"), TranslationCacheKey.hash("Hello"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for the translation cache snapshot format.
+ */
+public class TranslationCacheSnapshotTest {
+
+    private static byte[] writeSnapshot(int records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TranslationCacheSnapshot.Writer writer = new TranslationCacheSnapshot.Writer(out);
+        for (int i = 0; i < records; i++) {
+            writer.write("Message number " + i + " ¿qué tal? 👍", "auto_es", "Mensaje número " + i, 1000L + i);
+        }
+        assertEquals(records, writer.finish());
+        return out.toByteArray();
+    }
+
+    private static List<String> readSnapshot(byte[] snapshot) throws IOException {
+        List<String> records = new ArrayList<>();
+        TranslationCacheSnapshot.read(new ByteArrayInputStream(snapshot),
+                (sourceText, languagePair, translation, timestamp) ->
+                        records.add(sourceText + "|" + languagePair + "|" + translation + "|" + timestamp));
+        return records;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<String> records = readSnapshot(writeSnapshot(3));
+
+        assertEquals(3, records.size());
+        assertEquals("Message number 0 ¿qué tal? 👍|auto_es|Mensaje número 0|1000", records.get(0));
+        assertEquals("Message number 2 ¿qué tal? 👍|auto_es|Mensaje número 2|1002", records.get(2));
+    }
+
+    @Test
+    public void testEmptySnapshot() throws IOException {
+        assertTrue(readSnapshot(writeSnapshot(0)).isEmpty());
+    }
+
+    @Test
+    public void testLargeSnapshotIsCompressed() throws IOException {
+        byte[] snapshot = writeSnapshot(10000);
+
+        assertEquals(10000, readSnapshot(snapshot).size());
+        // Repetitive message text compresses well
+        assertTrue("Snapshot is " + snapshot.length + " bytes", snapshot.length < 10000 * 20);
+    }
+
+    @Test
+    public void testCorruptSnapshotIsRejected() throws IOException {
+        byte[] snapshot = writeSnapshot(100);
+        // Flip a bit in the compressed body
+        snapshot[snapshot.length / 2] ^= 0x10;
+
+        assertRejected(snapshot);
+    }
+
+    @Test
+    public void testTruncatedSnapshotIsRejected() throws IOException {
+        byte[] snapshot = writeSnapshot(100);
+
+        assertRejected(Arrays.copyOf(snapshot, snapshot.length - 20));
+    }
+
+    @Test
+    public void testOtherFilesAreRejected() {
+        assertRejected("not a snapshot".getBytes());
+        assertRejected(new byte[0]);
+    }
+
+    private static void assertRejected(byte[] snapshot) {
+        try {
+            readSnapshot(snapshot);
+            fail("Expected the snapshot to be rejected");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+}
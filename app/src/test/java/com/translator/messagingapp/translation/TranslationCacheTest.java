@@ -0,0 +1,66 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for TranslationCache.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslationCacheTest {
+
+    private TranslationCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new TranslationCache(ApplicationProvider.getApplicationContext());
+    }
+
+    @After
+    public void tearDown() {
+        cache.close();
+    }
+
+    private static byte[] writeSnapshot(int records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TranslationCacheSnapshot.Writer writer = new TranslationCacheSnapshot.Writer(out);
+        for (int i = 0; i < records; i++) {
+            writer.write("Message number " + i, "auto_es", "Mensaje número " + i, 1000L + i);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testLargeImportRunsThroughWriter() throws IOException {
+        byte[] snapshot = writeSnapshot(10000);
+        cache.put(TranslationCacheKey.toKey("Queued before import", "auto_es"), "En cola antes");
+
+        long start = System.nanoTime();
+        int imported = cache.importSnapshot(new ByteArrayInputStream(snapshot));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(10000, imported);
+        assertTrue("Importing 10000 translations took " + elapsedMs + "ms", elapsedMs < 10000);
+        assertEquals("Mensaje número 9999", cache.get(TranslationCacheKey.toKey("Message number 9999", "auto_es")));
+        assertEquals("En cola antes", cache.get(TranslationCacheKey.toKey("Queued before import", "auto_es")));
+
+        // The writer keeps serving batches after the import
+        cache.put(TranslationCacheKey.toKey("Queued after import", "auto_es"), "En cola después");
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        assertEquals(10002, cache.exportSnapshot(exported));
+    }
+}
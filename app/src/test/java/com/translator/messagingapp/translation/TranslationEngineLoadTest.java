@@ -0,0 +1,213 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.translator.messagingapp.contact.UserPreferences;
+import com.translator.messagingapp.sms.SmsMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load tests for TranslationManager against FakeTranslationEngine.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslationEngineLoadTest {
+
+    private final Map<String, String> cacheEntries = new ConcurrentHashMap<>();
+    private UserPreferences preferences;
+    private FakeTranslationEngine engine;
+    private TranslationManager manager;
+    private TranslationManager autoManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        TranslationCache cache = mock(TranslationCache.class);
+        when(cache.get(anyString())).thenAnswer(invocation -> cacheEntries.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> cacheEntries.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(cache).put(anyString(), anyString());
+        when(cache.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<String, String> found = new HashMap<>();
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                if (cacheEntries.containsKey(key)) {
+                    found.put(key, cacheEntries.get(key));
+                }
+            }
+            return found;
+        });
+
+        preferences = mock(UserPreferences.class);
+        when(preferences.getTranslationMode()).thenReturn(UserPreferences.TRANSLATION_MODE_ONLINE);
+        when(preferences.getPreferredLanguage()).thenReturn("en");
+
+        engine = new FakeTranslationEngine("fake").setDetectedLanguage("es");
+        manager = new TranslationManager(context, preferences, cache, engine, null, null);
+    }
+
+    @After
+    public void tearDown() {
+        manager.cleanup();
+        if (autoManager != null) {
+            autoManager.cleanup();
+        }
+    }
+
+    /**
+     * Creates a manager in auto mode whose router has measured the online engine
+     * as much faster, so it routes Spanish to English online with an offline hedge.
+     */
+    private TranslationManager createAutoManager(FakeTranslationEngine online, FakeTranslationEngine offline) {
+        UserPreferences autoPreferences = mock(UserPreferences.class);
+        when(autoPreferences.getTranslationMode()).thenReturn(UserPreferences.TRANSLATION_MODE_AUTO);
+        when(autoPreferences.isOfflineTranslationEnabled()).thenReturn(true);
+        when(autoPreferences.getPreferredLanguage()).thenReturn("en");
+        autoManager = new TranslationManager(ApplicationProvider.getApplicationContext(), autoPreferences,
+                mock(TranslationCache.class), online, offline, null);
+        for (int i = 0; i < 5; i++) {
+            autoManager.getEngineRouter().record(EngineRouter.Engine.ONLINE, "es", "en",
+                    TimeUnit.MILLISECONDS.toNanos(10), true);
+            autoManager.getEngineRouter().record(EngineRouter.Engine.OFFLINE, "es", "en",
+                    TimeUnit.MILLISECONDS.toNanos(1000), true);
+        }
+        return autoManager;
+    }
+
+    private static String text(int i) {
+        return "Mensaje numero " + i + " de la prueba";
+    }
+
+    private static List<String> getAll(List<CompletableFuture<String>> translations) throws Exception {
+        List<String> results = new ArrayList<>();
+        for (CompletableFuture<String> translation : translations) {
+            results.add(translation.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    public void testRepeatedTextsAreTranslatedOnce() throws Exception {
+        engine.setLatency(5, 0);
+        for (int i = 0; i < 10; i++) {
+            manager.translateTextAsync(text(i), null, "en").get(5, TimeUnit.SECONDS);
+        }
+
+        List<CompletableFuture<String>> translations = new ArrayList<>();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 10; i++) {
+                translations.add(manager.translateTextAsync(text(i), null, "en"));
+            }
+        }
+
+        List<String> results = getAll(translations);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(FakeTranslationEngine.translationOf(text(i % 10), "en"), results.get(i));
+        }
+        assertEquals(10, engine.getTextCount());
+    }
+
+    @Test
+    public void testConcurrencyCapHoldsUnderLoad() throws Exception {
+        engine.setLatency(20, 0).setMaxConcurrentRequests(2);
+
+        List<CompletableFuture<String>> translations = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            translations.add(manager.translateTextAsync(text(i), null, "en"));
+        }
+
+        assertEquals(12, getAll(translations).size());
+        assertEquals(12, engine.getRequestCount());
+        assertTrue(engine.getStatistics(), engine.getMaxConcurrentRequests() <= 2);
+    }
+
+    @Test
+    public void testInjectedFailureIsNotRetriedDuringBackoff() throws Exception {
+        engine.setFailWhen(text -> text.contains("7"));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                manager.translateTextAsync(text(7), null, "en").get(5, TimeUnit.SECONDS);
+                fail("The engine fails this text");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TranslationException);
+            }
+        }
+
+        assertEquals(1, engine.getRequestCount());
+        assertEquals(1, engine.getFailureCount());
+        assertEquals(FakeTranslationEngine.translationOf(text(8), "en"),
+                manager.translateTextAsync(text(8), null, "en").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIncomingBurstIsBatchedByLanguage() throws Exception {
+        when(preferences.isAutoTranslateEnabled()).thenReturn(true);
+        when(preferences.getPreferredIncomingLanguage()).thenReturn("en");
+        List<SmsMessage> burst = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String text = (i % 2 == 0 ? "Rafale " : "Rafaga ") + i;
+            engine.setDetectedLanguage(text, i % 2 == 0 ? "fr" : "es");
+            SmsMessage message = new SmsMessage("+1555010" + i, text);
+            message.setIncoming(true);
+            burst.add(message);
+        }
+
+        List<CompletableFuture<SmsMessage>> results = manager.translateSmsMessagesAsync(burst);
+
+        for (int i = 0; i < burst.size(); i++) {
+            SmsMessage message = results.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals(FakeTranslationEngine.translationOf(message.getOriginalText(), "en"),
+                    message.getTranslatedText());
+        }
+        assertEquals(2, engine.getBatchRequestCount());
+        assertEquals(6, engine.getTextCount());
+    }
+
+    @Test
+    public void testFailedOnlineTranslationFallsBackOffline() throws Exception {
+        FakeTranslationEngine online = new FakeTranslationEngine("online").setFailWhen(text -> true);
+        FakeTranslationEngine offline = new FakeTranslationEngine("offline");
+        TranslationManager auto = createAutoManager(online, offline);
+
+        assertEquals(FakeTranslationEngine.translationOf(text(1), "en"),
+                auto.translateTextAsync(text(1), "es", "en").get(5, TimeUnit.SECONDS));
+        assertEquals(1, online.getRequestCount());
+        assertEquals(1, offline.getRequestCount());
+    }
+
+    @Test
+    public void testSlowOnlineTranslationIsHedgedOffline() throws Exception {
+        FakeTranslationEngine online = new FakeTranslationEngine("online").setLatency(5000, 0);
+        FakeTranslationEngine offline = new FakeTranslationEngine("offline");
+        TranslationManager auto = createAutoManager(online, offline);
+
+        // The hedge must not join the online request, or this waits for the slow engine
+        assertEquals(FakeTranslationEngine.translationOf(text(2), "en"),
+                auto.translateTextAsync(text(2), "es", "en").get(2, TimeUnit.SECONDS));
+        assertEquals(1, offline.getRequestCount());
+    }
+}
@@ -0,0 +1,192 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.translator.messagingapp.contact.UserPreferences;
+import com.translator.messagingapp.message.Message;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tests for the future-based TranslationManager API.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslationManagerAsyncTest {
+
+    private GoogleTranslationService translationService;
+    private LanguageDetectionService detectionService;
+    private TranslationCache cache;
+    private TranslationManager manager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        translationService = mock(GoogleTranslationService.class);
+        detectionService = mock(LanguageDetectionService.class);
+        cache = mock(TranslationCache.class);
+        when(cache.getAll(anyCollection())).thenReturn(Collections.emptyMap());
+
+        UserPreferences preferences = mock(UserPreferences.class);
+        when(preferences.getTranslationMode()).thenReturn(UserPreferences.TRANSLATION_MODE_ONLINE);
+        when(preferences.getPreferredLanguage()).thenReturn("en");
+        when(translationService.hasApiKey()).thenReturn(true);
+        when(translationService.isAvailable()).thenReturn(true);
+
+        manager = new TranslationManager(context, translationService, preferences, cache,
+                mock(OfflineTranslationService.class), detectionService);
+    }
+
+    @After
+    public void tearDown() {
+        manager.cleanup();
+    }
+
+    @Test
+    public void testCachedTranslationCompletesImmediately() throws Exception {
+        when(cache.get(TranslationManager.getTextCacheKey("Hola", null, "en"))).thenReturn("Hello");
+
+        CompletableFuture<String> translation = manager.translateTextAsync("Hola", null, "en");
+
+        assertTrue(translation.isDone());
+        assertEquals("Hello", translation.get());
+    }
+
+    @Test
+    public void testTranslatesOnline() throws Exception {
+        when(detectionService.detectLanguageSync("Hola")).thenReturn("es");
+        when(translationService.translate("Hola", "es", "en")).thenReturn("Hello");
+
+        assertEquals("Hello", manager.translateTextAsync("Hola", null, "en").get(5, TimeUnit.SECONDS));
+        verify(cache).put(TranslationManager.getTextCacheKey("Hola", null, "en"), "Hello");
+    }
+
+    @Test
+    public void testFailureCarriesCallbackMessage() throws Exception {
+        when(detectionService.detectLanguageSync("Hello there")).thenReturn("en");
+
+        try {
+            manager.translateTextAsync("Hello there", null, "en").get(5, TimeUnit.SECONDS);
+            fail("Text in the target language should not be translated");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TranslationException);
+            assertEquals("Text is already in English", TranslationManager.getErrorMessage(e.getCause()));
+        }
+    }
+
+    @Test
+    public void testCallbackIsAdapterOverFuture() {
+        String[] error = new String[1];
+        manager.translateText("", "en", (success, translatedText, errorMessage) -> error[0] = errorMessage);
+
+        assertEquals("No text to translate", error[0]);
+    }
+
+    @Test
+    public void testCancelledTranslationNeverReachesEngine() throws Exception {
+        CountDownLatch detecting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(detectionService.detectLanguageSync("Hola")).thenAnswer(invocation -> {
+            detecting.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "es";
+        });
+
+        CompletableFuture<String> translation = manager.translateTextAsync("Hola", null, "en");
+        assertTrue(detecting.await(5, TimeUnit.SECONDS));
+        translation.cancel(false);
+        release.countDown();
+
+        verify(translationService, after(500).never()).translate(anyString(), anyString(), anyString());
+        assertEquals("Translation cancelled", TranslationManager.getErrorMessage(new CancellationException()));
+    }
+
+    @Test
+    public void testTimeoutFailsTranslation() throws Exception {
+        CompletableFuture<String> translation = manager.withTimeout(new CompletableFuture<>(), 50);
+
+        try {
+            translation.get(5, TimeUnit.SECONDS);
+            fail("Translation should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertEquals("Translation timed out", TranslationManager.getErrorMessage(e.getCause()));
+        }
+    }
+
+    @Test
+    public void testMessageChainDetectsTranslatesAndUpdatesMessage() throws Exception {
+        when(translationService.detectLanguage("Hola")).thenReturn("es");
+        when(translationService.translate("Hola", "es", "en")).thenReturn("Hello");
+        Message message = new Message("1", "Hola", 0, Message.TYPE_INBOX);
+
+        assertEquals("Hello", manager.translateMessageAsync(message).get(5, TimeUnit.SECONDS));
+        assertEquals("Hello", message.getTranslatedText());
+        assertEquals("es", message.getOriginalLanguage());
+        verify(cache).put("Hola_en", "Hello");
+    }
+
+    @Test
+    public void testMessageTranslationIgnoresRecentFailures() throws Exception {
+        when(translationService.detectLanguage("Hola")).thenReturn("en");
+        Message message = new Message("1", "Hola", 0, Message.TYPE_INBOX);
+        try {
+            manager.translateMessageAsync(message).get(5, TimeUnit.SECONDS);
+            fail("Text in the target language should not be translated");
+        } catch (ExecutionException e) {
+            assertEquals("Text is already in English", TranslationManager.getErrorMessage(e.getCause()));
+        }
+
+        // Tapping again detects afresh instead of replaying the recorded failure
+        when(translationService.detectLanguage("Hola")).thenReturn("es");
+        when(translationService.translate("Hola", "es", "en")).thenReturn("Hello");
+        assertEquals("Hello", manager.translateMessageAsync(message).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testLongTextIsTranslatedInChunks() throws Exception {
+        String text = "Hola amigo mio.\n\nQue tal estas?\n\nMuy bien gracias.";
+        when(detectionService.detectLanguageSync(text)).thenReturn("es");
+        when(translationService.translate(anyString(), eq("es"), eq("en")))
+                .thenAnswer(invocation -> "[" + invocation.getArgument(0) + "]");
+        manager.setMaxChunkChars(18);
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+
+        String translated = manager.translateTextAsync(text, null, "en", false,
+                TranslationScheduler.Priority.USER_INITIATED, this, null,
+                (translatedPrefix, translatedChunks, chunkCount) -> progress.add(translatedChunks))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("[Hola amigo mio.]\n\n[Que tal estas?]\n\n[Muy bien gracias.]", translated);
+        verify(translationService).translate("Que tal estas?", "es", "en");
+        verify(cache).put(TranslationManager.getTextCacheKey(text, null, "en"), translated);
+        assertEquals(2, progress.size());
+    }
+}
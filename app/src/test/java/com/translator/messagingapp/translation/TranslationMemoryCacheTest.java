@@ -0,0 +1,131 @@
+package com.translator.messagingapp.translation;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the W-TinyLFU memory tier of the translation cache.
+ */
+public class TranslationMemoryCacheTest {
+
+    private static String text(int length, char c) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testPutAndGet() {
+        TranslationMemoryCache cache = new TranslationMemoryCache(64 * 1024);
+
+        cache.put("Hello_es", "Hola");
+        cache.put("Goodbye_es", "Adiós");
+
+        assertEquals("Hola", cache.get("Hello_es"));
+        assertEquals("Adiós", cache.get("Goodbye_es"));
+        assertNull(cache.get("Missing_es"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testReplaceUpdatesValueAndWeight() {
+        TranslationMemoryCache cache = new TranslationMemoryCache(64 * 1024);
+
+        cache.put("key", "short");
+        long before = cache.getWeightedSize();
+        cache.put("key", "a much longer translation");
+
+        assertEquals("a much longer translation", cache.get("key"));
+        assertEquals(1, cache.size());
+        assertTrue("Weight should grow with the value", cache.getWeightedSize() > before);
+    }
+
+    @Test
+    public void testStaysWithinByteBudget() {
+        long maxBytes = 16 * 1024;
+        TranslationMemoryCache cache = new TranslationMemoryCache(maxBytes);
+
+        for (int i = 0; i < 2000; i++) {
+            cache.put("message " + i + "_es", "traducción número " + i);
+        }
+
+        assertTrue("Cache should respect its byte budget", cache.getWeightedSize() <= maxBytes);
+        assertTrue("Overflowing entries should be evicted or rejected",
+                cache.getEvictionCount() + cache.getRejectionCount() > 0);
+    }
+
+    @Test
+    public void testOversizedEntryIsNotCached() {
+        TranslationMemoryCache cache = new TranslationMemoryCache(8 * 1024);
+
+        cache.put("huge", text(4096, 'x'));
+
+        assertNull(cache.get("huge"));
+        assertEquals(0, cache.getWeightedSize());
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScan() {
+        TranslationMemoryCache cache = new TranslationMemoryCache(32 * 1024);
+
+        // Build up a small hot set that is read repeatedly
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 20; i++) {
+                String key = "hot " + i + "_es";
+                if (cache.get(key) == null) {
+                    cache.put(key, "caliente " + i);
+                }
+            }
+        }
+
+        // A one-off scan of many distinct keys should not flush the hot set
+        for (int i = 0; i < 5000; i++) {
+            cache.put("cold " + i + "_es", "frío " + i);
+        }
+
+        int hotHits = 0;
+        for (int i = 0; i < 20; i++) {
+            if (cache.get("hot " + i + "_es") != null) {
+                hotHits++;
+            }
+        }
+        // A few hot entries may still be sitting in the admission window when the scan starts
+        assertTrue("Most of the hot set should still be cached, got " + hotHits, hotHits >= 15);
+        assertTrue("Cold scan entries should have been rejected", cache.getRejectionCount() > 0);
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        TranslationMemoryCache cache = new TranslationMemoryCache(64 * 1024);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.remove("a");
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeightedSize());
+        assertEquals(0, cache.getAdmissionCount());
+    }
+
+    @Test
+    public void testNullKeysAndValuesIgnored() {
+        TranslationMemoryCache cache = new TranslationMemoryCache(1024);
+
+        cache.put(null, "value");
+        cache.put("key", null);
+
+        assertNull(cache.get(null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPositiveCapacity() {
+        new TranslationMemoryCache(0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.translator.messagingapp.translation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the sentence-level translation memory.
+ */
+public class TranslationMemoryTest {
+
+    private TranslationCache mockCache;
+    private Map<String, String> stored;
+    private TranslationMemory memory;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        stored = new HashMap<>();
+        mockCache = mock(TranslationCache.class);
+        when(mockCache.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<String, String> found = new HashMap<>();
+            for (String key : (Collection<String>) invocation.getArgument(0)) {
+                if (stored.containsKey(key)) {
+                    found.put(key, stored.get(key));
+                }
+            }
+            return found;
+        });
+        doAnswer(invocation -> stored.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(mockCache).put(anyString(), anyString());
+        memory = new TranslationMemory(mockCache);
+    }
+
+    @Test
+    public void testSegmentsSentencesAndLines() {
+        List<TranslationMemory.Segment> segments =
+                TranslationMemory.segment("Hi there! How are you?\n-- Sent from my phone");
+
+        assertEquals(3, segments.size());
+        assertEquals("Hi there!", segments.get(0).text);
+        assertEquals("How are you?", segments.get(1).text);
+        assertEquals("-- Sent from my phone", segments.get(2).text);
+    }
+
+    @Test
+    public void testSegmentationPreservesWhitespace() {
+        String text = "  One.  Two?\n\nThree ";
+        StringBuilder rebuilt = new StringBuilder();
+        for (TranslationMemory.Segment segment : TranslationMemory.segment(text)) {
+            rebuilt.append(segment.leading).append(segment.text).append(segment.trailing);
+        }
+
+        assertEquals(text, rebuilt.toString());
+    }
+
+    @Test
+    public void testOnlyUncachedSentencesAreMissing() {
+        stored.put("Good morning!_en_es", "¡Buenos días!");
+        stored.put("-- Sent from my phone_en_es", "-- Enviado desde mi teléfono");
+
+        TranslationMemory.Plan plan = memory.plan("Good morning! Are we still on for lunch?\n-- Sent from my phone", "en", "es");
+
+        assertNotNull(plan);
+        assertFalse(plan.isComplete());
+        assertEquals(Arrays.asList("Are we still on for lunch?"), plan.getMissingTexts());
+        assertEquals(2, memory.getSegmentHits());
+        assertEquals(1, memory.getSegmentMisses());
+
+        String translated = plan.complete(Arrays.asList("¿Seguimos con el almuerzo?"));
+
+        assertEquals("¡Buenos días! ¿Seguimos con el almuerzo?\n-- Enviado desde mi teléfono", translated);
+        assertEquals("New sentences should be remembered", "¿Seguimos con el almuerzo?",
+                stored.get("Are we still on for lunch?_en_es"));
+    }
+
+    @Test
+    public void testFullyCachedMessageNeedsNoEngine() {
+        stored.put("Thanks!_en_fr", "Merci !");
+        stored.put("See you soon._en_fr", "À bientôt.");
+
+        TranslationMemory.Plan plan = memory.plan("Thanks! See you soon.", "en", "fr");
+
+        assertTrue(plan.isComplete());
+        assertEquals("Merci ! À bientôt.", plan.assemble());
+    }
+
+    @Test
+    public void testSentencesAreKeyedBySourceLanguage() {
+        // "Gift" is a present in English but poison in German
+        stored.put("Gift._en_es", "Regalo.");
+
+        TranslationMemory.Plan plan = memory.plan("Gift.", "de", "es");
+
+        assertFalse(plan.isComplete());
+        assertEquals(Arrays.asList("Gift."), plan.getMissingTexts());
+    }
+
+    @Test
+    public void testIncompleteResultsAreRejected() {
+        TranslationMemory.Plan plan = memory.plan("One. Two.", "en", "de");
+
+        assertNull(plan.complete(Arrays.asList("Eins.")));
+        assertNull(plan.complete(Arrays.asList("Eins.", null)));
+        assertNull(plan.assemble());
+    }
+
+    @Test
+    public void testLongOrEmptyTextIsNotPlanned() {
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i <= TranslationMemory.MAX_SEGMENTS; i++) {
+            longText.append("Sentence ").append(i).append(". ");
+        }
+
+        assertNull(memory.plan(longText.toString(), "en", "es"));
+        assertNull(memory.plan("   ", "en", "es"));
+        assertNull(new TranslationMemory(null).plan("Hello.", "en", "es"));
+    }
+}
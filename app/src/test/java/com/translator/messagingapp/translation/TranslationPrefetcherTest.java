@@ -0,0 +1,111 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.translator.messagingapp.message.Message;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for TranslationPrefetcher.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslationPrefetcherTest {
+
+    private final List<String> requestedTexts = new ArrayList<>();
+    private final List<TranslationManager.TranslationCallback> callbacks = new ArrayList<>();
+    private final Map<String, String> cache = new HashMap<>();
+    private final List<Object> cancelledOwners = new ArrayList<>();
+
+    private final TranslationPrefetcher prefetcher = new TranslationPrefetcher(
+            (text, targetLanguage, owner, callback) -> {
+                requestedTexts.add(text);
+                callbacks.add(callback);
+            },
+            keys -> {
+                Map<String, String> found = new HashMap<>();
+                for (String key : keys) {
+                    if (cache.containsKey(key)) {
+                        found.put(key, cache.get(key));
+                    }
+                }
+                return found;
+            },
+            2, cancelledOwners::add);
+
+    private static Message incoming(String body) {
+        return new Message("1", body, 0, Message.TYPE_INBOX);
+    }
+
+    /**
+     * Completes every translation requested so far.
+     */
+    private void completeAll() {
+        List<TranslationManager.TranslationCallback> running = new ArrayList<>(callbacks);
+        callbacks.clear();
+        for (TranslationManager.TranslationCallback callback : running) {
+            callback.onTranslationComplete(true, "translated", null);
+        }
+    }
+
+    @Test
+    public void testSkipsOutgoingTranslatedAndCachedMessages() {
+        Message outgoing = new Message("2", "Hola", 0, Message.TYPE_SENT);
+        Message translated = incoming("Bonjour");
+        translated.setTranslatedText("Hello");
+        cache.put(TranslationManager.getTextCacheKey("Ciao", null, "en"), "Hi");
+
+        int queued = prefetcher.prefetch(Arrays.asList(outgoing, translated, incoming("Ciao"),
+                incoming("Guten Tag"), incoming("12:30")), "en");
+
+        assertEquals(1, queued);
+        assertEquals(Collections.singletonList("Guten Tag"), requestedTexts);
+        assertEquals(1, prefetcher.getAlreadyCachedCount());
+    }
+
+    @Test
+    public void testTranslatesNewestFirstOneBatchAtATime() {
+        prefetcher.prefetch(Arrays.asList(incoming("uno"), incoming("dos"), incoming("tres"),
+                incoming("dos")), "en");
+
+        // The duplicate is translated once, newest first, in batches of two
+        assertEquals(Arrays.asList("dos", "tres"), requestedTexts);
+        completeAll();
+        assertEquals(Arrays.asList("dos", "tres", "uno"), requestedTexts);
+        completeAll();
+        assertEquals(0, prefetcher.getPendingCount());
+    }
+
+    @Test
+    public void testPendingTextsAreNotPrefetchedTwice() {
+        List<Message> page = Arrays.asList(incoming("uno"), incoming("dos"));
+        prefetcher.prefetch(page, "en");
+
+        assertEquals(0, prefetcher.prefetch(page, "en"));
+        assertEquals(2, requestedTexts.size());
+    }
+
+    @Test
+    public void testCancelStopsRemainingBatches() {
+        prefetcher.prefetch(Arrays.asList(incoming("uno"), incoming("dos"), incoming("tres")), "en");
+        prefetcher.cancel();
+
+        assertEquals(Collections.singletonList(prefetcher), cancelledOwners);
+        assertEquals(0, prefetcher.getPendingCount());
+        completeAll();
+        assertEquals(2, requestedTexts.size());
+
+        // A cancelled prefetcher can start again
+        assertTrue(prefetcher.prefetch(Collections.singletonList(incoming("cuatro")), "en") > 0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for TranslationRequestBatcher.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslationRequestBatcherTest {
+
+    private final List<TranslationScheduler.Priority> dispatched = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch dispatchedLatch = new CountDownLatch(1);
+
+    private static List<String> echo(List<String> texts, String sourceLanguage, String targetLanguage) {
+        List<String> translations = new ArrayList<>();
+        for (String text : texts) {
+            translations.add(targetLanguage + ":" + text);
+        }
+        return translations;
+    }
+
+    @Test
+    public void testBatchIsSentAtItsMostUrgentPriority() throws Exception {
+        TranslationRequestBatcher batcher = new TranslationRequestBatcher(
+                TranslationRequestBatcherTest::echo, (send, priority) -> {
+                    dispatched.add(priority);
+                    send.run();
+                    return CompletableFuture.completedFuture(null);
+                }, 50, 10, 10000);
+
+        CompletableFuture<String> prefetch = batcher.submit("one", "en", "es", TranslationScheduler.Priority.PREFETCH);
+        CompletableFuture<String> visible = batcher.submit("two", "en", "es", TranslationScheduler.Priority.VISIBLE);
+
+        assertEquals("es:one", prefetch.get(5, TimeUnit.SECONDS));
+        assertEquals("es:two", visible.get(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(TranslationScheduler.Priority.VISIBLE), dispatched);
+    }
+
+    @Test
+    public void testDroppedBatchCompletesItsCallers() throws Exception {
+        CompletableFuture<Void> queued = new CompletableFuture<>();
+        TranslationRequestBatcher batcher = new TranslationRequestBatcher(
+                TranslationRequestBatcherTest::echo, (send, priority) -> {
+                    dispatchedLatch.countDown();
+                    return queued;
+                }, 10, 10, 10000);
+
+        CompletableFuture<String> pending = batcher.submit("one", "en", "es",
+                TranslationScheduler.Priority.INCOMING);
+        assertTrue(dispatchedLatch.await(5, TimeUnit.SECONDS));
+        queued.completeExceptionally(new RejectedExecutionException("Displaced"));
+
+        assertNull(pending.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectedBatchIsSentOnTheCallingThread() throws Exception {
+        TranslationRequestBatcher batcher = new TranslationRequestBatcher(
+                TranslationRequestBatcherTest::echo, (send, priority) -> {
+                    CompletableFuture<Void> rejected = new CompletableFuture<>();
+                    rejected.completeExceptionally(new RejectedExecutionException("Full"));
+                    return rejected;
+                }, 10, 10, 10000);
+
+        assertEquals("es:one", batcher.submit("one", "en", "es", TranslationScheduler.Priority.USER_INITIATED)
+                .get(5, TimeUnit.SECONDS));
+    }
+}
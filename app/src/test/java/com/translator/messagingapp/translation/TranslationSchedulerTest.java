@@ -0,0 +1,180 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for TranslationScheduler.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslationSchedulerTest {
+
+    private final TranslationScheduler scheduler = new TranslationScheduler();
+
+    /**
+     * Occupies the two workers of the offline lane, each until its latch is released.
+     */
+    private CountDownLatch[] blockOfflineLane() throws InterruptedException {
+        CountDownLatch[] releases = {new CountDownLatch(1), new CountDownLatch(1)};
+        CountDownLatch started = new CountDownLatch(2);
+        for (CountDownLatch release : releases) {
+            scheduler.execute(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.Priority.VISIBLE, null, () -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return releases;
+    }
+
+    @Test
+    public void testQueuedWorkRunsByPriority() throws Exception {
+        CountDownLatch[] releases = blockOfflineLane();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        futures.add(submit(TranslationScheduler.Priority.INCOMING, "incoming", order));
+        futures.add(submit(TranslationScheduler.Priority.USER_INITIATED, "user", order));
+        futures.add(submit(TranslationScheduler.Priority.VISIBLE, "visible", order));
+        futures.add(submit(TranslationScheduler.Priority.VISIBLE, "visible2", order));
+        // Free a single worker so the queue drains one task at a time
+        releases[0].countDown();
+        for (CompletableFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        releases[1].countDown();
+
+        assertEquals("visible", order.get(0));
+        assertEquals("visible2", order.get(1));
+        assertEquals("user", order.get(2));
+        assertEquals("incoming", order.get(3));
+    }
+
+    @Test
+    public void testPrefetchNeverTakesTheLastWorker() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        AtomicInteger prefetchesStarted = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            scheduler.execute(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.Priority.PREFETCH, null, () -> {
+                prefetchesStarted.incrementAndGet();
+                firstStarted.countDown();
+                await(release);
+            });
+        }
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        // One worker stays free for visible work while prefetches are blocked
+        CompletableFuture<String> visible = scheduler.submit(TranslationScheduler.Lane.OFFLINE,
+                TranslationScheduler.Priority.VISIBLE, null, () -> "shown");
+        assertEquals("shown", visible.get(5, TimeUnit.SECONDS));
+        assertEquals(1, prefetchesStarted.get());
+        release.countDown();
+    }
+
+    @Test
+    public void testCancelledWorkDoesNotRun() throws Exception {
+        CountDownLatch[] releases = blockOfflineLane();
+        AtomicInteger ran = new AtomicInteger();
+        Object owner = new Object();
+
+        CompletableFuture<Void> cancelled = scheduler.execute(TranslationScheduler.Lane.OFFLINE,
+                TranslationScheduler.Priority.INCOMING, null, ran::incrementAndGet);
+        scheduler.execute(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.Priority.PREFETCH, owner,
+                ran::incrementAndGet);
+        scheduler.execute(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.Priority.PREFETCH, owner,
+                ran::incrementAndGet);
+
+        assertTrue(cancelled.cancel(false));
+        assertEquals(2, scheduler.cancelAll(owner));
+        assertEquals(0, scheduler.getQueuedCount(TranslationScheduler.Lane.OFFLINE));
+        releases[0].countDown();
+        releases[1].countDown();
+
+        scheduler.submit(TranslationScheduler.Lane.OFFLINE, TranslationScheduler.Priority.INCOMING, null, () -> null)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    public void testFullQueueDisplacesLessUrgentWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        // The model lane has two workers and room for 32 queued tasks
+        for (int i = 0; i < 2; i++) {
+            scheduler.execute(TranslationScheduler.Lane.MODELS, TranslationScheduler.Priority.VISIBLE, null, () -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Void>> prefetches = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            prefetches.add(scheduler.execute(TranslationScheduler.Lane.MODELS,
+                    TranslationScheduler.Priority.PREFETCH, null, () -> { }));
+        }
+        assertTrue(scheduler.isSaturated(TranslationScheduler.Lane.MODELS));
+
+        // Another prefetch is turned away, a visible task displaces the newest prefetch
+        assertRejected(scheduler.execute(TranslationScheduler.Lane.MODELS,
+                TranslationScheduler.Priority.PREFETCH, null, () -> { }));
+        CompletableFuture<Void> visible = scheduler.execute(TranslationScheduler.Lane.MODELS,
+                TranslationScheduler.Priority.VISIBLE, null, () -> { });
+        assertRejected(prefetches.get(31));
+        assertFalse(visible.isDone());
+
+        release.countDown();
+        visible.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWorkInheritsThePriorityOfItsTask() throws Exception {
+        assertEquals(TranslationScheduler.Priority.USER_INITIATED, TranslationScheduler.currentPriority());
+
+        TranslationScheduler.Priority inherited = scheduler.submit(TranslationScheduler.Lane.GENERAL,
+                TranslationScheduler.Priority.INCOMING, null, TranslationScheduler::currentPriority)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(TranslationScheduler.Priority.INCOMING, inherited);
+    }
+
+    private CompletableFuture<Void> submit(TranslationScheduler.Priority priority, String name, List<String> order) {
+        return scheduler.execute(TranslationScheduler.Lane.OFFLINE, priority, null, () -> order.add(name));
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected the task to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        } catch (TimeoutException e) {
+            fail("Task was neither run nor rejected");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.translator.messagingapp.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for TranslatorPool.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TranslatorPoolTest {
+
+    private static final class FakeTranslator implements Closeable {
+        final String pair;
+        boolean closed;
+
+        FakeTranslator(String pair) {
+            this.pair = pair;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private final List<FakeTranslator> created = new ArrayList<>();
+
+    private TranslatorPool<FakeTranslator> newPool(int maxSize, long idleTimeoutMs) {
+        return new TranslatorPool<>((source, target) -> {
+            FakeTranslator translator = new FakeTranslator(source + "_" + target);
+            created.add(translator);
+            return translator;
+        }, maxSize, idleTimeoutMs);
+    }
+
+    @Test
+    public void testTranslatorIsReused() {
+        TranslatorPool<FakeTranslator> pool = newPool(3, 60000);
+
+        FakeTranslator first;
+        try (TranslatorPool.Lease<FakeTranslator> lease = pool.acquire("en", "es")) {
+            first = lease.get();
+        }
+        try (TranslatorPool.Lease<FakeTranslator> lease = pool.acquire("en", "es")) {
+            assertSame(first, lease.get());
+        }
+
+        assertEquals(1, created.size());
+        assertFalse(first.closed);
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentUsersShareOneTranslator() {
+        TranslatorPool<FakeTranslator> pool = newPool(3, 60000);
+
+        TranslatorPool.Lease<FakeTranslator> first = pool.acquire("en", "es");
+        TranslatorPool.Lease<FakeTranslator> second = pool.acquire("en", "es");
+
+        assertSame(first.get(), second.get());
+        first.close();
+        second.close();
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIdleTranslatorMakesRoom() {
+        TranslatorPool<FakeTranslator> pool = newPool(2, 60000);
+
+        pool.acquire("en", "es").close();
+        pool.acquire("en", "de").close();
+        pool.acquire("en", "es").close();
+        pool.acquire("en", "fr").close();
+
+        assertEquals(2, pool.size());
+        assertTrue("en_de should have been evicted", created.get(1).closed);
+        assertFalse(created.get(0).closed);
+        assertEquals(1, pool.getEvictionCount());
+    }
+
+    @Test
+    public void testTranslatorsInUseAreNotEvictedForRoom() {
+        TranslatorPool<FakeTranslator> pool = newPool(1, 60000);
+
+        TranslatorPool.Lease<FakeTranslator> spanish = pool.acquire("en", "es");
+        pool.acquire("en", "de").close();
+
+        assertFalse(spanish.get().closed);
+        spanish.close();
+    }
+
+    @Test
+    public void testIdleTranslatorsAreClosed() {
+        TranslatorPool<FakeTranslator> pool = newPool(3, 0);
+
+        TranslatorPool.Lease<FakeTranslator> busy = pool.acquire("en", "es");
+        pool.acquire("en", "de").close();
+
+        assertEquals(1, pool.evictIdle());
+        assertFalse(busy.get().closed);
+        assertTrue(created.get(1).closed);
+        busy.close();
+    }
+
+    @Test
+    public void testMemoryPressureClosesTranslatorsOnceReleased() {
+        TranslatorPool<FakeTranslator> pool = newPool(3, 60000);
+
+        TranslatorPool.Lease<FakeTranslator> busy = pool.acquire("en", "es");
+        pool.acquire("en", "de").close();
+        pool.evictAll();
+
+        assertEquals(0, pool.size());
+        assertTrue(created.get(1).closed);
+        assertFalse(busy.get().closed);
+        busy.close();
+        assertTrue(busy.get().closed);
+
+        try (TranslatorPool.Lease<FakeTranslator> lease = pool.acquire("en", "es")) {
+            assertNotSame(busy.get(), lease.get());
+        }
+    }
+
+    @Test
+    public void testEvictLanguage() {
+        TranslatorPool<FakeTranslator> pool = newPool(3, 60000);
+
+        pool.acquire("en", "es").close();
+        pool.acquire("es", "de").close();
+        pool.acquire("en", "de").close();
+        pool.evictLanguage("es");
+
+        assertEquals(1, pool.size());
+        assertTrue(created.get(0).closed);
+        assertTrue(created.get(1).closed);
+        assertFalse(created.get(2).closed);
+    }
+}